@@ -0,0 +1,54 @@
+package com.nobaritone.plugin;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for message formatting on the alert path
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class LanguageManagerBenchmark {
+    private LanguageManager languageManager;
+    private int violationLevel;
+
+    @Setup
+    public void loadMessages() {
+        Map<String, String> messages = new HashMap<>();
+        messages.put("player.warning", "Warning: Your movement patterns are being flagged as suspicious.");
+        messages.put("admin.notification", "Player {0} may be using Baritone. Violation level: {1}");
+        languageManager = new LanguageManager(messages);
+    }
+
+    /**
+     * Message without placeholders
+     */
+    @Benchmark
+    public String plainMessage() {
+        return languageManager.getMessage("player.warning");
+    }
+
+    /**
+     * Admin notification with two placeholders, as sent for every flagged move
+     */
+    @Benchmark
+    public String formattedMessage() {
+        return languageManager.getMessage("admin.notification", "Steve", String.valueOf(violationLevel++ & 63));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,109 @@
+package com.nobaritone.plugin;
+
+import java.util.Random;
+
+/**
+ * Synthetic movement traces used to drive the benchmarks
+ */
+public class MovementTraces {
+    private static final double WALK_SPEED = 0.2158;
+    private static final double JUMP_HEIGHT = 0.42;
+
+    public enum Kind {
+        /**
+         * Wandering walk with noisy heading, jittery timing and irregular jumps
+         */
+        HUMAN,
+        /**
+         * Grid-aligned straight runs with right-angle turns, tick-exact timing and perfect jumps
+         */
+        BARITONE
+    }
+
+    private final int length;
+    final long[] timestamps;
+    final double[] x;
+    final double[] y;
+    final double[] z;
+    final float[] yaw;
+    final float[] pitch;
+
+    private MovementTraces(int length) {
+        this.length = length;
+        this.timestamps = new long[length + 1];
+        this.x = new double[length + 1];
+        this.y = new double[length + 1];
+        this.z = new double[length + 1];
+        this.yaw = new float[length + 1];
+        this.pitch = new float[length + 1];
+    }
+
+    /**
+     * Generates a trace of the given number of moves, reproducible for the same seed
+     */
+    public static MovementTraces generate(Kind kind, int length, long seed) {
+        MovementTraces trace = new MovementTraces(length);
+        Random random = new Random(seed);
+
+        long time = 1_000_000L;
+        double heading = 0;
+        double height = 64;
+
+        for (int i = 0; i <= length; i++) {
+            if (i > 0) {
+                double step;
+                double rise = 0;
+
+                if (kind == Kind.HUMAN) {
+                    time += 40 + random.nextInt(25);
+                    heading += random.nextGaussian() * 0.15;
+                    step = WALK_SPEED * (0.8 + random.nextDouble() * 0.4);
+                    if (random.nextInt(40) == 0) {
+                        rise = JUMP_HEIGHT * (0.7 + random.nextDouble() * 0.3);
+                    }
+                } else {
+                    time += 50;
+                    if (i % 24 == 0) {
+                        heading += Math.PI / 2 * (random.nextBoolean() ? 1 : -1);
+                    }
+                    step = WALK_SPEED;
+                    if (i % 30 == 0) {
+                        rise = JUMP_HEIGHT;
+                    }
+                }
+
+                trace.x[i] = trace.x[i - 1] - Math.sin(heading) * step;
+                trace.z[i] = trace.z[i - 1] + Math.cos(heading) * step;
+                height = rise > 0 ? height + rise : Math.max(64, height - 0.08);
+            }
+
+            trace.timestamps[i] = time;
+            trace.y[i] = height;
+            trace.yaw[i] = (float) Math.toDegrees(heading);
+            trace.pitch[i] = kind == Kind.HUMAN ? (float) (random.nextGaussian() * 5) : 0;
+        }
+
+        return trace;
+    }
+
+    /**
+     * Gets the number of moves in the trace
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Feeds a move into the movement data. The trace is looped for sequences past
+     * its end, with timestamps shifted so that time keeps moving forward.
+     */
+    public void replay(PlayerMovementData data, long sequence) {
+        int index = (int) (sequence % length);
+        long timeShift = (sequence / length) * (timestamps[length] - timestamps[0]);
+
+        data.addMovement(timestamps[index + 1] + timeShift,
+                x[index], y[index], z[index],
+                x[index + 1], y[index + 1], z[index + 1],
+                yaw[index], pitch[index]);
+    }
+}
\ No newline at end of file
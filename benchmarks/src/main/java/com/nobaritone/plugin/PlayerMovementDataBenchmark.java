@@ -0,0 +1,95 @@
+package com.nobaritone.plugin;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the per-move analysis in PlayerMovementData
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class PlayerMovementDataBenchmark {
+    private static final int TRACE_LENGTH = 10_000;
+
+    @Param({"HUMAN", "BARITONE"})
+    public MovementTraces.Kind trace;
+
+    @Param({"20", "100"})
+    public int historySize;
+
+    // Measures the overhead of the detection metrics probes
+    @Param({"false", "true"})
+    public boolean metricsEnabled;
+
+    private MovementTraces movementTraces;
+    private DetectionMetrics metrics;
+    private PlayerMovementData data;
+    private long sequence;
+
+    @Setup(Level.Trial)
+    public void generateTrace() {
+        movementTraces = MovementTraces.generate(trace, TRACE_LENGTH, 42);
+        metrics = metricsEnabled ? new DetectionMetrics(true) : DetectionMetrics.DISABLED;
+    }
+
+    @Setup(Level.Iteration)
+    public void fillHistory() {
+        // Start every iteration with a full window, as for a player that has been moving for a while
+        data = new PlayerMovementData(historySize, metrics);
+        sequence = 0;
+        while (sequence < historySize) {
+            movementTraces.replay(data, sequence++);
+        }
+    }
+
+    /**
+     * Recording a move, including the analysis of the latest samples
+     */
+    @Benchmark
+    public PlayerMovementData addMovement() {
+        movementTraces.replay(data, sequence++);
+        return data;
+    }
+
+    /**
+     * Analysis of the latest samples alone
+     */
+    @Benchmark
+    public PlayerMovementData analyzeLatestMovement() {
+        data.analyzeLatestMovement();
+        return data;
+    }
+
+    /**
+     * Scoring of the current pattern counters
+     */
+    @Benchmark
+    public boolean checkForBaritonePatterns() {
+        return data.checkForBaritonePatterns();
+    }
+
+    /**
+     * The full work done for every move event: recording and scoring
+     */
+    @Benchmark
+    public boolean moveEvent() {
+        movementTraces.replay(data, sequence++);
+        return data.checkForBaritonePatterns();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,196 @@
+package com.nobaritone.plugin;
+
+import org.bukkit.ChatColor;
+import org.bukkit.entity.Player;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Sends staff alerts and player warnings. Staff with nobaritone.notify are kept in an
+ * index updated on join, quit and the periodic permission refresh, so an alert does not
+ * have to check every online player. The first alert about a suspect goes out right
+ * away; further alerts within the digest interval are counted and sent as a single
+ * digest when the interval ends. Warnings to a player are sent at most once per cooldown.
+ *
+ * All methods must be called from the server thread.
+ */
+public class AlertDispatcher implements Runnable {
+    private static final String PREFIX = ChatColor.RED + "[NoBaritone] " + ChatColor.RESET;
+    private static final String NOTIFY_PERMISSION = "nobaritone.notify";
+
+    private final NoBaritone plugin;
+
+    private final Map<UUID, Player> subscribers = new HashMap<>();
+    private final Map<UUID, Digest> digests = new LinkedHashMap<>();
+    private final Map<UUID, Long> lastWarnings = new HashMap<>();
+
+    private long sentAlerts = 0;
+    private long coalescedAlerts = 0;
+    private long suppressedWarnings = 0;
+
+    public AlertDispatcher(NoBaritone plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Sends digests whose interval has ended. Runs periodically on the server thread.
+     */
+    @Override
+    public void run() {
+        long now = System.currentTimeMillis();
+        long digestMillis = getDigestMillis();
+
+        Iterator<Map.Entry<UUID, Digest>> iterator = digests.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Digest digest = iterator.next().getValue();
+            if (now - digest.windowStart < digestMillis) {
+                continue;
+            }
+
+            if (digest.flags == 0) {
+                // Quiet for a whole interval, the next alert goes out right away again
+                iterator.remove();
+                continue;
+            }
+
+            sendDigest(digest, now);
+            digest.windowStart = now;
+            digest.flags = 0;
+        }
+    }
+
+    /**
+     * Sends the alerts collected in a digest
+     */
+    private void sendDigest(Digest digest, long now) {
+        long seconds = Math.max(1, (now - digest.windowStart + 500) / 1000);
+        broadcast("admin.digest", digest.name, String.valueOf(digest.flags), String.valueOf(seconds),
+                String.valueOf(digest.violationLevel));
+    }
+
+    /**
+     * Alerts staff that a player was flagged at the given violation level
+     */
+    public void alert(Player suspect, int violationLevel) {
+        long now = System.currentTimeMillis();
+        Digest digest = digests.get(suspect.getUniqueId());
+
+        if (digest == null || getDigestMillis() <= 0) {
+            broadcast("admin.notification", suspect.getName(), String.valueOf(violationLevel));
+            if (getDigestMillis() > 0) {
+                digests.put(suspect.getUniqueId(), new Digest(suspect.getName(), now));
+            }
+            return;
+        }
+
+        digest.flags++;
+        digest.violationLevel = violationLevel;
+        coalescedAlerts++;
+    }
+
+    /**
+     * Warns a player about their movement unless they were warned within the cooldown
+     */
+    public void warn(Player player) {
+        long now = System.currentTimeMillis();
+        Long lastWarning = lastWarnings.get(player.getUniqueId());
+        if (lastWarning != null && now - lastWarning < getWarningCooldownMillis()) {
+            suppressedWarnings++;
+            return;
+        }
+
+        lastWarnings.put(player.getUniqueId(), now);
+        player.sendMessage(PREFIX + plugin.getLanguageManager().getMessage(player, "player.warning"));
+    }
+
+    /**
+     * Sends a message to the console and every subscribed staff member, each in their own language
+     */
+    private void broadcast(String key, String... args) {
+        LanguageManager languageManager = plugin.getLanguageManager();
+        plugin.getLogger().warning(languageManager.getMessage(key, args));
+
+        for (Player subscriber : subscribers.values()) {
+            subscriber.sendMessage(PREFIX + languageManager.getMessage(subscriber, key, args));
+        }
+        sentAlerts++;
+    }
+
+    /**
+     * Re-checks whether a player receives alerts
+     */
+    public void refreshSubscription(Player player) {
+        if (player.isOnline() && player.hasPermission(NOTIFY_PERMISSION)) {
+            subscribers.put(player.getUniqueId(), player);
+        } else {
+            subscribers.remove(player.getUniqueId());
+        }
+    }
+
+    /**
+     * Re-checks the subscription of every online player, as permission changes fire no event
+     */
+    public void refreshAll() {
+        subscribers.clear();
+        for (Player player : plugin.getServer().getOnlinePlayers()) {
+            refreshSubscription(player);
+        }
+    }
+
+    /**
+     * Forgets a player that left, both as staff and as a suspect. Alerts still waiting in
+     * the player's digest are sent first, so staff learn about flags just before a kick.
+     */
+    public void forget(UUID playerId) {
+        subscribers.remove(playerId);
+        lastWarnings.remove(playerId);
+
+        Digest digest = digests.remove(playerId);
+        if (digest != null && digest.flags > 0) {
+            sendDigest(digest, System.currentTimeMillis());
+        }
+    }
+
+    private long getDigestMillis() {
+        return plugin.getBaritoneConfig().getAlertDigestSeconds() * 1000L;
+    }
+
+    private long getWarningCooldownMillis() {
+        return plugin.getBaritoneConfig().getWarningCooldownSeconds() * 1000L;
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    public long getSentAlerts() {
+        return sentAlerts;
+    }
+
+    public long getCoalescedAlerts() {
+        return coalescedAlerts;
+    }
+
+    public long getSuppressedWarnings() {
+        return suppressedWarnings;
+    }
+
+    /**
+     * Alerts about a suspect collected during the current digest interval
+     */
+    private static class Digest {
+        private final String name;
+        private long windowStart;
+        private int flags = 0;
+        private int violationLevel;
+
+        Digest(String name, long windowStart) {
+            this.name = name;
+            this.windowStart = windowStart;
+        }
+    }
+}
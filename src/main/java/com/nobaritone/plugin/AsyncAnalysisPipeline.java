@@ -0,0 +1,285 @@
+package com.nobaritone.plugin;
+
+import org.bukkit.Location;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs movement analysis off the server thread. Move events only capture a
+ * primitive sample into the player's queue; a small pool of workers drains
+ * the queues in batches and hands the resulting verdicts back to the server
+ * thread through the Bukkit scheduler.
+ */
+public class AsyncAnalysisPipeline {
+    private static final long SHUTDOWN_TIMEOUT_MS = 2000;
+
+    private final NoBaritone plugin;
+    private final int queueCapacity;
+    private final int batchSize;
+    private final Worker[] workers;
+
+    // Only accessed from the server thread
+    private final Map<UUID, PlayerChannel> channels = new HashMap<>();
+    // Samples dropped by channels that were unregistered since
+    private final LongAdder retiredDroppedSamples = new LongAdder();
+
+    private volatile boolean running = false;
+
+    public AsyncAnalysisPipeline(NoBaritone plugin, int workerThreads, int queueCapacity, int batchSize) {
+        this.plugin = plugin;
+        this.queueCapacity = queueCapacity;
+        this.batchSize = Math.max(1, batchSize);
+        this.workers = new Worker[Math.max(1, workerThreads)];
+
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = new Worker("NoBaritone-Analysis-" + (i + 1));
+        }
+    }
+
+    /**
+     * Starts the worker threads
+     */
+    public void start() {
+        running = true;
+        for (Worker worker : workers) {
+            worker.start();
+        }
+    }
+
+    /**
+     * Stops the worker threads, waiting briefly for them to finish their current batch
+     */
+    public void shutdown() {
+        running = false;
+
+        for (Worker worker : workers) {
+            LockSupport.unpark(worker);
+        }
+
+        for (Worker worker : workers) {
+            try {
+                worker.join(SHUTDOWN_TIMEOUT_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Queues a move for analysis. Must be called from the server thread.
+     *
+     * @param analyze false to only record the move in the player's history
+     * @return false if the move was dropped because the player's queue is full
+     */
+    public boolean submit(Player player, PlayerMovementData data, Location from, Location to, boolean analyze) {
+        // Only track movements in the same world
+        if (from.getWorld() != to.getWorld()) {
+            return true;
+        }
+
+        UUID playerId = player.getUniqueId();
+        PlayerChannel channel = channels.get(playerId);
+        if (channel == null || channel.data != data) {
+            channel = register(playerId, data);
+        }
+
+        boolean queued = channel.queue.offer(System.currentTimeMillis(),
+                from.getX(), from.getY(), from.getZ(),
+                to.getX(), to.getY(), to.getZ(),
+                from.getYaw(), from.getPitch(), analyze);
+        channel.worker.wake();
+        return queued;
+    }
+
+    /**
+     * Queues the rotation of a move that did not change the player's position, or of the
+     * location a teleport started from. Must be called from the server thread.
+     *
+     * @return false if the rotation was dropped because the player's queue is full
+     */
+    public boolean submitRotation(Player player, PlayerMovementData data, Location from) {
+        UUID playerId = player.getUniqueId();
+        PlayerChannel channel = channels.get(playerId);
+        if (channel == null || channel.data != data) {
+            channel = register(playerId, data);
+        }
+
+        boolean queued = channel.queue.offerRotation(System.currentTimeMillis(), from.getYaw(), from.getPitch());
+        channel.worker.wake();
+        return queued;
+    }
+
+    /**
+     * Routes a player's samples into the given movement data, replacing any previous channel
+     */
+    private PlayerChannel register(UUID playerId, PlayerMovementData data) {
+        unregister(playerId);
+
+        // A player always stays on the same worker, keeping each queue single-consumer
+        Worker worker = workers[Math.floorMod(playerId.hashCode(), workers.length)];
+        PlayerChannel channel = new PlayerChannel(playerId, data, new MovementSampleQueue(queueCapacity), worker);
+
+        channels.put(playerId, channel);
+        worker.channels.add(channel);
+        return channel;
+    }
+
+    /**
+     * Stops analysing a player. Must be called from the server thread.
+     */
+    public void unregister(UUID playerId) {
+        PlayerChannel channel = channels.remove(playerId);
+        if (channel != null) {
+            channel.worker.channels.remove(channel);
+            retiredDroppedSamples.add(channel.queue.getDroppedSamples());
+        }
+    }
+
+    /**
+     * Gets the number of samples dropped because queues were full
+     */
+    public long getDroppedSamples() {
+        long dropped = retiredDroppedSamples.sum();
+        for (PlayerChannel channel : channels.values()) {
+            dropped += channel.queue.getDroppedSamples();
+        }
+        return dropped;
+    }
+
+    /**
+     * Applies verdicts produced by a worker. Runs on the server thread.
+     */
+    private void applyVerdicts(List<Verdict> verdicts) {
+        for (Verdict verdict : verdicts) {
+            Player player = plugin.getServer().getPlayer(verdict.playerId);
+            if (player == null) {
+                continue;
+            }
+
+            // Handle every flagged move just like synchronous analysis would
+            for (int i = 0; i < verdict.flaggedMoves && player.isOnline(); i++) {
+                plugin.handleSuspiciousMovement(player, verdict.data);
+            }
+        }
+    }
+
+    /**
+     * Worker thread draining the queues of the players assigned to it
+     */
+    private class Worker extends Thread {
+        private final List<PlayerChannel> channels = new CopyOnWriteArrayList<>();
+        // Set while the worker is about to park or parked, cleared by whoever wakes it
+        private final AtomicBoolean parked = new AtomicBoolean();
+
+        Worker(String name) {
+            super(name);
+            setDaemon(true);
+        }
+
+        /**
+         * Unparks the worker if it is idle. Called by the producer after queueing a sample;
+         * the compare-and-set, unlike a plain read, cannot be reordered before the queue write.
+         */
+        void wake() {
+            if (parked.compareAndSet(true, false)) {
+                LockSupport.unpark(this);
+            }
+        }
+
+        private boolean hasQueuedSamples() {
+            for (PlayerChannel channel : channels) {
+                if (channel.queue.size() > 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                List<Verdict> verdicts = null;
+                boolean drainedAny = false;
+
+                for (PlayerChannel channel : channels) {
+                    if (channel.queue.size() == 0) {
+                        continue;
+                    }
+                    drainedAny = true;
+
+                    int flaggedMoves;
+                    try {
+                        flaggedMoves = channel.queue.drainTo(channel.data, batchSize);
+                    } catch (RuntimeException e) {
+                        plugin.getLogger().warning("Movement analysis failed for " + channel.playerId + ": " + e);
+                        continue;
+                    }
+
+                    if (flaggedMoves > 0) {
+                        if (verdicts == null) {
+                            verdicts = new ArrayList<>();
+                        }
+                        verdicts.add(new Verdict(channel.playerId, channel.data, flaggedMoves));
+                    }
+                }
+
+                if (verdicts != null && running) {
+                    List<Verdict> batch = verdicts;
+                    plugin.getServer().getScheduler().runTask(plugin, () -> applyVerdicts(batch));
+                }
+
+                if (!drainedAny) {
+                    // Announce the park before checking once more, so a sample queued in
+                    // between either is seen here or unparks the worker
+                    parked.set(true);
+                    if (running && !hasQueuedSamples()) {
+                        LockSupport.park(this);
+                    }
+                    parked.set(false);
+                }
+            }
+        }
+    }
+
+    /**
+     * Queue and analysis state of a single player
+     */
+    private static class PlayerChannel {
+        private final UUID playerId;
+        private final PlayerMovementData data;
+        private final MovementSampleQueue queue;
+        private final Worker worker;
+
+        PlayerChannel(UUID playerId, PlayerMovementData data, MovementSampleQueue queue, Worker worker) {
+            this.playerId = playerId;
+            this.data = data;
+            this.queue = queue;
+            this.worker = worker;
+        }
+    }
+
+    /**
+     * Result of analysing one batch of a player's moves
+     */
+    private static class Verdict {
+        private final UUID playerId;
+        private final PlayerMovementData data;
+        private final int flaggedMoves;
+
+        Verdict(UUID playerId, PlayerMovementData data, int flaggedMoves) {
+            this.playerId = playerId;
+            this.data = data;
+            this.flaggedMoves = flaggedMoves;
+        }
+    }
+}
\ No newline at end of file
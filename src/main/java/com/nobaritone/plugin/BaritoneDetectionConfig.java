@@ -1,59 +1,161 @@
 package com.nobaritone.plugin;
 
-import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.configuration.ConfigurationSection;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
- * Configuration manager for Baritone detection settings
+ * Baritone detection settings read from config.yml. Instances are immutable snapshots:
+ * a reload builds a new one and swaps it in, so a reader always sees the settings of a
+ * single load. Values outside their valid range are replaced by their default and
+ * reported through {@link #getWarnings()}.
  */
-public class BaritoneDetectionConfig {
-    private final NoBaritone plugin;
+public final class BaritoneDetectionConfig {
+    // Language and reload settings
+    private final String language;
+    private final boolean perPlayerLocale;
+    private final boolean autoReload;
     
     // General settings
-    private boolean enabled;
-    private int notifyThreshold;
-    private int kickThreshold;
-    private int banThreshold;
+    private final boolean enabled;
+    private final int notifyThreshold;
+    private final int kickThreshold;
+    private final int banThreshold;
     
     // Action settings
-    private boolean notifyAdminsEnabled;
-    private boolean warnPlayerEnabled;
-    private boolean kickEnabled;
-    private boolean banEnabled;
-    private boolean logToFileEnabled;
+    private final boolean notifyAdminsEnabled;
+    private final boolean warnPlayerEnabled;
+    private final boolean kickEnabled;
+    private final boolean banEnabled;
+    private final boolean logToFileEnabled;
+    private final int alertDigestSeconds;
+    private final int warningCooldownSeconds;
+    
+    // Debug settings
+    private final int debugStreamIntervalTicks;
+    
+    // Metrics settings
+    private final boolean metricsEnabled;
+    private final String metricsExportFile;
+    private final int metricsExportIntervalSeconds;
+    
+    // Incident journal settings
+    private final String journalFileName;
+    private final int journalMaxFileSizeKb;
+    private final int journalRotateIntervalHours;
+    private final int journalQueueCapacity;
     
     // Detection settings
-    private double movementSimilarityThreshold;
-    private int patternDetectionSampleSize;
-    private double algorithmicPathDetectionWeight;
-    private int minSamplesForDetection;
-    private boolean excludeOPPlayers;
-    private boolean excludeCreativePlayers;
-    private boolean ignoreVerticalMovement;
+    private final double movementSimilarityThreshold;
+    private final int patternDetectionSampleSize;
+    private final double algorithmicPathDetectionWeight;
+    private final int minSamplesForDetection;
+    private final boolean excludeOPPlayers;
+    private final boolean excludeCreativePlayers;
+    private final boolean ignoreVerticalMovement;
     
     // Advanced detection settings
-    private boolean checkBlockBreakPatterns;
-    private boolean checkPathfindingPatterns;
-    private int maxViolationPoints;
-    private int violationDecayMinutes;
-    private boolean enablePacketAnalysis;
-
-    public BaritoneDetectionConfig(NoBaritone plugin) {
-        this.plugin = plugin;
-        reload();
-    }
+    private final boolean checkBlockBreakPatterns;
+    private final boolean checkPathfindingPatterns;
+    private final int maxViolationPoints;
+    private final int violationDecayMinutes;
+    private final boolean enablePacketAnalysis;
+    
+    // Asynchronous analysis settings
+    private final boolean asyncAnalysisEnabled;
+    private final int asyncWorkerThreads;
+    private final int asyncQueueCapacity;
+    private final int asyncBatchSize;
+    
+    // Block break analysis settings
+    private final int blockBreakSampleSize;
+    private final double maxBreakIntervalVariation;
+    private final double minOreRatio;
+    
+    // Fleet correlation settings
+    private final boolean fleetCorrelationEnabled;
+    private final double fleetSimilarityThreshold;
+    private final int fleetMinGroupSize;
+    private final int fleetMinPathLength;
+    private final int fleetIntervalSeconds;
+    
+    // Detector pipeline settings, keyed by detector id
+    private final int expensiveDetectorMinScore;
+    private final Map<String, Boolean> detectorsEnabled;
+    private final Map<String, Integer> detectorWeights;
+    
+    // Suspicion tier settings
+    private final boolean tiersEnabled;
+    private final Set<String> sentinelDetectors;
+    private final int sentinelCheckInterval;
+    private final int fullAnalysisMinutes;
+    private final int watchMinutes;
+    
+    // Probabilistic scoring settings
+    private final boolean scoringEnabled;
+    private final String scoringModelFile;
+    private final int scoringReflagMoves;
+    
+    // Path optimality settings
+    private final int pathSegmentLength;
+    private final double pathOptimalityTolerance;
+    private final double pathMinDetour;
+    private final int pathBudgetMicrosPerTick;
+    private final int pathMaxSearchNodes;
+    private final int pathMaxCachedSections;
+    
+    // Move pre-filter settings
+    private final double minMoveDistance;
+    private final int lagSpikeMillis;
+    private final double adaptiveSamplingTps;
+    
+    // Player state settings
+    private final int maxTrackedPlayers;
+    private final int maxStateMemoryKb;
+    private final int idleExpiryMinutes;
+    
+    // Violation profile settings
+    private final boolean profilesEnabled;
+    private final String profileDirectory;
+    private final int profileFlushIntervalSeconds;
+    
+    // Network violation sync settings
+    private final boolean syncEnabled;
+    private final String syncTransport;
+    private final String syncSecret;
+    private final int syncIntervalTicks;
+    private final int syncStateExpiryMinutes;
+    private final int syncSocketPort;
+    private final List<String> syncSocketPeers;
+    
+    // Movement trace recording settings
+    private final boolean recordAllPlayers;
+    private final String traceDirectory;
+    
+    // Problems found while reading, filled by the constructor only
+    private final List<String> warnings = new ArrayList<>();
 
     /**
-     * Reloads configuration from config.yml
+     * Reads and validates the settings of a loaded config.yml
      */
-    public void reload() {
-        plugin.saveDefaultConfig();
-        FileConfiguration config = plugin.getConfig();
+    public BaritoneDetectionConfig(ConfigurationSection config) {
+        // Language and reload settings
+        language = config.getString("language", "en_US");
+        perPlayerLocale = config.getBoolean("per-player-locale", true);
+        autoReload = config.getBoolean("auto-reload", false);
         
         // General settings
         enabled = config.getBoolean("detection.enabled", true);
-        notifyThreshold = config.getInt("action.notification-threshold", 5);
-        kickThreshold = config.getInt("action.kick-threshold", 15);
-        banThreshold = config.getInt("action.ban-threshold", 30);
+        notifyThreshold = readInt(config, "action.notification-threshold", 5, 1);
+        kickThreshold = readInt(config, "action.kick-threshold", 15, 1);
+        banThreshold = readInt(config, "action.ban-threshold", 30, 1);
         
         // Action settings
         notifyAdminsEnabled = config.getBoolean("action.notify-admins", true);
@@ -61,25 +163,201 @@ public class BaritoneDetectionConfig {
         kickEnabled = config.getBoolean("action.kick-enabled", true);
         banEnabled = config.getBoolean("action.ban-enabled", false);
         logToFileEnabled = config.getBoolean("action.log-to-file", true);
+        alertDigestSeconds = readInt(config, "action.alert-digest-seconds", 5, 0);
+        warningCooldownSeconds = readInt(config, "action.warning-cooldown-seconds", 30, 0);
+        
+        // Debug settings
+        debugStreamIntervalTicks = readInt(config, "debug.stream-interval-ticks", 10, 1);
+        
+        // Metrics settings
+        metricsEnabled = config.getBoolean("metrics.enabled", true);
+        metricsExportFile = config.getString("metrics.export-file", "metrics/nobaritone.prom");
+        metricsExportIntervalSeconds = readInt(config, "metrics.export-interval-seconds", 15, 0);
+        
+        // Incident journal settings
+        journalFileName = config.getString("logging.journal.file-name", "incidents.log");
+        journalMaxFileSizeKb = readInt(config, "logging.journal.max-file-size-kb", 5120, 0);
+        journalRotateIntervalHours = readInt(config, "logging.journal.rotate-interval-hours", 24, 0);
+        journalQueueCapacity = readInt(config, "logging.journal.queue-capacity", 4096, 1);
         
         // Detection settings
-        movementSimilarityThreshold = config.getDouble("detection.movement-similarity-threshold", 0.85);
-        patternDetectionSampleSize = config.getInt("detection.pattern-sample-size", 20);
-        algorithmicPathDetectionWeight = config.getDouble("detection.algorithmic-path-detection", 0.7);
-        minSamplesForDetection = config.getInt("detection.min-samples", 10);
+        movementSimilarityThreshold = readDouble(config, "detection.movement-similarity-threshold", 0.85, 0, 1);
+        patternDetectionSampleSize = readInt(config, "detection.pattern-sample-size", 20, 10);
+        algorithmicPathDetectionWeight = readDouble(config, "detection.algorithmic-path-detection", 0.7, 0, 1);
+        minSamplesForDetection = readInt(config, "detection.min-samples", 10, 1);
         excludeOPPlayers = config.getBoolean("detection.exclude-op-players", true);
         excludeCreativePlayers = config.getBoolean("detection.exclude-creative-mode", true);
         ignoreVerticalMovement = config.getBoolean("detection.ignore-vertical-movement", false);
         
         // Advanced detection settings
-        checkBlockBreakPatterns = config.getBoolean("detection.advanced.check-block-break-patterns", true);
+        checkBlockBreakPatterns = config.getBoolean("detection.advanced.check-block-break-patterns", false);
         checkPathfindingPatterns = config.getBoolean("detection.advanced.check-pathfinding", true);
-        maxViolationPoints = config.getInt("detection.advanced.max-violation-points", 100);
-        violationDecayMinutes = config.getInt("detection.advanced.violation-decay-minutes", 30);
+        maxViolationPoints = readInt(config, "detection.advanced.max-violation-points", 100, 1);
+        violationDecayMinutes = readInt(config, "detection.advanced.violation-decay-minutes", 30, 0);
         enablePacketAnalysis = config.getBoolean("detection.advanced.enable-packet-analysis", false);
+        
+        // Asynchronous analysis settings
+        asyncAnalysisEnabled = config.getBoolean("detection.async-analysis.enabled", false);
+        asyncWorkerThreads = readInt(config, "detection.async-analysis.worker-threads", 2, 1);
+        asyncQueueCapacity = readInt(config, "detection.async-analysis.queue-capacity", 256, 1);
+        asyncBatchSize = readInt(config, "detection.async-analysis.batch-size", 64, 1);
+        
+        // Block break analysis settings
+        blockBreakSampleSize = readInt(config, "detection.block-break.sample-size", 32, 16, 64);
+        maxBreakIntervalVariation = readDouble(config, "detection.block-break.max-interval-variation", 0.1, 0, Double.MAX_VALUE);
+        minOreRatio = readDouble(config, "detection.block-break.min-ore-ratio", 0.5, 0, 1);
+        
+        // Fleet correlation settings
+        fleetCorrelationEnabled = config.getBoolean("detection.fleet-correlation.enabled", false);
+        fleetSimilarityThreshold = readDouble(config, "detection.fleet-correlation.similarity-threshold", 0.5, 0, 1);
+        fleetMinGroupSize = readInt(config, "detection.fleet-correlation.min-group-size", 3, 2);
+        fleetMinPathLength = readInt(config, "detection.fleet-correlation.min-path-length", 32, 2);
+        fleetIntervalSeconds = readInt(config, "detection.fleet-correlation.interval-seconds", 10, 1);
+        
+        // Detector pipeline settings
+        expensiveDetectorMinScore = readInt(config, "detection.detector-pipeline.expensive-min-score", 3, 0);
+        Map<String, Boolean> enabledById = new HashMap<>();
+        Map<String, Integer> weightById = new HashMap<>();
+        ConfigurationSection detectors = config.getConfigurationSection("detection.detector-pipeline.detectors");
+        if (detectors != null) {
+            for (String id : detectors.getKeys(false)) {
+                if (detectors.contains(id + ".enabled")) {
+                    enabledById.put(id, detectors.getBoolean(id + ".enabled", true));
+                }
+                if (detectors.contains(id + ".weight")) {
+                    weightById.put(id, detectors.getInt(id + ".weight", 0));
+                }
+            }
+        }
+        detectorsEnabled = Collections.unmodifiableMap(enabledById);
+        detectorWeights = Collections.unmodifiableMap(weightById);
+        
+        // Suspicion tier settings
+        tiersEnabled = config.getBoolean("detection.tiers.enabled", true);
+        if (config.contains("detection.tiers.sentinel-detectors")) {
+            sentinelDetectors = Collections.unmodifiableSet(new HashSet<>(config.getStringList("detection.tiers.sentinel-detectors")));
+        } else {
+            sentinelDetectors = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+                    "straight-line", "timing-consistency", "rotation-snap", "rotation-quantisation")));
+        }
+        sentinelCheckInterval = readInt(config, "detection.tiers.sentinel-check-interval", 2, 1);
+        fullAnalysisMinutes = readInt(config, "detection.tiers.full-analysis-minutes", 10, 0);
+        watchMinutes = readInt(config, "detection.tiers.watch-minutes", 60, 1);
+        
+        // Probabilistic scoring settings
+        scoringEnabled = config.getBoolean("detection.scoring.enabled", true);
+        scoringModelFile = config.getString("detection.scoring.model-file", "scoring-model.properties");
+        scoringReflagMoves = readInt(config, "detection.scoring.reflag-moves", 200, 0);
+        
+        // Path optimality settings
+        pathSegmentLength = readInt(config, "detection.pathfinding.segment-length", 24, 8, 32);
+        pathOptimalityTolerance = readDouble(config, "detection.pathfinding.optimality-tolerance", 0.05, 0, Double.MAX_VALUE);
+        pathMinDetour = readDouble(config, "detection.pathfinding.min-detour", 1.2, 0, Double.MAX_VALUE);
+        pathBudgetMicrosPerTick = readInt(config, "detection.pathfinding.budget-micros-per-tick", 500, 0);
+        pathMaxSearchNodes = readInt(config, "detection.pathfinding.max-search-nodes", 4000, 1);
+        pathMaxCachedSections = readInt(config, "detection.pathfinding.max-cached-sections", 4096, 1);
+        
+        // Move pre-filter settings
+        minMoveDistance = readDouble(config, "detection.prefilter.min-move-distance", 0.001, 0, Double.MAX_VALUE);
+        lagSpikeMillis = readInt(config, "detection.prefilter.lag-spike-ms", 150, 0);
+        adaptiveSamplingTps = readDouble(config, "detection.prefilter.adaptive-sampling-tps", 18.0, 0, 20);
+        
+        // Player state settings
+        maxTrackedPlayers = readInt(config, "state.max-tracked-players", 5000, 0);
+        maxStateMemoryKb = readInt(config, "state.max-memory-kb", 65536, 0);
+        idleExpiryMinutes = readInt(config, "state.idle-expiry-minutes", 10, 0);
+        
+        // Violation profile settings
+        profilesEnabled = config.getBoolean("profiles.enabled", true);
+        profileDirectory = config.getString("profiles.directory", "profiles");
+        profileFlushIntervalSeconds = readInt(config, "profiles.flush-interval-seconds", 30, 1);
+        
+        // Network violation sync settings
+        syncEnabled = config.getBoolean("sync.enabled", false);
+        syncTransport = config.getString("sync.transport", "plugin-messaging");
+        syncSecret = config.getString("sync.secret", "");
+        syncIntervalTicks = readInt(config, "sync.interval-ticks", 20, 1);
+        syncStateExpiryMinutes = readInt(config, "sync.state-expiry-minutes", 120, 1);
+        syncSocketPort = readInt(config, "sync.socket.port", 25590, 1, 65535);
+        syncSocketPeers = Collections.unmodifiableList(new ArrayList<>(config.getStringList("sync.socket.peers")));
+        if (syncEnabled && !Arrays.asList("plugin-messaging", "socket", "loopback").contains(syncTransport)) {
+            warnings.add("sync.transport must be plugin-messaging, socket or loopback");
+        } else if (syncEnabled && syncSecret.isEmpty()) {
+            warnings.add("sync.secret must be set to enable the violation sync");
+        }
+        
+        // Movement trace recording settings
+        recordAllPlayers = config.getBoolean("trace-recording.record-all-players", false);
+        traceDirectory = config.getString("trace-recording.directory", "traces");
+        
+        // Settings that are valid on their own but contradict each other
+        if (notifyThreshold > kickThreshold) {
+            warnings.add("action.notification-threshold is above action.kick-threshold, staff will not be notified before a kick");
+        }
+        if (scoringEnabled && algorithmicPathDetectionWeight >= movementSimilarityThreshold) {
+            warnings.add("detection.algorithmic-path-detection should be below detection.movement-similarity-threshold, "
+                    + "flagged players will not be flagged again");
+        }
+    }
+    
+    private int readInt(ConfigurationSection config, String path, int defaultValue, int min) {
+        return readInt(config, path, defaultValue, min, Integer.MAX_VALUE);
+    }
+    
+    /**
+     * Reads a whole number, falling back to the default if it is missing, not a number or out of range
+     */
+    private int readInt(ConfigurationSection config, String path, int defaultValue, int min, int max) {
+        if (config.isSet(path) && !(config.get(path) instanceof Number)) {
+            warnings.add(path + " is not a number, using " + defaultValue);
+            return defaultValue;
+        }
+        int value = config.getInt(path, defaultValue);
+        if (value < min || value > max) {
+            warnings.add(path + " must be " + (max == Integer.MAX_VALUE ? "at least " + min : "between " + min + " and " + max)
+                    + ", using " + defaultValue);
+            return defaultValue;
+        }
+        return value;
+    }
+    
+    /**
+     * Reads a number, falling back to the default if it is missing, not a number or out of range
+     */
+    private double readDouble(ConfigurationSection config, String path, double defaultValue, double min, double max) {
+        if (config.isSet(path) && !(config.get(path) instanceof Number)) {
+            warnings.add(path + " is not a number, using " + defaultValue);
+            return defaultValue;
+        }
+        double value = config.getDouble(path, defaultValue);
+        if (!(value >= min && value <= max)) {
+            warnings.add(path + " must be " + (max == Double.MAX_VALUE ? "at least " + min : "between " + min + " and " + max)
+                    + ", using " + defaultValue);
+            return defaultValue;
+        }
+        return value;
+    }
+
+    /**
+     * Gets the problems found in config.yml, each already replaced by a default
+     */
+    public List<String> getWarnings() {
+        return Collections.unmodifiableList(warnings);
     }
 
     // Getters
+    public String getLanguage() {
+        return language;
+    }
+
+    public boolean isPerPlayerLocale() {
+        return perPlayerLocale;
+    }
+
+    public boolean isAutoReloadEnabled() {
+        return autoReload;
+    }
+
     public boolean isEnabled() {
         return enabled;
     }
@@ -104,6 +382,14 @@ public class BaritoneDetectionConfig {
         return warnPlayerEnabled;
     }
 
+    public int getAlertDigestSeconds() {
+        return alertDigestSeconds;
+    }
+
+    public int getWarningCooldownSeconds() {
+        return warningCooldownSeconds;
+    }
+
     public boolean isKickEnabled() {
         return kickEnabled;
     }
@@ -116,6 +402,38 @@ public class BaritoneDetectionConfig {
         return logToFileEnabled;
     }
     
+    public int getDebugStreamIntervalTicks() {
+        return debugStreamIntervalTicks;
+    }
+    
+    public boolean isMetricsEnabled() {
+        return metricsEnabled;
+    }
+    
+    public String getMetricsExportFile() {
+        return metricsExportFile;
+    }
+    
+    public int getMetricsExportIntervalSeconds() {
+        return metricsExportIntervalSeconds;
+    }
+    
+    public String getJournalFileName() {
+        return journalFileName;
+    }
+    
+    public int getJournalMaxFileSizeKb() {
+        return journalMaxFileSizeKb;
+    }
+    
+    public int getJournalRotateIntervalHours() {
+        return journalRotateIntervalHours;
+    }
+    
+    public int getJournalQueueCapacity() {
+        return journalQueueCapacity;
+    }
+    
     public double getMovementSimilarityThreshold() {
         return movementSimilarityThreshold;
     }
@@ -163,4 +481,204 @@ public class BaritoneDetectionConfig {
     public boolean isPacketAnalysisEnabled() {
         return enablePacketAnalysis;
     }
-} 
\ No newline at end of file
+    
+    public boolean isAsyncAnalysisEnabled() {
+        return asyncAnalysisEnabled;
+    }
+    
+    public int getAsyncWorkerThreads() {
+        return asyncWorkerThreads;
+    }
+    
+    public int getAsyncQueueCapacity() {
+        return asyncQueueCapacity;
+    }
+    
+    public int getAsyncBatchSize() {
+        return asyncBatchSize;
+    }
+    
+    public int getBlockBreakSampleSize() {
+        return blockBreakSampleSize;
+    }
+    
+    public double getMaxBreakIntervalVariation() {
+        return maxBreakIntervalVariation;
+    }
+    
+    public double getMinOreRatio() {
+        return minOreRatio;
+    }
+    
+    public boolean isFleetCorrelationEnabled() {
+        return fleetCorrelationEnabled;
+    }
+    
+    public double getFleetSimilarityThreshold() {
+        return fleetSimilarityThreshold;
+    }
+    
+    public int getFleetMinGroupSize() {
+        return fleetMinGroupSize;
+    }
+    
+    public int getFleetMinPathLength() {
+        return fleetMinPathLength;
+    }
+    
+    public int getFleetIntervalSeconds() {
+        return fleetIntervalSeconds;
+    }
+    
+    public int getExpensiveDetectorMinScore() {
+        return expensiveDetectorMinScore;
+    }
+    
+    /**
+     * Checks whether a detector is enabled, which it is unless config.yml disables it
+     */
+    public boolean isDetectorEnabled(String id) {
+        return detectorsEnabled.getOrDefault(id, true);
+    }
+    
+    /**
+     * Gets the weight of a detector, or the given default if config.yml does not set one
+     */
+    public int getDetectorWeight(String id, int defaultWeight) {
+        return detectorWeights.getOrDefault(id, defaultWeight);
+    }
+    
+    public boolean isTiersEnabled() {
+        return tiersEnabled;
+    }
+    
+    /**
+     * Checks whether a detector runs for players in the sentinel tier
+     */
+    public boolean isSentinelDetector(String id) {
+        return sentinelDetectors.contains(id);
+    }
+    
+    public int getSentinelCheckInterval() {
+        return sentinelCheckInterval;
+    }
+    
+    public int getFullAnalysisMinutes() {
+        return fullAnalysisMinutes;
+    }
+    
+    public int getWatchMinutes() {
+        return watchMinutes;
+    }
+    
+    public boolean isScoringEnabled() {
+        return scoringEnabled;
+    }
+    
+    public String getScoringModelFile() {
+        return scoringModelFile;
+    }
+    
+    public int getScoringReflagMoves() {
+        return scoringReflagMoves;
+    }
+    
+    public int getPathSegmentLength() {
+        return pathSegmentLength;
+    }
+    
+    public double getPathOptimalityTolerance() {
+        return pathOptimalityTolerance;
+    }
+    
+    public double getPathMinDetour() {
+        return pathMinDetour;
+    }
+    
+    public int getPathBudgetMicrosPerTick() {
+        return pathBudgetMicrosPerTick;
+    }
+    
+    public int getPathMaxSearchNodes() {
+        return pathMaxSearchNodes;
+    }
+    
+    public int getPathMaxCachedSections() {
+        return pathMaxCachedSections;
+    }
+    
+    public double getMinMoveDistance() {
+        return minMoveDistance;
+    }
+    
+    public int getLagSpikeMillis() {
+        return lagSpikeMillis;
+    }
+    
+    public double getAdaptiveSamplingTps() {
+        return adaptiveSamplingTps;
+    }
+    
+    public int getMaxTrackedPlayers() {
+        return maxTrackedPlayers;
+    }
+    
+    /**
+     * Gets the cap on the estimated memory of all tracked players, in kilobytes
+     */
+    public int getMaxStateMemoryKb() {
+        return maxStateMemoryKb;
+    }
+    
+    public int getIdleExpiryMinutes() {
+        return idleExpiryMinutes;
+    }
+    
+    public boolean isProfilesEnabled() {
+        return profilesEnabled;
+    }
+    
+    public String getProfileDirectory() {
+        return profileDirectory;
+    }
+    
+    public int getProfileFlushIntervalSeconds() {
+        return profileFlushIntervalSeconds;
+    }
+    
+    public boolean isSyncEnabled() {
+        return syncEnabled;
+    }
+    
+    public String getSyncTransport() {
+        return syncTransport;
+    }
+    
+    public String getSyncSecret() {
+        return syncSecret;
+    }
+    
+    public int getSyncIntervalTicks() {
+        return syncIntervalTicks;
+    }
+    
+    public int getSyncStateExpiryMinutes() {
+        return syncStateExpiryMinutes;
+    }
+    
+    public int getSyncSocketPort() {
+        return syncSocketPort;
+    }
+    
+    public List<String> getSyncSocketPeers() {
+        return syncSocketPeers;
+    }
+    
+    public boolean shouldRecordAllPlayers() {
+        return recordAllPlayers;
+    }
+    
+    public String getTraceDirectory() {
+        return traceDirectory;
+    }
+}
\ No newline at end of file
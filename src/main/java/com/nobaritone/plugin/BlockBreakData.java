@@ -0,0 +1,248 @@
+package com.nobaritone.plugin;
+
+import org.bukkit.Material;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Analyses a player's recent block breaks for the patterns Baritone's mine and tunnel
+ * processes leave behind: breaks at a near-constant rhythm, breaks confined to a narrow
+ * straight tunnel, and breaks that mostly hit ores. Only ore targeting is specific to
+ * Baritone, so a player is flagged for it together with either of the others. Breaks are kept in a fixed ring of
+ * primitive columns and every feature is maintained as exact integer sums that are
+ * updated as breaks enter and leave the window, so a break costs O(1) and never
+ * allocates. Must be used from the server thread.
+ */
+public class BlockBreakData {
+    private static final Set<Material> ORES = EnumSet.of(
+        Material.COAL_ORE, Material.IRON_ORE, Material.GOLD_ORE, Material.LAPIS_ORE,
+        Material.REDSTONE_ORE, Material.DIAMOND_ORE, Material.EMERALD_ORE,
+        Material.NETHER_GOLD_ORE, Material.NETHER_QUARTZ_ORE, Material.ANCIENT_DEBRIS,
+        Material.GILDED_BLACKSTONE);
+
+    // Fewer breaks than this say nothing about a player's rhythm or targets
+    private static final int MIN_BREAKS = 16;
+    // Keeps the integer variance numerators below Long.MAX_VALUE for any world coordinate
+    private static final int MAX_BREAKS = 64;
+    // Longer pauses are clamped so a single break after a while cannot dominate the sums
+    private static final long MAX_INTERVAL_MS = 10_000;
+    // A tunnel is at least this long (standard deviation along its axis, about 7 blocks)...
+    private static final double MIN_TUNNEL_SPREAD = 2.0;
+    // ...and at most about 3 blocks wide and high (standard deviation across it)
+    private static final double MAX_CROSS_SECTION_SPREAD = 1.0;
+    // Breaks needed after a flag before the player can be flagged again
+    private static final int FLAG_COOLDOWN_BREAKS = 8;
+
+    private final DetectionMetrics metrics;
+    private final int capacity;
+    private final long[] times;
+    private final int[] blockX;
+    private final int[] blockY;
+    private final int[] blockZ;
+    private final boolean[] ores;
+    private int head = 0;
+    private int size = 0;
+    private int breaksSinceFlag = FLAG_COOLDOWN_BREAKS;
+
+    // Window sums, exact in integer arithmetic so they never drift
+    private long intervalSum = 0;
+    private long intervalSquareSum = 0;
+    private long sumX = 0, sumY = 0, sumZ = 0;
+    private long squareSumX = 0, squareSumY = 0, squareSumZ = 0;
+    private int oreCount = 0;
+
+    /**
+     * Creates break data keeping the given number of recent breaks (16 to 64)
+     */
+    public BlockBreakData(int capacity, DetectionMetrics metrics) {
+        this.metrics = metrics;
+        this.capacity = Math.max(MIN_BREAKS, Math.min(capacity, MAX_BREAKS));
+        this.times = new long[this.capacity];
+        this.blockX = new int[this.capacity];
+        this.blockY = new int[this.capacity];
+        this.blockZ = new int[this.capacity];
+        this.ores = new boolean[this.capacity];
+    }
+
+    /**
+     * Checks whether breaking the given block type counts as targeting an ore
+     */
+    public static boolean isOre(Material type) {
+        return ORES.contains(type);
+    }
+
+    /**
+     * Records a broken block, evicting the oldest break once the window is full
+     */
+    public void addBreak(long timestamp, int x, int y, int z, boolean ore) {
+        if (size == capacity) {
+            evictOldest();
+        }
+
+        if (size > 0) {
+            long interval = clampInterval(timestamp - times[slot(size - 1)]);
+            intervalSum += interval;
+            intervalSquareSum += interval * interval;
+        }
+
+        int slot = slot(size);
+        times[slot] = timestamp;
+        blockX[slot] = x;
+        blockY[slot] = y;
+        blockZ[slot] = z;
+        ores[slot] = ore;
+        size++;
+
+        sumX += x;
+        sumY += y;
+        sumZ += z;
+        squareSumX += (long) x * x;
+        squareSumY += (long) y * y;
+        squareSumZ += (long) z * z;
+        if (ore) {
+            oreCount++;
+        }
+        breaksSinceFlag++;
+    }
+
+    /**
+     * Removes the oldest break and its interval to the next one from the sums
+     */
+    private void evictOldest() {
+        int oldest = head;
+        int next = slot(1);
+        long interval = clampInterval(times[next] - times[oldest]);
+        intervalSum -= interval;
+        intervalSquareSum -= interval * interval;
+
+        int x = blockX[oldest];
+        int y = blockY[oldest];
+        int z = blockZ[oldest];
+        sumX -= x;
+        sumY -= y;
+        sumZ -= z;
+        squareSumX -= (long) x * x;
+        squareSumY -= (long) y * y;
+        squareSumZ -= (long) z * z;
+        if (ores[oldest]) {
+            oreCount--;
+        }
+
+        head = next;
+        size--;
+    }
+
+    /**
+     * Checks the break window for Baritone-like mining
+     */
+    public boolean checkForMiningPatterns(double maxIntervalVariation, double minOreRatio) {
+        if (size < MIN_BREAKS) {
+            return false;
+        }
+
+        // Baritone breaks blocks at a machine-steady rhythm
+        boolean regularTiming = getIntervalVariation() < maxIntervalVariation;
+        metrics.recordCheck(DetectionMetrics.Check.BREAK_TIMING, regularTiming);
+
+        // #tunnel digs a straight tunnel of a fixed small cross-section
+        boolean tunnel = isTunnel();
+        metrics.recordCheck(DetectionMetrics.Check.TUNNEL, tunnel);
+
+        // #mine goes straight for ores it cannot see, breaking little else
+        boolean oreTargeting = getOreRatio() >= minOreRatio;
+        metrics.recordCheck(DetectionMetrics.Check.ORE_TARGETING, oreTargeting);
+
+        // A player holding the mouse button in a strip mine shows the rhythm and the
+        // tunnel as well, so only ore targeting together with either of them counts
+        if (!oreTargeting || !(regularTiming || tunnel) || breaksSinceFlag < FLAG_COOLDOWN_BREAKS) {
+            return false;
+        }
+
+        breaksSinceFlag = 0;
+        return true;
+    }
+
+    /**
+     * Checks whether the breaks line up along one axis within a small cross-section
+     */
+    private boolean isTunnel() {
+        double spreadX = getSpread(sumX, squareSumX);
+        double spreadY = getSpread(sumY, squareSumY);
+        double spreadZ = getSpread(sumZ, squareSumZ);
+
+        double length = Math.max(spreadX, Math.max(spreadY, spreadZ));
+        double widest = spreadX + spreadY + spreadZ - length - Math.min(spreadX, Math.min(spreadY, spreadZ));
+        return length >= MIN_TUNNEL_SPREAD && widest <= MAX_CROSS_SECTION_SPREAD;
+    }
+
+    /**
+     * Gets the coefficient of variation (standard deviation / mean) of the break intervals
+     */
+    public double getIntervalVariation() {
+        int intervals = size - 1;
+        if (intervals < 1 || intervalSum == 0) {
+            return Double.MAX_VALUE;
+        }
+
+        return Math.sqrt(variance(intervals, intervalSum, intervalSquareSum)) / ((double) intervalSum / intervals);
+    }
+
+    /**
+     * Gets the mean time between breaks, in milliseconds
+     */
+    public double getMeanInterval() {
+        return size < 2 ? 0 : (double) intervalSum / (size - 1);
+    }
+
+    /**
+     * Gets the standard deviation of the break positions along each axis, as {x, y, z}
+     */
+    public double[] getSpreads() {
+        return new double[] {getSpread(sumX, squareSumX), getSpread(sumY, squareSumY), getSpread(sumZ, squareSumZ)};
+    }
+
+    /**
+     * Gets the share of broken blocks that were ores
+     */
+    public double getOreRatio() {
+        return size == 0 ? 0 : (double) oreCount / size;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Estimates the memory held by this data, in bytes
+     */
+    public long estimateMemoryBytes() {
+        // One 8-byte, three 4-byte and one 1-byte column, each with a 16-byte header
+        return 128 + 5 * 16 + (8 + 3 * 4 + 1) * (long) capacity;
+    }
+
+    private double getSpread(long sum, long squareSum) {
+        return size == 0 ? 0 : Math.sqrt(variance(size, sum, squareSum));
+    }
+
+    /**
+     * Computes a population variance from exact sums. The numerator is formed in integer
+     * arithmetic, since far from the origin the squares dwarf the variance and subtracting
+     * them as doubles would lose it.
+     */
+    private static double variance(int count, long sum, long squareSum) {
+        return (double) (count * squareSum - sum * sum) / ((double) count * count);
+    }
+
+    private static long clampInterval(long interval) {
+        return Math.max(0, Math.min(interval, MAX_INTERVAL_MS));
+    }
+
+    /**
+     * Maps an age index (0 = oldest) to its array slot
+     */
+    private int slot(int index) {
+        int slot = head + index;
+        return slot >= capacity ? slot - capacity : slot;
+    }
+}
@@ -0,0 +1,125 @@
+package com.nobaritone.plugin;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * The movement checks NoBaritone ships with. Each one reads statistics that
+ * {@link PlayerMovementData} keeps up to date as moves are added, so all of them are cheap.
+ * Route optimality and block break analysis need the world and block events, so they run
+ * in their own stages rather than as detectors.
+ */
+final class BuiltinDetector implements MovementDetector {
+    // Moves needed before their timing says anything
+    static final int MIN_TIMING_SAMPLES = 10;
+    // Rotation changes needed before rotation statistics say anything
+    static final int MIN_ROTATION_SAMPLES = 16;
+
+    private final String id;
+    private final int defaultWeight;
+    private final Set<Feature> features;
+    private final DetectionMetrics.Check check;
+    private final DetectionMetrics.Stage stage;
+    private final Predicate<MovementView> test;
+
+    private BuiltinDetector(String id, int defaultWeight, Set<Feature> features,
+                            DetectionMetrics.Check check, DetectionMetrics.Stage stage,
+                            Predicate<MovementView> test) {
+        this.id = id;
+        this.defaultWeight = defaultWeight;
+        this.features = Collections.unmodifiableSet(features);
+        this.check = check;
+        this.stage = stage;
+        this.test = test;
+    }
+
+    /**
+     * Creates every built-in detector
+     */
+    static List<BuiltinDetector> createAll() {
+        return Arrays.asList(
+            // Long runs of moves continuing in the same direction
+            new BuiltinDetector("straight-line", 5, EnumSet.of(Feature.MOVE_FEATURES),
+                    DetectionMetrics.Check.STRAIGHT_LINE, null,
+                    movement -> movement.getStraightLineCounter() > 8),
+            // Repeated turns of exactly 45 or 90 degrees
+            new BuiltinDetector("exact-angle", 3, EnumSet.of(Feature.DIRECTION_CHANGES),
+                    DetectionMetrics.Check.EXACT_ANGLE, null,
+                    movement -> movement.getExactAngleChangeCount() > 3),
+            // Repeated jumps of exactly vanilla height
+            new BuiltinDetector("perfect-jump", 3, EnumSet.of(Feature.DIRECTION_CHANGES),
+                    DetectionMetrics.Check.PERFECT_JUMP, null,
+                    movement -> movement.getPerfectJumpCount() > 2),
+            // Moves at a machine-steady rhythm (a very strong Baritone indicator)
+            new BuiltinDetector("timing-consistency", 10, EnumSet.of(Feature.MOVE_TIMING),
+                    DetectionMetrics.Check.TIMING_CONSISTENCY, DetectionMetrics.Stage.TIMING_CONSISTENCY,
+                    movement -> movement.getTimingConsistency() > 0.7),
+            // Direction changes at consistent intervals, mostly matching their predecessor
+            new BuiltinDetector("direction-pattern", 5, EnumSet.of(Feature.DIRECTION_CHANGES),
+                    DetectionMetrics.Check.DIRECTION_PATTERN, DetectionMetrics.Stage.DIRECTION_PATTERN,
+                    movement -> movement.getExactAngleChangeCount() > 5
+                            && movement.getDirectionConsistency() > 0.5),
+            // Turns that land on exact multiples of 45 degrees yaw
+            new BuiltinDetector("rotation-snap", 3, EnumSet.of(Feature.ROTATION),
+                    DetectionMetrics.Check.ROTATION_SNAP, null,
+                    movement -> movement.getTurnCount() >= 8
+                            && movement.getSnappedRatio() > 0.8),
+            // Pitch changes sharing no mouse sensitivity step, as computed rotations do
+            new BuiltinDetector("rotation-quantisation", 5, EnumSet.of(Feature.ROTATION),
+                    DetectionMetrics.Check.ROTATION_QUANTISATION, null,
+                    movement -> movement.isRotationWindowFull() && movement.getPitchGcd() > 0
+                            && movement.getPitchGcd() < RotationAnalyzer.MIN_MOUSE_STEP / 2),
+            // Turning at a machine-steady rate
+            new BuiltinDetector("constant-turn-rate", 3, EnumSet.of(Feature.ROTATION),
+                    DetectionMetrics.Check.CONSTANT_TURN_RATE, null,
+                    movement -> Math.abs(movement.getMeanYawDelta()) > 1
+                            && movement.getYawDeltaDeviation() < 0.05 * Math.abs(movement.getMeanYawDelta())),
+            // Yaw changes repeating at a single frequency
+            new BuiltinDetector("rotation-periodicity", 3, EnumSet.of(Feature.ROTATION),
+                    DetectionMetrics.Check.ROTATION_PERIODICITY, null,
+                    movement -> movement.getRotationPeriodicity() > 0.6));
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public Cost getCost() {
+        return Cost.CHEAP;
+    }
+
+    @Override
+    public Set<Feature> getFeatures() {
+        return features;
+    }
+
+    @Override
+    public int getDefaultWeight() {
+        return defaultWeight;
+    }
+
+    @Override
+    public boolean detect(MovementView movement) {
+        return test.test(movement);
+    }
+
+    /**
+     * Gets the metrics check counting this detector's hits
+     */
+    DetectionMetrics.Check getCheck() {
+        return check;
+    }
+
+    /**
+     * Gets the metrics stage timing this detector, or null if it is not timed
+     */
+    DetectionMetrics.Stage getStage() {
+        return stage;
+    }
+}
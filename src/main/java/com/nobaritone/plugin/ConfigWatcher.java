@@ -0,0 +1,95 @@
+package com.nobaritone.plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches config.yml on its own thread and reloads the plugin configuration when the
+ * file changes. Editors often write a file in several steps, so the reload waits until
+ * the file has not changed for a moment.
+ */
+public class ConfigWatcher {
+    // Quiet time after the last change before reloading
+    private static final long SETTLE_MILLIS = 500;
+
+    private final NoBaritone plugin;
+    private final Path directory;
+    private final String fileName;
+    private final Thread watcherThread;
+    private WatchService watchService;
+
+    public ConfigWatcher(NoBaritone plugin, File file) {
+        this.plugin = plugin;
+        this.directory = file.getAbsoluteFile().getParentFile().toPath();
+        this.fileName = file.getName();
+        this.watcherThread = new Thread(this::watchLoop, "NoBaritone-ConfigWatcher");
+        this.watcherThread.setDaemon(true);
+    }
+
+    /**
+     * Starts watching the file
+     *
+     * @throws IOException if the file system cannot watch the directory
+     */
+    public void start() throws IOException {
+        watchService = FileSystems.getDefault().newWatchService();
+        directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        watcherThread.start();
+    }
+
+    /**
+     * Stops watching the file
+     */
+    public void shutdown() {
+        watcherThread.interrupt();
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            plugin.getLogger().warning("Failed to stop watching config.yml: " + e.getMessage());
+        }
+    }
+
+    private void watchLoop() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                if (!drain(watchService.take())) {
+                    continue;
+                }
+
+                // Let the editor finish writing
+                WatchKey next;
+                while ((next = watchService.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    drain(next);
+                }
+
+                plugin.getLogger().info(fileName + " changed, reloading configuration");
+                plugin.reloadNoBaritone();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Stopped by shutdown
+        }
+    }
+
+    /**
+     * Consumes the events of a key, checking whether any of them concern the watched file
+     */
+    private boolean drain(WatchKey key) {
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            Object context = event.context();
+            if (context instanceof Path && ((Path) context).getFileName().toString().equals(fileName)) {
+                changed = true;
+            }
+        }
+        key.reset();
+        return changed;
+    }
+}
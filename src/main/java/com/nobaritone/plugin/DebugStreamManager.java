@@ -0,0 +1,160 @@
+package com.nobaritone.plugin;
+
+import org.bukkit.ChatColor;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Streams live feature snapshots of watched players to staff. A single repeating task
+ * serves every viewer: each run reads one snapshot per watch into a shared, reused
+ * {@link FeatureSnapshot} and only sends a line when the player moved since the last
+ * update, so idle suspects cost nothing. Must be used from the server thread.
+ */
+public class DebugStreamManager implements Runnable {
+    private static final String PREFIX = ChatColor.RED + "[NB] " + ChatColor.RESET;
+
+    private final NoBaritone plugin;
+    private final Map<UUID, List<Watch>> watchesByViewer = new HashMap<>();
+    private final FeatureSnapshot snapshot = new FeatureSnapshot();
+
+    public DebugStreamManager(NoBaritone plugin) {
+        this.plugin = plugin;
+    }
+
+    @Override
+    public void run() {
+        if (watchesByViewer.isEmpty()) {
+            return;
+        }
+
+        PlayerStateStore playerData = plugin.getPlayerData();
+        for (Map.Entry<UUID, List<Watch>> entry : watchesByViewer.entrySet()) {
+            Player viewer = plugin.getServer().getPlayer(entry.getKey());
+            if (viewer == null) {
+                continue;
+            }
+
+            for (Watch watch : entry.getValue()) {
+                PlayerMovementData data = playerData.get(watch.targetId);
+                if (data == null || !data.readSnapshot(snapshot) || snapshot.getVersion() == watch.lastVersion) {
+                    continue;
+                }
+
+                watch.lastVersion = snapshot.getVersion();
+                viewer.sendMessage(PREFIX + formatLine(watch.targetName, snapshot));
+            }
+        }
+    }
+
+    /**
+     * Starts or stops streaming a target to a viewer
+     *
+     * @return true if the viewer is now watching the target
+     */
+    public boolean toggle(Player viewer, Player target) {
+        List<Watch> watches = watchesByViewer.computeIfAbsent(viewer.getUniqueId(), id -> new ArrayList<>());
+
+        for (Iterator<Watch> it = watches.iterator(); it.hasNext(); ) {
+            if (it.next().targetId.equals(target.getUniqueId())) {
+                it.remove();
+                if (watches.isEmpty()) {
+                    watchesByViewer.remove(viewer.getUniqueId());
+                }
+                return false;
+            }
+        }
+
+        watches.add(new Watch(target.getUniqueId(), target.getName()));
+        return true;
+    }
+
+    /**
+     * Stops every stream of a viewer
+     *
+     * @return the number of stopped streams
+     */
+    public int stopAll(UUID viewerId) {
+        List<Watch> watches = watchesByViewer.remove(viewerId);
+        return watches == null ? 0 : watches.size();
+    }
+
+    /**
+     * Drops a player that left, both as viewer and as target
+     */
+    public void forget(UUID playerId) {
+        watchesByViewer.remove(playerId);
+
+        for (Iterator<Map.Entry<UUID, List<Watch>>> it = watchesByViewer.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<UUID, List<Watch>> entry = it.next();
+            for (Iterator<Watch> watchIt = entry.getValue().iterator(); watchIt.hasNext(); ) {
+                Watch watch = watchIt.next();
+                if (!watch.targetId.equals(playerId)) {
+                    continue;
+                }
+
+                watchIt.remove();
+                Player viewer = plugin.getServer().getPlayer(entry.getKey());
+                if (viewer != null) {
+                    viewer.sendMessage(PREFIX + ChatColor.YELLOW + watch.targetName + " left, stopped streaming.");
+                }
+            }
+
+            if (entry.getValue().isEmpty()) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Gets the number of active streams
+     */
+    public int size() {
+        int size = 0;
+        for (List<Watch> watches : watchesByViewer.values()) {
+            size += watches.size();
+        }
+        return size;
+    }
+
+    /**
+     * Formats a snapshot as a single compact line
+     */
+    static String formatLine(String playerName, FeatureSnapshot snapshot) {
+        StringBuilder line = new StringBuilder(128)
+                .append(ChatColor.YELLOW).append(playerName)
+                .append(ChatColor.WHITE).append(" VL ").append(snapshot.getViolationLevel())
+                .append(" score ").append(snapshot.getScore())
+                .append(" p ").append(Math.round(snapshot.getProbability() * 100)).append('%')
+                .append(ChatColor.GRAY).append(" | line ").append(snapshot.getStraightLineCounter())
+                .append(" angle ").append(snapshot.getExactAngleChanges())
+                .append(" jump ").append(snapshot.getPerfectJumps())
+                .append(" | timing ").append(Math.round(snapshot.getTimingConsistency() * 100)).append('%')
+                .append(" dir ").append(Math.round(snapshot.getDirectionConsistency() * 100)).append('%');
+
+        if (snapshot.getRecentCount() > 0) {
+            line.append(" | ").append(String.format("%.1f %.1f %.1f",
+                    snapshot.getRecentX(0), snapshot.getRecentY(0), snapshot.getRecentZ(0)));
+        }
+        return line.toString();
+    }
+
+    /**
+     * A streamed target along with the last version sent
+     */
+    private static class Watch {
+        private final UUID targetId;
+        private final String targetName;
+        private long lastVersion = -1;
+
+        Watch(UUID targetId, String targetName) {
+            this.targetId = targetId;
+            this.targetName = targetName;
+        }
+    }
+}
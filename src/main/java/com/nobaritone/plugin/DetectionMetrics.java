@@ -0,0 +1,204 @@
+package com.nobaritone.plugin;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histograms and hit counters for the detection hot path. Stages are timed with
+ * {@link #start()} and {@link #stop(Stage, long)}; checks count how often they were
+ * evaluated and how often they added to the suspicion score. Safe to use from the server
+ * thread and the analysis workers at the same time. While disabled, probes cost a
+ * volatile read.
+ */
+public class DetectionMetrics {
+    /**
+     * Shared instance that never records, for movement data created outside the plugin
+     */
+    public static final DetectionMetrics DISABLED = new DetectionMetrics(false);
+
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    /**
+     * Timed stages of the detection pipeline
+     */
+    public enum Stage {
+        ADD_MOVEMENT("add_movement"),
+        FEATURES("features"),
+        TIMING_CONSISTENCY("timing_consistency"),
+        DIRECTION_PATTERN("direction_pattern"),
+        PATTERN_CHECK("pattern_check"),
+        HANDLE_SUSPICIOUS("handle_suspicious"),
+        NOTIFY("notify"),
+        KICK("kick"),
+        BLOCK_BREAK("block_break"),
+        PATH_SEARCH("path_search"),
+        ROTATION("rotation");
+
+        private final String label;
+
+        Stage(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    /**
+     * Checks contributing to the suspicion score
+     */
+    public enum Check {
+        STRAIGHT_LINE("straight_line"),
+        EXACT_ANGLE("exact_angle"),
+        PERFECT_JUMP("perfect_jump"),
+        TIMING_CONSISTENCY("timing_consistency"),
+        DIRECTION_PATTERN("direction_pattern"),
+        BREAK_TIMING("break_timing"),
+        TUNNEL("tunnel"),
+        ORE_TARGETING("ore_targeting"),
+        PATH_OPTIMALITY("path_optimality"),
+        ROTATION_SNAP("rotation_snap"),
+        ROTATION_QUANTISATION("rotation_quantisation"),
+        CONSTANT_TURN_RATE("constant_turn_rate"),
+        ROTATION_PERIODICITY("rotation_periodicity");
+
+        private final String label;
+
+        Check(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    private final Map<Stage, LatencyHistogram> latencies = new EnumMap<>(Stage.class);
+    private final Map<Check, LongAdder> evaluations = new EnumMap<>(Check.class);
+    private final Map<Check, LongAdder> hits = new EnumMap<>(Check.class);
+    private volatile boolean enabled;
+
+    public DetectionMetrics(boolean enabled) {
+        this.enabled = enabled;
+
+        for (Stage stage : Stage.values()) {
+            latencies.put(stage, new LatencyHistogram());
+        }
+        for (Check check : Check.values()) {
+            evaluations.put(check, new LongAdder());
+            hits.put(check, new LongAdder());
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = this != DISABLED && enabled;
+    }
+
+    /**
+     * Starts timing a stage
+     *
+     * @return the start time to pass to {@link #stop(Stage, long)}, or 0 while disabled
+     */
+    public long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Records the time spent in a stage since the given start time
+     */
+    public void stop(Stage stage, long startNanos) {
+        if (startNanos != 0) {
+            latencies.get(stage).record(System.nanoTime() - startNanos);
+        }
+    }
+
+    /**
+     * Counts an evaluation of a check and whether it added to the score
+     */
+    public void recordCheck(Check check, boolean hit) {
+        if (!enabled) {
+            return;
+        }
+
+        evaluations.get(check).increment();
+        if (hit) {
+            hits.get(check).increment();
+        }
+    }
+
+    public LatencyHistogram getLatency(Stage stage) {
+        return latencies.get(stage);
+    }
+
+    public long getEvaluations(Check check) {
+        return evaluations.get(check).sum();
+    }
+
+    public long getHits(Check check) {
+        return hits.get(check).sum();
+    }
+
+    /**
+     * Gets the share of evaluations in which the check added to the score
+     */
+    public double getHitRate(Check check) {
+        long evaluated = getEvaluations(check);
+        return evaluated == 0 ? 0 : (double) getHits(check) / evaluated;
+    }
+
+    /**
+     * Clears all histograms and counters
+     */
+    public void reset() {
+        for (LatencyHistogram histogram : latencies.values()) {
+            histogram.reset();
+        }
+        for (Check check : Check.values()) {
+            evaluations.get(check).reset();
+            hits.get(check).reset();
+        }
+    }
+
+    /**
+     * Writes all metrics in the Prometheus text exposition format
+     */
+    public void writePrometheus(Writer out) throws IOException {
+        out.write("# HELP nobaritone_stage_latency_seconds Time spent in a detection stage.\n");
+        out.write("# TYPE nobaritone_stage_latency_seconds summary\n");
+        for (Stage stage : Stage.values()) {
+            LatencyHistogram histogram = latencies.get(stage);
+            String label = "stage=\"" + stage.getLabel() + "\"";
+            for (double quantile : QUANTILES) {
+                out.write("nobaritone_stage_latency_seconds{" + label + ",quantile=\"" + quantile + "\"} "
+                        + seconds(histogram.getValueAtPercentile(quantile * 100)) + "\n");
+            }
+            out.write("nobaritone_stage_latency_seconds_sum{" + label + "} " + seconds(histogram.getTotalNanos()) + "\n");
+            out.write("nobaritone_stage_latency_seconds_count{" + label + "} " + histogram.getCount() + "\n");
+        }
+
+        out.write("# HELP nobaritone_check_evaluations_total Times a check was evaluated.\n");
+        out.write("# TYPE nobaritone_check_evaluations_total counter\n");
+        for (Check check : Check.values()) {
+            out.write("nobaritone_check_evaluations_total{check=\"" + check.getLabel() + "\"} " + getEvaluations(check) + "\n");
+        }
+
+        out.write("# HELP nobaritone_check_hits_total Times a check added to the suspicion score.\n");
+        out.write("# TYPE nobaritone_check_hits_total counter\n");
+        for (Check check : Check.values()) {
+            out.write("nobaritone_check_hits_total{check=\"" + check.getLabel() + "\"} " + getHits(check) + "\n");
+        }
+    }
+
+    private static String seconds(long nanos) {
+        return String.format(Locale.ROOT, "%.9f", nanos / 1e9);
+    }
+}
@@ -0,0 +1,343 @@
+package com.nobaritone.plugin;
+
+import org.bukkit.plugin.Plugin;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs the registered {@link MovementDetector}s against a player's movement and adds up
+ * the weights of those that fire. Detectors run cheapest first; expensive ones are only
+ * run once the cheaper ones scored enough to make the player worth the effort, and a
+ * detector is skipped while the features it needs have not collected enough data.
+ *
+ * Players without suspicion only get a sentinel subset of the detectors, on a share of
+ * their moves, and are escalated to all detectors for a while once a sentinel fires,
+ * see {@link PlayerMovementData#checkForBaritonePatterns()}.
+ *
+ * The run order, the configured weights, tier settings and scoring model are resolved
+ * into one immutable {@link Settings} object, replaced as a whole on registration and
+ * reload. Analysing threads read it once per move, so a move is never checked with
+ * half of a reload. A detector that throws is disabled until it is registered again or
+ * the configuration is reloaded.
+ */
+public class DetectorPipeline implements DetectorRegistry {
+    /**
+     * Shared pipeline with the built-in detectors at their default weights, for
+     * movement data created outside the plugin
+     */
+    public static final DetectorPipeline BUILTIN = new DetectorPipeline(null);
+
+    private static final int DEFAULT_EXPENSIVE_MIN_SCORE = 3;
+
+    private final Logger logger;
+    // Guarded by this
+    private final List<Registration> registrations = new ArrayList<>();
+    private BaritoneDetectionConfig config;
+    private ScoringModel scoringModel;
+
+    private volatile Settings settings;
+    private final LongAdder sentinelChecks = new LongAdder();
+    private final LongAdder fullChecks = new LongAdder();
+    private final LongAdder escalations = new LongAdder();
+
+    /**
+     * Creates a pipeline holding the built-in detectors
+     *
+     * @param logger logger for failing detectors, or null to fail silently
+     */
+    public DetectorPipeline(Logger logger) {
+        this.logger = logger;
+        for (BuiltinDetector detector : BuiltinDetector.createAll()) {
+            registrations.add(new Registration(null, detector));
+        }
+        rebuild();
+    }
+
+    /**
+     * Applies the detector settings of the configuration along with its scoring model,
+     * in a single step
+     *
+     * @param scoringModel the model turning detector output into decisions, or null to
+     * flag moves whose detector score reaches the fixed threshold
+     */
+    public synchronized void configure(BaritoneDetectionConfig config, ScoringModel scoringModel) {
+        this.config = config;
+        this.scoringModel = scoringModel;
+        rebuild();
+    }
+
+    /**
+     * Gets the current settings. Read them once per move and use that object throughout.
+     */
+    public Settings getSettings() {
+        return settings;
+    }
+
+    /**
+     * Gets the model turning detector output into decisions, or null if a move is
+     * suspicious whenever its detector score reaches the fixed threshold
+     */
+    public ScoringModel getScoringModel() {
+        return settings.scoringModel;
+    }
+
+    /**
+     * Checks whether players without suspicion only get the sentinel detectors
+     */
+    public boolean isTiersEnabled() {
+        return settings.tiersEnabled;
+    }
+    
+    /**
+     * Counts a player being escalated from the sentinel tier to full analysis
+     */
+    void recordEscalation() {
+        escalations.increment();
+    }
+    
+    public long getSentinelChecks() {
+        return sentinelChecks.sum();
+    }
+    
+    public long getFullChecks() {
+        return fullChecks.sum();
+    }
+    
+    public long getEscalations() {
+        return escalations.sum();
+    }
+    
+    @Override
+    public synchronized void register(Plugin owner, MovementDetector detector) {
+        removeRegistration(detector.getId());
+        registrations.add(new Registration(owner, detector));
+        rebuild();
+    }
+
+    @Override
+    public synchronized boolean unregister(String id) {
+        boolean removed = removeRegistration(id);
+        if (removed) {
+            rebuild();
+        }
+        return removed;
+    }
+
+    /**
+     * Unregisters every detector registered by the given plugin
+     */
+    public synchronized void unregisterAll(Plugin owner) {
+        if (registrations.removeIf(registration -> registration.owner == owner)) {
+            rebuild();
+        }
+    }
+
+    @Override
+    public List<MovementDetector> getDetectors() {
+        List<MovementDetector> detectors = new ArrayList<>();
+        for (Entry entry : settings.entries) {
+            detectors.add(entry.detector);
+        }
+        return Collections.unmodifiableList(detectors);
+    }
+
+    /**
+     * Runs the detectors against a player's movement with the current settings
+     *
+     * @return the summed weight of the detectors that fired
+     */
+    public int evaluate(PlayerMovementData data, DetectionMetrics metrics) {
+        return evaluate(settings, data, metrics, false);
+    }
+    
+    /**
+     * Runs the detectors, or only the sentinel detectors, against a player's movement
+     *
+     * @param settings the settings read for this move
+     * @return the summed weight of the detectors that fired
+     */
+    public int evaluate(Settings settings, PlayerMovementData data, DetectionMetrics metrics, boolean sentinelsOnly) {
+        (sentinelsOnly ? sentinelChecks : fullChecks).increment();
+        int readyFeatures = data.getReadyFeatures();
+        MovementView view = data.getView();
+        int minScoreForExpensive = settings.expensiveMinScore;
+        int score = 0;
+
+        for (Entry entry : settings.entries) {
+            if ((entry.featureMask & ~readyFeatures) != 0 || entry.failed || (sentinelsOnly && !entry.sentinel)) {
+                continue;
+            }
+            if (entry.expensive && score < minScoreForExpensive) {
+                continue;
+            }
+
+            long startNanos = entry.stage != null ? metrics.start() : 0;
+            boolean hit;
+            try {
+                hit = entry.detector.detect(view);
+            } catch (RuntimeException e) {
+                entry.failed = true;
+                if (logger != null) {
+                    logger.log(Level.WARNING, "Detector " + entry.detector.getId() + " failed and was disabled", e);
+                }
+                continue;
+            }
+
+            if (entry.stage != null) {
+                metrics.stop(entry.stage, startNanos);
+            }
+            if (entry.check != null) {
+                metrics.recordCheck(entry.check, hit);
+            }
+            if (hit) {
+                score += entry.weight;
+            }
+        }
+        return score;
+    }
+
+    private boolean removeRegistration(String id) {
+        return registrations.removeIf(registration -> registration.detector.getId().equals(id));
+    }
+
+    /**
+     * Recomputes the settings from the registrations, the configuration and the scoring
+     * model, publishing them in one write. Must hold the lock.
+     */
+    private void rebuild() {
+        List<Entry> enabled = new ArrayList<>();
+        for (Registration registration : registrations) {
+            MovementDetector detector = registration.detector;
+            if (config == null || config.isDetectorEnabled(detector.getId())) {
+                int weight = config == null ? detector.getDefaultWeight()
+                        : config.getDetectorWeight(detector.getId(), detector.getDefaultWeight());
+                boolean sentinel = config == null || config.isSentinelDetector(detector.getId());
+                enabled.add(new Entry(detector, weight, sentinel));
+            }
+        }
+
+        // Stable, so detectors of the same cost keep their registration order
+        enabled.sort((a, b) -> a.detector.getCost().compareTo(b.detector.getCost()));
+        settings = new Settings(enabled.toArray(new Entry[0]), config, scoringModel);
+    }
+
+    /**
+     * Gets the bit of a feature in the masks passed to {@link #evaluate}
+     */
+    static int featureBit(MovementDetector.Feature feature) {
+        return 1 << feature.ordinal();
+    }
+
+    /**
+     * Everything the analysis of a move needs from the pipeline, resolved from one
+     * configuration and never changed afterwards
+     */
+    public static final class Settings {
+        private final Entry[] entries;
+        private final int expensiveMinScore;
+        private final ScoringModel scoringModel;
+        private final boolean tiersEnabled;
+        private final int sentinelCheckInterval;
+        private final long fullAnalysisMillis;
+
+        private Settings(Entry[] entries, BaritoneDetectionConfig config, ScoringModel scoringModel) {
+            this.entries = entries;
+            this.scoringModel = scoringModel;
+            if (config == null) {
+                // Unconfigured pipelines give every player all detectors
+                this.expensiveMinScore = DEFAULT_EXPENSIVE_MIN_SCORE;
+                this.tiersEnabled = false;
+                this.sentinelCheckInterval = 1;
+                this.fullAnalysisMillis = 0;
+            } else {
+                this.expensiveMinScore = config.getExpensiveDetectorMinScore();
+                this.tiersEnabled = config.isTiersEnabled();
+                this.sentinelCheckInterval = Math.max(1, config.getSentinelCheckInterval());
+                this.fullAnalysisMillis = TimeUnit.MINUTES.toMillis(Math.max(0, config.getFullAnalysisMinutes()));
+            }
+        }
+
+        /**
+         * Gets the model turning detector output into decisions, or null if a move is
+         * suspicious whenever its detector score reaches the fixed threshold
+         */
+        public ScoringModel getScoringModel() {
+            return scoringModel;
+        }
+
+        /**
+         * Checks whether players without suspicion only get the sentinel detectors
+         */
+        public boolean isTiersEnabled() {
+            return tiersEnabled;
+        }
+
+        /**
+         * Gets how many moves of a player in the sentinel tier make up one check
+         */
+        public int getSentinelCheckInterval() {
+            return sentinelCheckInterval;
+        }
+
+        /**
+         * Gets how long a player stays in full analysis after a sentinel fired
+         */
+        public long getFullAnalysisMillis() {
+            return fullAnalysisMillis;
+        }
+    }
+
+    /**
+     * A detector along with the plugin that registered it, null for built-ins
+     */
+    private static class Registration {
+        private final Plugin owner;
+        private final MovementDetector detector;
+
+        Registration(Plugin owner, MovementDetector detector) {
+            this.owner = owner;
+            this.detector = detector;
+        }
+    }
+
+    /**
+     * An enabled detector with its settings resolved for the hot path
+     */
+    private static class Entry {
+        private final MovementDetector detector;
+        private final int weight;
+        private final int featureMask;
+        private final boolean expensive;
+        private final boolean sentinel;
+        private final DetectionMetrics.Check check;
+        private final DetectionMetrics.Stage stage;
+        private volatile boolean failed = false;
+
+        Entry(MovementDetector detector, int weight, boolean sentinel) {
+            this.detector = detector;
+            this.weight = weight;
+            this.sentinel = sentinel;
+            this.expensive = detector.getCost() == MovementDetector.Cost.EXPENSIVE;
+
+            int mask = 0;
+            for (MovementDetector.Feature feature : detector.getFeatures()) {
+                mask |= featureBit(feature);
+            }
+            this.featureMask = mask;
+
+            if (detector instanceof BuiltinDetector) {
+                this.check = ((BuiltinDetector) detector).getCheck();
+                this.stage = ((BuiltinDetector) detector).getStage();
+            } else {
+                this.check = null;
+                this.stage = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.nobaritone.plugin;
+
+import org.bukkit.plugin.Plugin;
+
+import java.util.List;
+
+/**
+ * Service through which other plugins add movement detectors, available from the
+ * Bukkit services manager once NoBaritone is enabled. Detectors are dropped again when
+ * the plugin that registered them is disabled.
+ */
+public interface DetectorRegistry {
+    /**
+     * Registers a detector, replacing any detector with the same id
+     */
+    void register(Plugin owner, MovementDetector detector);
+
+    /**
+     * Unregisters the detector with the given id
+     *
+     * @return true if a detector was removed
+     */
+    boolean unregister(String id);
+
+    /**
+     * Gets the registered detectors, in the order they run
+     */
+    List<MovementDetector> getDetectors();
+}
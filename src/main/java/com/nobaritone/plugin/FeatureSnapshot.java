@@ -0,0 +1,168 @@
+package com.nobaritone.plugin;
+
+/**
+ * Copy of a player's live detection features, filled by
+ * {@link PlayerMovementData#readSnapshot(FeatureSnapshot)}. Instances are meant to be
+ * reused by their reader, so watching a player does not allocate per update.
+ */
+public class FeatureSnapshot {
+    /**
+     * Number of recent samples copied into a snapshot
+     */
+    public static final int RECENT_SAMPLES = 5;
+
+    long version;
+    int violationLevel;
+    int score;
+    double probability;
+    int sampleCount;
+    int sampleCapacity;
+    int straightLineCounter;
+    int exactAngleChanges;
+    int perfectJumps;
+    double timingConsistency;
+    double meanMoveInterval;
+    double directionConsistency;
+    long lastDirectionChangeTime;
+    double meanYawDelta;
+    double yawDeltaDeviation;
+    double pitchGcd;
+    double rotationPeriodicity;
+
+    int recentCount;
+    final long[] recentTimestamps = new long[RECENT_SAMPLES];
+    final double[] recentX = new double[RECENT_SAMPLES];
+    final double[] recentY = new double[RECENT_SAMPLES];
+    final double[] recentZ = new double[RECENT_SAMPLES];
+    final float[] recentYaw = new float[RECENT_SAMPLES];
+    final float[] recentPitch = new float[RECENT_SAMPLES];
+
+    /**
+     * Gets the number of moves recorded when the snapshot was taken, which changes with every move
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public int getViolationLevel() {
+        return violationLevel;
+    }
+
+    /**
+     * Gets the suspicion score of the last pattern check
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * Gets the running probability that the player is automated
+     */
+    public double getProbability() {
+        return probability;
+    }
+
+    public int getSampleCount() {
+        return sampleCount;
+    }
+
+    public int getSampleCapacity() {
+        return sampleCapacity;
+    }
+
+    public int getStraightLineCounter() {
+        return straightLineCounter;
+    }
+
+    public int getExactAngleChanges() {
+        return exactAngleChanges;
+    }
+
+    public int getPerfectJumps() {
+        return perfectJumps;
+    }
+
+    /**
+     * Gets the share of move intervals matching their predecessor
+     */
+    public double getTimingConsistency() {
+        return timingConsistency;
+    }
+
+    /**
+     * Gets the mean time between moves in the window, in milliseconds
+     */
+    public double getMeanMoveInterval() {
+        return meanMoveInterval;
+    }
+
+    /**
+     * Gets the share of direction change intervals matching their predecessor
+     */
+    public double getDirectionConsistency() {
+        return directionConsistency;
+    }
+
+    public long getLastDirectionChangeTime() {
+        return lastDirectionChangeTime;
+    }
+
+    /**
+     * Gets the mean yaw change per rotation sample, signed
+     */
+    public double getMeanYawDelta() {
+        return meanYawDelta;
+    }
+
+    public double getYawDeltaDeviation() {
+        return yawDeltaDeviation;
+    }
+
+    /**
+     * Gets the greatest common divisor of the recent pitch changes, 0 if the pitch did not change
+     */
+    public double getPitchGcd() {
+        return pitchGcd;
+    }
+
+    /**
+     * Gets the share of the yaw change variance in its strongest frequency
+     */
+    public double getRotationPeriodicity() {
+        return rotationPeriodicity;
+    }
+
+    /**
+     * Gets the number of recent samples held, at most {@link #RECENT_SAMPLES}
+     */
+    public int getRecentCount() {
+        return recentCount;
+    }
+
+    /**
+     * Gets the time of a recent sample; index 0 is the most recent one
+     */
+    public long getRecentTimestamp(int index) {
+        return recentTimestamps[index];
+    }
+
+    public double getRecentX(int index) {
+        return recentX[index];
+    }
+
+    public double getRecentY(int index) {
+        return recentY[index];
+    }
+
+    public double getRecentZ(int index) {
+        return recentZ[index];
+    }
+
+    public float getRecentYaw(int index) {
+        return recentYaw[index];
+    }
+
+    public float getRecentPitch(int index) {
+        return recentPitch[index];
+    }
+}
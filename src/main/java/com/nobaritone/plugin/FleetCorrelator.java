@@ -0,0 +1,351 @@
+package com.nobaritone.plugin;
+
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Finds groups of players walking near-identical routes, as bot fleets running the same
+ * Baritone script do. Each player's {@link PathTrace} is cut into shingles (the 2x2 block
+ * cell of a waypoint plus the quantized heading the player crossed it with) and summarised
+ * by a MinHash signature. Signatures are split into bands that are kept in a shared index, so finding
+ * the players that share a route only looks at the players colliding in some band
+ * instead of comparing every pair. Candidates are confirmed by the share of matching
+ * signature values, which estimates the Jaccard similarity of the two routes.
+ *
+ * Only players whose routes changed in the same round are compared, so a player is not
+ * matched against the old route of someone who stopped walking it minutes ago. A player
+ * gets a violation once per group: later rounds only flag them again when the group
+ * gains a member it did not have.
+ *
+ * Rounds are started from the server thread, hashed and matched on an async task, and
+ * their verdicts applied back on the server thread through the usual violation flow.
+ */
+public class FleetCorrelator implements Runnable {
+    private static final int BANDS = 8;
+    private static final int ROWS_PER_BAND = 4;
+    private static final int HASHES = BANDS * ROWS_PER_BAND;
+    private static final long[] SEEDS = new long[HASHES];
+    
+    // Headings are taken over steps spanning this many waypoints, smoothing out jitter
+    private static final int STEP_WAYPOINTS = 2;
+    // Routes are compared on a grid of 2x2 block cells
+    private static final int CELL_SHIFT = 1;
+    // Straight routes, such as everyone walking down the same road, are not compared
+    private static final int MIN_TURNS = 2;
+
+    static {
+        for (int i = 0; i < HASHES; i++) {
+            SEEDS[i] = mix64(0x9E3779B97F4A7C15L * (i + 1));
+        }
+    }
+
+    private final NoBaritone plugin;
+    private final AtomicBoolean roundInProgress = new AtomicBoolean(false);
+
+    // Only touched by the round in progress
+    private final Map<UUID, Signature> signatures = new HashMap<>();
+    private final Map<Long, List<UUID>> bandIndex = new HashMap<>();
+    // Partners each player was last flagged with
+    private final Map<UUID, Set<UUID>> flaggedGroups = new HashMap<>();
+    private long round = 0;
+    private final PathTrace path = new PathTrace(PlayerMovementData.PATH_WAYPOINTS);
+    private final int[] shingles = new int[PlayerMovementData.PATH_WAYPOINTS];
+
+    private volatile int indexedPlayers = 0;
+    private volatile int lastFlaggedPlayers = 0;
+
+    public FleetCorrelator(NoBaritone plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Starts a correlation round unless one is still running. Must run on the server thread.
+     */
+    @Override
+    public void run() {
+        BaritoneDetectionConfig config = plugin.getBaritoneConfig();
+        if (!config.isEnabled() || !config.isFleetCorrelationEnabled() || !roundInProgress.compareAndSet(false, true)) {
+            return;
+        }
+
+        // Collect the players to compare while Bukkit state may be touched
+        List<Candidate> candidates = new ArrayList<>();
+        for (Player player : plugin.getServer().getOnlinePlayers()) {
+            UUID playerId = player.getUniqueId();
+            PlayerMovementData data = plugin.getPlayerData().peek(playerId);
+            if (data != null && !plugin.getPreFilter().isExcluded(playerId)) {
+                candidates.add(new Candidate(playerId, player.getWorld().getUID(), data));
+            }
+        }
+
+        double threshold = config.getFleetSimilarityThreshold();
+        int minGroupSize = config.getFleetMinGroupSize();
+        int minPathLength = config.getFleetMinPathLength();
+
+        plugin.getServer().getScheduler().runTaskAsynchronously(plugin, () -> {
+            try {
+                Set<UUID> flagged = correlate(candidates, threshold, minGroupSize, minPathLength);
+                if (!flagged.isEmpty()) {
+                    plugin.getServer().getScheduler().runTask(plugin, () -> applyVerdicts(flagged));
+                }
+            } finally {
+                roundInProgress.set(false);
+            }
+        });
+    }
+
+    /**
+     * Updates the index with the candidates' current routes and finds the players whose new
+     * route is shared by enough others
+     */
+    private Set<UUID> correlate(List<Candidate> candidates, double threshold, int minGroupSize, int minPathLength) {
+        Set<UUID> present = new HashSet<>();
+        List<Signature> changed = new ArrayList<>();
+        round++;
+
+        for (Candidate candidate : candidates) {
+            present.add(candidate.playerId);
+            if (!candidate.data.readPath(path)) {
+                // Busy right now, keep the previous signature until the next round
+                continue;
+            }
+
+            Signature previous = signatures.get(candidate.playerId);
+            if (previous != null && previous.pathVersion == path.getVersion() && previous.worldId.equals(candidate.worldId)) {
+                continue;
+            }
+            if (previous != null) {
+                unindex(previous);
+                signatures.remove(candidate.playerId);
+            }
+
+            Signature signature = path.size() >= minPathLength ? sign(candidate) : null;
+            if (signature != null) {
+                signatures.put(candidate.playerId, signature);
+                index(signature);
+                changed.add(signature);
+            }
+        }
+
+        // Forget players that left or became excluded
+        for (Iterator<Signature> it = signatures.values().iterator(); it.hasNext(); ) {
+            Signature signature = it.next();
+            if (!present.contains(signature.playerId)) {
+                unindex(signature);
+                it.remove();
+                flaggedGroups.remove(signature.playerId);
+            }
+        }
+
+        // Only players that moved since the last round are judged, standing still proves nothing
+        Set<UUID> flagged = new HashSet<>();
+        Set<UUID> compared = new HashSet<>();
+        for (Signature signature : changed) {
+            compared.clear();
+            Set<UUID> partners = new HashSet<>();
+
+            for (long bandKey : signature.bandKeys) {
+                List<UUID> bucket = bandIndex.get(bandKey);
+                if (bucket == null) {
+                    continue;
+                }
+
+                for (UUID otherId : bucket) {
+                    if (otherId.equals(signature.playerId) || !compared.add(otherId)) {
+                        continue;
+                    }
+
+                    // Partners must have walked their route in this round too
+                    Signature other = signatures.get(otherId);
+                    if (other != null && other.round == round && signature.similarity(other) >= threshold) {
+                        partners.add(otherId);
+                    }
+                }
+            }
+
+            if (partners.size() + 1 < minGroupSize) {
+                continue;
+            }
+
+            // Walking on with the same group is not a new finding
+            Set<UUID> previousPartners = flaggedGroups.get(signature.playerId);
+            if (previousPartners == null || !previousPartners.containsAll(partners)) {
+                flaggedGroups.put(signature.playerId, partners);
+                flagged.add(signature.playerId);
+            }
+        }
+
+        indexedPlayers = signatures.size();
+        lastFlaggedPlayers = flagged.size();
+        return flagged;
+    }
+
+    /**
+     * Raises the violation level of players found walking a shared route
+     */
+    private void applyVerdicts(Set<UUID> flagged) {
+        for (UUID playerId : flagged) {
+            Player player = plugin.getServer().getPlayer(playerId);
+            PlayerMovementData data = plugin.getPlayerData().peek(playerId);
+            if (player != null && data != null) {
+                plugin.handleSuspiciousMovement(player, data);
+            }
+        }
+    }
+
+    /**
+     * Computes the MinHash signature of the route currently held in the scratch path
+     */
+    private Signature sign(Candidate candidate) {
+        int count = 0;
+        int turns = 0;
+        int previousHeading = -1;
+        for (int i = 0; i + STEP_WAYPOINTS < path.size(); i++) {
+            int from = i + STEP_WAYPOINTS;
+            int heading = heading(path.getX(i) - path.getX(from), path.getZ(i) - path.getZ(from));
+            if (previousHeading >= 0 && heading != previousHeading) {
+                turns++;
+            }
+            previousHeading = heading;
+
+            long cellX = (int) Math.floor(path.getX(from)) >> CELL_SHIFT;
+            long cellZ = (int) Math.floor(path.getZ(from)) >> CELL_SHIFT;
+            shingles[count++] = (int) mix64((cellX << 36) ^ ((cellZ & 0xFFFFFFFL) << 4) ^ heading);
+        }
+
+        if (count == 0 || turns < MIN_TURNS) {
+            return null;
+        }
+
+        int[] minHashes = new int[HASHES];
+        for (int h = 0; h < HASHES; h++) {
+            int min = Integer.MAX_VALUE;
+            for (int s = 0; s < count; s++) {
+                int value = (int) mix64(shingles[s] ^ SEEDS[h]);
+                if (value < min) {
+                    min = value;
+                }
+            }
+            minHashes[h] = min;
+        }
+
+        // Routes in different worlds never share a band
+        long worldHash = candidate.worldId.getMostSignificantBits() ^ candidate.worldId.getLeastSignificantBits();
+        long[] bandKeys = new long[BANDS];
+        for (int band = 0; band < BANDS; band++) {
+            long key = mix64(worldHash ^ band);
+            for (int row = 0; row < ROWS_PER_BAND; row++) {
+                key = mix64(key ^ (minHashes[band * ROWS_PER_BAND + row] & 0xFFFFFFFFL));
+            }
+            bandKeys[band] = key;
+        }
+
+        return new Signature(candidate.playerId, candidate.worldId, path.getVersion(), round, minHashes, bandKeys);
+    }
+
+    private void index(Signature signature) {
+        for (long bandKey : signature.bandKeys) {
+            bandIndex.computeIfAbsent(bandKey, key -> new ArrayList<>(2)).add(signature.playerId);
+        }
+    }
+
+    private void unindex(Signature signature) {
+        for (long bandKey : signature.bandKeys) {
+            List<UUID> bucket = bandIndex.get(bandKey);
+            if (bucket != null && bucket.remove(signature.playerId) && bucket.isEmpty()) {
+                bandIndex.remove(bandKey);
+            }
+        }
+    }
+
+    /**
+     * Quantizes a step to one of eight compass directions, or 4 for no movement
+     */
+    private static int heading(double dx, double dz) {
+        // An axis counts if it makes up at least half of the other one, splitting at about 26.6 degrees
+        double ax = Math.abs(dx);
+        double az = Math.abs(dz);
+        int sx = 2 * ax >= az ? (int) Math.signum(dx) : 0;
+        int sz = 2 * az >= ax ? (int) Math.signum(dz) : 0;
+        return (sx + 1) * 3 + (sz + 1);
+    }
+
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 33)) * 0xFF51AFD7ED558CCDL;
+        z = (z ^ (z >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return z ^ (z >>> 33);
+    }
+
+    /**
+     * Gets the number of players with a route in the index
+     */
+    public int getIndexedPlayers() {
+        return indexedPlayers;
+    }
+
+    /**
+     * Gets the number of players flagged in the last round
+     */
+    public int getLastFlaggedPlayers() {
+        return lastFlaggedPlayers;
+    }
+
+    /**
+     * A player to include in a round, collected on the server thread
+     */
+    private static class Candidate {
+        private final UUID playerId;
+        private final UUID worldId;
+        private final PlayerMovementData data;
+
+        Candidate(UUID playerId, UUID worldId, PlayerMovementData data) {
+            this.playerId = playerId;
+            this.worldId = worldId;
+            this.data = data;
+        }
+    }
+
+    /**
+     * MinHash signature of a player's route and the band keys it is indexed under
+     */
+    private static class Signature {
+        private final UUID playerId;
+        private final UUID worldId;
+        private final long pathVersion;
+        // Round the route was signed in
+        private final long round;
+        private final int[] minHashes;
+        private final long[] bandKeys;
+
+        Signature(UUID playerId, UUID worldId, long pathVersion, long round, int[] minHashes, long[] bandKeys) {
+            this.playerId = playerId;
+            this.worldId = worldId;
+            this.pathVersion = pathVersion;
+            this.round = round;
+            this.minHashes = minHashes;
+            this.bandKeys = bandKeys;
+        }
+
+        /**
+         * Estimates the Jaccard similarity of two routes
+         */
+        double similarity(Signature other) {
+            int equal = 0;
+            for (int i = 0; i < HASHES; i++) {
+                if (minHashes[i] == other.minHashes[i]) {
+                    equal++;
+                }
+            }
+            return (double) equal / HASHES;
+        }
+    }
+}
@@ -0,0 +1,310 @@
+package com.nobaritone.plugin;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Append-only incident log written by a background thread. Incidents are put into a
+ * bounded queue without blocking the caller and written to disk in batches. The file is
+ * rotated once it grows past a size limit or gets older than the rotation interval, and
+ * rotated segments are gzip-compressed. When the queue fills up, low priority incidents
+ * are dropped first so that the server thread never waits on disk.
+ *
+ * A journal replacing another one waits on its own thread for the previous writer to
+ * finish, so that shutting down never blocks the server thread and the two never write
+ * the same file at once.
+ */
+public class IncidentJournal {
+    private static final int BATCH_SIZE = 256;
+    private static final long POLL_TIMEOUT_MS = 1000;
+    private static final long SHUTDOWN_TIMEOUT_MS = 5000;
+
+    /**
+     * Incident priority, deciding how full the queue may be before the incident is dropped
+     */
+    public enum Priority {
+        LOW(0.5),
+        NORMAL(0.9),
+        HIGH(1.0);
+
+        private final double maxFill;
+
+        Priority(double maxFill) {
+            this.maxFill = maxFill;
+        }
+    }
+
+    private final Logger logger;
+    private final File directory;
+    private final String fileName;
+    private final long maxFileBytes;
+    private final long rotateIntervalMillis;
+    private final int capacity;
+    private final BlockingQueue<Incident> queue;
+    private final AtomicLong droppedIncidents = new AtomicLong();
+
+    private final Thread writerThread;
+    private volatile boolean running = false;
+
+    // Only accessed from the writer thread
+    private IncidentJournal previous;
+    private Writer writer;
+    // Size of the current file as written so far, or -1 until it has been read from disk
+    private long fileBytes = -1;
+    private long fileOpenedAt;
+
+    /**
+     * @param previous journal being replaced, whose writer must finish first, or null
+     */
+    public IncidentJournal(Logger logger, File directory, String fileName,
+                           long maxFileBytes, long rotateIntervalMillis, int capacity, IncidentJournal previous) {
+        this.logger = logger;
+        this.directory = directory;
+        this.fileName = fileName;
+        this.maxFileBytes = maxFileBytes;
+        this.rotateIntervalMillis = rotateIntervalMillis;
+        this.capacity = Math.max(1, capacity);
+        this.queue = new ArrayBlockingQueue<>(this.capacity);
+        this.previous = previous;
+        this.writerThread = new Thread(this::writeLoop, "NoBaritone-Journal");
+        this.writerThread.setDaemon(true);
+    }
+
+    /**
+     * Starts the writer thread
+     */
+    public void start() {
+        running = true;
+        writerThread.start();
+    }
+
+    /**
+     * Stops accepting incidents. The writer thread writes everything still queued and
+     * closes the file in the background.
+     */
+    public void shutdown() {
+        running = false;
+        writerThread.interrupt();
+    }
+
+    /**
+     * Waits for the writer thread to finish after {@link #shutdown()}
+     *
+     * @return false if it was still writing when the timeout ran out
+     */
+    public boolean awaitTermination(long timeoutMillis) {
+        try {
+            writerThread.join(timeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return !writerThread.isAlive();
+    }
+
+    /**
+     * Queues an incident without blocking
+     *
+     * @return false if the incident was dropped
+     */
+    public boolean log(Priority priority, String message) {
+        if (!running || queue.size() >= capacity * priority.maxFill || !queue.offer(new Incident(priority, message))) {
+            droppedIncidents.incrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Gets the number of incidents dropped because the queue was too full
+     */
+    public long getDroppedIncidents() {
+        return droppedIncidents.get();
+    }
+
+    private void writeLoop() {
+        List<Incident> batch = new ArrayList<>(BATCH_SIZE);
+        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+        Date date = new Date();
+
+        if (previous != null) {
+            if (!previous.awaitTermination(SHUTDOWN_TIMEOUT_MS)) {
+                logger.warning("Previous incident journal is still writing, continuing anyway");
+            }
+            previous = null;
+        }
+
+        while (running || !queue.isEmpty()) {
+            try {
+                Incident first = running ? queue.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS) : queue.poll();
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, BATCH_SIZE - 1);
+                }
+            } catch (InterruptedException e) {
+                // Interrupted by shutdown, flush whatever is left
+                continue;
+            }
+
+            try {
+                rotateIfNeeded();
+                if (batch.isEmpty()) {
+                    continue;
+                }
+
+                Writer out = openWriter();
+                if (fileBytes == 0) {
+                    fileOpenedAt = System.currentTimeMillis();
+                }
+                for (Incident incident : batch) {
+                    date.setTime(incident.timestamp);
+                    String line = "[" + dateFormat.format(date) + "] [" + incident.priority + "] " + incident.message + "\n";
+                    out.write(line);
+                    fileBytes += line.getBytes(StandardCharsets.UTF_8).length;
+                }
+                out.flush();
+            } catch (IOException e) {
+                logger.warning("Failed to write incident journal: " + e.getMessage());
+                closeWriter();
+                // The file is in an unknown state, read its size again
+                fileBytes = -1;
+            }
+            batch.clear();
+        }
+
+        closeWriter();
+    }
+
+    private Writer openWriter() throws IOException {
+        if (writer == null) {
+            if (!directory.exists()) {
+                directory.mkdirs();
+            }
+
+            File file = new File(directory, fileName);
+            writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, true), StandardCharsets.UTF_8));
+        }
+        return writer;
+    }
+
+    private void closeWriter() {
+        if (writer == null) {
+            return;
+        }
+
+        try {
+            writer.close();
+        } catch (IOException e) {
+            logger.warning("Failed to close incident journal: " + e.getMessage());
+        }
+        writer = null;
+    }
+
+    /**
+     * Moves the current file aside and compresses it once it is too large or too old
+     */
+    private void rotateIfNeeded() throws IOException {
+        File file = new File(directory, fileName);
+        if (fileBytes < 0) {
+            // Only read from disk once, later writes are counted as they happen
+            fileBytes = file.length();
+            fileOpenedAt = getCreationTime(file);
+        }
+        if (fileBytes == 0) {
+            return;
+        }
+
+        boolean tooLarge = maxFileBytes > 0 && fileBytes >= maxFileBytes;
+        boolean tooOld = rotateIntervalMillis > 0 && System.currentTimeMillis() - fileOpenedAt >= rotateIntervalMillis;
+        if (!tooLarge && !tooOld) {
+            return;
+        }
+
+        closeWriter();
+
+        String baseName = fileName.endsWith(".log") ? fileName.substring(0, fileName.length() - 4) : fileName;
+        String suffix = new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
+        File rotated = new File(directory, baseName + "-" + suffix + ".log");
+        for (int i = 1; rotated.exists() || new File(rotated.getPath() + ".gz").exists(); i++) {
+            rotated = new File(directory, baseName + "-" + suffix + "-" + i + ".log");
+        }
+
+        if (!file.renameTo(rotated)) {
+            throw new IOException("Could not rotate " + file.getName());
+        }
+        fileBytes = 0;
+        compress(rotated);
+    }
+
+    /**
+     * Gets when a file was created, falling back to now for new or unreadable files
+     */
+    private static long getCreationTime(File file) {
+        if (file.length() == 0) {
+            return System.currentTimeMillis();
+        }
+
+        try {
+            return Files.readAttributes(file.toPath(), BasicFileAttributes.class).creationTime().toMillis();
+        } catch (IOException e) {
+            return file.lastModified();
+        }
+    }
+
+    /**
+     * Replaces a rotated segment with its gzip-compressed version
+     */
+    private void compress(File segment) {
+        File compressed = new File(segment.getPath() + ".gz");
+
+        try (InputStream in = new FileInputStream(segment);
+             OutputStream out = new GZIPOutputStream(new FileOutputStream(compressed))) {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                out.write(buffer, 0, read);
+            }
+        } catch (IOException e) {
+            // Keep the uncompressed segment rather than losing it
+            logger.warning("Failed to compress " + segment.getName() + ": " + e.getMessage());
+            compressed.delete();
+            return;
+        }
+
+        segment.delete();
+    }
+
+    /**
+     * A queued incident
+     */
+    private static class Incident {
+        private final long timestamp;
+        private final Priority priority;
+        private final String message;
+
+        Incident(Priority priority, String message) {
+            this.timestamp = System.currentTimeMillis();
+            this.priority = priority;
+            this.message = message;
+        }
+    }
+}
\ No newline at end of file
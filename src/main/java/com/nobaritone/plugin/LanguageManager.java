@@ -1,134 +1,271 @@
 package com.nobaritone.plugin;
 
+import org.bukkit.command.CommandSender;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.entity.Player;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Locale;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * Language manager for handling multilingual messages
+ * Language manager for handling multilingual messages. Every language file is parsed into
+ * {@link MessageTemplate}s once and the compiled catalog is swapped in as a whole, so
+ * looking up and rendering a message never parses or locks. English is compiled from the
+ * jar when the manager is created, so messages are available from the start; the other
+ * languages are read off the server thread.
+ *
+ * Messages can be rendered in the server language or, if per-player-locale is enabled,
+ * in the client language of the player receiving them when a file for it exists.
  */
 public class LanguageManager {
+    private static final String DEFAULT_LANGUAGE = "en_US";
+    // Language files shipped in the jar, copied to the plugin folder for editing
+    private static final String[] BUNDLED_LANGUAGES = {"en_US", "ru_RU"};
+
     private final NoBaritone plugin;
-    private final Map<String, String> messages = new HashMap<>();
-    private final Pattern placeholderPattern = Pattern.compile("\\{(\\d+)\\}");
-    private File langFile;
-    private String language;
+    // English from the jar, the fallback of every other language
+    private final Map<String, String> defaults;
+    private final Map<String, MessageTemplate> defaultTemplates;
+    private volatile Catalog catalog;
+
+    // Render buffer of each thread, messages are built on the server thread and the analysis workers
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(256));
 
+    /**
+     * Creates a language manager serving English from the jar right away; other
+     * languages and edited files are only available after {@link #reload()}
+     */
     public LanguageManager(NoBaritone plugin) {
         this.plugin = plugin;
-        loadLanguage();
+        this.defaults = readBundled(DEFAULT_LANGUAGE);
+        this.defaultTemplates = compile(defaults);
+
+        Map<String, Map<String, MessageTemplate>> languages = new HashMap<>();
+        languages.put(DEFAULT_LANGUAGE, defaultTemplates);
+        this.catalog = new Catalog(DEFAULT_LANGUAGE, false, languages);
     }
 
     /**
-     * Loads the language file based on configuration
+     * Creates a language manager serving the given messages without reading any
+     * language files, for running outside of a server (benchmarks, replays)
      */
-    public void loadLanguage() {
-        language = plugin.getConfig().getString("language", "en_US");
-        
-        // Clear existing messages
-        messages.clear();
-        
-        // Load default language file first as fallback
-        loadDefaultLanguage();
-        
-        // Then load custom language file if it exists
-        loadCustomLanguage();
+    LanguageManager(Map<String, String> messages) {
+        this.plugin = null;
+        this.defaults = messages;
+        this.defaultTemplates = compile(messages);
+        Map<String, Map<String, MessageTemplate>> languages = new HashMap<>();
+        languages.put(DEFAULT_LANGUAGE, defaultTemplates);
+        this.catalog = new Catalog(DEFAULT_LANGUAGE, false, languages);
     }
-    
+
     /**
-     * Loads the default language file from plugin resources
+     * Loads all language files on an async thread, keeping the current messages until they
+     * are loaded. Must be called from the server thread.
+     *
+     * @return a future completed once the new messages are in use
      */
-    private void loadDefaultLanguage() {
-        try (InputStreamReader reader = new InputStreamReader(
-                plugin.getResource("lang/en_US.yml"), StandardCharsets.UTF_8)) {
-            
-            YamlConfiguration defaultMessages = YamlConfiguration.loadConfiguration(reader);
-            
-            for (String key : defaultMessages.getKeys(true)) {
-                if (!defaultMessages.isConfigurationSection(key)) {
-                    messages.put(key, defaultMessages.getString(key));
-                }
+    public CompletableFuture<Void> reload() {
+        BaritoneDetectionConfig config = plugin.getBaritoneConfig();
+        String language = config.getLanguage();
+        boolean perPlayer = config.isPerPlayerLocale();
+        File langDir = new File(plugin.getDataFolder(), "lang");
+
+        CompletableFuture<Void> loaded = new CompletableFuture<>();
+        plugin.getServer().getScheduler().runTaskAsynchronously(plugin, () -> {
+            try {
+                catalog = load(language, perPlayer, langDir);
+                loaded.complete(null);
+            } catch (RuntimeException e) {
+                plugin.getLogger().severe("Failed to load language files: " + e);
+                loaded.completeExceptionally(e);
             }
-            
-        } catch (IOException e) {
-            plugin.getLogger().severe("Failed to load default language file: " + e.getMessage());
-        }
+        });
+        return loaded;
     }
-    
+
     /**
-     * Loads a custom language file from the plugin directory
+     * Reads and compiles the custom language files, English coming from the jar
      */
-    private void loadCustomLanguage() {
-        // Skip if using default language
-        if (language.equals("en_US")) {
-            return;
-        }
-        
-        // Create language directory if it doesn't exist
-        File langDir = new File(plugin.getDataFolder(), "lang");
+    private Catalog load(String language, boolean perPlayer, File langDir) {
         if (!langDir.exists()) {
             langDir.mkdirs();
         }
-        
-        // Create the language file if it doesn't exist
-        langFile = new File(langDir, language + ".yml");
-        if (!langFile.exists()) {
-            plugin.saveResource("lang/" + language + ".yml", false);
+
+        // Copy the bundled files once so they can be edited, English always comes from the jar
+        for (String bundled : BUNDLED_LANGUAGES) {
+            if (!bundled.equals(DEFAULT_LANGUAGE) && !new File(langDir, bundled + ".yml").exists()) {
+                plugin.saveResource("lang/" + bundled + ".yml", false);
+            }
         }
-        
-        // If the file exists now, load it
-        if (langFile.exists()) {
-            FileConfiguration customMessages = YamlConfiguration.loadConfiguration(langFile);
-            
-            for (String key : customMessages.getKeys(true)) {
-                if (!customMessages.isConfigurationSection(key)) {
-                    messages.put(key, customMessages.getString(key));
+
+        Map<String, Map<String, MessageTemplate>> languages = new HashMap<>();
+        languages.put(DEFAULT_LANGUAGE, defaultTemplates);
+
+        File[] files = langDir.listFiles((dir, name) -> name.endsWith(".yml"));
+        if (files != null) {
+            for (File file : files) {
+                String name = file.getName().substring(0, file.getName().length() - ".yml".length());
+                if (name.equals(DEFAULT_LANGUAGE)) {
+                    continue;
                 }
+
+                // Messages missing from a translation fall back to English
+                Map<String, String> messages = new HashMap<>(defaults);
+                messages.putAll(readMessages(YamlConfiguration.loadConfiguration(file)));
+                languages.put(name, compile(messages));
             }
-        } else {
+        }
+
+        if (!languages.containsKey(language)) {
             plugin.getLogger().warning("Language file " + language + ".yml not found. Using default language.");
+            language = DEFAULT_LANGUAGE;
+        }
+        return new Catalog(language, perPlayer, languages);
+    }
+
+    /**
+     * Reads a language file from the plugin resources
+     */
+    private Map<String, String> readBundled(String language) {
+        InputStream in = plugin.getResource("lang/" + language + ".yml");
+        if (in == null) {
+            plugin.getLogger().severe("Failed to load default language file: lang/" + language + ".yml is missing");
+            return Collections.emptyMap();
+        }
+
+        try (InputStreamReader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+            return readMessages(YamlConfiguration.loadConfiguration(reader));
+        } catch (IOException e) {
+            plugin.getLogger().severe("Failed to load default language file: " + e.getMessage());
+            return Collections.emptyMap();
+        }
+    }
+
+    private static Map<String, String> readMessages(FileConfiguration file) {
+        Map<String, String> messages = new HashMap<>();
+        for (String key : file.getKeys(true)) {
+            if (!file.isConfigurationSection(key)) {
+                messages.put(key, file.getString(key));
+            }
         }
+        return messages;
     }
-    
+
+    private static Map<String, MessageTemplate> compile(Map<String, String> messages) {
+        Map<String, MessageTemplate> templates = new HashMap<>();
+        for (Map.Entry<String, String> message : messages.entrySet()) {
+            if (message.getValue() != null) {
+                templates.put(message.getKey(), MessageTemplate.compile(message.getValue()));
+            }
+        }
+        return templates;
+    }
+
     /**
-     * Gets a message with the given key
+     * Gets a message with the given key in the server language
      */
     public String getMessage(String key) {
-        String message = messages.get(key);
-        return message != null ? message : "Missing message: " + key;
+        return render(catalog.defaultTemplates, key);
     }
-    
+
     /**
-     * Gets a message with the given key and replaces placeholders with arguments
+     * Gets a message with the given key in the server language and replaces placeholders with arguments
      */
     public String getMessage(String key, String... args) {
-        String message = getMessage(key);
-        
-        Matcher matcher = placeholderPattern.matcher(message);
-        StringBuffer buffer = new StringBuffer();
-        
-        while (matcher.find()) {
-            int index = Integer.parseInt(matcher.group(1));
-            String replacement = (index < args.length) ? args[index] : "";
-            matcher.appendReplacement(buffer, Matcher.quoteReplacement(replacement));
+        return render(catalog.defaultTemplates, key, args);
+    }
+
+    /**
+     * Gets a message with the given key in the language of its recipient, and replaces
+     * placeholders with arguments. Non-players get the server language.
+     */
+    public String getMessage(CommandSender recipient, String key, String... args) {
+        Catalog current = catalog;
+        Map<String, MessageTemplate> templates = current.defaultTemplates;
+        if (current.perPlayer && recipient instanceof Player) {
+            templates = current.forLocale(((Player) recipient).getLocale());
+        }
+        return render(templates, key, args);
+    }
+
+    private static String render(Map<String, MessageTemplate> templates, String key, String... args) {
+        MessageTemplate template = templates.get(key);
+        if (template == null) {
+            return "Missing message: " + key;
         }
-        
-        matcher.appendTail(buffer);
+        if (template.isConstant()) {
+            // Constant messages are their own text
+            return template.toString();
+        }
+
+        StringBuilder buffer = BUFFER.get();
+        buffer.setLength(0);
+        template.render(buffer, args);
         return buffer.toString();
     }
-    
+
+    /**
+     * Gets the languages messages are available in
+     */
+    public Set<String> getLanguages() {
+        return catalog.languages.keySet();
+    }
+
     /**
-     * Reloads the language files
+     * Compiled messages of every language, replaced as a whole on reload
      */
-    public void reload() {
-        loadLanguage();
+    private static class Catalog {
+        private final boolean perPlayer;
+        private final Map<String, Map<String, MessageTemplate>> languages;
+        private final Map<String, MessageTemplate> defaultTemplates;
+        // Client locales ("ru_ru", "de_de") resolved to a language, filled as clients show up
+        private final Map<String, Map<String, MessageTemplate>> byLocale = new ConcurrentHashMap<>();
+
+        Catalog(String language, boolean perPlayer, Map<String, Map<String, MessageTemplate>> languages) {
+            this.perPlayer = perPlayer;
+            this.languages = Collections.unmodifiableMap(languages);
+            Map<String, MessageTemplate> defaults = languages.get(language);
+            this.defaultTemplates = defaults != null ? defaults : Collections.emptyMap();
+        }
+
+        Map<String, MessageTemplate> forLocale(String locale) {
+            if (locale == null) {
+                return defaultTemplates;
+            }
+            Map<String, MessageTemplate> templates = byLocale.get(locale);
+            return templates != null ? templates : byLocale.computeIfAbsent(locale, this::resolve);
+        }
+
+        /**
+         * Finds the language of a client locale, matching the language part alone if there is no exact match
+         */
+        private Map<String, MessageTemplate> resolve(String locale) {
+            String normalized = locale.toLowerCase(Locale.ROOT).replace('-', '_');
+            int separator = normalized.indexOf('_');
+            String languagePart = separator < 0 ? normalized : normalized.substring(0, separator);
+
+            Map<String, MessageTemplate> sameLanguage = null;
+            for (Map.Entry<String, Map<String, MessageTemplate>> language : languages.entrySet()) {
+                String name = language.getKey().toLowerCase(Locale.ROOT);
+                if (name.equals(normalized)) {
+                    return language.getValue();
+                }
+                if (sameLanguage == null && name.startsWith(languagePart + "_")) {
+                    sameLanguage = language.getValue();
+                }
+            }
+            return sameLanguage != null ? sameLanguage : defaultTemplates;
+        }
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,69 @@
+package com.nobaritone.plugin;
+
+/**
+ * A player's running log-odds of being automated under a {@link ScoringModel}. Each move
+ * decays the estimate and adds the move's evidence, so the estimate follows the player's
+ * recent behaviour without keeping any of it. Decisions use hysteresis: a player is
+ * flagged when the estimate crosses the flag probability, and not again until it has
+ * dropped below the rearm probability or stayed high for the re-flag interval, so a
+ * suspect produces one decision per episode instead of one per move.
+ */
+public class LogOddsScorer {
+    private double logOdds = 0;
+    private boolean armed = true;
+    private int movesSinceFlag = 0;
+
+    /**
+     * Adds the newest move's evidence
+     *
+     * @return true if the player should be flagged now
+     */
+    public boolean update(ScoringModel model, PlayerMovementData data, int detectorScore) {
+        logOdds = logOdds * model.getDecay() + model.evidence(data, detectorScore);
+        movesSinceFlag++;
+
+        if (logOdds >= model.getFlagLogOdds() && (armed || movesSinceFlag >= model.getReflagMoves())) {
+            armed = false;
+            movesSinceFlag = 0;
+            return true;
+        }
+
+        if (logOdds < model.getRearmLogOdds()) {
+            armed = true;
+        }
+        return false;
+    }
+
+    /**
+     * Decays the estimate for a move that was not scored, so evidence does not outlast
+     * the moves it came from while the player is not fully analysed
+     */
+    public void decay(ScoringModel model) {
+        logOdds *= model.getDecay();
+        movesSinceFlag++;
+
+        if (logOdds < model.getRearmLogOdds()) {
+            armed = true;
+        }
+    }
+
+    /**
+     * Gets the current probability that the player is automated
+     */
+    public double getProbability() {
+        return ScoringModel.sigmoid(logOdds);
+    }
+
+    public double getLogOdds() {
+        return logOdds;
+    }
+
+    /**
+     * Forgets all evidence
+     */
+    public void reset() {
+        logOdds = 0;
+        armed = true;
+        movesSinceFlag = 0;
+    }
+}
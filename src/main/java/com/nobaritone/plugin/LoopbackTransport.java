@@ -0,0 +1,65 @@
+package com.nobaritone.plugin;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Delivers messages between transports on the same channel within this JVM, so several
+ * {@link ViolationSync} nodes can exchange violations without a network, for example
+ * when trying out the sync on a single machine.
+ */
+public class LoopbackTransport implements ViolationSyncTransport {
+    private static final int MAX_MESSAGE_SIZE = 32 * 1024;
+    private static final Map<String, List<LoopbackTransport>> CHANNELS = new ConcurrentHashMap<>();
+
+    private final String channel;
+    private volatile Consumer<byte[]> receiver;
+
+    public LoopbackTransport(String channel) {
+        this.channel = channel;
+    }
+
+    @Override
+    public void start(Consumer<byte[]> receiver) {
+        this.receiver = receiver;
+        CHANNELS.computeIfAbsent(channel, name -> new CopyOnWriteArrayList<>()).add(this);
+    }
+
+    @Override
+    public void publish(byte[] message) {
+        List<LoopbackTransport> members = CHANNELS.get(channel);
+        if (members == null) {
+            return;
+        }
+
+        for (LoopbackTransport member : members) {
+            Consumer<byte[]> memberReceiver = member.receiver;
+            if (member != this && memberReceiver != null) {
+                // Every receiver gets its own copy, as a network would deliver
+                memberReceiver.accept(message.clone());
+            }
+        }
+    }
+
+    @Override
+    public void stop() {
+        List<LoopbackTransport> members = CHANNELS.get(channel);
+        if (members != null) {
+            members.remove(this);
+        }
+        receiver = null;
+    }
+
+    @Override
+    public int getMaxMessageSize() {
+        return MAX_MESSAGE_SIZE;
+    }
+
+    @Override
+    public String getName() {
+        return "loopback";
+    }
+}
@@ -0,0 +1,101 @@
+package com.nobaritone.plugin;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A message parsed once into literal segments and numbered argument slots ({0}, {1}, ...),
+ * so rendering it only appends strings. Instances are immutable and safe to share.
+ */
+public final class MessageTemplate {
+    // literals[i] comes before slots[i]; the last literal ends the message
+    private final String[] literals;
+    private final int[] slots;
+    private final int literalLength;
+
+    private MessageTemplate(String[] literals, int[] slots) {
+        this.literals = literals;
+        this.slots = slots;
+
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalLength = length;
+    }
+
+    /**
+     * Parses a message. Braces that do not enclose a non-negative number are kept as they are.
+     */
+    public static MessageTemplate compile(String message) {
+        List<String> literals = new ArrayList<>();
+        List<Integer> slots = new ArrayList<>();
+
+        int literalStart = 0;
+        int open = message.indexOf('{');
+        while (open >= 0) {
+            int close = open + 1;
+            int index = 0;
+            while (close < message.length() && Character.isDigit(message.charAt(close)) && index < 1_000_000) {
+                index = index * 10 + (message.charAt(close) - '0');
+                close++;
+            }
+
+            if (close > open + 1 && close < message.length() && message.charAt(close) == '}') {
+                literals.add(message.substring(literalStart, open));
+                slots.add(index);
+                literalStart = close + 1;
+                open = message.indexOf('{', literalStart);
+            } else {
+                open = message.indexOf('{', open + 1);
+            }
+        }
+        literals.add(message.substring(literalStart));
+
+        int[] slotArray = new int[slots.size()];
+        for (int i = 0; i < slotArray.length; i++) {
+            slotArray[i] = slots.get(i);
+        }
+        return new MessageTemplate(literals.toArray(new String[0]), slotArray);
+    }
+
+    /**
+     * Checks whether the message has no argument slots
+     */
+    public boolean isConstant() {
+        return slots.length == 0;
+    }
+
+    /**
+     * Appends the message to the builder, filling slots without a matching argument with nothing
+     */
+    public void render(StringBuilder into, String... args) {
+        for (int i = 0; i < slots.length; i++) {
+            into.append(literals[i]);
+            int slot = slots[i];
+            if (slot < args.length && args[slot] != null) {
+                into.append(args[slot]);
+            }
+        }
+        into.append(literals[slots.length]);
+    }
+
+    /**
+     * Gets the length of the message without its arguments
+     */
+    public int getLiteralLength() {
+        return literalLength;
+    }
+
+    @Override
+    public String toString() {
+        if (slots.length == 0) {
+            return literals[0];
+        }
+        StringBuilder builder = new StringBuilder(literalLength + 4 * slots.length);
+        for (int i = 0; i < slots.length; i++) {
+            builder.append(literals[i]).append('{').append(slots[i]).append('}');
+        }
+        return builder.append(literals[slots.length]).toString();
+    }
+}
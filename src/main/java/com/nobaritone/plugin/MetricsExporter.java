@@ -0,0 +1,70 @@
+package com.nobaritone.plugin;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.logging.Logger;
+
+/**
+ * Periodically dumps the detection metrics to a Prometheus text file, for the node
+ * exporter textfile collector. The file is written next to its destination and then
+ * renamed over it, so a scrape never sees a half-written file. Meant to run off the
+ * server thread.
+ */
+public class MetricsExporter implements Runnable {
+    private final Logger logger;
+    private final DetectionMetrics metrics;
+    private final File file;
+    private boolean failed = false;
+
+    public MetricsExporter(Logger logger, DetectionMetrics metrics, File file) {
+        this.logger = logger;
+        this.metrics = metrics;
+        this.file = file;
+    }
+
+    @Override
+    public void run() {
+        try {
+            export();
+            failed = false;
+        } catch (IOException e) {
+            // Report the first failure only, the export is retried every period
+            if (!failed) {
+                logger.warning("Failed to export metrics to " + file.getPath() + ": " + e.getMessage());
+                failed = true;
+            }
+        }
+    }
+
+    /**
+     * Writes the current metrics to the export file
+     */
+    public void export() throws IOException {
+        File directory = file.getAbsoluteFile().getParentFile();
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Could not create " + directory.getPath());
+        }
+
+        File temp = new File(directory, file.getName() + ".tmp");
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(temp.toPath()), StandardCharsets.UTF_8))) {
+            metrics.writePrometheus(out);
+        }
+
+        try {
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    public File getFile() {
+        return file;
+    }
+}
@@ -0,0 +1,279 @@
+package com.nobaritone.plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Headless tool fitting a {@link ScoringModel} to labelled movement traces. Every recorded
+ * move is replayed through {@link PlayerMovementData} and its features are accumulated
+ * with the model's decay, exactly as {@link LogOddsScorer} does in the plugin; a logistic
+ * regression on those decayed sums then gives the per-move weights directly. Runs
+ * without a server:
+ *
+ * <pre>
+ * java -cp NoBaritone.jar com.nobaritone.plugin.ModelFitter [options] --human &lt;traces&gt; --bot &lt;traces&gt;
+ * </pre>
+ */
+public class ModelFitter {
+    private static final int PARAMETERS = ScoringModel.FEATURES.length + 1;
+    private static final int NEWTON_ITERATIONS = 25;
+
+    private int historySize = 20;
+    private double decay = 0.95;
+    private double regularization = 1e-3;
+    private File output = new File("scoring-model.properties");
+
+    // Decayed feature sums of every replayed move, FEATURES.length values per move
+    private final List<double[]> humanSamples = new ArrayList<>();
+    private final List<double[]> botSamples = new ArrayList<>();
+
+    private final PrintStream out;
+
+    private ModelFitter(PrintStream out) {
+        this.out = out;
+    }
+
+    public static void main(String[] args) {
+        ModelFitter fitter = new ModelFitter(System.out);
+        List<File> humanTraces = new ArrayList<>();
+        List<File> botTraces = new ArrayList<>();
+        List<File> current = null;
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--history":
+                        fitter.historySize = Integer.parseInt(args[++i]);
+                        break;
+                    case "--decay":
+                        fitter.decay = Double.parseDouble(args[++i]);
+                        break;
+                    case "--l2":
+                        fitter.regularization = Double.parseDouble(args[++i]);
+                        break;
+                    case "--out":
+                        fitter.output = new File(args[++i]);
+                        break;
+                    case "--human":
+                        current = humanTraces;
+                        break;
+                    case "--bot":
+                        current = botTraces;
+                        break;
+                    default:
+                        if (current == null) {
+                            throw new IllegalArgumentException();
+                        }
+                        collectTraces(new File(args[i]), current);
+                        break;
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException | IllegalArgumentException e) {
+            humanTraces.clear();
+        }
+
+        if (humanTraces.isEmpty() || botTraces.isEmpty() || !(fitter.decay >= 0 && fitter.decay < 1)) {
+            System.err.println("Usage: ModelFitter [--history n] [--decay d] [--l2 x] [--out file] --human <trace files or directories> --bot <trace files or directories>");
+            System.exit(1);
+        }
+
+        try {
+            for (File trace : humanTraces) {
+                fitter.replay(trace, fitter.humanSamples);
+            }
+            for (File trace : botTraces) {
+                fitter.replay(trace, fitter.botSamples);
+            }
+
+            ScoringModel model = fitter.fit();
+            model.write(fitter.output, "Fitted on " + fitter.humanSamples.size() + " human and "
+                    + fitter.botSamples.size() + " bot moves");
+            fitter.out.println("Wrote " + model + " to " + fitter.output);
+        } catch (IOException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    private static void collectTraces(File file, List<File> traces) {
+        if (file.isDirectory()) {
+            File[] children = file.listFiles((dir, name) -> name.endsWith(MovementTraceRecorder.FILE_EXTENSION));
+            if (children != null) {
+                for (File child : children) {
+                    traces.add(child);
+                }
+            }
+        } else {
+            traces.add(file);
+        }
+    }
+
+    /**
+     * Replays a trace, collecting the decayed features after every move
+     */
+    private void replay(File file, List<double[]> samples) throws IOException {
+        PlayerMovementData data = new PlayerMovementData(historySize);
+        double[] features = new double[ScoringModel.FEATURES.length];
+        double[] decayed = new double[ScoringModel.FEATURES.length];
+        int moves = 0;
+
+        try (MovementTraceReader reader = new MovementTraceReader(file)) {
+            while (reader.next()) {
+                data.addMovement(reader.getTimestamp(),
+                        reader.getFromX(), reader.getFromY(), reader.getFromZ(),
+                        reader.getToX(), reader.getToY(), reader.getToZ(),
+                        reader.getYaw(), reader.getPitch());
+
+                int score = DetectorPipeline.BUILTIN.evaluate(data, DetectionMetrics.DISABLED);
+                ScoringModel.extract(data, score, features);
+                for (int i = 0; i < features.length; i++) {
+                    decayed[i] = decayed[i] * decay + features[i];
+                }
+                samples.add(decayed.clone());
+                moves++;
+            }
+        }
+        out.println(file.getName() + ": " + moves + " moves");
+    }
+
+    /**
+     * Fits the weights by Newton's method on the L2-regularised logistic loss, weighting
+     * both classes equally however many moves each has
+     */
+    private ScoringModel fit() {
+        double[] theta = new double[PARAMETERS];
+        double humanWeight = 0.5 / humanSamples.size();
+        double botWeight = 0.5 / botSamples.size();
+
+        for (int iteration = 0; iteration < NEWTON_ITERATIONS; iteration++) {
+            double[] gradient = new double[PARAMETERS];
+            double[][] hessian = new double[PARAMETERS][PARAMETERS];
+            accumulate(humanSamples, 0, humanWeight, theta, gradient, hessian);
+            accumulate(botSamples, 1, botWeight, theta, gradient, hessian);
+
+            // The intercept is left unregularised
+            for (int i = 1; i < PARAMETERS; i++) {
+                gradient[i] += regularization * theta[i];
+                hessian[i][i] += regularization;
+            }
+
+            double[] step = solve(hessian, gradient);
+            double change = 0;
+            for (int i = 0; i < PARAMETERS; i++) {
+                theta[i] -= step[i];
+                change = Math.max(change, Math.abs(step[i]));
+            }
+            if (change < 1e-9) {
+                break;
+            }
+        }
+
+        report("human", humanSamples, 0, theta);
+        report("bot", botSamples, 1, theta);
+
+        double[] weights = new double[ScoringModel.FEATURES.length];
+        System.arraycopy(theta, 1, weights, 0, weights.length);
+        // The fitted intercept is the decayed sum of the per-move bias
+        return new ScoringModel(theta[0] * (1 - decay), decay, weights);
+    }
+
+    private static void accumulate(List<double[]> samples, int label, double weight, double[] theta,
+                                   double[] gradient, double[][] hessian) {
+        double[] x = new double[PARAMETERS];
+        x[0] = 1;
+        for (double[] sample : samples) {
+            System.arraycopy(sample, 0, x, 1, sample.length);
+            double p = ScoringModel.sigmoid(dot(theta, x));
+            double residual = weight * (p - label);
+            double curvature = weight * p * (1 - p);
+            for (int i = 0; i < PARAMETERS; i++) {
+                gradient[i] += residual * x[i];
+                for (int j = 0; j < PARAMETERS; j++) {
+                    hessian[i][j] += curvature * x[i] * x[j];
+                }
+            }
+        }
+    }
+
+    /**
+     * Prints how often moves of a class end up on the right side of 50%
+     */
+    private void report(String label, List<double[]> samples, int expected, double[] theta) {
+        double[] x = new double[PARAMETERS];
+        x[0] = 1;
+        int correct = 0;
+        for (double[] sample : samples) {
+            System.arraycopy(sample, 0, x, 1, sample.length);
+            if ((dot(theta, x) >= 0 ? 1 : 0) == expected) {
+                correct++;
+            }
+        }
+        out.printf(Locale.ROOT, "%s moves classified correctly: %.1f%%%n", label, 100.0 * correct / samples.size());
+    }
+
+    private static double dot(double[] a, double[] b) {
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Solves a small linear system by Gaussian elimination with partial pivoting
+     */
+    private static double[] solve(double[][] matrix, double[] vector) {
+        int n = vector.length;
+        double[][] a = new double[n][];
+        double[] b = vector.clone();
+        for (int i = 0; i < n; i++) {
+            a[i] = matrix[i].clone();
+        }
+
+        for (int column = 0; column < n; column++) {
+            int pivot = column;
+            for (int row = column + 1; row < n; row++) {
+                if (Math.abs(a[row][column]) > Math.abs(a[pivot][column])) {
+                    pivot = row;
+                }
+            }
+            double[] rowSwap = a[column];
+            a[column] = a[pivot];
+            a[pivot] = rowSwap;
+            double valueSwap = b[column];
+            b[column] = b[pivot];
+            b[pivot] = valueSwap;
+
+            if (Math.abs(a[column][column]) < 1e-12) {
+                // A feature that never varies, leave its weight alone
+                a[column][column] = 1;
+                b[column] = 0;
+                for (int row = column + 1; row < n; row++) {
+                    a[column][row] = 0;
+                }
+            }
+
+            for (int row = column + 1; row < n; row++) {
+                double factor = a[row][column] / a[column][column];
+                for (int k = column; k < n; k++) {
+                    a[row][k] -= factor * a[column][k];
+                }
+                b[row] -= factor * b[column];
+            }
+        }
+
+        double[] solution = new double[n];
+        for (int row = n - 1; row >= 0; row--) {
+            double sum = b[row];
+            for (int k = row + 1; k < n; k++) {
+                sum -= a[row][k] * solution[k];
+            }
+            solution[row] = sum / a[row][row];
+        }
+        return solution;
+    }
+}
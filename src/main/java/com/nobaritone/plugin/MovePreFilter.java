@@ -0,0 +1,179 @@
+package com.nobaritone.plugin;
+
+import org.bukkit.GameMode;
+import org.bukkit.Location;
+import org.bukkit.entity.Player;
+
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cheap checks run before a move reaches {@link PlayerMovementData}. Reduces moves that
+ * carry no positional information (head rotation, sub-millimetre jitter) to their
+ * rotation, drops moves of excluded players and moves processed right after a lag spike,
+ * and only runs the detectors on a share of the moves of players without violations while
+ * the server is below its target TPS. Sampled out moves are still recorded, so the move
+ * history keeps its timing and shape.
+ */
+public class MovePreFilter {
+    private static final double TARGET_TPS = 20.0;
+
+    /**
+     * What to do with a move
+     */
+    public enum Decision {
+        /**
+         * Analyse the move
+         */
+        ANALYZE,
+        /**
+         * Record the move in the history without running the detectors
+         */
+        RECORD_ONLY,
+        /**
+         * Only feed the move's head rotation to the rotation analysis
+         */
+        ROTATION_ONLY,
+        /**
+         * Drop the move
+         */
+        SKIP
+    }
+
+    private final NoBaritone plugin;
+    private final ServerLoadMonitor loadMonitor;
+
+    // Cached exclusion state, refreshed on join, game mode change and periodically
+    private final Set<UUID> excludedPlayers = ConcurrentHashMap.newKeySet();
+
+    private long rotationOnlyMoves = 0;
+    private long excludedMoves = 0;
+    private long lagSpikeMoves = 0;
+    private long sampledOutMoves = 0;
+
+    public MovePreFilter(NoBaritone plugin, ServerLoadMonitor loadMonitor) {
+        this.plugin = plugin;
+        this.loadMonitor = loadMonitor;
+    }
+
+    /**
+     * Decides whether and how a move should be analysed under the given settings
+     */
+    public Decision decide(BaritoneDetectionConfig config, Player player, PlayerMovementData data, Location from, Location to) {
+        if (excludedPlayers.contains(player.getUniqueId())) {
+            excludedMoves++;
+            return Decision.SKIP;
+        }
+
+        Decision decision = classify(config, data,
+                to.getX() - from.getX(), to.getY() - from.getY(), to.getZ() - from.getZ(),
+                loadMonitor.getLastTickMillis(), loadMonitor.getTps());
+        switch (decision) {
+            case ROTATION_ONLY:
+                rotationOnlyMoves++;
+                break;
+            case SKIP:
+                lagSpikeMoves++;
+                break;
+            case RECORD_ONLY:
+                sampledOutMoves++;
+                break;
+            default:
+                break;
+        }
+        return decision;
+    }
+
+    /**
+     * Decides how a move of a player that is not excluded should be handled, given the
+     * server's load when it arrived. Needs no server, so trace replays reach the same
+     * decisions as live play.
+     *
+     * @param lastTickMillis duration of the server tick before the move
+     * @param tps ticks per second the server currently runs at
+     */
+    public static Decision classify(BaritoneDetectionConfig config, PlayerMovementData data,
+                                    double dx, double dy, double dz, long lastTickMillis, double tps) {
+        // Head rotation and jitter do not move the player anywhere
+        double minDistance = config.getMinMoveDistance();
+        if (dx * dx + dy * dy + dz * dz < minDistance * minDistance) {
+            return Decision.ROTATION_ONLY;
+        }
+
+        // Moves handled after a long tick arrive in bursts and would distort timing analysis
+        if (config.getLagSpikeMillis() > 0 && lastTickMillis >= config.getLagSpikeMillis()) {
+            return Decision.SKIP;
+        }
+
+        // Under load, only run the detectors on a share of the moves of players without violations
+        if (tps < config.getAdaptiveSamplingTps() && data.getViolationLevel() == 0) {
+            int sampleEvery = Math.max(2, (int) Math.ceil(TARGET_TPS / Math.max(1.0, tps)));
+            if (data.nextMoveSequence() % sampleEvery != 0) {
+                return Decision.RECORD_ONLY;
+            }
+        }
+
+        return Decision.ANALYZE;
+    }
+
+    /**
+     * Re-evaluates whether the player is excluded from detection
+     */
+    public void refreshExclusion(Player player) {
+        refreshExclusion(player, player.getGameMode());
+    }
+
+    /**
+     * Re-evaluates whether the player is excluded from detection, assuming the given game mode
+     */
+    public void refreshExclusion(Player player, GameMode gameMode) {
+        BaritoneDetectionConfig config = plugin.getBaritoneConfig();
+
+        boolean excluded = player.hasPermission("nobaritone.bypass")
+                || (config.shouldExcludeOPPlayers() && player.isOp())
+                || (config.shouldExcludeCreativePlayers() && gameMode == GameMode.CREATIVE);
+
+        if (excluded) {
+            excludedPlayers.add(player.getUniqueId());
+        } else {
+            excludedPlayers.remove(player.getUniqueId());
+        }
+    }
+
+    /**
+     * Re-evaluates the exclusion of every online player
+     */
+    public void refreshAll() {
+        for (Player player : plugin.getServer().getOnlinePlayers()) {
+            refreshExclusion(player);
+        }
+    }
+
+    /**
+     * Forgets the cached state of a player
+     */
+    public void forget(UUID playerId) {
+        excludedPlayers.remove(playerId);
+    }
+
+    public boolean isExcluded(UUID playerId) {
+        return excludedPlayers.contains(playerId);
+    }
+
+    public long getRotationOnlyMoves() {
+        return rotationOnlyMoves;
+    }
+
+    public long getExcludedMoves() {
+        return excludedMoves;
+    }
+
+    public long getLagSpikeMoves() {
+        return lagSpikeMoves;
+    }
+
+    public long getSampledOutMoves() {
+        return sampledOutMoves;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,76 @@
+package com.nobaritone.plugin;
+
+import java.util.Set;
+
+/**
+ * A single movement check run by the {@link DetectorPipeline}. Detectors are called on the
+ * thread analysing the player, right after a move was added, with a read-only
+ * {@link MovementView} of the player's movement. Other plugins can add their own
+ * detectors through the {@link DetectorRegistry} service.
+ */
+public interface MovementDetector {
+    /**
+     * How expensive a detector is to run, cheapest first
+     */
+    enum Cost {
+        /**
+         * Reads a few precomputed values
+         */
+        CHEAP,
+        /**
+         * Walks a window of samples
+         */
+        MODERATE,
+        /**
+         * Does substantial work, only run once cheaper detectors found something. Every
+         * built-in detector reads precomputed statistics; this tier is for detectors
+         * added by other plugins.
+         */
+        EXPENSIVE
+    }
+
+    /**
+     * Movement data a detector relies on. A detector is skipped until all of its
+     * features have collected enough data.
+     */
+    enum Feature {
+        /**
+         * The three newest samples and their {@link MovementFeatures}
+         */
+        MOVE_FEATURES,
+        /**
+         * Intervals between moves
+         */
+        MOVE_TIMING,
+        /**
+         * Exact-angle direction changes and perfect jumps
+         */
+        DIRECTION_CHANGES,
+        /**
+         * Head rotation statistics from the {@link RotationAnalyzer}
+         */
+        ROTATION
+    }
+
+    /**
+     * Gets the unique id of the detector, used to configure it under
+     * detection.detector-pipeline.detectors in config.yml
+     */
+    String getId();
+
+    Cost getCost();
+
+    Set<Feature> getFeatures();
+
+    /**
+     * Gets the score added when the detector fires, unless config.yml sets another one
+     */
+    int getDefaultWeight();
+
+    /**
+     * Checks the player's movement
+     *
+     * @return true if the movement looks automated
+     */
+    boolean detect(MovementView movement);
+}
@@ -0,0 +1,111 @@
+package com.nobaritone.plugin;
+
+/**
+ * Per-move feature vector computed in a single pass over the three newest samples. The
+ * turn between the last two horizontal steps is judged by comparing their dot product
+ * with precomputed cosine thresholds scaled by the step lengths, so a move costs one
+ * square root and no trigonometry. Reused for every move of a player, so extracting
+ * features never allocates.
+ */
+public final class MovementFeatures {
+    // Steps shorter than this (0.01 blocks) have no meaningful direction
+    private static final double MIN_STEP_LENGTH_SQUARED = 0.01 * 0.01;
+    // Turns below about 11.5 degrees count as going straight
+    private static final double STRAIGHT_COS = 0.98;
+    // Turns within 2 degrees of 45 or 90 degrees count as exact
+    private static final double EXACT_45_MIN_COS = Math.cos(Math.toRadians(47));
+    private static final double EXACT_45_MAX_COS = Math.cos(Math.toRadians(43));
+    private static final double EXACT_90_MIN_COS = Math.cos(Math.toRadians(92));
+    private static final double EXACT_90_MAX_COS = Math.cos(Math.toRadians(88));
+    // Height gained in the first tick of a vanilla jump
+    private static final double JUMP_HEIGHT = 0.42;
+    private static final double JUMP_TOLERANCE = 0.01;
+
+    private double previousStepSquared;
+    private double currentStepSquared;
+    private double turnCosine;
+    private double verticalDelta;
+    private boolean straightLine;
+    private boolean exactAngle;
+    private boolean perfectJump;
+
+    /**
+     * Extracts the features of the newest move, given the three newest positions from
+     * oldest (a) to newest (c)
+     */
+    public void compute(double ax, double az, double bx, double by, double bz, double cx, double cy, double cz) {
+        double dx1 = bx - ax;
+        double dz1 = bz - az;
+        double dx2 = cx - bx;
+        double dz2 = cz - bz;
+
+        double lengthSquared1 = dx1 * dx1 + dz1 * dz1;
+        double lengthSquared2 = dx2 * dx2 + dz2 * dz2;
+        double dot = dx1 * dx2 + dz1 * dz2;
+
+        previousStepSquared = lengthSquared1;
+        currentStepSquared = lengthSquared2;
+        verticalDelta = cy - by;
+
+        if (lengthSquared1 < MIN_STEP_LENGTH_SQUARED || lengthSquared2 < MIN_STEP_LENGTH_SQUARED) {
+            turnCosine = Double.NaN;
+            straightLine = false;
+            exactAngle = false;
+        } else {
+            // |a| * |b|, the dot product of the two steps once normalised is dot / lengths
+            double lengths = Math.sqrt(lengthSquared1 * lengthSquared2);
+            turnCosine = dot / lengths;
+            straightLine = dot > STRAIGHT_COS * lengths;
+            exactAngle = (dot > EXACT_45_MIN_COS * lengths && dot < EXACT_45_MAX_COS * lengths)
+                    || (dot > EXACT_90_MIN_COS * lengths && dot < EXACT_90_MAX_COS * lengths);
+        }
+
+        perfectJump = verticalDelta > 0 && Math.abs(verticalDelta - JUMP_HEIGHT) < JUMP_TOLERANCE;
+    }
+
+    /**
+     * Checks whether the last two steps point in almost the same direction
+     */
+    public boolean isStraightLine() {
+        return straightLine;
+    }
+
+    /**
+     * Checks whether the player turned by almost exactly 45 or 90 degrees
+     */
+    public boolean isExactAngle() {
+        return exactAngle;
+    }
+
+    /**
+     * Checks whether the move gained exactly the height of a vanilla jump's first tick
+     */
+    public boolean isPerfectJump() {
+        return perfectJump;
+    }
+
+    /**
+     * Gets the cosine of the turn between the last two steps, NaN if either was too short
+     */
+    public double getTurnCosine() {
+        return turnCosine;
+    }
+
+    /**
+     * Gets the squared horizontal length of the newest step
+     */
+    public double getCurrentStepSquared() {
+        return currentStepSquared;
+    }
+
+    /**
+     * Gets the squared horizontal length of the step before the newest one
+     */
+    public double getPreviousStepSquared() {
+        return previousStepSquared;
+    }
+
+    public double getVerticalDelta() {
+        return verticalDelta;
+    }
+}
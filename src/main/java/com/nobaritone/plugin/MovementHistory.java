@@ -0,0 +1,152 @@
+package com.nobaritone.plugin;
+
+/**
+ * Fixed-capacity ring buffer of a player's most recent movement samples.
+ * Samples are stored column-wise in parallel primitive arrays, so recording
+ * a move never allocates. Samples are addressed by age: index 0 is the most
+ * recent sample, index size() - 1 the oldest one still kept.
+ */
+public class MovementHistory {
+    private final int capacity;
+
+    private final long[] timestamps;
+    private final double[] fromX;
+    private final double[] fromY;
+    private final double[] fromZ;
+    private final double[] toX;
+    private final double[] toY;
+    private final double[] toZ;
+    private final float[] yaw;
+    private final float[] pitch;
+
+    // Slot the next sample is written to
+    private int head = 0;
+    private int size = 0;
+
+    public MovementHistory(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("History capacity must be positive: " + capacity);
+        }
+
+        this.capacity = capacity;
+        this.timestamps = new long[capacity];
+        this.fromX = new double[capacity];
+        this.fromY = new double[capacity];
+        this.fromZ = new double[capacity];
+        this.toX = new double[capacity];
+        this.toY = new double[capacity];
+        this.toZ = new double[capacity];
+        this.yaw = new float[capacity];
+        this.pitch = new float[capacity];
+    }
+
+    /**
+     * Appends a sample, overwriting the oldest one once the buffer is full
+     */
+    public void add(long timestamp,
+                    double fromX, double fromY, double fromZ,
+                    double toX, double toY, double toZ,
+                    float yaw, float pitch) {
+        int slot = head;
+
+        this.timestamps[slot] = timestamp;
+        this.fromX[slot] = fromX;
+        this.fromY[slot] = fromY;
+        this.fromZ[slot] = fromZ;
+        this.toX[slot] = toX;
+        this.toY[slot] = toY;
+        this.toZ[slot] = toZ;
+        this.yaw[slot] = yaw;
+        this.pitch[slot] = pitch;
+
+        head = (slot + 1 == capacity) ? 0 : slot + 1;
+        if (size < capacity) {
+            size++;
+        }
+    }
+
+    /**
+     * Removes all samples
+     */
+    public void clear() {
+        head = 0;
+        size = 0;
+    }
+
+    /**
+     * Gets the number of samples currently held
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the maximum number of samples held
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Estimates the memory held by this buffer, in bytes
+     */
+    public long estimateMemoryBytes() {
+        // Nine column arrays of seven 8-byte and two 4-byte values, each with a 16-byte header
+        return 48 + 9 * 16 + (long) capacity * (7 * 8 + 2 * 4);
+    }
+
+    /**
+     * Checks whether the buffer holds as many samples as it can
+     */
+    public boolean isFull() {
+        return size == capacity;
+    }
+
+    /**
+     * Maps an age index (0 = most recent) to its array slot
+     */
+    private int slot(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+
+        int slot = head - 1 - index;
+        return slot < 0 ? slot + capacity : slot;
+    }
+
+    public long getTimestamp(int index) {
+        return timestamps[slot(index)];
+    }
+
+    public double getFromX(int index) {
+        return fromX[slot(index)];
+    }
+
+    public double getFromY(int index) {
+        return fromY[slot(index)];
+    }
+
+    public double getFromZ(int index) {
+        return fromZ[slot(index)];
+    }
+
+    public double getToX(int index) {
+        return toX[slot(index)];
+    }
+
+    public double getToY(int index) {
+        return toY[slot(index)];
+    }
+
+    public double getToZ(int index) {
+        return toZ[slot(index)];
+    }
+
+    public float getYaw(int index) {
+        return yaw[slot(index)];
+    }
+
+    public float getPitch(int index) {
+        return pitch[slot(index)];
+    }
+}
\ No newline at end of file
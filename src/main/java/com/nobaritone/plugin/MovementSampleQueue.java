@@ -0,0 +1,170 @@
+package com.nobaritone.plugin;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free single-producer single-consumer queue of movement samples.
+ * The server thread offers samples captured from move events and a single
+ * analysis worker drains them. Samples are kept in parallel primitive arrays,
+ * so neither side allocates.
+ */
+public class MovementSampleQueue {
+    private final int capacity;
+    private final int mask;
+
+    private final long[] timestamps;
+    private final double[] fromX;
+    private final double[] fromY;
+    private final double[] fromZ;
+    private final double[] toX;
+    private final double[] toY;
+    private final double[] toZ;
+    private final float[] yaw;
+    private final float[] pitch;
+    private final boolean[] rotationOnly;
+    private final boolean[] recordOnly;
+
+    // Next sequence to read, written by the consumer only
+    private final AtomicLong head = new AtomicLong();
+    // Next sequence to write, written by the producer only
+    private final AtomicLong tail = new AtomicLong();
+
+    // Producer's last view of head, refreshed only when the queue looks full
+    private long cachedHead = 0;
+    // Written by the producer, read by whoever reports it
+    private final AtomicLong droppedSamples = new AtomicLong();
+
+    public MovementSampleQueue(int requestedCapacity) {
+        // Round up to a power of two so slots can be found with a mask
+        int capacity = Integer.highestOneBit(Math.max(2, requestedCapacity - 1)) << 1;
+
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.timestamps = new long[capacity];
+        this.fromX = new double[capacity];
+        this.fromY = new double[capacity];
+        this.fromZ = new double[capacity];
+        this.toX = new double[capacity];
+        this.toY = new double[capacity];
+        this.toZ = new double[capacity];
+        this.yaw = new float[capacity];
+        this.pitch = new float[capacity];
+        this.rotationOnly = new boolean[capacity];
+        this.recordOnly = new boolean[capacity];
+    }
+
+    /**
+     * Offers a sample, dropping it if the consumer has fallen behind.
+     * Must only be called from the producer thread.
+     *
+     * @param analyze false to only record the sample without running the detectors on it
+     */
+    public boolean offer(long timestamp,
+                         double fromX, double fromY, double fromZ,
+                         double toX, double toY, double toZ,
+                         float yaw, float pitch, boolean analyze) {
+        long sequence = tail.get();
+
+        if (sequence - cachedHead >= capacity) {
+            cachedHead = head.get();
+            if (sequence - cachedHead >= capacity) {
+                droppedSamples.incrementAndGet();
+                return false;
+            }
+        }
+
+        int slot = (int) sequence & mask;
+        this.timestamps[slot] = timestamp;
+        this.fromX[slot] = fromX;
+        this.fromY[slot] = fromY;
+        this.fromZ[slot] = fromZ;
+        this.toX[slot] = toX;
+        this.toY[slot] = toY;
+        this.toZ[slot] = toZ;
+        this.yaw[slot] = yaw;
+        this.pitch[slot] = pitch;
+        this.rotationOnly[slot] = false;
+        this.recordOnly[slot] = !analyze;
+
+        // Publish the slot contents before the new tail
+        tail.lazySet(sequence + 1);
+        return true;
+    }
+
+    /**
+     * Offers a rotation for {@link PlayerMovementData#addRotation}, dropping it if the
+     * consumer has fallen behind. Must only be called from the producer thread.
+     */
+    public boolean offerRotation(long timestamp, float yaw, float pitch) {
+        long sequence = tail.get();
+
+        if (sequence - cachedHead >= capacity) {
+            cachedHead = head.get();
+            if (sequence - cachedHead >= capacity) {
+                droppedSamples.incrementAndGet();
+                return false;
+            }
+        }
+
+        int slot = (int) sequence & mask;
+        this.timestamps[slot] = timestamp;
+        this.yaw[slot] = yaw;
+        this.pitch[slot] = pitch;
+        this.rotationOnly[slot] = true;
+
+        // Publish the slot contents before the new tail
+        tail.lazySet(sequence + 1);
+        return true;
+    }
+
+    /**
+     * Feeds up to limit queued samples into the player's movement analysis.
+     * Must only be called from the consumer thread.
+     *
+     * @return the number of drained samples that matched Baritone patterns
+     */
+    public int drainTo(PlayerMovementData data, int limit) {
+        long sequence = head.get();
+        long available = Math.min(tail.get() - sequence, limit);
+        if (available <= 0) {
+            return 0;
+        }
+
+        int flaggedMoves = 0;
+        long end = sequence + available;
+        for (long i = sequence; i < end; i++) {
+            int slot = (int) i & mask;
+            if (rotationOnly[slot]) {
+                data.addRotation(yaw[slot], pitch[slot]);
+                continue;
+            }
+
+            data.addMovement(timestamps[slot],
+                    fromX[slot], fromY[slot], fromZ[slot],
+                    toX[slot], toY[slot], toZ[slot],
+                    yaw[slot], pitch[slot]);
+
+            if (!recordOnly[slot] && data.checkForBaritonePatterns()) {
+                flaggedMoves++;
+            }
+        }
+
+        // Hand the slots back to the producer
+        head.lazySet(end);
+        return flaggedMoves;
+    }
+
+    /**
+     * Gets the number of samples waiting to be drained
+     */
+    public int size() {
+        return (int) (tail.get() - head.get());
+    }
+
+    /**
+     * Gets the number of samples dropped because the queue was full
+     */
+    public long getDroppedSamples() {
+        return droppedSamples.get();
+    }
+}
\ No newline at end of file
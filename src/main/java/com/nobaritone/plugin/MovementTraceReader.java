@@ -0,0 +1,196 @@
+package com.nobaritone.plugin;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Reads the moves of a trace file written by {@link MovementTraceWriter}.
+ * The reader works like a cursor: {@link #next()} advances to the next move,
+ * whose values are then available from the getters without allocating.
+ */
+public class MovementTraceReader implements Closeable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final DataInputStream in;
+    private final long startTime;
+    private final UUID playerId;
+    private final String playerName;
+    private final List<String> worlds = new ArrayList<>();
+
+    private String world;
+    private long timestamp;
+    private double fromX, fromY, fromZ;
+    private double toX, toY, toZ;
+    private float yaw, pitch;
+
+    public MovementTraceReader(File file) throws IOException {
+        this.in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE));
+
+        try {
+            if (in.readInt() != MovementTraceWriter.MAGIC) {
+                throw new IOException(file.getName() + " is not a movement trace");
+            }
+
+            int version = in.readUnsignedShort();
+            if (version != MovementTraceWriter.FORMAT_VERSION) {
+                throw new IOException("Unsupported trace format version " + version + " in " + file.getName());
+            }
+
+            startTime = in.readLong();
+            playerId = new UUID(in.readLong(), in.readLong());
+            playerName = in.readUTF();
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+
+        timestamp = startTime;
+    }
+
+    /**
+     * Advances to the next move
+     *
+     * @return false once the end of the trace is reached
+     */
+    public boolean next() throws IOException {
+        while (true) {
+            int tag = in.read();
+            if (tag < 0) {
+                return false;
+            }
+
+            try {
+                switch (tag) {
+                    case MovementTraceWriter.TAG_WORLD:
+                        readWorld();
+                        break;
+
+                    case MovementTraceWriter.TAG_MOVE:
+                        readMove();
+                        return true;
+
+                    default:
+                        throw new IOException("Corrupt trace: unknown record tag " + tag);
+                }
+            } catch (EOFException e) {
+                // The last record was cut off, e.g. by a server crash
+                return false;
+            }
+        }
+    }
+
+    private void readWorld() throws IOException {
+        int id = in.readUnsignedShort();
+        if (in.readBoolean()) {
+            String name = in.readUTF();
+            while (worlds.size() <= id) {
+                worlds.add(null);
+            }
+            worlds.set(id, name);
+        }
+
+        if (id >= worlds.size() || worlds.get(id) == null) {
+            throw new IOException("Corrupt trace: undefined world id " + id);
+        }
+        world = worlds.get(id);
+    }
+
+    private void readMove() throws IOException {
+        long delta = readVarLong();
+        double x = in.readDouble();
+        double y = in.readDouble();
+        double z = in.readDouble();
+        float dx = in.readFloat();
+        float dy = in.readFloat();
+        float dz = in.readFloat();
+        float newYaw = in.readFloat();
+        float newPitch = in.readFloat();
+
+        timestamp += delta;
+        fromX = x;
+        fromY = y;
+        fromZ = z;
+        toX = x + dx;
+        toY = y + dy;
+        toZ = z + dz;
+        yaw = newYaw;
+        pitch = newPitch;
+    }
+
+    private long readVarLong() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Corrupt trace: varint too long");
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    public UUID getPlayerId() {
+        return playerId;
+    }
+
+    public String getPlayerName() {
+        return playerName;
+    }
+
+    public String getWorld() {
+        return world;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public double getFromX() {
+        return fromX;
+    }
+
+    public double getFromY() {
+        return fromY;
+    }
+
+    public double getFromZ() {
+        return fromZ;
+    }
+
+    public double getToX() {
+        return toX;
+    }
+
+    public double getToY() {
+        return toY;
+    }
+
+    public double getToZ() {
+        return toZ;
+    }
+
+    public float getYaw() {
+        return yaw;
+    }
+
+    public float getPitch() {
+        return pitch;
+    }
+}
\ No newline at end of file
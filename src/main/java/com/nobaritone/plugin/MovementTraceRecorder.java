@@ -0,0 +1,119 @@
+package com.nobaritone.plugin;
+
+import org.bukkit.Location;
+import org.bukkit.entity.Player;
+
+import java.io.File;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Records the movement of selected players into one trace file per session,
+ * so that reported false positives can be replayed offline with {@link TraceReplay}
+ */
+public class MovementTraceRecorder {
+    static final String FILE_EXTENSION = ".nbtrace";
+
+    private final NoBaritone plugin;
+    private final Map<UUID, MovementTraceWriter> writers = new HashMap<>();
+
+    public MovementTraceRecorder(NoBaritone plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Starts a new trace for the player, unless one is already being recorded
+     *
+     * @return the trace file, or null if it could not be created
+     */
+    public File start(Player player) {
+        MovementTraceWriter existing = writers.get(player.getUniqueId());
+        if (existing != null) {
+            return existing.getFile();
+        }
+
+        File directory = new File(plugin.getDataFolder(), plugin.getBaritoneConfig().getTraceDirectory());
+        if (!directory.exists()) {
+            directory.mkdirs();
+        }
+
+        long now = System.currentTimeMillis();
+        String timestamp = new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date(now));
+        File file = new File(directory, player.getName() + "-" + timestamp + FILE_EXTENSION);
+
+        try {
+            MovementTraceWriter writer = new MovementTraceWriter(file, player.getUniqueId(), player.getName(), now);
+            writers.put(player.getUniqueId(), writer);
+            return file;
+        } catch (IOException e) {
+            plugin.getLogger().warning("Failed to start movement trace " + file.getName() + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Finishes the player's trace if one is being recorded
+     *
+     * @return the finished trace file, or null if the player was not recorded
+     */
+    public File stop(UUID playerId) {
+        MovementTraceWriter writer = writers.remove(playerId);
+        if (writer == null) {
+            return null;
+        }
+
+        try {
+            writer.close();
+        } catch (IOException e) {
+            plugin.getLogger().warning("Failed to finish movement trace " + writer.getFile().getName() + ": " + e.getMessage());
+        }
+        return writer.getFile();
+    }
+
+    /**
+     * Finishes all traces
+     */
+    public void stopAll() {
+        for (UUID playerId : writers.keySet().toArray(new UUID[0])) {
+            stop(playerId);
+        }
+    }
+
+    /**
+     * Checks whether any player is being recorded
+     */
+    public boolean isActive() {
+        return !writers.isEmpty();
+    }
+
+    /**
+     * Checks whether the player is being recorded
+     */
+    public boolean isRecording(UUID playerId) {
+        return writers.containsKey(playerId);
+    }
+
+    /**
+     * Appends a move to the player's trace if the player is being recorded
+     */
+    public void record(Player player, Location from, Location to) {
+        MovementTraceWriter writer = writers.get(player.getUniqueId());
+        if (writer == null || from.getWorld() != to.getWorld()) {
+            return;
+        }
+
+        try {
+            writer.writeMove(to.getWorld().getName(), System.currentTimeMillis(),
+                    from.getX(), from.getY(), from.getZ(),
+                    to.getX(), to.getY(), to.getZ(),
+                    from.getYaw(), from.getPitch());
+        } catch (IOException e) {
+            plugin.getLogger().warning("Failed to write movement trace for " + player.getName() + ": " + e.getMessage());
+            stop(player.getUniqueId());
+        }
+    }
+}
\ No newline at end of file
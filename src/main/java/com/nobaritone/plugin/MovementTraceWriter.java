@@ -0,0 +1,129 @@
+package com.nobaritone.plugin;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Writes a player's movement stream to an append-only binary trace file.
+ *
+ * <p>A trace starts with a header (magic, format version, start time, player id and name)
+ * followed by tagged records. A world record assigns an id to a world name the first time
+ * the world is seen and switches the current world; move records then belong to the current
+ * world. Moves store the time since the previous move as a varint, the origin as doubles and
+ * the displacement as floats, which keeps a record around 46 bytes.</p>
+ */
+public class MovementTraceWriter implements Closeable {
+    static final int MAGIC = 0x4E425452; // "NBTR"
+    static final int FORMAT_VERSION = 1;
+
+    static final byte TAG_WORLD = 1;
+    static final byte TAG_MOVE = 2;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final File file;
+    private final DataOutputStream out;
+    private final Map<String, Integer> worldIds = new HashMap<>();
+
+    private String currentWorld;
+    private long lastTimestamp;
+    private long recordedMoves = 0;
+
+    public MovementTraceWriter(File file, UUID playerId, String playerName, long startTime) throws IOException {
+        this.file = file;
+        this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE));
+        this.lastTimestamp = startTime;
+
+        out.writeInt(MAGIC);
+        out.writeShort(FORMAT_VERSION);
+        out.writeLong(startTime);
+        out.writeLong(playerId.getMostSignificantBits());
+        out.writeLong(playerId.getLeastSignificantBits());
+        out.writeUTF(playerName);
+    }
+
+    /**
+     * Appends a move within the given world
+     */
+    public void writeMove(String world, long timestamp,
+                          double fromX, double fromY, double fromZ,
+                          double toX, double toY, double toZ,
+                          float yaw, float pitch) throws IOException {
+        if (!world.equals(currentWorld)) {
+            switchWorld(world);
+        }
+
+        out.writeByte(TAG_MOVE);
+        writeVarLong(Math.max(0, timestamp - lastTimestamp));
+        out.writeDouble(fromX);
+        out.writeDouble(fromY);
+        out.writeDouble(fromZ);
+        out.writeFloat((float) (toX - fromX));
+        out.writeFloat((float) (toY - fromY));
+        out.writeFloat((float) (toZ - fromZ));
+        out.writeFloat(yaw);
+        out.writeFloat(pitch);
+
+        lastTimestamp = Math.max(lastTimestamp, timestamp);
+        recordedMoves++;
+    }
+
+    /**
+     * Writes a world record, defining the world's id the first time it is seen
+     */
+    private void switchWorld(String world) throws IOException {
+        Integer id = worldIds.get(world);
+        boolean defined = id != null;
+        if (!defined) {
+            id = worldIds.size();
+            worldIds.put(world, id);
+        }
+
+        out.writeByte(TAG_WORLD);
+        out.writeShort(id);
+        out.writeBoolean(!defined);
+        if (!defined) {
+            out.writeUTF(world);
+        }
+
+        currentWorld = world;
+    }
+
+    /**
+     * Writes an unsigned LEB128 varint
+     */
+    private void writeVarLong(long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    /**
+     * Pushes buffered records to disk
+     */
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public long getRecordedMoves() {
+        return recordedMoves;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,110 @@
+package com.nobaritone.plugin;
+
+/**
+ * Read-only view of a player's movement statistics, handed to {@link MovementDetector}s.
+ * Every value is computed incrementally as moves are added, so reading it is cheap.
+ * Samples are indexed by age, 0 being the newest.
+ */
+public interface MovementView {
+    /**
+     * Gets the number of recent movement samples held
+     */
+    int getSampleCount();
+
+    long getTimestamp(int age);
+
+    double getX(int age);
+
+    double getY(int age);
+
+    double getZ(int age);
+
+    float getYaw(int age);
+
+    float getPitch(int age);
+
+    /**
+     * Checks whether the newest two steps point in almost the same direction
+     */
+    boolean isStraightLine();
+
+    /**
+     * Checks whether the player turned by almost exactly 45 or 90 degrees on the newest move
+     */
+    boolean isExactAngle();
+
+    /**
+     * Checks whether the newest move gained exactly the height of a vanilla jump's first tick
+     */
+    boolean isPerfectJump();
+
+    /**
+     * Gets the number of recent moves continuing in the same direction
+     */
+    int getStraightLineCounter();
+
+    /**
+     * Gets the number of exact-angle direction changes within the movement window
+     */
+    int getExactAngleChangeCount();
+
+    /**
+     * Gets the share of exact-angle direction changes at the same interval as the one before
+     */
+    double getDirectionConsistency();
+
+    /**
+     * Gets the number of perfect jumps within the movement window
+     */
+    int getPerfectJumpCount();
+
+    /**
+     * Gets the share of steady move intervals, see {@link PlayerMovementData#getTimingConsistency()}
+     */
+    double getTimingConsistency();
+
+    /**
+     * Gets the mean interval between moves, in milliseconds
+     */
+    double getMeanMoveInterval();
+
+    /**
+     * Gets the number of head rotation changes held
+     */
+    int getRotationCount();
+
+    /**
+     * Checks whether the rotation window is full, which periodicity and divisor statistics need
+     */
+    boolean isRotationWindowFull();
+
+    double getMeanYawDelta();
+
+    double getYawDeltaDeviation();
+
+    double getMeanPitchDelta();
+
+    double getPitchDeltaDeviation();
+
+    /**
+     * Gets the number of rotation changes that turned the head
+     */
+    int getTurnCount();
+
+    /**
+     * Gets the share of turns ending on an exact multiple of 45 degrees yaw
+     */
+    double getSnappedRatio();
+
+    /**
+     * Gets the greatest common divisor of the pitch changes, see {@link RotationAnalyzer}
+     */
+    double getPitchGcd();
+
+    /**
+     * Gets the share of the yaw change variance found in a single frequency
+     */
+    double getRotationPeriodicity();
+
+    int getViolationLevel();
+}
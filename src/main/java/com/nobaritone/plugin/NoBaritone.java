@@ -1,34 +1,175 @@
 package com.nobaritone.plugin;
 
 import org.bukkit.ChatColor;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.entity.Player;
+import org.bukkit.block.Block;
 import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
+import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
+import org.bukkit.event.player.PlayerGameModeChangeEvent;
 import org.bukkit.event.player.PlayerJoinEvent;
 import org.bukkit.event.player.PlayerMoveEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.player.PlayerTeleportEvent;
+import org.bukkit.event.server.PluginDisableEvent;
+import org.bukkit.plugin.ServicePriority;
 import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.scheduler.BukkitTask;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 public class NoBaritone extends JavaPlugin implements Listener {
 
     private static final String PREFIX = ChatColor.RED + "[NoBaritone] " + ChatColor.RESET;
-    private final Map<UUID, PlayerMovementData> playerData = new HashMap<>();
-    private BaritoneDetectionConfig config;
+    // Idle players are looked for once a minute
+    private static final long IDLE_SWEEP_PERIOD_TICKS = 20 * 60;
+    // The decay wheel advances once per second
+    private static final long DECAY_PERIOD_TICKS = 20;
+    // Permission and op changes fire no event, so exclusions are re-checked periodically
+    private static final long EXCLUSION_REFRESH_PERIOD_TICKS = 20 * 30;
+    // Ended alert digests are sent once per second
+    private static final long ALERT_DIGEST_PERIOD_TICKS = 20;
+    // How long disabling the plugin waits for queued incidents to be written
+    private static final long JOURNAL_SHUTDOWN_TIMEOUT_MS = 5000;
+    // Scoring model shipped in the jar
+    private static final String DEFAULT_SCORING_MODEL = "scoring-model.properties";
+    
+    private PlayerStateStore playerData;
+    // Replaced as a whole on reload, event handlers read it once per event
+    private volatile BaritoneDetectionConfig config;
+    // Reloads are read one at a time so they are applied in the order they started
+    private final Object configReadLock = new Object();
+    private ConfigWatcher configWatcher;
     private LanguageManager languageManager;
+    private AsyncAnalysisPipeline analysisPipeline;
+    private MovementTraceRecorder traceRecorder;
+    private ServerLoadMonitor loadMonitor;
+    private MovePreFilter preFilter;
+    private ViolationDecayScheduler decayScheduler;
+    private IncidentJournal incidentJournal;
+    private DetectionMetrics metrics;
+    private BukkitTask metricsExportTask;
+    private DebugStreamManager debugStreams;
+    private BukkitTask debugStreamTask;
+    private FleetCorrelator fleetCorrelator;
+    private WalkabilityCache walkabilityCache;
+    private PathOptimalityChecker pathChecker;
+    private PacketTimingInjector packetTiming;
+    private DetectorPipeline detectors;
+    private AlertDispatcher alerts;
+    // Read by the login threads when preloading profiles
+    private volatile ProfileStore profileStore;
+    private BukkitTask profileFlushTask;
+    private ViolationSync violationSync;
+    private BukkitTask violationSyncTask;
+    // Settings the running violation sync was started with
+    private String violationSyncSettings;
 
     @Override
     public void onEnable() {
-        // Save default config if it doesn't exist
-        saveDefaultConfig();
-        
-        // Load configuration
-        config = new BaritoneDetectionConfig(this);
+        // Load configuration, writing the default one if it doesn't exist
+        try {
+            config = readConfig();
+        } catch (IOException | InvalidConfigurationException e) {
+            getLogger().severe("Could not read config.yml, using the default settings: " + e.getMessage());
+            config = new BaritoneDetectionConfig(new YamlConfiguration());
+        }
         
-        // Initialize language manager and load messages
+        // Initialize language manager, its messages are loaded asynchronously
         languageManager = new LanguageManager(this);
+        CompletableFuture<Void> messagesLoaded = languageManager.reload();
+        
+        // Initialize detection metrics and their periodic export
+        metrics = new DetectionMetrics(config.isMetricsEnabled());
+        updateMetricsExport();
+        
+        // Initialize the movement detectors and offer their registry to other plugins
+        detectors = new DetectorPipeline(getLogger());
+        detectors.configure(config, readScoringModel(config));
+        getServer().getServicesManager().register(DetectorRegistry.class, detectors, this, ServicePriority.Normal);
+        
+        // Initialize player state tracking
+        playerData = new PlayerStateStore(
+                () -> new PlayerMovementData(config.getPatternDetectionSampleSize(), metrics, detectors),
+                playerId -> getServer().getPlayer(playerId) != null,
+                config.getMaxTrackedPlayers(), config.getMaxStateMemoryKb() * 1024L,
+                TimeUnit.MINUTES.toMillis(config.getIdleExpiryMinutes()));
+        getServer().getScheduler().runTaskTimer(this, playerData::expireIdle, IDLE_SWEEP_PERIOD_TICKS, IDLE_SWEEP_PERIOD_TICKS);
+        
+        // Start the incident journal if incidents should be logged to file
+        updateIncidentJournal();
+        
+        // Initialize violation decay, stopping it for players that are no longer tracked
+        decayScheduler = new ViolationDecayScheduler(this);
+        getServer().getScheduler().runTaskTimer(this, decayScheduler, DECAY_PERIOD_TICKS, DECAY_PERIOD_TICKS);
+        playerData.addEvictionListener((playerId, data) -> decayScheduler.cancel(data));
+        
+        // Keep violations across reconnects and restarts, saving players as they stop being tracked
+        updateProfileStore();
+        playerData.addEvictionListener((playerId, data) -> saveProfile(data));
+        
+        // Share violations with the other servers of the network, including those of players leaving
+        updateViolationSync();
+        playerData.addEvictionListener(this::shareViolations);
+        
+        // Initialize load monitoring and the move pre-filter
+        loadMonitor = new ServerLoadMonitor();
+        getServer().getScheduler().runTaskTimer(this, loadMonitor, 1, 1);
+        preFilter = new MovePreFilter(this, loadMonitor);
+        preFilter.refreshAll();
+        getServer().getScheduler().runTaskTimer(this, preFilter::refreshAll,
+                EXCLUSION_REFRESH_PERIOD_TICKS, EXCLUSION_REFRESH_PERIOD_TICKS);
+        
+        // Send staff alerts and player warnings, coalescing repeated alerts into digests
+        alerts = new AlertDispatcher(this);
+        alerts.refreshAll();
+        getServer().getScheduler().runTaskTimer(this, alerts, ALERT_DIGEST_PERIOD_TICKS, ALERT_DIGEST_PERIOD_TICKS);
+        getServer().getScheduler().runTaskTimer(this, alerts::refreshAll,
+                EXCLUSION_REFRESH_PERIOD_TICKS, EXCLUSION_REFRESH_PERIOD_TICKS);
+        
+        // Time movement packets on the network threads if packet analysis is enabled
+        updatePacketTiming();
+        
+        // Correlate routes across players to find bot fleets
+        fleetCorrelator = new FleetCorrelator(this);
+        long fleetPeriodTicks = Math.max(1, config.getFleetIntervalSeconds()) * 20L;
+        getServer().getScheduler().runTaskTimer(this, fleetCorrelator, fleetPeriodTicks, fleetPeriodTicks);
+        
+        // Compare routes with the shortest walkable ones, a little every tick
+        walkabilityCache = new WalkabilityCache(config.getPathMaxCachedSections());
+        getServer().getPluginManager().registerEvents(walkabilityCache, this);
+        pathChecker = new PathOptimalityChecker(this, walkabilityCache);
+        getServer().getScheduler().runTaskTimer(this, pathChecker, 1, 1);
+        
+        // Initialize live debug streams
+        debugStreams = new DebugStreamManager(this);
+        updateDebugStreams();
+        
+        // Initialize movement trace recording
+        traceRecorder = new MovementTraceRecorder(this);
+        
+        // Start analysis workers if movement analysis should run off the server thread
+        if (config.isAsyncAnalysisEnabled()) {
+            analysisPipeline = new AsyncAnalysisPipeline(this,
+                    config.getAsyncWorkerThreads(), config.getAsyncQueueCapacity(), config.getAsyncBatchSize());
+            analysisPipeline.start();
+            playerData.addEvictionListener((playerId, data) -> analysisPipeline.unregister(playerId));
+        }
+        
+        // Reload config.yml whenever it changes if automatic reloading is enabled
+        updateConfigWatcher();
         
         // Register event handlers
         getServer().getPluginManager().registerEvents(this, this);
@@ -36,44 +177,210 @@ public class NoBaritone extends JavaPlugin implements Listener {
         // Register commands
         getCommand("nobaritone").setExecutor(new NoBaritoneCommand(this));
         
-        getLogger().info(languageManager.getMessage("plugin.enabled"));
+        messagesLoaded.thenRun(() -> getLogger().info(languageManager.getMessage("plugin.enabled")));
     }
 
     @Override
     public void onDisable() {
+        if (configWatcher != null) {
+            configWatcher.shutdown();
+            configWatcher = null;
+        }
+        
+        if (traceRecorder != null) {
+            traceRecorder.stopAll();
+        }
+        
+        if (packetTiming != null) {
+            packetTiming.uninjectAll();
+            packetTiming = null;
+        }
+        
+        if (analysisPipeline != null) {
+            analysisPipeline.shutdown();
+            analysisPipeline = null;
+        }
+        
+        if (profileStore != null) {
+            saveProfiles(true);
+            profileStore.shutdown();
+            profileStore = null;
+        }
+        
+        if (violationSync != null) {
+            stopViolationSync();
+        }
+        
+        if (incidentJournal != null) {
+            incidentJournal.shutdown();
+            incidentJournal.awaitTermination(JOURNAL_SHUTDOWN_TIMEOUT_MS);
+            incidentJournal = null;
+        }
+        
+        getServer().getServicesManager().unregisterAll(this);
+        
         getLogger().info(languageManager.getMessage("plugin.disabled"));
     }
 
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onAsyncPlayerPreLogin(AsyncPlayerPreLoginEvent event) {
+        // Read the profile from disk on the login thread so the join does not have to
+        ProfileStore store = profileStore;
+        if (store != null && event.getLoginResult() == AsyncPlayerPreLoginEvent.Result.ALLOWED) {
+            store.preload(event.getUniqueId());
+        }
+    }
+
     @EventHandler
     public void onPlayerJoin(PlayerJoinEvent event) {
+        BaritoneDetectionConfig config = this.config;
         Player player = event.getPlayer();
         
         // Check for Baritone client
         checkForBaritoneClient(player);
         
-        // Initialize player tracking data
-        playerData.put(player.getUniqueId(), new PlayerMovementData());
+        // Initialize player tracking data, continuing from the player's profile
+        PlayerMovementData data = playerData.reset(player.getUniqueId());
+        restoreProfile(player, data, true);
+        preFilter.refreshExclusion(player);
+        alerts.refreshSubscription(player);
+        
+        // Time the player's movement packets as they arrive
+        if (packetTiming != null) {
+            packetTiming.inject(player);
+        }
+        
+        // Start a trace for this session if every player is recorded
+        if (config.shouldRecordAllPlayers()) {
+            traceRecorder.start(player);
+        }
+    }
+
+    @EventHandler
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        UUID playerId = event.getPlayer().getUniqueId();
+        
+        // Finish the session's movement trace
+        traceRecorder.stop(playerId);
+        
+        // Stop tracking the player
+        playerData.remove(playerId);
+        preFilter.forget(playerId);
+        alerts.forget(playerId);
+        debugStreams.forget(playerId);
+        pathChecker.forget(playerId);
+        if (packetTiming != null) {
+            packetTiming.uninject(playerId);
+        }
+    }
+
+    @EventHandler
+    public void onPluginDisable(PluginDisableEvent event) {
+        // Drop the detectors of plugins going away
+        if (event.getPlugin() != this) {
+            detectors.unregisterAll(event.getPlugin());
+        }
+    }
+
+    @EventHandler(ignoreCancelled = true)
+    public void onGameModeChange(PlayerGameModeChangeEvent event) {
+        // The player still has the old game mode while the event is handled
+        preFilter.refreshExclusion(event.getPlayer(), event.getNewGameMode());
     }
 
     @EventHandler
     public void onPlayerMove(PlayerMoveEvent event) {
+        BaritoneDetectionConfig config = this.config;
         if (!config.isEnabled()) return;
         
         Player player = event.getPlayer();
         UUID playerId = player.getUniqueId();
         
         // Get player movement data
-        PlayerMovementData data = playerData.get(playerId);
-        if (data == null) {
-            data = new PlayerMovementData();
-            playerData.put(playerId, data);
+        PlayerMovementData data = getTrackedData(player);
+        
+        // Time moves by packet arrival while the player's packets are timed
+        PacketArrivalBuffer arrivals = packetTiming != null ? packetTiming.getArrivals(playerId) : null;
+        if (data.getPacketArrivals() != arrivals) {
+            data.setPacketArrivals(arrivals);
+        }
+        
+        // Record the raw movement for offline replay
+        if (traceRecorder.isActive()) {
+            traceRecorder.record(player, event.getFrom(), event.getTo());
+        }
+        
+        // Drop moves that are irrelevant or not worth analysing right now
+        MovePreFilter.Decision decision = preFilter.decide(config, player, data, event.getFrom(), event.getTo());
+        if (decision == MovePreFilter.Decision.SKIP) {
+            return;
+        }
+        
+        // The server only reports moves that only turn the head once they turned far, so
+        // their rotation ends the previous change but does not start a new one
+        if (decision == MovePreFilter.Decision.ROTATION_ONLY) {
+            if (analysisPipeline != null) {
+                analysisPipeline.submitRotation(player, data, event.getFrom());
+            } else {
+                data.addRotation(event.getFrom().getYaw(), event.getFrom().getPitch());
+            }
+            return;
+        }
+        
+        // Sampled out moves are recorded but not analysed
+        boolean analyze = decision == MovePreFilter.Decision.ANALYZE;
+        
+        // Hand the movement over to the analysis workers if they are running
+        if (analysisPipeline != null) {
+            analysisPipeline.submit(player, data, event.getFrom(), event.getTo(), analyze);
+            return;
         }
         
         // Analyze player movement for Baritone patterns
         data.addMovement(event.getFrom(), event.getTo());
         
         // Check for suspicious movement
-        if (data.checkForBaritonePatterns()) {
+        if (analyze && data.checkForBaritonePatterns()) {
+            handleSuspiciousMovement(player, data);
+        }
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPlayerTeleport(PlayerTeleportEvent event) {
+        // The rotation a teleport sets was not turned by the player
+        PlayerMovementData data = playerData.peek(event.getPlayer().getUniqueId());
+        if (data == null) {
+            return;
+        }
+        
+        if (analysisPipeline != null) {
+            analysisPipeline.submitRotation(event.getPlayer(), data, event.getFrom());
+        } else {
+            data.addRotation(event.getFrom().getYaw(), event.getFrom().getPitch());
+        }
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockBreak(BlockBreakEvent event) {
+        BaritoneDetectionConfig config = this.config;
+        if (!config.isEnabled() || !config.shouldCheckBlockBreakPatterns()) return;
+        
+        Player player = event.getPlayer();
+        if (preFilter.isExcluded(player.getUniqueId())) {
+            return;
+        }
+        
+        long startNanos = metrics.start();
+        PlayerMovementData data = getTrackedData(player);
+        BlockBreakData breaks = data.getOrCreateBlockBreaks(config.getBlockBreakSampleSize());
+        
+        Block block = event.getBlock();
+        breaks.addBreak(System.currentTimeMillis(), block.getX(), block.getY(), block.getZ(),
+                BlockBreakData.isOre(block.getType()));
+        boolean suspicious = breaks.checkForMiningPatterns(config.getMaxBreakIntervalVariation(), config.getMinOreRatio());
+        metrics.stop(DetectionMetrics.Stage.BLOCK_BREAK, startNanos);
+        
+        if (suspicious) {
             handleSuspiciousMovement(player, data);
         }
     }
@@ -89,54 +396,510 @@ public class NoBaritone extends JavaPlugin implements Listener {
     /**
      * Handles suspicious player movement
      */
-    private void handleSuspiciousMovement(Player player, PlayerMovementData data) {
-        // Increment violation counter
-        data.incrementViolationLevel();
+    void handleSuspiciousMovement(Player player, PlayerMovementData data) {
+        BaritoneDetectionConfig config = this.config;
+        long startNanos = metrics.start();
+        
+        // Increment violation counter and restart its decay countdown
+        data.incrementViolationLevel(config.getMaxViolationPoints());
+        decayScheduler.onViolation(data);
         
         // Take actions based on violation level
         int violationLevel = data.getViolationLevel();
+        logIncident(IncidentJournal.Priority.LOW, "log.player_flagged", player.getName(), String.valueOf(violationLevel));
         
         if (violationLevel >= config.getKickThreshold()) {
             // Kick player
             if (config.isKickEnabled()) {
-                player.kickPlayer(PREFIX + languageManager.getMessage("action.kick"));
+                long kickStartNanos = metrics.start();
+                // The kick settles the points. Store that before kicking, as the quit
+                // fired by the kick stops tracking the player.
+                data.recordKick();
                 data.resetViolationLevel();
-                getLogger().info(languageManager.getMessage("log.player_kicked", player.getName(), String.valueOf(violationLevel)));
+                saveProfile(data);
+                shareViolations(player.getUniqueId(), data);
+                player.kickPlayer(PREFIX + languageManager.getMessage(player, "action.kick"));
+                String message = languageManager.getMessage("log.player_kicked", player.getName(), String.valueOf(violationLevel));
+                getLogger().info(message);
+                if (incidentJournal != null) {
+                    incidentJournal.log(IncidentJournal.Priority.HIGH, message);
+                }
+                metrics.stop(DetectionMetrics.Stage.KICK, kickStartNanos);
             }
         } else if (violationLevel >= config.getNotifyThreshold()) {
-            // Notify admins
+            long notifyStartNanos = metrics.start();
+            
+            // Notify admins, repeated alerts are coalesced into digests
             if (config.isNotifyAdminsEnabled()) {
-                notifyAdmins(languageManager.getMessage("admin.notification", player.getName(), String.valueOf(violationLevel)));
+                alerts.alert(player, violationLevel);
+                logIncident(IncidentJournal.Priority.NORMAL, "admin.notification", player.getName(), String.valueOf(violationLevel));
             }
             
-            // Warn player
+            // Warn player, at most once per cooldown
             if (config.isWarnPlayerEnabled()) {
-                player.sendMessage(PREFIX + languageManager.getMessage("player.warning"));
+                alerts.warn(player);
             }
+            
+            metrics.stop(DetectionMetrics.Stage.NOTIFY, notifyStartNanos);
         }
+        
+        metrics.stop(DetectionMetrics.Stage.HANDLE_SUSPICIOUS, startNanos);
     }
     
     /**
-     * Sends notifications to admins
+     * Queues an incident for the incident journal if logging to file is enabled, only
+     * formatting the message if it is
      */
-    private void notifyAdmins(String message) {
-        String notifyMessage = PREFIX + message;
+    private void logIncident(IncidentJournal.Priority priority, String key, String... args) {
+        if (incidentJournal != null) {
+            incidentJournal.log(priority, languageManager.getMessage(key, args));
+        }
+    }
+    
+    /**
+     * Starts or stops the incident journal to match the configuration
+     */
+    private void updateIncidentJournal() {
+        // The old writer finishes in the background, the new one waits for it
+        IncidentJournal previous = incidentJournal;
+        if (previous != null) {
+            previous.shutdown();
+            incidentJournal = null;
+        }
         
-        // Log to console
-        getLogger().warning(message);
+        if (config.isLogToFileEnabled()) {
+            incidentJournal = new IncidentJournal(getLogger(),
+                    new File(getDataFolder(), "logs"), config.getJournalFileName(),
+                    config.getJournalMaxFileSizeKb() * 1024L,
+                    TimeUnit.HOURS.toMillis(config.getJournalRotateIntervalHours()),
+                    config.getJournalQueueCapacity(), previous);
+            incidentJournal.start();
+        }
+    }
+    
+    /**
+     * Loads the scoring model named in a configuration, writing the default one if it
+     * is missing. Safe to call from any thread.
+     *
+     * @return the model, or null for fixed score thresholds if scoring is disabled or
+     * the model cannot be read
+     */
+    private ScoringModel readScoringModel(BaritoneDetectionConfig snapshot) {
+        if (!snapshot.isScoringEnabled()) {
+            return null;
+        }
         
-        // Notify online admins
-        getServer().getOnlinePlayers().stream()
-            .filter(p -> p.hasPermission("nobaritone.notify"))
-            .forEach(p -> p.sendMessage(notifyMessage));
+        synchronized (configReadLock) {
+            File file = new File(getDataFolder(), snapshot.getScoringModelFile());
+            if (!file.exists() && snapshot.getScoringModelFile().equals(DEFAULT_SCORING_MODEL)) {
+                saveResource(DEFAULT_SCORING_MODEL, false);
+            }
+            
+            try {
+                return ScoringModel.load(file).withThresholds(snapshot.getMovementSimilarityThreshold(),
+                        snapshot.getAlgorithmicPathDetectionWeight(), snapshot.getScoringReflagMoves());
+            } catch (IOException e) {
+                getLogger().warning("Could not load scoring model " + file.getName() + ", using fixed score thresholds: " + e.getMessage());
+                return null;
+            }
+        }
     }
     
     /**
-     * Reloads the plugin configuration
+     * Opens or closes the profile store to match the configuration and reschedules its flushes
      */
-    public void reloadNoBaritone() {
-        reloadConfig();
-        config.reload();
+    private void updateProfileStore() {
+        File directory = new File(getDataFolder(), config.getProfileDirectory());
+        if (profileStore != null && (!config.isProfilesEnabled() || !profileStore.getDirectory().equals(directory))) {
+            saveProfiles(true);
+            profileStore.shutdown();
+            profileStore = null;
+        }
+        
+        if (config.isProfilesEnabled() && profileStore == null) {
+            ProfileStore store = new ProfileStore(getLogger(), directory);
+            try {
+                store.open();
+                profileStore = store;
+                // Players already online, after a reload, continue from their profiles as well
+                for (Player player : getServer().getOnlinePlayers()) {
+                    restoreProfile(player, playerData.getOrCreate(player.getUniqueId()), true);
+                }
+            } catch (IOException e) {
+                getLogger().severe("Failed to open the profile store, violations will not be kept: " + e.getMessage());
+            }
+        }
+        
+        if (profileFlushTask != null) {
+            profileFlushTask.cancel();
+            profileFlushTask = null;
+        }
+        if (profileStore != null) {
+            long periodTicks = config.getProfileFlushIntervalSeconds() * 20L;
+            profileFlushTask = getServer().getScheduler().runTaskTimer(this, () -> saveProfiles(false), periodTicks, periodTicks);
+        }
+    }
+    
+    /**
+     * Gets an online player's data. If the store evicted it while the player stayed online,
+     * the player is tracked again and continues from the profile saved on eviction.
+     */
+    public PlayerMovementData getTrackedData(Player player) {
+        PlayerMovementData data = playerData.get(player.getUniqueId());
+        if (data == null) {
+            data = playerData.getOrCreate(player.getUniqueId());
+            restoreProfile(player, data, false);
+        }
+        return data;
+    }
+    
+    /**
+     * Continues a player from their profile, loading it asynchronously if it was not preloaded
+     *
+     * @param newSession whether the player just joined, rather than being tracked again
+     */
+    private void restoreProfile(Player player, PlayerMovementData data, boolean newSession) {
+        ProfileStore store = profileStore;
+        if (store == null) {
+            // Without profiles, only violations shared by other servers carry over
+            ViolationSync.State synced = violationSync != null ? violationSync.getState(player.getUniqueId()) : null;
+            if (synced != null) {
+                restoreViolations(data, synced.getLevel(), synced.getLastViolationTime(), synced.getLastDecayTime());
+            }
+            return;
+        }
+        
+        ViolationProfile profile = store.takePreloaded(player.getUniqueId());
+        if (profile != null) {
+            applyProfile(data, profile, newSession);
+            return;
+        }
+        
+        UUID playerId = player.getUniqueId();
+        getServer().getScheduler().runTaskAsynchronously(this, () -> {
+            try {
+                ViolationProfile loaded = store.load(playerId);
+                getServer().getScheduler().runTask(this, () -> {
+                    // The player may have left or rejoined meanwhile
+                    if (playerData.peek(playerId) == data) {
+                        applyProfile(data, loaded, newSession);
+                    }
+                });
+            } catch (IOException e) {
+                getLogger().warning("Failed to load the profile of " + player.getName() + ": " + e.getMessage());
+            }
+        });
+    }
+    
+    /**
+     * Restores a loaded profile into the player's data, preferring violations the player
+     * received on another server since they were last here
+     */
+    private void applyProfile(PlayerMovementData data, ViolationProfile profile, boolean newSession) {
+        data.restoreProfile(newSession ? profile.startSession(System.currentTimeMillis()) : profile);
+        
+        ViolationSync.State synced = violationSync != null ? violationSync.getState(profile.getPlayerId()) : null;
+        if (synced != null && synced.getChangedAt() > profile.getLastSeen()) {
+            restoreViolations(data, synced.getLevel(), synced.getLastViolationTime(), synced.getLastDecayTime());
+        } else {
+            restoreViolations(data, profile.getViolationLevel(), profile.getLastViolationTime(), profile.getLastDecayTime());
+        }
+    }
+    
+    /**
+     * Takes over violations recorded earlier or on another server unless the player holds
+     * more points, removing the points that would have decayed since and resuming the
+     * decay of the rest
+     */
+    private void restoreViolations(PlayerMovementData data, int level, long lastViolationTime, long lastDecayTime) {
+        BaritoneDetectionConfig config = this.config;
+        long now = System.currentTimeMillis();
+        long periodMillis = TimeUnit.MINUTES.toMillis(config.getViolationDecayMinutes());
+        level = Math.min(level, config.getMaxViolationPoints());
+        lastDecayTime = Math.max(lastViolationTime, lastDecayTime);
+        
+        if (level > 0 && periodMillis > 0 && now > lastDecayTime) {
+            long periods = (now - lastDecayTime) / periodMillis;
+            level = (int) Math.max(0, level - periods);
+            lastDecayTime += periods * periodMillis;
+        }
+        
+        if (data.raiseViolationLevel(level, lastViolationTime, lastDecayTime)) {
+            decayScheduler.resume(data, lastDecayTime + periodMillis);
+        }
+    }
+    
+    /**
+     * Queues the profile of a player for writing
+     */
+    private void saveProfile(PlayerMovementData data) {
+        ProfileStore store = profileStore;
+        ViolationProfile profile = store != null ? data.saveProfile(System.currentTimeMillis()) : null;
+        if (profile != null) {
+            store.save(profile);
+        }
+    }
+    
+    /**
+     * Queues the profiles of online players and wakes the profile writer
+     *
+     * @param all whether to save unchanged profiles too, updating when the players were last seen
+     */
+    private void saveProfiles(boolean all) {
+        ProfileStore store = profileStore;
+        if (store == null) {
+            return;
+        }
+        
+        for (Player player : getServer().getOnlinePlayers()) {
+            PlayerMovementData data = playerData.peek(player.getUniqueId());
+            if (data != null && (all || data.isProfileDirty())) {
+                saveProfile(data);
+            }
+        }
+        store.expirePreloads();
+        store.flush();
+    }
+    
+    /**
+     * Starts, restarts or stops the violation sync to match the configuration and reschedules its exchanges
+     */
+    private void updateViolationSync() {
+        if (config.isSyncEnabled() && config.getSyncSecret().isEmpty()) {
+            getLogger().severe("The violation sync needs sync.secret, it stays disabled");
+        }
+        String settings = config.isSyncEnabled() && !config.getSyncSecret().isEmpty() ? String.join("|", config.getSyncTransport(), config.getSyncSecret(),
+                String.valueOf(config.getSyncStateExpiryMinutes()), String.valueOf(config.getSyncSocketPort()),
+                String.join(",", config.getSyncSocketPeers())) : null;
+        if (violationSync != null && !Objects.equals(settings, violationSyncSettings)) {
+            stopViolationSync();
+        }
+        
+        if (settings != null && violationSync == null) {
+            ViolationSyncTransport transport = createSyncTransport();
+            if (transport != null) {
+                ViolationSync sync = new ViolationSync(transport, config.getSyncSecret(),
+                        TimeUnit.MINUTES.toMillis(config.getSyncStateExpiryMinutes()));
+                try {
+                    sync.start();
+                    violationSync = sync;
+                    violationSyncSettings = settings;
+                } catch (IOException e) {
+                    getLogger().severe("Failed to start the " + transport.getName() + " violation sync: " + e.getMessage());
+                }
+            }
+        }
+        
+        if (violationSyncTask != null) {
+            violationSyncTask.cancel();
+            violationSyncTask = null;
+        }
+        if (violationSync != null) {
+            long periodTicks = config.getSyncIntervalTicks();
+            violationSyncTask = getServer().getScheduler().runTaskTimer(this, this::syncViolations, periodTicks, periodTicks);
+        }
+    }
+    
+    /**
+     * Creates the configured sync transport, or returns null if it cannot be used
+     */
+    private ViolationSyncTransport createSyncTransport() {
+        switch (config.getSyncTransport()) {
+            case "plugin-messaging":
+                return new PluginMessageTransport(this);
+            case "socket":
+                return new SocketTransport(getLogger(), config.getSyncSocketPort(), config.getSyncSocketPeers());
+            case "loopback":
+                return new LoopbackTransport(getName());
+            default:
+                getLogger().severe("Unknown sync transport " + config.getSyncTransport() + ", the violation sync stays disabled");
+                return null;
+        }
+    }
+    
+    /**
+     * Shares the violations of online players, then stops the violation sync
+     */
+    private void stopViolationSync() {
+        for (Player player : getServer().getOnlinePlayers()) {
+            PlayerMovementData data = playerData.peek(player.getUniqueId());
+            if (data != null) {
+                shareViolations(player.getUniqueId(), data);
+            }
+        }
+        violationSync.stop();
+        violationSync = null;
+        violationSyncSettings = null;
+    }
+    
+    /**
+     * Records a player's current violations for the next exchange with the other servers
+     */
+    private void shareViolations(UUID playerId, PlayerMovementData data) {
+        if (violationSync != null) {
+            violationSync.update(playerId, data.getViolationLevel(), data.getLastViolationTime(),
+                    data.getLastDecayTime(), System.currentTimeMillis());
+        }
+    }
+    
+    /**
+     * Exchanges changed violations with the other servers
+     */
+    private void syncViolations() {
+        for (Player player : getServer().getOnlinePlayers()) {
+            PlayerMovementData data = playerData.peek(player.getUniqueId());
+            if (data != null) {
+                shareViolations(player.getUniqueId(), data);
+            }
+        }
+        
+        violationSync.run(System.currentTimeMillis(), (playerId, state) -> {
+            // The player came here before the server they left sent their last violations
+            PlayerMovementData data = playerData.peek(playerId);
+            if (data != null) {
+                restoreViolations(data, state.getLevel(), state.getLastViolationTime(), state.getLastDecayTime());
+            }
+        });
+    }
+    
+    /**
+     * Starts or stops timing movement packets to match the configuration
+     */
+    private void updatePacketTiming() {
+        if (config.isPacketAnalysisEnabled() && packetTiming == null) {
+            packetTiming = new PacketTimingInjector(getLogger());
+            for (Player player : getServer().getOnlinePlayers()) {
+                packetTiming.inject(player);
+            }
+        } else if (!config.isPacketAnalysisEnabled() && packetTiming != null) {
+            packetTiming.uninjectAll();
+            packetTiming = null;
+        }
+    }
+    
+    /**
+     * Starts or stops the periodic metrics export to match the configuration
+     */
+    private void updateMetricsExport() {
+        if (metricsExportTask != null) {
+            metricsExportTask.cancel();
+            metricsExportTask = null;
+        }
+        
+        long periodTicks = config.getMetricsExportIntervalSeconds() * 20L;
+        if (config.isMetricsEnabled() && periodTicks > 0) {
+            MetricsExporter exporter = new MetricsExporter(getLogger(), metrics,
+                    new File(getDataFolder(), config.getMetricsExportFile()));
+            metricsExportTask = getServer().getScheduler().runTaskTimerAsynchronously(this, exporter, periodTicks, periodTicks);
+        }
+    }
+    
+    /**
+     * Reschedules the debug stream task with the configured interval
+     */
+    private void updateDebugStreams() {
+        if (debugStreamTask != null) {
+            debugStreamTask.cancel();
+        }
+        
+        long periodTicks = Math.max(1, config.getDebugStreamIntervalTicks());
+        debugStreamTask = getServer().getScheduler().runTaskTimer(this, debugStreams, periodTicks, periodTicks);
+    }
+    
+    /**
+     * Starts or stops watching config.yml to match the configuration
+     */
+    private void updateConfigWatcher() {
+        if (config.isAutoReloadEnabled() && configWatcher == null) {
+            configWatcher = new ConfigWatcher(this, new File(getDataFolder(), "config.yml"));
+            try {
+                configWatcher.start();
+            } catch (IOException e) {
+                getLogger().warning("Could not watch config.yml for changes: " + e.getMessage());
+                configWatcher = null;
+            }
+        } else if (!config.isAutoReloadEnabled() && configWatcher != null) {
+            configWatcher.shutdown();
+            configWatcher = null;
+        }
+    }
+    
+    /**
+     * Reads and validates config.yml, writing the default one if it is missing.
+     * Safe to call from any thread.
+     *
+     * @throws InvalidConfigurationException if the file cannot be parsed
+     */
+    private BaritoneDetectionConfig readConfig() throws IOException, InvalidConfigurationException {
+        synchronized (configReadLock) {
+            saveDefaultConfig();
+            File file = new File(getDataFolder(), "config.yml");
+            
+            YamlConfiguration yaml = new YamlConfiguration();
+            try (Reader defaults = new InputStreamReader(getResource("config.yml"), StandardCharsets.UTF_8)) {
+                yaml.setDefaults(YamlConfiguration.loadConfiguration(defaults));
+                yaml.load(file);
+            }
+            
+            BaritoneDetectionConfig snapshot = new BaritoneDetectionConfig(yaml);
+            for (String warning : snapshot.getWarnings()) {
+                getLogger().warning("config.yml: " + warning);
+            }
+            return snapshot;
+        }
+    }
+    
+    /**
+     * Reloads the plugin configuration. config.yml and the scoring model are read and
+     * validated on an async thread; the new settings are then swapped in and applied on the
+     * server thread, so every event sees either the old or the new settings. Safe to call
+     * from any thread.
+     *
+     * @return a future completed on the server thread once the new settings are in use, or
+     * failed if config.yml could not be read and the current settings were kept
+     */
+    public CompletableFuture<BaritoneDetectionConfig> reloadNoBaritone() {
+        CompletableFuture<BaritoneDetectionConfig> reloaded = new CompletableFuture<>();
+        getServer().getScheduler().runTaskAsynchronously(this, () -> {
+            BaritoneDetectionConfig snapshot;
+            ScoringModel scoringModel;
+            try {
+                snapshot = readConfig();
+                scoringModel = readScoringModel(snapshot);
+            } catch (IOException | InvalidConfigurationException e) {
+                // A half-written file must not reset the running settings
+                getLogger().severe("Could not read config.yml, keeping the current settings: " + e.getMessage());
+                getServer().getScheduler().runTask(this, () -> reloaded.completeExceptionally(e));
+                return;
+            }
+            
+            getServer().getScheduler().runTask(this, () -> {
+                applyConfig(snapshot, scoringModel);
+                reloaded.complete(snapshot);
+            });
+        });
+        return reloaded;
+    }
+    
+    /**
+     * Swaps in new settings and reconfigures every component with them
+     *
+     * @param scoringModel the model read along with the settings, or null for none
+     */
+    private void applyConfig(BaritoneDetectionConfig snapshot, ScoringModel scoringModel) {
+        config = snapshot;
+        playerData.setLimits(config.getMaxTrackedPlayers(), config.getMaxStateMemoryKb() * 1024L,
+                TimeUnit.MINUTES.toMillis(config.getIdleExpiryMinutes()));
+        preFilter.refreshAll();
+        updateIncidentJournal();
+        updateProfileStore();
+        updateViolationSync();
+        detectors.configure(config, scoringModel);
+        metrics.setEnabled(config.isMetricsEnabled());
+        updateMetricsExport();
+        updateDebugStreams();
+        updatePacketTiming();
+        updateConfigWatcher();
         languageManager.reload();
     }
     
@@ -147,6 +910,111 @@ public class NoBaritone extends JavaPlugin implements Listener {
         return config;
     }
     
+    /**
+     * Gets the store holding tracked player data
+     */
+    public PlayerStateStore getPlayerData() {
+        return playerData;
+    }
+    
+    /**
+     * Gets the server load monitor
+     */
+    public ServerLoadMonitor getLoadMonitor() {
+        return loadMonitor;
+    }
+    
+    /**
+     * Gets the violation profile store, or null if profiles are disabled
+     */
+    public ProfileStore getProfileStore() {
+        return profileStore;
+    }
+    
+    /**
+     * Gets the network violation sync, or null if it is disabled
+     */
+    public ViolationSync getViolationSync() {
+        return violationSync;
+    }
+    
+    /**
+     * Gets the incident journal, or null if logging to file is disabled
+     */
+    public IncidentJournal getIncidentJournal() {
+        return incidentJournal;
+    }
+    
+    /**
+     * Gets the detection metrics
+     */
+    public DetectionMetrics getMetrics() {
+        return metrics;
+    }
+    
+    /**
+     * Gets the cross-player route correlator
+     */
+    public FleetCorrelator getFleetCorrelator() {
+        return fleetCorrelator;
+    }
+    
+    /**
+     * Gets the cache of walkable terrain used by route searches
+     */
+    public WalkabilityCache getWalkabilityCache() {
+        return walkabilityCache;
+    }
+    
+    /**
+     * Gets the route optimality checker
+     */
+    public PathOptimalityChecker getPathChecker() {
+        return pathChecker;
+    }
+    
+    /**
+     * Gets the movement packet timing, or null if packet analysis is disabled
+     */
+    public PacketTimingInjector getPacketTiming() {
+        return packetTiming;
+    }
+    
+    /**
+     * Gets the movement detector pipeline
+     */
+    public DetectorPipeline getDetectors() {
+        return detectors;
+    }
+    
+    /**
+     * Gets the staff alert dispatcher
+     */
+    public AlertDispatcher getAlerts() {
+        return alerts;
+    }
+    
+    /**
+     * Gets the live debug stream manager
+     */
+    public DebugStreamManager getDebugStreams() {
+        return debugStreams;
+    }
+    
+    /**
+     * Gets the move pre-filter
+     */
+    public MovePreFilter getPreFilter() {
+        return preFilter;
+    }
+    
+    /**
+     * Gets the movement trace recorder
+     */
+    public MovementTraceRecorder getTraceRecorder() {
+        return traceRecorder;
+    }
+    
     /**
      * Gets the language manager
      */
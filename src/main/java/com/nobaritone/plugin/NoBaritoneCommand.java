@@ -7,8 +7,10 @@ import org.bukkit.command.CommandSender;
 import org.bukkit.command.TabCompleter;
 import org.bukkit.entity.Player;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -29,8 +31,19 @@ public class NoBaritoneCommand implements CommandExecutor, TabCompleter {
         switch (args[0].toLowerCase()) {
             case "reload":
                 if (!hasPermission(sender, "nobaritone.admin.reload")) return true;
-                plugin.reloadNoBaritone();
-                sender.sendMessage(ChatColor.GREEN + "NoBaritone configuration reloaded.");
+                sender.sendMessage(ChatColor.YELLOW + "Reloading NoBaritone configuration...");
+                plugin.reloadNoBaritone().whenComplete((config, error) -> {
+                    if (error != null) {
+                        sender.sendMessage(ChatColor.RED + "Could not read config.yml, keeping the current settings: "
+                                + error.getMessage());
+                        return;
+                    }
+                    
+                    sender.sendMessage(ChatColor.GREEN + "NoBaritone configuration reloaded.");
+                    for (String warning : config.getWarnings()) {
+                        sender.sendMessage(ChatColor.RED + "config.yml: " + warning);
+                    }
+                });
                 break;
                 
             case "status":
@@ -48,11 +61,44 @@ public class NoBaritoneCommand implements CommandExecutor, TabCompleter {
             case "debug":
                 if (!hasPermission(sender, "nobaritone.admin.debug")) return true;
                 if (args.length < 2) {
-                    sender.sendMessage(ChatColor.RED + "Usage: /nobaritone debug <player>");
+                    sender.sendMessage(ChatColor.RED + "Usage: /nobaritone debug <player> [stream] | /nobaritone debug stop");
                     return true;
                 }
-                // Show debug info for specific player
-                sender.sendMessage(ChatColor.YELLOW + "Debug mode not implemented yet.");
+                if (args[1].equalsIgnoreCase("stop")) {
+                    stopDebugStreams(sender);
+                } else if (args.length >= 3 && args[2].equalsIgnoreCase("stream")) {
+                    toggleDebugStream(sender, args[1]);
+                } else {
+                    showDebug(sender, args[1]);
+                }
+                break;
+                
+            case "record":
+                if (!hasPermission(sender, "nobaritone.admin.record")) return true;
+                if (args.length < 2) {
+                    sender.sendMessage(ChatColor.RED + "Usage: /nobaritone record <player>");
+                    return true;
+                }
+                toggleRecording(sender, args[1]);
+                break;
+                
+            case "watch":
+                if (!hasPermission(sender, "nobaritone.admin.watch")) return true;
+                if (args.length < 2) {
+                    sender.sendMessage(ChatColor.RED + "Usage: /nobaritone watch <player> [minutes]");
+                    return true;
+                }
+                watchPlayer(sender, args[1], args.length >= 3 ? args[2] : null);
+                break;
+                
+            case "metrics":
+                if (!hasPermission(sender, "nobaritone.admin.metrics")) return true;
+                if (args.length >= 2 && args[1].equalsIgnoreCase("reset")) {
+                    plugin.getMetrics().reset();
+                    sender.sendMessage(ChatColor.GREEN + "NoBaritone metrics reset.");
+                    return true;
+                }
+                showMetrics(sender);
                 break;
                 
             case "help":
@@ -69,7 +115,11 @@ public class NoBaritoneCommand implements CommandExecutor, TabCompleter {
         sender.sendMessage(ChatColor.YELLOW + "/nobaritone reload" + ChatColor.WHITE + " - Reload configuration");
         sender.sendMessage(ChatColor.YELLOW + "/nobaritone status" + ChatColor.WHITE + " - Show plugin status");
         sender.sendMessage(ChatColor.YELLOW + "/nobaritone toggle" + ChatColor.WHITE + " - Toggle plugin enabled state");
-        sender.sendMessage(ChatColor.YELLOW + "/nobaritone debug <player>" + ChatColor.WHITE + " - Debug info for player");
+        sender.sendMessage(ChatColor.YELLOW + "/nobaritone debug <player> [stream]" + ChatColor.WHITE + " - Debug info for player, or stream it live");
+        sender.sendMessage(ChatColor.YELLOW + "/nobaritone debug stop" + ChatColor.WHITE + " - Stop all your debug streams");
+        sender.sendMessage(ChatColor.YELLOW + "/nobaritone record <player>" + ChatColor.WHITE + " - Start/stop recording a movement trace");
+        sender.sendMessage(ChatColor.YELLOW + "/nobaritone watch <player> [minutes]" + ChatColor.WHITE + " - Give a player full analysis for a while");
+        sender.sendMessage(ChatColor.YELLOW + "/nobaritone metrics [reset]" + ChatColor.WHITE + " - Show detection timings and check hit rates");
         sender.sendMessage(ChatColor.YELLOW + "/nobaritone help" + ChatColor.WHITE + " - Show this help");
     }
 
@@ -86,6 +136,10 @@ public class NoBaritoneCommand implements CommandExecutor, TabCompleter {
                 (config.isKickEnabled() ? ChatColor.GREEN + "Yes" : ChatColor.RED + "No"));
         sender.sendMessage(ChatColor.YELLOW + "Ban enabled: " + ChatColor.WHITE + 
                 (config.isBanEnabled() ? ChatColor.GREEN + "Yes" : ChatColor.RED + "No"));
+        
+        PlayerStateStore playerData = plugin.getPlayerData();
+        sender.sendMessage(ChatColor.YELLOW + "Tracked players: " + ChatColor.WHITE + playerData.size() + 
+                " (~" + (playerData.estimateMemoryBytes() + 1023) / 1024 + " KB)");
                 
         // Show more advanced detection settings for users with higher permissions
         if (sender.hasPermission("nobaritone.admin.advanced")) {
@@ -96,9 +150,256 @@ public class NoBaritoneCommand implements CommandExecutor, TabCompleter {
                     config.getPatternDetectionSampleSize());
             sender.sendMessage(ChatColor.YELLOW + "Max violation points: " + ChatColor.WHITE + 
                     config.getMaxViolationPoints());
+            
+            MovePreFilter preFilter = plugin.getPreFilter();
+            sender.sendMessage(ChatColor.YELLOW + "TPS: " + ChatColor.WHITE + 
+                    String.format("%.1f", plugin.getLoadMonitor().getTps()));
+            sender.sendMessage(ChatColor.YELLOW + "Filtered moves: " + ChatColor.WHITE + 
+                    preFilter.getRotationOnlyMoves() + " stationary, " + 
+                    preFilter.getExcludedMoves() + " excluded, " + 
+                    preFilter.getLagSpikeMoves() + " lag spike, " + 
+                    preFilter.getSampledOutMoves() + " sampled out");
+            
+            List<MovementDetector> detectors = plugin.getDetectors().getDetectors();
+            StringBuilder detectorIds = new StringBuilder();
+            for (MovementDetector detector : detectors) {
+                detectorIds.append(detectorIds.length() == 0 ? "" : ", ").append(detector.getId());
+            }
+            sender.sendMessage(ChatColor.YELLOW + "Detectors: " + ChatColor.WHITE + detectorIds);
+            
+            AlertDispatcher alerts = plugin.getAlerts();
+            sender.sendMessage(ChatColor.YELLOW + "Alerts: " + ChatColor.WHITE + 
+                    alerts.getSentAlerts() + " sent, " + 
+                    alerts.getCoalescedAlerts() + " coalesced into digests, " + 
+                    alerts.getSuppressedWarnings() + " warnings suppressed, " + 
+                    alerts.getSubscriberCount() + " staff subscribed");
+            
+            ProfileStore profiles = plugin.getProfileStore();
+            if (profiles != null) {
+                sender.sendMessage(ChatColor.YELLOW + "Profiles: " + ChatColor.WHITE + 
+                        profiles.size() + " stored, " + 
+                        profiles.getPendingCount() + " waiting to be written, " + 
+                        (profiles.getLogBytes() + 1023) / 1024 + " KB on disk");
+            }
+            
+            ViolationSync sync = plugin.getViolationSync();
+            if (sync != null) {
+                sender.sendMessage(ChatColor.YELLOW + "Violation sync: " + ChatColor.WHITE + 
+                        sync.getTransportName() + ", " + 
+                        sync.size() + " players known, " + 
+                        sync.getPublishedUpdates() + " updates sent, " + 
+                        sync.getMergedUpdates() + " merged, " + 
+                        sync.getStaleUpdates() + " stale, " + 
+                        sync.getRejectedUpdates() + " rejected, " + 
+                        sync.getDroppedMessages() + " messages dropped");
+            }
+            
+            DetectorPipeline pipeline = plugin.getDetectors();
+            long sentinelChecks = pipeline.getSentinelChecks();
+            long allChecks = sentinelChecks + pipeline.getFullChecks();
+            sender.sendMessage(ChatColor.YELLOW + "Analysis tiers: " + ChatColor.WHITE + 
+                    (pipeline.isTiersEnabled() ? String.format("%.0f%% sentinel checks, %d escalations", 
+                            allChecks == 0 ? 0.0 : sentinelChecks * 100.0 / allChecks, pipeline.getEscalations()) : "disabled"));
+            
+            ScoringModel scoringModel = plugin.getDetectors().getScoringModel();
+            sender.sendMessage(ChatColor.YELLOW + "Scoring: " + ChatColor.WHITE + 
+                    (scoringModel != null ? "model, decay " + scoringModel.getDecay() : "fixed thresholds"));
+            
+            FleetCorrelator fleetCorrelator = plugin.getFleetCorrelator();
+            sender.sendMessage(ChatColor.YELLOW + "Fleet correlation: " + ChatColor.WHITE + 
+                    fleetCorrelator.getIndexedPlayers() + " routes indexed, " + 
+                    fleetCorrelator.getLastFlaggedPlayers() + " flagged in the last round");
+            
+            PathOptimalityChecker pathChecker = plugin.getPathChecker();
+            sender.sendMessage(ChatColor.YELLOW + "Route searches: " + ChatColor.WHITE + 
+                    pathChecker.getSearches() + " run, " + 
+                    pathChecker.getSearchesOverBudget() + " over budget, " + 
+                    plugin.getWalkabilityCache().size() + " terrain sections cached");
+            
+            PacketTimingInjector packetTiming = plugin.getPacketTiming();
+            if (packetTiming != null) {
+                sender.sendMessage(ChatColor.YELLOW + "Packet timing: " + ChatColor.WHITE + 
+                        packetTiming.size() + " players");
+            }
+            
+            IncidentJournal journal = plugin.getIncidentJournal();
+            if (journal != null) {
+                sender.sendMessage(ChatColor.YELLOW + "Dropped incidents: " + ChatColor.WHITE + 
+                        journal.getDroppedIncidents());
+            }
         }
     }
 
+    private void showDebug(CommandSender sender, String playerName) {
+        Player target = plugin.getServer().getPlayer(playerName);
+        if (target == null) {
+            sender.sendMessage(ChatColor.RED + "Player " + playerName + " is not online.");
+            return;
+        }
+        
+        PlayerMovementData data = plugin.getPlayerData().get(target.getUniqueId());
+        if (data == null) {
+            sender.sendMessage(ChatColor.YELLOW + target.getName() + " is not being tracked yet.");
+            return;
+        }
+        
+        FeatureSnapshot snapshot = new FeatureSnapshot();
+        if (!data.readSnapshot(snapshot)) {
+            sender.sendMessage(ChatColor.RED + "Could not read a consistent snapshot, try again.");
+            return;
+        }
+        
+        sender.sendMessage(ChatColor.GREEN + "==== NoBaritone Debug: " + target.getName() + " ====");
+        sender.sendMessage(ChatColor.YELLOW + "Violation level: " + ChatColor.WHITE + snapshot.getViolationLevel() + 
+                ChatColor.YELLOW + "  Last score: " + ChatColor.WHITE + snapshot.getScore() + 
+                ChatColor.YELLOW + "  Probability: " + ChatColor.WHITE + String.format("%.2f", snapshot.getProbability()));
+        sender.sendMessage(ChatColor.YELLOW + "Analysis tier: " + ChatColor.WHITE + 
+                (data.isFullAnalysis(System.currentTimeMillis()) ? "full" : "sentinel"));
+        if (plugin.getPreFilter().isExcluded(target.getUniqueId())) {
+            sender.sendMessage(ChatColor.YELLOW + "Excluded from detection (bypass, op or creative).");
+        }
+        sender.sendMessage(ChatColor.YELLOW + "Samples: " + ChatColor.WHITE + 
+                snapshot.getSampleCount() + "/" + snapshot.getSampleCapacity() + 
+                " (" + snapshot.getVersion() + " moves analysed)");
+        sender.sendMessage(ChatColor.YELLOW + "Straight line counter: " + ChatColor.WHITE + snapshot.getStraightLineCounter() + 
+                ChatColor.YELLOW + "  Exact angle changes: " + ChatColor.WHITE + snapshot.getExactAngleChanges() + 
+                ChatColor.YELLOW + "  Perfect jumps: " + ChatColor.WHITE + snapshot.getPerfectJumps());
+        sender.sendMessage(ChatColor.YELLOW + "Move timing: " + ChatColor.WHITE + 
+                String.format("%.0f%% consistent, %.1f ms mean interval", 
+                        snapshot.getTimingConsistency() * 100, snapshot.getMeanMoveInterval()));
+        sender.sendMessage(ChatColor.YELLOW + "Direction changes: " + ChatColor.WHITE + 
+                String.format("%.0f%% consistent", snapshot.getDirectionConsistency() * 100));
+        sender.sendMessage(ChatColor.YELLOW + "Rotation: " + ChatColor.WHITE + 
+                String.format("%.2f +/- %.2f deg yaw per move, pitch step %.4f, %.0f%% periodic", 
+                        snapshot.getMeanYawDelta(), snapshot.getYawDeltaDeviation(), 
+                        snapshot.getPitchGcd(), snapshot.getRotationPeriodicity() * 100));
+        
+        BlockBreakData breaks = data.getBlockBreaks();
+        if (breaks != null && breaks.size() > 0) {
+            double[] spreads = breaks.getSpreads();
+            sender.sendMessage(ChatColor.YELLOW + "Block breaks: " + ChatColor.WHITE + 
+                    String.format("%d, %.0f ms mean interval, %.2f variation, spread %.1f/%.1f/%.1f, %.0f%% ores", 
+                            breaks.size(), breaks.getMeanInterval(), breaks.getIntervalVariation(), 
+                            spreads[0], spreads[1], spreads[2], breaks.getOreRatio() * 100));
+        }
+        
+        if (snapshot.getRecentCount() > 0) {
+            sender.sendMessage(ChatColor.YELLOW + "Recent moves:");
+            long latest = snapshot.getRecentTimestamp(0);
+            for (int i = 0; i < snapshot.getRecentCount(); i++) {
+                sender.sendMessage(ChatColor.GRAY + "  " + String.format("-%d ms  %.2f %.2f %.2f  yaw %.1f pitch %.1f", 
+                        latest - snapshot.getRecentTimestamp(i), 
+                        snapshot.getRecentX(i), snapshot.getRecentY(i), snapshot.getRecentZ(i), 
+                        snapshot.getRecentYaw(i), snapshot.getRecentPitch(i)));
+            }
+        }
+    }
+
+    private void toggleDebugStream(CommandSender sender, String playerName) {
+        if (!(sender instanceof Player)) {
+            sender.sendMessage(ChatColor.RED + "Only players can stream debug info.");
+            return;
+        }
+        
+        Player target = plugin.getServer().getPlayer(playerName);
+        if (target == null) {
+            sender.sendMessage(ChatColor.RED + "Player " + playerName + " is not online.");
+            return;
+        }
+        
+        if (plugin.getDebugStreams().toggle((Player) sender, target)) {
+            sender.sendMessage(ChatColor.GREEN + "Streaming debug info of " + target.getName() + 
+                    ". Run the command again to stop.");
+        } else {
+            sender.sendMessage(ChatColor.GREEN + "Stopped streaming debug info of " + target.getName() + ".");
+        }
+    }
+
+    private void stopDebugStreams(CommandSender sender) {
+        if (!(sender instanceof Player)) {
+            sender.sendMessage(ChatColor.RED + "Only players can stream debug info.");
+            return;
+        }
+        
+        int stopped = plugin.getDebugStreams().stopAll(((Player) sender).getUniqueId());
+        sender.sendMessage(ChatColor.GREEN + "Stopped " + stopped + " debug stream(s).");
+    }
+
+    private void showMetrics(CommandSender sender) {
+        DetectionMetrics metrics = plugin.getMetrics();
+        sender.sendMessage(ChatColor.GREEN + "==== NoBaritone Metrics ====");
+        if (!metrics.isEnabled()) {
+            sender.sendMessage(ChatColor.RED + "Metrics are disabled in the configuration.");
+        }
+        
+        sender.sendMessage(ChatColor.YELLOW + "Stage latency (count, mean / p50 / p99 / max in us):");
+        for (DetectionMetrics.Stage stage : DetectionMetrics.Stage.values()) {
+            LatencyHistogram latency = metrics.getLatency(stage);
+            if (latency.getCount() == 0) {
+                continue;
+            }
+            
+            sender.sendMessage(ChatColor.YELLOW + "  " + stage.getLabel() + ": " + ChatColor.WHITE + 
+                    latency.getCount() + ", " + 
+                    String.format("%.1f / %.1f / %.1f / %.1f", 
+                            latency.getMeanNanos() / 1000.0, 
+                            latency.getValueAtPercentile(50) / 1000.0, 
+                            latency.getValueAtPercentile(99) / 1000.0, 
+                            latency.getMaxNanos() / 1000.0));
+        }
+        
+        sender.sendMessage(ChatColor.YELLOW + "Check hit rates:");
+        for (DetectionMetrics.Check check : DetectionMetrics.Check.values()) {
+            sender.sendMessage(ChatColor.YELLOW + "  " + check.getLabel() + ": " + ChatColor.WHITE + 
+                    metrics.getHits(check) + "/" + metrics.getEvaluations(check) + 
+                    String.format(" (%.1f%%)", metrics.getHitRate(check) * 100));
+        }
+    }
+
+    private void toggleRecording(CommandSender sender, String playerName) {
+        Player target = plugin.getServer().getPlayer(playerName);
+        if (target == null) {
+            sender.sendMessage(ChatColor.RED + "Player " + playerName + " is not online.");
+            return;
+        }
+        
+        MovementTraceRecorder recorder = plugin.getTraceRecorder();
+        if (recorder.isRecording(target.getUniqueId())) {
+            File trace = recorder.stop(target.getUniqueId());
+            sender.sendMessage(ChatColor.GREEN + "Stopped recording " + target.getName() + ". Trace saved to " + trace.getName());
+            return;
+        }
+        
+        File trace = recorder.start(target);
+        if (trace == null) {
+            sender.sendMessage(ChatColor.RED + "Could not start recording, see the console for details.");
+        } else {
+            sender.sendMessage(ChatColor.GREEN + "Recording movement of " + target.getName() + " to " + trace.getName());
+        }
+    }
+
+    private void watchPlayer(CommandSender sender, String playerName, String minutesArg) {
+        Player target = plugin.getServer().getPlayer(playerName);
+        if (target == null) {
+            sender.sendMessage(ChatColor.RED + "Player " + playerName + " is not online.");
+            return;
+        }
+        
+        int minutes = plugin.getBaritoneConfig().getWatchMinutes();
+        if (minutesArg != null) {
+            try {
+                minutes = Integer.parseInt(minutesArg);
+            } catch (NumberFormatException e) {
+                sender.sendMessage(ChatColor.RED + "Invalid number of minutes: " + minutesArg);
+                return;
+            }
+        }
+        
+        PlayerMovementData data = plugin.getTrackedData(target);
+        data.escalate(System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(Math.max(1, minutes)));
+        sender.sendMessage(ChatColor.GREEN + target.getName() + " gets full analysis for the next " + Math.max(1, minutes) + " minutes.");
+    }
+    
     private boolean hasPermission(CommandSender sender, String permission) {
         if (sender.hasPermission(permission)) {
             return true;
@@ -114,18 +415,23 @@ public class NoBaritoneCommand implements CommandExecutor, TabCompleter {
         List<String> completions = new ArrayList<>();
         
         if (args.length == 1) {
-            List<String> commands = Stream.of("reload", "status", "toggle", "debug", "help")
+            List<String> commands = Stream.of("reload", "status", "toggle", "debug", "record", "watch", "metrics", "help")
                     .filter(cmd -> cmd.startsWith(args[0].toLowerCase()))
                     .collect(Collectors.toList());
             
             completions.addAll(commands);
-        } else if (args.length == 2 && args[0].equalsIgnoreCase("debug")) {
-            // Add online players for debug command
+        } else if (args.length == 2 && (args[0].equalsIgnoreCase("debug") || args[0].equalsIgnoreCase("record")
+                || args[0].equalsIgnoreCase("watch"))) {
+            // Add online players for player commands
             for (Player player : plugin.getServer().getOnlinePlayers()) {
                 if (player.getName().toLowerCase().startsWith(args[1].toLowerCase())) {
                     completions.add(player.getName());
                 }
             }
+        } else if (args.length == 3 && args[0].equalsIgnoreCase("debug") && "stream".startsWith(args[2].toLowerCase())) {
+            completions.add("stream");
+        } else if (args.length == 2 && args[0].equalsIgnoreCase("metrics") && "reset".startsWith(args[1].toLowerCase())) {
+            completions.add("reset");
         }
         
         return completions;
@@ -0,0 +1,104 @@
+package com.nobaritone.plugin;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free ring of packet arrival times for one player. The player's network thread
+ * records arrivals and the thread analysing the player drains them. The producer never
+ * waits: once the ring is full the oldest arrivals are overwritten, and each slot carries
+ * the sequence number it was written with so the consumer can tell a slot that was
+ * overwritten while it was being read.
+ */
+public class PacketArrivalBuffer {
+    // Written to a slot's sequence while its value is being replaced
+    private static final long WRITING = -1;
+
+    private final int capacity;
+    private final int mask;
+    private final AtomicLongArray arrivals;
+    private final AtomicLongArray sequences;
+
+    // Next sequence to write, written by the producer only
+    private final AtomicLong written = new AtomicLong();
+
+    // Next sequence to read and arrivals lost to overwriting, touched by the consumer only
+    private long read = 0;
+    private long lostArrivals = 0;
+
+    public PacketArrivalBuffer(int requestedCapacity) {
+        // Round up to a power of two so slots can be found with a mask
+        int capacity = Integer.highestOneBit(Math.max(2, requestedCapacity - 1)) << 1;
+
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.arrivals = new AtomicLongArray(capacity);
+        this.sequences = new AtomicLongArray(capacity);
+        for (int slot = 0; slot < capacity; slot++) {
+            sequences.set(slot, WRITING);
+        }
+    }
+
+    /**
+     * Records a packet arrival. Must only be called from the producer thread.
+     */
+    public void record(long nanoTime) {
+        long sequence = written.get();
+        int slot = (int) sequence & mask;
+
+        // Each ordered store is published after the ones before it
+        sequences.lazySet(slot, WRITING);
+        arrivals.lazySet(slot, nanoTime);
+        sequences.lazySet(slot, sequence);
+        written.lazySet(sequence + 1);
+    }
+
+    /**
+     * Adds every arrival recorded since the last drain to the interval statistics, in
+     * milliseconds, and to the tick jitter statistics, in microseconds. Must only be
+     * called from one consumer thread at a time.
+     *
+     * @return the number of arrivals added
+     */
+    public int drainTo(RollingIntervalStats stats, TickJitterStats jitter) {
+        long end = written.get();
+        long start = Math.max(read, end - capacity);
+        lostArrivals += start - read;
+
+        int drained = 0;
+        for (long sequence = start; sequence < end; sequence++) {
+            int slot = (int) sequence & mask;
+            long arrival = arrivals.get(slot);
+            if (sequences.get(slot) != sequence) {
+                // Overwritten by a newer arrival while reading
+                lostArrivals++;
+                continue;
+            }
+
+            stats.add(arrival / 1_000_000);
+            jitter.add(arrival / 1_000);
+            drained++;
+        }
+
+        read = end;
+        return drained;
+    }
+
+    /**
+     * Gets the number of arrivals recorded so far
+     */
+    public long getRecordedArrivals() {
+        return written.get();
+    }
+
+    /**
+     * Gets the number of arrivals overwritten before they were drained
+     */
+    public long getLostArrivals() {
+        return lostArrivals;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+}
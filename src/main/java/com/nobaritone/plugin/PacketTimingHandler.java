@@ -0,0 +1,52 @@
+package com.nobaritone.plugin;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+
+/**
+ * Channel handler stamping the arrival of a player's movement packets on the network
+ * thread, before they wait for the server thread. The times reflect the client's own
+ * cadence instead of the tick loop's. Sits between the packet decoder and the server's
+ * packet handler and passes every message on unchanged.
+ */
+public class PacketTimingHandler extends ChannelInboundHandlerAdapter {
+    /**
+     * Name of the handler in the channel pipeline
+     */
+    public static final String NAME = "nobaritone_timing";
+
+    private static final ClassValue<Boolean> MOVEMENT_PACKETS = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            return isMovementPacket(type);
+        }
+    };
+
+    private final PacketArrivalBuffer arrivals;
+
+    public PacketTimingHandler(PacketArrivalBuffer arrivals) {
+        this.arrivals = arrivals;
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (MOVEMENT_PACKETS.get(msg.getClass())) {
+            arrivals.record(System.nanoTime());
+        }
+        super.channelRead(ctx, msg);
+    }
+
+    /**
+     * Checks whether a packet class carries a position or rotation, under both the
+     * Spigot (PacketPlayInFlying) and the Mojang (ServerboundMovePlayerPacket) names
+     */
+    static boolean isMovementPacket(Class<?> type) {
+        String name = type.getSimpleName();
+        Class<?> outer = type.getEnclosingClass();
+        if (outer != null && outer.getSimpleName().equals("ServerboundMovePlayerPacket")) {
+            return name.equals("Pos") || name.equals("PosRot") || name.equals("Rot");
+        }
+        return name.equals("PacketPlayInPosition") || name.equals("PacketPlayInPositionLook")
+                || name.equals("PacketPlayInLook");
+    }
+}
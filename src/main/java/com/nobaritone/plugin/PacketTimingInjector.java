@@ -0,0 +1,164 @@
+package com.nobaritone.plugin;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelPipeline;
+import org.bukkit.entity.Player;
+
+import java.lang.reflect.Field;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Adds a {@link PacketTimingHandler} to the network channel of every player and keeps
+ * the arrival buffers it fills. The server does not expose player channels, so the
+ * channel is found by reflection: the player's handle holds the connection, which holds
+ * the network manager, which holds the channel. Fields are matched by type rather than
+ * name so both Spigot and Mojang mappings work. Pipelines are only changed on the
+ * channel's own event loop.
+ */
+public class PacketTimingInjector {
+    // Netty handler of the server that packets are decoded for
+    static final String PACKET_HANDLER = "packet_handler";
+    static final int ARRIVAL_BUFFER_SIZE = 64;
+
+    private final Logger logger;
+    private final Map<UUID, Injection> injections = new ConcurrentHashMap<>();
+    private volatile boolean reportedFailure = false;
+
+    public PacketTimingInjector(Logger logger) {
+        this.logger = logger;
+    }
+
+    /**
+     * Starts timing the player's movement packets
+     *
+     * @return false if the player's channel could not be found
+     */
+    public boolean inject(Player player) {
+        Channel channel;
+        try {
+            channel = findChannel(player);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            if (!reportedFailure) {
+                reportedFailure = true;
+                logger.log(Level.WARNING, "Could not find player network channels, packet timing is unavailable", e);
+            }
+            return false;
+        }
+
+        inject(player.getUniqueId(), channel);
+        return true;
+    }
+
+    /**
+     * Starts timing the movement packets arriving on a player's channel
+     */
+    void inject(UUID playerId, Channel channel) {
+        PacketArrivalBuffer arrivals = new PacketArrivalBuffer(ARRIVAL_BUFFER_SIZE);
+        Injection previous = injections.put(playerId, new Injection(channel, arrivals));
+        if (previous != null) {
+            removeHandler(previous.channel);
+        }
+
+        channel.eventLoop().execute(() -> {
+            ChannelPipeline pipeline = channel.pipeline();
+            if (pipeline.get(PACKET_HANDLER) == null) {
+                // Disconnected before the handler could be added
+                return;
+            }
+            if (pipeline.get(PacketTimingHandler.NAME) != null) {
+                pipeline.remove(PacketTimingHandler.NAME);
+            }
+            pipeline.addBefore(PACKET_HANDLER, PacketTimingHandler.NAME, new PacketTimingHandler(arrivals));
+        });
+    }
+
+    /**
+     * Stops timing a player's movement packets
+     */
+    public void uninject(UUID playerId) {
+        Injection injection = injections.remove(playerId);
+        if (injection != null) {
+            removeHandler(injection.channel);
+        }
+    }
+
+    /**
+     * Stops timing every player's movement packets
+     */
+    public void uninjectAll() {
+        for (UUID playerId : injections.keySet()) {
+            uninject(playerId);
+        }
+    }
+
+    /**
+     * Gets the arrival times recorded for a player, or null if the player is not timed
+     */
+    public PacketArrivalBuffer getArrivals(UUID playerId) {
+        Injection injection = injections.get(playerId);
+        return injection == null ? null : injection.arrivals;
+    }
+
+    /**
+     * Gets the number of players whose packets are timed
+     */
+    public int size() {
+        return injections.size();
+    }
+
+    private static void removeHandler(Channel channel) {
+        channel.eventLoop().execute(() -> {
+            if (channel.pipeline().get(PacketTimingHandler.NAME) != null) {
+                channel.pipeline().remove(PacketTimingHandler.NAME);
+            }
+        });
+    }
+
+    /**
+     * Finds the network channel of a player
+     */
+    static Channel findChannel(Player player) throws ReflectiveOperationException {
+        Object handle = player.getClass().getMethod("getHandle").invoke(player);
+        Object connection = getFieldValue(handle, type ->
+                type.getSimpleName().equals("PlayerConnection") || type.getSimpleName().equals("ServerGamePacketListenerImpl"));
+        Object networkManager = getFieldValue(connection, type ->
+                type.getSimpleName().equals("NetworkManager") || type.getSimpleName().equals("Connection"));
+        return (Channel) getFieldValue(networkManager, Channel.class::isAssignableFrom);
+    }
+
+    /**
+     * Reads the first field of the object, or of its superclasses, whose type matches
+     */
+    private static Object getFieldValue(Object owner, Predicate<Class<?>> type) throws ReflectiveOperationException {
+        for (Class<?> current = owner.getClass(); current != null; current = current.getSuperclass()) {
+            for (Field field : current.getDeclaredFields()) {
+                if (type.test(field.getType())) {
+                    field.setAccessible(true);
+                    Object value = field.get(owner);
+                    if (value != null) {
+                        return value;
+                    }
+                }
+            }
+        }
+        throw new NoSuchFieldException("No matching field in " + owner.getClass().getName());
+    }
+
+    /**
+     * A player's channel along with the arrivals its handler records
+     */
+    private static class Injection {
+        private final Channel channel;
+        private final PacketArrivalBuffer arrivals;
+
+        Injection(Channel channel, PacketArrivalBuffer arrivals) {
+            this.channel = channel;
+            this.arrivals = arrivals;
+        }
+    }
+}
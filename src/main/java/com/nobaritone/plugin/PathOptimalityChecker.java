@@ -0,0 +1,477 @@
+package com.nobaritone.plugin;
+
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Compares the routes players walk with the shortest walkable route between the same two
+ * points. People wander, cut corners and take the way they know; Baritone follows the
+ * route its A* search found, so around obstacles its segments keep coming out almost
+ * exactly as long as the optimal one. Segments where the shortest route is close to a
+ * straight line prove nothing and are skipped.
+ *
+ * The search is the most expensive check there is, so like expensive detectors it only
+ * runs for players with violations or whose detectors scored at least the pipeline's
+ * expensive-min-score.
+ *
+ * Runs every tick on the server thread within a fixed time budget. Players take turns,
+ * terrain is read through the {@link WalkabilityCache} a few sections per tick until a
+ * segment's surroundings are cached, and the search itself is bounded both in expanded
+ * blocks and in time. All search state lives in arrays reused across searches, so a
+ * check does not allocate.
+ */
+public class PathOptimalityChecker implements Runnable {
+    // Segments are searched within their bounding box grown by this many blocks
+    private static final int HORIZONTAL_MARGIN = 8;
+    private static final int VERTICAL_MARGIN = 4;
+    private static final int MIN_SEGMENT_LENGTH = 8;
+    private static final int MAX_SEGMENT_LENGTH = 32;
+    private static final int MAX_SPAN = MAX_SEGMENT_LENGTH + 2 * HORIZONTAL_MARGIN;
+    private static final int MAX_HEIGHT = 24;
+    private static final int MAX_CELLS = MAX_SPAN * MAX_SPAN * MAX_HEIGHT;
+    // Waypoints further apart than this mean a teleport, a vehicle or flight
+    private static final double MAX_WAYPOINT_GAP = 4.0;
+    // Blocks a player can drop down in a single step of a route
+    private static final int MAX_DROP = 3;
+    // Optimal segments in a row that raise the violation level
+    private static final int OPTIMAL_SEGMENTS_TO_FLAG = 3;
+    // The clock is read once per this many expanded blocks
+    private static final int DEADLINE_CHECK_INTERVAL = 64;
+    private static final float DIAGONAL_COST = (float) Math.sqrt(2);
+
+    private static final int[] STEP_X = {1, -1, 0, 0, 1, 1, -1, -1};
+    private static final int[] STEP_Z = {0, 0, 1, -1, 1, -1, 1, -1};
+
+    private static final double NO_ROUTE = -1;
+    private static final double OVER_BUDGET = -2;
+
+    private final NoBaritone plugin;
+    private final WalkabilityCache walkability;
+    private final PathTrace path = new PathTrace(PlayerMovementData.PATH_WAYPOINTS);
+    private final Map<UUID, Progress> progress = new HashMap<>();
+    private final ArrayDeque<UUID> turns = new ArrayDeque<>();
+
+    // Search state, reused across searches and reset by bumping the generation
+    private final float[] costs = new float[MAX_CELLS];
+    private final int[] touched = new int[MAX_CELLS];
+    private final int[] closed = new int[MAX_CELLS];
+    private int[] heapCells = new int[0];
+    private float[] heapPriorities = new float[0];
+    private int heapSize;
+    private int generation = 0;
+
+    // Search box of the current search
+    private int originX, originY, originZ;
+    private int spanX, spanY, spanZ;
+
+    private long searches = 0;
+    private long searchesOverBudget = 0;
+
+    public PathOptimalityChecker(NoBaritone plugin, WalkabilityCache walkability) {
+        this.plugin = plugin;
+        this.walkability = walkability;
+    }
+
+    @Override
+    public void run() {
+        BaritoneDetectionConfig config = plugin.getBaritoneConfig();
+        if (!config.isEnabled() || !config.shouldCheckPathfindingPatterns()) {
+            return;
+        }
+
+        long deadline = System.nanoTime() + config.getPathBudgetMicrosPerTick() * 1000L;
+        boolean refilled = false;
+
+        while (System.nanoTime() - deadline < 0) {
+            if (turns.isEmpty()) {
+                if (refilled) {
+                    break;
+                }
+                for (Player player : plugin.getServer().getOnlinePlayers()) {
+                    turns.add(player.getUniqueId());
+                }
+                refilled = true;
+                continue;
+            }
+
+            UUID playerId = turns.poll();
+            if (!check(playerId, config, deadline)) {
+                // Terrain is still loading, the player is first in line next tick
+                turns.addFirst(playerId);
+                break;
+            }
+        }
+    }
+
+    /**
+     * Checks the player's newest route segment if enough of it is new
+     *
+     * @return false if the tick's budget ran out before the segment's terrain was cached
+     */
+    private boolean check(UUID playerId, BaritoneDetectionConfig config, long deadline) {
+        Player player = plugin.getServer().getPlayer(playerId);
+        PlayerMovementData data = plugin.getPlayerData().peek(playerId);
+        if (player == null || data == null || plugin.getPreFilter().isExcluded(playerId)) {
+            return true;
+        }
+        if (data.getViolationLevel() == 0 && data.getLastScore() < config.getExpensiveDetectorMinScore()) {
+            return true;
+        }
+        if (!data.readPath(path)) {
+            return true;
+        }
+
+        int segmentLength = Math.max(MIN_SEGMENT_LENGTH, Math.min(config.getPathSegmentLength(), MAX_SEGMENT_LENGTH));
+        Progress state = progress.computeIfAbsent(playerId, id -> new Progress());
+        if (path.size() <= segmentLength || path.getVersion() - state.checkedVersion < segmentLength) {
+            return true;
+        }
+
+        // Bounding box of the segment
+        int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, minZ = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE, maxZ = Integer.MIN_VALUE;
+        for (int i = 0; i <= segmentLength; i++) {
+            if (i > 0 && horizontalDistance(i - 1, i) > MAX_WAYPOINT_GAP) {
+                state.checkedVersion = path.getVersion();
+                return true;
+            }
+            int x = floor(path.getX(i));
+            int y = floor(path.getY(i));
+            int z = floor(path.getZ(i));
+            minX = Math.min(minX, x);
+            minY = Math.min(minY, y);
+            minZ = Math.min(minZ, z);
+            maxX = Math.max(maxX, x);
+            maxY = Math.max(maxY, y);
+            maxZ = Math.max(maxZ, z);
+        }
+
+        originX = minX - HORIZONTAL_MARGIN;
+        originY = minY - VERTICAL_MARGIN;
+        originZ = minZ - HORIZONTAL_MARGIN;
+        spanX = maxX - minX + 1 + 2 * HORIZONTAL_MARGIN;
+        spanY = maxY - minY + 1 + 2 * VERTICAL_MARGIN;
+        spanZ = maxZ - minZ + 1 + 2 * HORIZONTAL_MARGIN;
+        if (spanX > MAX_SPAN || spanY > MAX_HEIGHT || spanZ > MAX_SPAN) {
+            state.checkedVersion = path.getVersion();
+            return true;
+        }
+
+        World world = player.getWorld();
+        if (!walkability.prefetch(world, originX, originY - 1, originZ,
+                originX + spanX - 1, originY + spanY + 1, originZ + spanZ - 1, deadline)
+                || System.nanoTime() - deadline > 0) {
+            // Search next tick, with the terrain cached and a fresh budget
+            return false;
+        }
+        state.checkedVersion = path.getVersion();
+
+        int startX = floor(path.getX(segmentLength));
+        int startZ = floor(path.getZ(segmentLength));
+        int startY = standingY(world, startX, path.getY(segmentLength), startZ);
+        int goalX = floor(path.getX(0));
+        int goalZ = floor(path.getZ(0));
+        int goalY = standingY(world, goalX, path.getY(0), goalZ);
+        if (startY == Integer.MIN_VALUE || goalY == Integer.MIN_VALUE) {
+            // Jumping, flying or swimming at either end
+            return true;
+        }
+
+        DetectionMetrics metrics = plugin.getMetrics();
+        long startNanos = metrics.start();
+        // The search shares the tick's budget with the prefetch and earlier checks
+        double optimal = search(world, startX, startY, startZ, goalX, goalY, goalZ,
+                config.getPathMaxSearchNodes(), deadline);
+        metrics.stop(DetectionMetrics.Stage.PATH_SEARCH, startNanos);
+        searches++;
+
+        if (optimal == OVER_BUDGET) {
+            searchesOverBudget++;
+            return true;
+        }
+
+        double straight = Math.hypot(goalX - startX, goalZ - startZ);
+        if (optimal == NO_ROUTE || straight < 1 || optimal / straight < config.getPathMinDetour()) {
+            return true;
+        }
+
+        // Measure the walked route between the same block centres the search used
+        double walked = Math.hypot(path.getX(segmentLength - 1) - (startX + 0.5), path.getZ(segmentLength - 1) - (startZ + 0.5))
+                + Math.hypot(path.getX(1) - (goalX + 0.5), path.getZ(1) - (goalZ + 0.5));
+        for (int i = 1; i < segmentLength - 1; i++) {
+            walked += horizontalDistance(i, i + 1);
+        }
+
+        boolean optimalRoute = Math.abs(walked / optimal - 1) <= config.getPathOptimalityTolerance();
+        metrics.recordCheck(DetectionMetrics.Check.PATH_OPTIMALITY, optimalRoute);
+        if (!optimalRoute) {
+            state.optimalSegments = Math.max(0, state.optimalSegments - 1);
+            return true;
+        }
+
+        if (++state.optimalSegments >= OPTIMAL_SEGMENTS_TO_FLAG) {
+            state.optimalSegments = 0;
+            plugin.handleSuspiciousMovement(player, data);
+        }
+        return true;
+    }
+
+    /**
+     * Finds the length of the shortest walkable route with A* over the block grid. Routes
+     * step to the eight neighbouring blocks, may step up one block or drop down a few, and
+     * never cut past the corner of a wall.
+     *
+     * @return the horizontal length of the route, {@link #NO_ROUTE} if none was found within
+     * the search limits, or {@link #OVER_BUDGET} if the search ran out of time
+     */
+    private double search(World world, int startX, int startY, int startZ, int goalX, int goalY, int goalZ,
+                          int maxNodes, long deadline) {
+        nextGeneration();
+        ensureHeapCapacity(maxNodes);
+
+        int start = cell(startX, startY, startZ);
+        if (start < 0 || cell(goalX, goalY, goalZ) < 0) {
+            return NO_ROUTE;
+        }
+        touched[start] = generation;
+        costs[start] = 0;
+        push(start, heuristic(startX, startZ, goalX, goalZ));
+
+        int expanded = 0;
+        while (heapSize > 0) {
+            int current = pop();
+            if (closed[current] == generation) {
+                continue;
+            }
+            closed[current] = generation;
+
+            int x = originX + current % spanX;
+            int z = originZ + (current / spanX) % spanZ;
+            int y = originY + current / (spanX * spanZ);
+            if (x == goalX && z == goalZ && Math.abs(y - goalY) <= 1) {
+                return costs[current];
+            }
+
+            if (++expanded > maxNodes) {
+                return NO_ROUTE;
+            }
+            if (expanded % DEADLINE_CHECK_INTERVAL == 0 && System.nanoTime() - deadline > 0) {
+                return OVER_BUDGET;
+            }
+
+            float cost = costs[current];
+            for (int direction = 0; direction < STEP_X.length; direction++) {
+                int dx = STEP_X[direction];
+                int dz = STEP_Z[direction];
+                int nx = x + dx;
+                int nz = z + dz;
+
+                int ny;
+                float stepCost;
+                if (dx != 0 && dz != 0) {
+                    // Diagonal steps stay level and need both corners open
+                    if (!walkability.isWalkable(world, nx, y, nz) || !fits(world, x + dx, y, z) || !fits(world, x, y, z + dz)) {
+                        continue;
+                    }
+                    ny = y;
+                    stepCost = DIAGONAL_COST;
+                } else {
+                    ny = stepTarget(world, x, y, z, nx, nz);
+                    if (ny == Integer.MIN_VALUE) {
+                        continue;
+                    }
+                    stepCost = 1;
+                }
+
+                int neighbour = cell(nx, ny, nz);
+                if (neighbour < 0 || closed[neighbour] == generation) {
+                    continue;
+                }
+
+                float newCost = cost + stepCost;
+                if (touched[neighbour] == generation && costs[neighbour] <= newCost) {
+                    continue;
+                }
+                if (heapSize == heapCells.length) {
+                    return NO_ROUTE;
+                }
+                touched[neighbour] = generation;
+                costs[neighbour] = newCost;
+                push(neighbour, newCost + heuristic(nx, nz, goalX, goalZ));
+            }
+        }
+        return NO_ROUTE;
+    }
+
+    /**
+     * Finds where a player ends up stepping from one block to the next in a straight line
+     *
+     * @return the feet height after the step, or {@link Integer#MIN_VALUE} if it is blocked
+     */
+    private int stepTarget(World world, int x, int y, int z, int nx, int nz) {
+        if (walkability.isWalkable(world, nx, y, nz)) {
+            return y;
+        }
+        if (walkability.isPassable(world, x, y + 2, z) && walkability.isWalkable(world, nx, y + 1, nz)) {
+            return y + 1;
+        }
+        if (!fits(world, nx, y, nz)) {
+            return Integer.MIN_VALUE;
+        }
+        for (int ny = y - 1; ny >= y - MAX_DROP; ny--) {
+            if (!walkability.isPassable(world, nx, ny, nz)) {
+                break;
+            }
+            if (walkability.isSolid(world, nx, ny - 1, nz)) {
+                return ny;
+            }
+        }
+        return Integer.MIN_VALUE;
+    }
+
+    /**
+     * Checks whether a player's body fits with their feet in the given block
+     */
+    private boolean fits(World world, int x, int y, int z) {
+        return walkability.isPassable(world, x, y, z) && walkability.isPassable(world, x, y + 1, z);
+    }
+
+    /**
+     * Finds the block a player at the given height stands in, allowing for slabs and jumps
+     *
+     * @return the feet height, or {@link Integer#MIN_VALUE} if the player is not on the ground
+     */
+    private int standingY(World world, int x, double posY, int z) {
+        int rounded = floor(posY + 0.5);
+        for (int y = rounded; y >= rounded - 2; y--) {
+            if (walkability.isWalkable(world, x, y, z)) {
+                return y;
+            }
+        }
+        return Integer.MIN_VALUE;
+    }
+
+    /**
+     * Gets the index of a block in the search box, or -1 if it is outside of it
+     */
+    private int cell(int x, int y, int z) {
+        int localX = x - originX;
+        int localY = y - originY;
+        int localZ = z - originZ;
+        if (localX < 0 || localX >= spanX || localY < 0 || localY >= spanY || localZ < 0 || localZ >= spanZ) {
+            return -1;
+        }
+        return (localY * spanZ + localZ) * spanX + localX;
+    }
+
+    /**
+     * Octile distance, the exact length of the shortest route on open ground
+     */
+    private static float heuristic(int x, int z, int goalX, int goalZ) {
+        int dx = Math.abs(goalX - x);
+        int dz = Math.abs(goalZ - z);
+        return Math.max(dx, dz) + (DIAGONAL_COST - 1) * Math.min(dx, dz);
+    }
+
+    private void nextGeneration() {
+        if (++generation == Integer.MAX_VALUE) {
+            Arrays.fill(touched, 0);
+            Arrays.fill(closed, 0);
+            generation = 1;
+        }
+        heapSize = 0;
+    }
+
+    private void ensureHeapCapacity(int maxNodes) {
+        // Every expanded block pushes at most eight neighbours
+        int capacity = Math.min(MAX_CELLS, Math.max(1, maxNodes)) * STEP_X.length + 1;
+        if (heapCells.length != capacity) {
+            heapCells = new int[capacity];
+            heapPriorities = new float[capacity];
+        }
+    }
+
+    private void push(int cell, float priority) {
+        int index = heapSize++;
+        while (index > 0) {
+            int parent = (index - 1) >> 1;
+            if (heapPriorities[parent] <= priority) {
+                break;
+            }
+            heapCells[index] = heapCells[parent];
+            heapPriorities[index] = heapPriorities[parent];
+            index = parent;
+        }
+        heapCells[index] = cell;
+        heapPriorities[index] = priority;
+    }
+
+    private int pop() {
+        int top = heapCells[0];
+        int lastCell = heapCells[--heapSize];
+        float lastPriority = heapPriorities[heapSize];
+
+        int index = 0;
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= heapSize) {
+                break;
+            }
+            if (child + 1 < heapSize && heapPriorities[child + 1] < heapPriorities[child]) {
+                child++;
+            }
+            if (heapPriorities[child] >= lastPriority) {
+                break;
+            }
+            heapCells[index] = heapCells[child];
+            heapPriorities[index] = heapPriorities[child];
+            index = child;
+        }
+        heapCells[index] = lastCell;
+        heapPriorities[index] = lastPriority;
+        return top;
+    }
+
+    private double horizontalDistance(int from, int to) {
+        return Math.hypot(path.getX(to) - path.getX(from), path.getZ(to) - path.getZ(from));
+    }
+
+    private static int floor(double value) {
+        return (int) Math.floor(value);
+    }
+
+    /**
+     * Drops a player that left
+     */
+    public void forget(UUID playerId) {
+        progress.remove(playerId);
+    }
+
+    /**
+     * Gets the number of route searches run so far
+     */
+    public long getSearches() {
+        return searches;
+    }
+
+    /**
+     * Gets the number of route searches that ran out of time
+     */
+    public long getSearchesOverBudget() {
+        return searchesOverBudget;
+    }
+
+    /**
+     * How far a player's route has been checked
+     */
+    private static class Progress {
+        private long checkedVersion = 0;
+        private int optimalSegments = 0;
+    }
+}
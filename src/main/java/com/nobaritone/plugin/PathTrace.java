@@ -0,0 +1,113 @@
+package com.nobaritone.plugin;
+
+/**
+ * Distance-sampled outline of a player's recent route. A waypoint is kept every time the
+ * player gets at least {@link #WAYPOINT_SPACING} blocks away from the previous one, so
+ * the trace describes where the player went independently of how fast they moved.
+ * Waypoints are kept in a fixed ring; index 0 is the newest one.
+ */
+public class PathTrace {
+    /**
+     * Horizontal distance in blocks between two waypoints
+     */
+    public static final double WAYPOINT_SPACING = 1.0;
+
+    private final double[] x;
+    private final double[] y;
+    private final double[] z;
+    private final int capacity;
+    private int head = 0;
+    private int size = 0;
+    private long added = 0;
+
+    public PathTrace(int capacity) {
+        this.capacity = capacity;
+        this.x = new double[capacity];
+        this.y = new double[capacity];
+        this.z = new double[capacity];
+    }
+
+    /**
+     * Adds a waypoint if the position is far enough from the previous one
+     *
+     * @return true if a waypoint was added
+     */
+    public boolean offer(double posX, double posY, double posZ) {
+        if (size > 0) {
+            double dx = posX - getX(0);
+            double dz = posZ - getZ(0);
+            if (dx * dx + dz * dz < WAYPOINT_SPACING * WAYPOINT_SPACING) {
+                return false;
+            }
+        }
+
+        x[head] = posX;
+        y[head] = posY;
+        z[head] = posZ;
+        head = (head + 1 == capacity) ? 0 : head + 1;
+        if (size < capacity) {
+            size++;
+        }
+        added++;
+        return true;
+    }
+
+    /**
+     * Replaces the contents of this trace with those of another trace of the same capacity
+     */
+    public void copyFrom(PathTrace other) {
+        if (other.capacity != capacity) {
+            throw new IllegalArgumentException("Capacity mismatch: " + other.capacity + " != " + capacity);
+        }
+
+        System.arraycopy(other.x, 0, x, 0, capacity);
+        System.arraycopy(other.y, 0, y, 0, capacity);
+        System.arraycopy(other.z, 0, z, 0, capacity);
+        head = other.head;
+        size = other.size;
+        added = other.added;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Gets the number of waypoints ever added, which changes whenever the trace does
+     */
+    public long getVersion() {
+        return added;
+    }
+
+    public double getX(int index) {
+        return x[slot(index)];
+    }
+
+    public double getY(int index) {
+        return y[slot(index)];
+    }
+
+    public double getZ(int index) {
+        return z[slot(index)];
+    }
+
+    /**
+     * Estimates the memory held by this trace, in bytes
+     */
+    public long estimateMemoryBytes() {
+        return 32 + 3 * (16 + 8L * capacity);
+    }
+
+    private int slot(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+
+        int slot = head - 1 - index;
+        return slot < 0 ? slot + capacity : slot;
+    }
+}
@@ -2,27 +2,122 @@ package com.nobaritone.plugin;
 
 import org.bukkit.Location;
 
-import java.util.ArrayList;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.Queue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.StampedLock;
 
 /**
  * Class for analyzing player movement patterns to detect Baritone
  */
 public class PlayerMovementData {
-    private static final int MAX_MOVEMENT_HISTORY = 100;
+    // Fewer samples than this would starve the timing consistency check
+    private static final int MIN_MOVEMENT_HISTORY = 10;
     
-    private final Queue<MovementEntry> movementHistory = new LinkedList<>();
-    private int violationLevel = 0;
+    // Tolerances for two intervals to count as "the same"
+    private static final long MOVE_TIMING_TOLERANCE_MS = 10;
+    private static final long DIRECTION_CHANGE_TOLERANCE_MS = 50;
+    
+    // Clients send movement packets from their 50ms tick. Network jitter keeps the packets
+    // of players across the internet further than this off the tick; only clients sending
+    // from right next to the server stay closer.
+    private static final long CLIENT_TICK_MICROS = 50_000;
+    private static final long STEADY_PACKET_JITTER_MICROS = 500;
+    
+    // Optimistic snapshot reads give up after this many collisions with the analysis
+    private static final int SNAPSHOT_READ_ATTEMPTS = 8;
+    
+    // Waypoints kept for route correlation and path optimality, about one block apart
+    static final int PATH_WAYPOINTS = 64;
+    
+    // Rotation changes kept for rotation analysis, long enough to see periodic turning
+    private static final int ROTATION_WINDOW = 64;
+    
+    // Detector score at which the movement counts as suspicious
+    private static final int SUSPICIOUS_SCORE = 10;
+    
+    private final MovementHistory movementHistory;
+    private final PathTrace pathTrace = new PathTrace(PATH_WAYPOINTS);
+    // Created on the first block break, most players never mine enough to need it
+    private BlockBreakData blockBreaks;
+    private final DetectionMetrics metrics;
+    private final DetectorPipeline detectors;
+    // Written on the server thread, read by the analysing thread
+    private volatile int violationLevel = 0;
     private long lastViolationTime = 0;
+    private int moveSequence = 0;
+    private TimingWheel.Timeout<PlayerMovementData> decayTimeout;
+    private long lastDecayTime = 0;
+    
+    // Persistent profile the player joined with; this session's flags and kicks are added to it when saving
+    private ViolationProfile profile;
+    private int sessionFlags = 0;
+    private int sessionKicks = 0;
+    private boolean profileDirty = false;
+    
+    // Written by the analysing thread only; readers of snapshots never take it
+    private final StampedLock stateLock = new StampedLock();
+    private long samplesAdded = 0;
+    private int lastScore = 0;
+    
+    // Suspicion tier: the player gets all detectors until this time, sentinels only afterwards
+    private final AtomicLong fullAnalysisUntil = new AtomicLong();
+    private int sentinelMoves = 0;
+    
+    // Running probability of automation, used when the detectors have a scoring model
+    private final LogOddsScorer scorer = new LogOddsScorer();
     
     // Metrics for algorithm detection
     private int straightLineCounter = 0;
-    private int exactAngleChanges = 0;
-    private int perfectJumps = 0;
     private long lastDirectionChangeTime = 0;
     
+    // Rolling statistics over the movement window, updated as samples enter and leave it
+    private final RollingIntervalStats moveTimings;
+    private final TickJitterStats packetJitter;
+    private final RollingIntervalStats exactAngleChanges;
+    private final RollingIntervalStats perfectJumps;
+    
+    // Features of the newest move, recomputed in place for every move
+    private final MovementFeatures features = new MovementFeatures();
+    
+    // Head rotations of every move, including the rotation-only moves that are not analysed otherwise
+    private final RotationAnalyzer rotations = new RotationAnalyzer(ROTATION_WINDOW);
+    
+    // Read-only view handed to detectors
+    private final MovementView view = new View();
+    
+    // Arrival times of the player's movement packets, timing moves instead of the event time when set
+    private volatile PacketArrivalBuffer packetArrivals;
+    // Buffer the packet jitter was last measured from, touched by the analysing thread only
+    private PacketArrivalBuffer drainedArrivals;
+    
+    /**
+     * Creates movement data keeping the given number of recent samples
+     */
+    public PlayerMovementData(int historySize) {
+        this(historySize, DetectionMetrics.DISABLED);
+    }
+    
+    /**
+     * Creates movement data keeping the given number of recent samples, reporting to the given metrics
+     */
+    public PlayerMovementData(int historySize, DetectionMetrics metrics) {
+        this(historySize, metrics, DetectorPipeline.BUILTIN);
+    }
+    
+    /**
+     * Creates movement data keeping the given number of recent samples, checked by the
+     * given detectors and reporting to the given metrics
+     */
+    public PlayerMovementData(int historySize, DetectionMetrics metrics, DetectorPipeline detectors) {
+        this.metrics = metrics;
+        this.detectors = detectors;
+        int capacity = Math.max(MIN_MOVEMENT_HISTORY, historySize);
+        this.movementHistory = new MovementHistory(capacity);
+        this.moveTimings = new RollingIntervalStats(capacity, MOVE_TIMING_TOLERANCE_MS);
+        this.packetJitter = new TickJitterStats(capacity, CLIENT_TICK_MICROS, STEADY_PACKET_JITTER_MICROS);
+        this.exactAngleChanges = new RollingIntervalStats(capacity, DIRECTION_CHANGE_TOLERANCE_MS);
+        this.perfectJumps = new RollingIntervalStats(capacity, DIRECTION_CHANGE_TOLERANCE_MS);
+    }
+    
     /**
      * Adds a movement entry to the player's history
      */
@@ -32,212 +127,432 @@ public class PlayerMovementData {
             return;
         }
         
-        // Create new movement entry
-        MovementEntry entry = new MovementEntry(
-            System.currentTimeMillis(),
+        addMovement(System.currentTimeMillis(),
             from.getX(), from.getY(), from.getZ(),
             to.getX(), to.getY(), to.getZ(),
-            from.getYaw(), from.getPitch()
-        );
-        
-        // Add to history
-        movementHistory.add(entry);
+            from.getYaw(), from.getPitch());
+    }
+    
+    /**
+     * Adds a movement entry captured at the given time to the player's history
+     */
+    public void addMovement(long timestamp,
+                            double fromX, double fromY, double fromZ,
+                            double toX, double toY, double toZ,
+                            float yaw, float pitch) {
+        long startNanos = metrics.start();
+        long stamp = stateLock.writeLock();
+        try {
+            // Add to history, overwriting the oldest entry once full
+            movementHistory.add(timestamp, fromX, fromY, fromZ, toX, toY, toZ, yaw, pitch);
+            rotations.add(yaw, pitch);
+            PacketArrivalBuffer arrivals = packetArrivals;
+            if (arrivals != drainedArrivals) {
+                // A new connection, its jitter starts from scratch
+                packetJitter.clear();
+                drainedArrivals = arrivals;
+            }
+            if (arrivals != null) {
+                arrivals.drainTo(moveTimings, packetJitter);
+            } else {
+                moveTimings.add(timestamp);
+            }
+            pathTrace.offer(toX, toY, toZ);
+            samplesAdded++;
+            
+            // Drop detections that happened before the oldest sample still in the window
+            long windowStart = movementHistory.getTimestamp(movementHistory.size() - 1);
+            exactAngleChanges.evictBefore(windowStart);
+            perfectJumps.evictBefore(windowStart);
+            
+            // Analyze latest movement
+            analyzeLatestMovement();
+        } finally {
+            stateLock.unlockWrite(stamp);
+        }
         
-        // Maintain history size
-        if (movementHistory.size() > MAX_MOVEMENT_HISTORY) {
-            movementHistory.poll();
+        metrics.stop(DetectionMetrics.Stage.ADD_MOVEMENT, startNanos);
+    }
+    
+    /**
+     * Adds the rotation of a move that did not change the player's position, or of the
+     * location a teleport started from. The server only reports a move without a position
+     * change once the head turned more than 10 degrees, and a teleport sets the rotation,
+     * so the change after this rotation is left out of the rotation analysis.
+     */
+    public void addRotation(float yaw, float pitch) {
+        long startNanos = metrics.start();
+        long stamp = stateLock.writeLock();
+        try {
+            rotations.addAndRestart(yaw, pitch);
+        } finally {
+            stateLock.unlockWrite(stamp);
         }
         
-        // Analyze latest movement
-        analyzeLatestMovement();
+        metrics.stop(DetectionMetrics.Stage.ROTATION, startNanos);
+    }
+    
+    /**
+     * Gets the packet arrival times used to time moves, or null if moves are timed by their events
+     */
+    public PacketArrivalBuffer getPacketArrivals() {
+        return packetArrivals;
+    }
+    
+    /**
+     * Times moves by the arrival of the player's movement packets instead of the time
+     * they were handed over, or by the handover time again if null
+     */
+    public void setPacketArrivals(PacketArrivalBuffer packetArrivals) {
+        this.packetArrivals = packetArrivals;
     }
     
     /**
      * Analyzes the latest movement for Baritone-like patterns
      */
-    private void analyzeLatestMovement() {
+    void analyzeLatestMovement() {
         if (movementHistory.size() < 3) {
             return;
         }
         
-        List<MovementEntry> entries = new ArrayList<>(movementHistory);
+        long timestamp = movementHistory.getTimestamp(0);
         
-        // Get the 3 most recent movements
-        MovementEntry current = entries.get(entries.size() - 1);
-        MovementEntry previous = entries.get(entries.size() - 2);
-        MovementEntry beforePrevious = entries.get(entries.size() - 3);
+        // Extract the features of the newest move from the 3 most recent positions
+        long startNanos = metrics.start();
+        features.compute(
+            movementHistory.getToX(2), movementHistory.getToZ(2),
+            movementHistory.getToX(1), movementHistory.getToY(1), movementHistory.getToZ(1),
+            movementHistory.getToX(0), movementHistory.getToY(0), movementHistory.getToZ(0));
         
         // Check for straight-line movement
-        if (isStraightLineMovement(beforePrevious, previous, current)) {
+        if (features.isStraightLine()) {
             straightLineCounter++;
         } else {
             straightLineCounter = Math.max(0, straightLineCounter - 1);
         }
         
         // Check for exact angle changes (45 or 90 degrees)
-        if (isExactAngleChange(beforePrevious, previous, current)) {
-            exactAngleChanges++;
-            lastDirectionChangeTime = System.currentTimeMillis();
+        if (features.isExactAngle()) {
+            exactAngleChanges.add(timestamp);
+            lastDirectionChangeTime = timestamp;
         }
         
         // Check for perfect jumps
-        if (isPerfectJump(previous, current)) {
-            perfectJumps++;
+        if (features.isPerfectJump()) {
+            perfectJumps.add(timestamp);
         }
+        metrics.stop(DetectionMetrics.Stage.FEATURES, startNanos);
     }
     
     /**
-     * Checks if the player is moving in a straight line
+     * Checks for Baritone-like movement patterns by running the detectors. Players in the
+     * sentinel tier only get the sentinel detectors every few moves, and are escalated to
+     * full analysis as soon as one of them fires.
      */
-    private boolean isStraightLineMovement(MovementEntry a, MovementEntry b, MovementEntry c) {
-        // Calculate direction vectors
-        double dx1 = b.toX - a.toX;
-        double dz1 = b.toZ - a.toZ;
-        
-        double dx2 = c.toX - b.toX;
-        double dz2 = c.toZ - b.toZ;
-        
-        // Normalize vectors
-        double length1 = Math.sqrt(dx1 * dx1 + dz1 * dz1);
-        double length2 = Math.sqrt(dx2 * dx2 + dz2 * dz2);
-        
-        if (length1 < 0.01 || length2 < 0.01) {
-            return false;
+    public boolean checkForBaritonePatterns() {
+        long checkStartNanos = metrics.start();
+        long now = movementHistory.size() > 0 ? movementHistory.getTimestamp(0) : System.currentTimeMillis();
+        // One snapshot for the whole check, so a reload never mixes old and new settings
+        DetectorPipeline.Settings settings = detectors.getSettings();
+        ScoringModel model = settings.getScoringModel();
+        
+        if (!isFullAnalysis(settings, now)) {
+            boolean sentinelCheck = ++sentinelMoves >= settings.getSentinelCheckInterval();
+            if (sentinelCheck) {
+                sentinelMoves = 0;
+            }
+            
+            if (!sentinelCheck || detectors.evaluate(settings, this, metrics, true) == 0) {
+                decayScore(model);
+                metrics.stop(DetectionMetrics.Stage.PATTERN_CHECK, checkStartNanos);
+                return false;
+            }
+            escalate(now + settings.getFullAnalysisMillis());
+            detectors.recordEscalation();
         }
         
-        dx1 /= length1;
-        dz1 /= length1;
-        dx2 /= length2;
-        dz2 /= length2;
+        int suspiciousScore = detectors.evaluate(settings, this, metrics, false);
         
-        // Calculate dot product (cosine of angle)
-        double dotProduct = dx1 * dx2 + dz1 * dz2;
+        boolean suspicious;
+        long stamp = stateLock.writeLock();
+        try {
+            lastScore = suspiciousScore;
+            suspicious = model != null ? scorer.update(model, this, suspiciousScore) : suspiciousScore >= SUSPICIOUS_SCORE;
+        } finally {
+            stateLock.unlockWrite(stamp);
+        }
         
-        // If dot product is close to 1, vectors are pointing in almost the same direction
-        return dotProduct > 0.98;
+        metrics.stop(DetectionMetrics.Stage.PATTERN_CHECK, checkStartNanos);
+        return suspicious;
     }
     
     /**
-     * Checks if the player made an exact angle change (like 45 or 90 degrees)
+     * Decays the running probability for a move the full detectors did not score
      */
-    private boolean isExactAngleChange(MovementEntry a, MovementEntry b, MovementEntry c) {
-        // Calculate direction vectors
-        double dx1 = b.toX - a.toX;
-        double dz1 = b.toZ - a.toZ;
-        
-        double dx2 = c.toX - b.toX;
-        double dz2 = c.toZ - b.toZ;
-        
-        // Calculate lengths
-        double length1 = Math.sqrt(dx1 * dx1 + dz1 * dz1);
-        double length2 = Math.sqrt(dx2 * dx2 + dz2 * dz2);
-        
-        if (length1 < 0.01 || length2 < 0.01) {
-            return false;
+    private void decayScore(ScoringModel model) {
+        if (model == null) {
+            return;
         }
         
-        // Normalize vectors
-        dx1 /= length1;
-        dz1 /= length1;
-        dx2 /= length2;
-        dz2 /= length2;
-        
-        // Calculate dot product
-        double dotProduct = dx1 * dx2 + dz1 * dz2;
-        
-        // Convert to angle in degrees
-        double angleDegrees = Math.toDegrees(Math.acos(dotProduct));
-        
-        // Check if angle is close to 45 or 90 degrees
-        return (Math.abs(angleDegrees - 45) < 2 || Math.abs(angleDegrees - 90) < 2);
+        long stamp = stateLock.writeLock();
+        try {
+            scorer.decay(model);
+        } finally {
+            stateLock.unlockWrite(stamp);
+        }
     }
     
     /**
-     * Checks if the player made a "perfect" jump (consistent height)
+     * Checks whether the player gets all detectors at the given time, which they do while
+     * tiers are disabled, while they have violations and while an escalation lasts
      */
-    private boolean isPerfectJump(MovementEntry a, MovementEntry b) {
-        // Check if player is moving upward
-        boolean movingUp = b.toY > a.toY;
-        
-        if (!movingUp) {
-            return false;
-        }
-        
-        // Check if jump height is exactly the same as a standard jump
-        double jumpHeight = b.toY - a.toY;
-        
-        // Standard jump height in Minecraft
-        return Math.abs(jumpHeight - 0.42) < 0.01;
+    public boolean isFullAnalysis(long now) {
+        return isFullAnalysis(detectors.getSettings(), now);
+    }
+    
+    private boolean isFullAnalysis(DetectorPipeline.Settings settings, long now) {
+        return !settings.isTiersEnabled() || violationLevel > 0 || now < fullAnalysisUntil.get();
     }
     
     /**
-     * Checks for Baritone-like movement patterns
+     * Gives the player all detectors until at least the given time. Safe to call from any thread.
      */
-    public boolean checkForBaritonePatterns() {
-        int suspiciousScore = 0;
-        
-        // Weight different factors
-        if (straightLineCounter > 8) {
-            suspiciousScore += 5;
-        }
-        
-        if (exactAngleChanges > 3) {
-            suspiciousScore += 3;
+    public void escalate(long until) {
+        fullAnalysisUntil.accumulateAndGet(until, Math::max);
+    }
+    
+    /**
+     * Gets the time until which the player gets all detectors regardless of violations
+     */
+    public long getFullAnalysisUntil() {
+        return fullAnalysisUntil.get();
+    }
+    
+    /**
+     * Gets the features that have collected enough data for detectors relying on them,
+     * as a mask of {@link DetectorPipeline#featureBit} bits
+     */
+    int getReadyFeatures() {
+        int ready = 0;
+        if (movementHistory.size() >= 3) {
+            ready |= DetectorPipeline.featureBit(MovementDetector.Feature.MOVE_FEATURES)
+                    | DetectorPipeline.featureBit(MovementDetector.Feature.DIRECTION_CHANGES);
         }
-        
-        if (perfectJumps > 2) {
-            suspiciousScore += 3;
+        if (moveTimings.size() >= BuiltinDetector.MIN_TIMING_SAMPLES) {
+            ready |= DetectorPipeline.featureBit(MovementDetector.Feature.MOVE_TIMING);
         }
-        
-        // Check timing consistency (a very strong Baritone indicator)
-        if (isConsistentTimingBetweenMoves()) {
-            suspiciousScore += 10;
+        if (rotations.size() >= BuiltinDetector.MIN_ROTATION_SAMPLES) {
+            ready |= DetectorPipeline.featureBit(MovementDetector.Feature.ROTATION);
         }
-        
-        // Baritone often makes direction changes at consistent intervals
-        if (isConsistentDirectionChangePattern()) {
-            suspiciousScore += 5;
+        return ready;
+    }
+    
+    /**
+     * Gets the read-only view of this data that detectors get
+     */
+    MovementView getView() {
+        return view;
+    }
+    
+    /**
+     * Gets the features of the newest move. Callers must not change them.
+     */
+    public MovementFeatures getLatestFeatures() {
+        return features;
+    }
+    
+    /**
+     * Gets the recent movement samples. Callers must not change them.
+     */
+    public MovementHistory getMovementHistory() {
+        return movementHistory;
+    }
+    
+    /**
+     * Gets the player's route. Callers must not change it.
+     */
+    public PathTrace getPathTrace() {
+        return pathTrace;
+    }
+    
+    /**
+     * Gets the player's head rotation statistics. Callers must not change them.
+     */
+    public RotationAnalyzer getRotations() {
+        return rotations;
+    }
+    
+    /**
+     * Gets the number of recent moves continuing in the same direction
+     */
+    public int getStraightLineCounter() {
+        return straightLineCounter;
+    }
+    
+    /**
+     * Gets the intervals between moves. Callers must not change them.
+     */
+    public RollingIntervalStats getMoveTimings() {
+        return moveTimings;
+    }
+    
+    /**
+     * Gets how closely the player's packet arrivals follow the client tick, filled while
+     * moves are timed by packet arrival. Callers must not change them.
+     */
+    public TickJitterStats getPacketJitter() {
+        return packetJitter;
+    }
+    
+    /**
+     * Gets the share of steady move intervals. Moves timed by the server count intervals
+     * matching their predecessor; moves timed by packet arrival, which always follow the
+     * client tick, count intervals with almost no jitter around it.
+     */
+    public double getTimingConsistency() {
+        return packetArrivals != null ? packetJitter.getSteadyRatio() : moveTimings.getConsistentRatio();
+    }
+    
+    /**
+     * Gets the exact-angle direction changes within the movement window. Callers must not change them.
+     */
+    public RollingIntervalStats getExactAngleChanges() {
+        return exactAngleChanges;
+    }
+    
+    /**
+     * Gets the perfect jumps within the movement window. Callers must not change them.
+     */
+    public RollingIntervalStats getPerfectJumps() {
+        return perfectJumps;
+    }
+    
+    /**
+     * Copies the current features into the given snapshot without blocking the analysis.
+     * Safe to call from any thread.
+     *
+     * @return false if the analysis kept changing the data while it was read
+     */
+    public boolean readSnapshot(FeatureSnapshot snapshot) {
+        for (int attempt = 0; attempt < SNAPSHOT_READ_ATTEMPTS; attempt++) {
+            long stamp = stateLock.tryOptimisticRead();
+            if (stamp == 0) {
+                continue;
+            }
+            
+            try {
+                copyState(snapshot);
+            } catch (RuntimeException e) {
+                // A read racing with a write may see torn state; validation below rejects it anyway
+                continue;
+            }
+            
+            if (stateLock.validate(stamp)) {
+                return true;
+            }
         }
-        
-        return suspiciousScore >= 10;
+        return false;
     }
     
     /**
-     * Checks if there is consistent timing between movements (algorithmic indicator)
+     * Copies the player's route into the given trace without blocking the analysis.
+     * The trace must have a capacity of {@link #PATH_WAYPOINTS}. Safe to call from any thread.
+     *
+     * @return false if the analysis kept changing the route while it was read
      */
-    private boolean isConsistentTimingBetweenMoves() {
-        if (movementHistory.size() < 10) {
-            return false;
+    public boolean readPath(PathTrace into) {
+        for (int attempt = 0; attempt < SNAPSHOT_READ_ATTEMPTS; attempt++) {
+            long stamp = stateLock.tryOptimisticRead();
+            if (stamp == 0) {
+                continue;
+            }
+            
+            into.copyFrom(pathTrace);
+            if (stateLock.validate(stamp)) {
+                return true;
+            }
         }
-        
-        List<MovementEntry> entries = new ArrayList<>(movementHistory);
-        List<Long> timeDifferences = new ArrayList<>();
-        
-        // Calculate time differences between consecutive moves
-        for (int i = 1; i < entries.size(); i++) {
-            timeDifferences.add(entries.get(i).timestamp - entries.get(i-1).timestamp);
+        return false;
+    }
+    
+    private void copyState(FeatureSnapshot snapshot) {
+        snapshot.version = samplesAdded;
+        snapshot.violationLevel = violationLevel;
+        snapshot.score = lastScore;
+        snapshot.probability = scorer.getProbability();
+        snapshot.sampleCount = movementHistory.size();
+        snapshot.sampleCapacity = movementHistory.capacity();
+        snapshot.straightLineCounter = straightLineCounter;
+        snapshot.exactAngleChanges = exactAngleChanges.size();
+        snapshot.perfectJumps = perfectJumps.size();
+        snapshot.timingConsistency = getTimingConsistency();
+        snapshot.meanMoveInterval = moveTimings.getMeanInterval();
+        snapshot.directionConsistency = exactAngleChanges.getConsistentRatio();
+        snapshot.lastDirectionChangeTime = lastDirectionChangeTime;
+        snapshot.meanYawDelta = rotations.getMeanYawDelta();
+        snapshot.yawDeltaDeviation = rotations.getYawDeltaDeviation();
+        snapshot.pitchGcd = rotations.getPitchGcd();
+        snapshot.rotationPeriodicity = rotations.getPeriodicity();
+        
+        int recent = Math.min(FeatureSnapshot.RECENT_SAMPLES, snapshot.sampleCount);
+        for (int i = 0; i < recent; i++) {
+            snapshot.recentTimestamps[i] = movementHistory.getTimestamp(i);
+            snapshot.recentX[i] = movementHistory.getToX(i);
+            snapshot.recentY[i] = movementHistory.getToY(i);
+            snapshot.recentZ[i] = movementHistory.getToZ(i);
+            snapshot.recentYaw[i] = movementHistory.getYaw(i);
+            snapshot.recentPitch[i] = movementHistory.getPitch(i);
         }
-        
-        // Count how many time differences are almost identical
-        int consistentTimeCount = 0;
-        for (int i = 1; i < timeDifferences.size(); i++) {
-            long diff = Math.abs(timeDifferences.get(i) - timeDifferences.get(i-1));
-            if (diff < 10) { // 10ms tolerance
-                consistentTimeCount++;
-            }
+        snapshot.recentCount = recent;
+    }
+    
+    /**
+     * Gets the player's block break data, or null if they have not broken a block yet
+     */
+    public BlockBreakData getBlockBreaks() {
+        return blockBreaks;
+    }
+    
+    /**
+     * Gets the player's block break data, creating it with the given window size if needed
+     */
+    public BlockBreakData getOrCreateBlockBreaks(int sampleSize) {
+        if (blockBreaks == null) {
+            blockBreaks = new BlockBreakData(sampleSize, metrics);
         }
-        
-        // If more than 70% of movements have consistent timing, flag as suspicious
-        return (double) consistentTimeCount / timeDifferences.size() > 0.7;
+        return blockBreaks;
+    }
+    
+    /**
+     * Estimates the memory held by this player's data, in bytes
+     */
+    public long estimateMemoryBytes() {
+        BlockBreakData breaks = blockBreaks;
+        return 96 + movementHistory.estimateMemoryBytes()
+            + (breaks != null ? breaks.estimateMemoryBytes() : 0)
+            + pathTrace.estimateMemoryBytes()
+            + 56 // feature vector
+            + 32 // scorer
+            + 24 // full analysis deadline
+            + rotations.estimateMemoryBytes()
+            + moveTimings.estimateMemoryBytes()
+            + packetJitter.estimateMemoryBytes()
+            + exactAngleChanges.estimateMemoryBytes()
+            + perfectJumps.estimateMemoryBytes();
     }
     
     /**
-     * Checks if direction changes happen at consistent intervals (algorithmic indicator)
+     * Counts a move event of this player, returning the running count
      */
-    private boolean isConsistentDirectionChangePattern() {
-        // Implementation would track timing of direction changes
-        // For now, we use a simpler check
-        return exactAngleChanges > 5;
+    public int nextMoveSequence() {
+        return ++moveSequence & Integer.MAX_VALUE;
+    }
+    
+    /**
+     * Gets the summed weight of the detectors that fired on the last full check
+     */
+    public int getLastScore() {
+        return lastScore;
     }
     
     /**
@@ -248,11 +563,47 @@ public class PlayerMovementData {
     }
     
     /**
-     * Increments the violation level
+     * Increments the violation level, never going above the given maximum
      */
-    public void incrementViolationLevel() {
-        violationLevel++;
+    public void incrementViolationLevel(int maxViolationPoints) {
+        violationLevel = Math.min(violationLevel + 1, Math.max(1, maxViolationPoints));
         lastViolationTime = System.currentTimeMillis();
+        sessionFlags++;
+        profileDirty = true;
+    }
+    
+    /**
+     * Lowers the violation level by the given points, clamping it to the given maximum
+     *
+     * @return the remaining violation level
+     */
+    public int decayViolationLevel(int points, int maxViolationPoints) {
+        violationLevel = Math.max(0, Math.min(violationLevel - points, maxViolationPoints));
+        lastDecayTime = System.currentTimeMillis();
+        profileDirty = true;
+        return violationLevel;
+    }
+    
+    /**
+     * Gets the time of the last violation
+     */
+    public long getLastViolationTime() {
+        return lastViolationTime;
+    }
+    
+    /**
+     * Gets the time a point last decayed
+     */
+    public long getLastDecayTime() {
+        return lastDecayTime;
+    }
+    
+    TimingWheel.Timeout<PlayerMovementData> getDecayTimeout() {
+        return decayTimeout;
+    }
+    
+    void setDecayTimeout(TimingWheel.Timeout<PlayerMovementData> decayTimeout) {
+        this.decayTimeout = decayTimeout;
     }
     
     /**
@@ -260,30 +611,205 @@ public class PlayerMovementData {
      */
     public void resetViolationLevel() {
         violationLevel = 0;
+        profileDirty = true;
+    }
+    
+    /**
+     * Counts a kick of the player towards their profile
+     */
+    public void recordKick() {
+        sessionKicks++;
+        profileDirty = true;
+    }
+    
+    /**
+     * Continues from a stored profile, adding this session's flags and kicks to it when saving
+     *
+     * @param profile the profile, with the current session already started
+     */
+    public void restoreProfile(ViolationProfile profile) {
+        this.profile = profile;
+        profileDirty = true;
+    }
+    
+    /**
+     * Takes over violations recorded earlier or on another server, unless the player
+     * already holds more points
+     *
+     * @param lastDecayTime the time the next decay step is measured from
+     * @return whether the violations were taken over
+     */
+    public boolean raiseViolationLevel(int level, long lastViolationTime, long lastDecayTime) {
+        if (level < violationLevel) {
+            return false;
+        }
+        
+        this.violationLevel = level;
+        this.lastViolationTime = Math.max(this.lastViolationTime, lastViolationTime);
+        this.lastDecayTime = lastDecayTime;
+        profileDirty = true;
+        return true;
+    }
+    
+    /**
+     * Checks whether the player has a profile that changed since it was last saved
+     */
+    public boolean isProfileDirty() {
+        return profileDirty && profile != null;
     }
     
     /**
-     * Class representing a single movement entry
+     * Gets the player's profile as of now and marks it saved
+     *
+     * @return the profile, or null if none was restored
      */
-    private static class MovementEntry {
-        private final long timestamp;
-        private final double fromX, fromY, fromZ;
-        private final double toX, toY, toZ;
-        private final float yaw, pitch;
+    public ViolationProfile saveProfile(long now) {
+        if (profile == null) {
+            return null;
+        }
+        profileDirty = false;
+        return new ViolationProfile(profile.getPlayerId(), violationLevel, lastViolationTime, lastDecayTime,
+                profile.getTotalFlags() + sessionFlags, profile.getKicks() + sessionKicks,
+                profile.getSessions(), profile.getFirstSeen(), now);
+    }
+    
+    /**
+     * Read-only view delegating to this data
+     */
+    private class View implements MovementView {
+        @Override
+        public int getSampleCount() {
+            return movementHistory.size();
+        }
+        
+        @Override
+        public long getTimestamp(int age) {
+            return movementHistory.getTimestamp(age);
+        }
+        
+        @Override
+        public double getX(int age) {
+            return movementHistory.getToX(age);
+        }
+        
+        @Override
+        public double getY(int age) {
+            return movementHistory.getToY(age);
+        }
+        
+        @Override
+        public double getZ(int age) {
+            return movementHistory.getToZ(age);
+        }
+        
+        @Override
+        public float getYaw(int age) {
+            return movementHistory.getYaw(age);
+        }
+        
+        @Override
+        public float getPitch(int age) {
+            return movementHistory.getPitch(age);
+        }
+        
+        @Override
+        public boolean isStraightLine() {
+            return features.isStraightLine();
+        }
+        
+        @Override
+        public boolean isExactAngle() {
+            return features.isExactAngle();
+        }
+        
+        @Override
+        public boolean isPerfectJump() {
+            return features.isPerfectJump();
+        }
+        
+        @Override
+        public int getStraightLineCounter() {
+            return straightLineCounter;
+        }
+        
+        @Override
+        public int getExactAngleChangeCount() {
+            return exactAngleChanges.size();
+        }
+        
+        @Override
+        public double getDirectionConsistency() {
+            return exactAngleChanges.getConsistentRatio();
+        }
+        
+        @Override
+        public int getPerfectJumpCount() {
+            return perfectJumps.size();
+        }
+        
+        @Override
+        public double getTimingConsistency() {
+            return PlayerMovementData.this.getTimingConsistency();
+        }
+        
+        @Override
+        public double getMeanMoveInterval() {
+            return moveTimings.getMeanInterval();
+        }
+        
+        @Override
+        public int getRotationCount() {
+            return rotations.size();
+        }
+        
+        @Override
+        public boolean isRotationWindowFull() {
+            return rotations.isFull();
+        }
+        
+        @Override
+        public double getMeanYawDelta() {
+            return rotations.getMeanYawDelta();
+        }
+        
+        @Override
+        public double getYawDeltaDeviation() {
+            return rotations.getYawDeltaDeviation();
+        }
+        
+        @Override
+        public double getMeanPitchDelta() {
+            return rotations.getMeanPitchDelta();
+        }
+        
+        @Override
+        public double getPitchDeltaDeviation() {
+            return rotations.getPitchDeltaDeviation();
+        }
+        
+        @Override
+        public int getTurnCount() {
+            return rotations.getTurnCount();
+        }
+        
+        @Override
+        public double getSnappedRatio() {
+            return rotations.getSnappedRatio();
+        }
+        
+        @Override
+        public double getPitchGcd() {
+            return rotations.getPitchGcd();
+        }
+        
+        @Override
+        public double getRotationPeriodicity() {
+            return rotations.getPeriodicity();
+        }
         
-        public MovementEntry(long timestamp, 
-                             double fromX, double fromY, double fromZ,
-                             double toX, double toY, double toZ,
-                             float yaw, float pitch) {
-            this.timestamp = timestamp;
-            this.fromX = fromX;
-            this.fromY = fromY;
-            this.fromZ = fromZ;
-            this.toX = toX;
-            this.toY = toY;
-            this.toZ = toZ;
-            this.yaw = yaw;
-            this.pitch = pitch;
+        @Override
+        public int getViolationLevel() {
+            return violationLevel;
         }
     }
-} 
\ No newline at end of file
+}
\ No newline at end of file
@@ -0,0 +1,316 @@
+package com.nobaritone.plugin;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Holds the movement data of tracked players. Entries are evicted when a player
+ * quits, when they have been idle for too long without holding violation points,
+ * and when the store grows beyond its hard caps on tracked players and estimated
+ * memory. Under pressure offline players go first, then players without violation
+ * points, each least recently used first, so the points of an active suspect are
+ * the last thing dropped.
+ *
+ * Lookups are lock-free; changes to the set of tracked players and the access order
+ * are serialised on a lock. All methods are safe to call from any thread, but the
+ * caps are enforced from the thread adding a player, which must be allowed to ask
+ * whether a player is online.
+ */
+public class PlayerStateStore {
+    private final Map<UUID, Entry> entries = new ConcurrentHashMap<>();
+    // The same entries, least recently used first; guarded by itself
+    private final LinkedHashMap<UUID, Entry> accessOrder = new LinkedHashMap<>(16, 0.75f, true);
+    private final Supplier<PlayerMovementData> factory;
+    private final Predicate<UUID> online;
+    private final List<BiConsumer<UUID, PlayerMovementData>> evictionListeners = new CopyOnWriteArrayList<>();
+
+    private volatile int maxEntries;
+    private volatile long maxBytes;
+    private volatile long idleExpiryMillis;
+
+    // Sum of the entries' memory estimates as of their last refresh; guarded by accessOrder
+    private long estimatedBytes = 0;
+
+    /**
+     * @param online tells whether a player is online
+     * @param maxEntries cap on tracked players, 0 for none
+     * @param maxBytes cap on the estimated memory of all tracked players, 0 for none
+     */
+    public PlayerStateStore(Supplier<PlayerMovementData> factory, Predicate<UUID> online,
+                            int maxEntries, long maxBytes, long idleExpiryMillis) {
+        this.factory = factory;
+        this.online = online;
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        this.idleExpiryMillis = idleExpiryMillis;
+    }
+
+    /**
+     * Updates the limits, trimming the store if it is now over capacity
+     */
+    public void setLimits(int maxEntries, long maxBytes, long idleExpiryMillis) {
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        this.idleExpiryMillis = idleExpiryMillis;
+        notifyEvicted(enforceCapacity(null));
+    }
+
+    /**
+     * Registers a callback invoked with every evicted player, on the thread that caused the eviction
+     */
+    public void addEvictionListener(BiConsumer<UUID, PlayerMovementData> listener) {
+        evictionListeners.add(listener);
+    }
+
+    /**
+     * Gets a player's data if tracked, marking it as used
+     */
+    public PlayerMovementData get(UUID playerId) {
+        Entry entry = entries.get(playerId);
+        if (entry == null) {
+            return null;
+        }
+
+        touch(playerId, entry);
+        return entry.data;
+    }
+
+    /**
+     * Gets a player's data if tracked, without marking it as used
+     */
+    public PlayerMovementData peek(UUID playerId) {
+        Entry entry = entries.get(playerId);
+        return entry == null ? null : entry.data;
+    }
+
+    /**
+     * Gets a player's data, starting to track the player if needed
+     */
+    public PlayerMovementData getOrCreate(UUID playerId) {
+        Entry entry = entries.get(playerId);
+        if (entry != null) {
+            touch(playerId, entry);
+            return entry.data;
+        }
+
+        Entry created = new Entry(factory.get());
+        List<Map.Entry<UUID, Entry>> evicted;
+        synchronized (accessOrder) {
+            entry = entries.putIfAbsent(playerId, created);
+            if (entry != null) {
+                accessOrder.get(playerId);
+                entry.lastAccess = System.currentTimeMillis();
+                return entry.data;
+            }
+
+            accessOrder.put(playerId, created);
+            estimatedBytes += created.bytes;
+            evicted = enforceCapacity(playerId);
+        }
+
+        notifyEvicted(evicted);
+        return created.data;
+    }
+
+    /**
+     * Starts tracking a player with fresh data, replacing anything held before
+     */
+    public PlayerMovementData reset(UUID playerId) {
+        Entry entry = new Entry(factory.get());
+        Entry previous;
+        List<Map.Entry<UUID, Entry>> evicted;
+        synchronized (accessOrder) {
+            previous = entries.put(playerId, entry);
+            accessOrder.put(playerId, entry);
+            estimatedBytes += entry.bytes - (previous != null ? previous.bytes : 0);
+            evicted = enforceCapacity(playerId);
+        }
+
+        if (previous != null) {
+            notifyEvicted(playerId, previous.data);
+        }
+        notifyEvicted(evicted);
+        return entry.data;
+    }
+
+    /**
+     * Stops tracking a player
+     */
+    public void remove(UUID playerId) {
+        Entry entry;
+        synchronized (accessOrder) {
+            entry = entries.remove(playerId);
+            if (entry != null) {
+                accessOrder.remove(playerId);
+                estimatedBytes -= entry.bytes;
+            }
+        }
+
+        if (entry != null) {
+            notifyEvicted(playerId, entry.data);
+        }
+    }
+
+    /**
+     * Evicts players that have not moved within the idle expiry time and hold no violation
+     * points, and refreshes the memory estimates of the others
+     *
+     * @return the number of evicted players
+     */
+    public int expireIdle() {
+        long expiry = idleExpiryMillis;
+        long cutoff = System.currentTimeMillis() - expiry;
+        List<Map.Entry<UUID, Entry>> evicted = new ArrayList<>();
+
+        synchronized (accessOrder) {
+            Iterator<Map.Entry<UUID, Entry>> iterator = accessOrder.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<UUID, Entry> mapEntry = iterator.next();
+                Entry entry = mapEntry.getValue();
+                if (expiry > 0 && entry.lastAccess < cutoff && entry.data.getViolationLevel() == 0) {
+                    iterator.remove();
+                    entries.remove(mapEntry.getKey());
+                    estimatedBytes -= entry.bytes;
+                    evicted.add(mapEntry);
+                    continue;
+                }
+
+                // Histories grow once, for example when a player starts mining
+                long bytes = entry.estimateBytes();
+                estimatedBytes += bytes - entry.bytes;
+                entry.bytes = bytes;
+            }
+            evicted.addAll(enforceCapacity(null));
+        }
+
+        notifyEvicted(evicted);
+        return evicted.size();
+    }
+
+    /**
+     * Marks an entry as used, moving it to the back of the eviction order
+     */
+    private void touch(UUID playerId, Entry entry) {
+        entry.lastAccess = System.currentTimeMillis();
+        synchronized (accessOrder) {
+            accessOrder.get(playerId);
+        }
+    }
+
+    /**
+     * Removes entries while the store is over one of its caps, never the given player
+     *
+     * @return the removed entries, for notifying the listeners once the lock is released
+     */
+    private List<Map.Entry<UUID, Entry>> enforceCapacity(UUID keep) {
+        List<Map.Entry<UUID, Entry>> evicted = new ArrayList<>();
+        synchronized (accessOrder) {
+            while (isOverCapacity()) {
+                Map.Entry<UUID, Entry> victim = pickVictim(keep);
+                if (victim == null) {
+                    break;
+                }
+
+                accessOrder.remove(victim.getKey());
+                entries.remove(victim.getKey());
+                estimatedBytes -= victim.getValue().bytes;
+                evicted.add(victim);
+            }
+        }
+        return evicted;
+    }
+
+    private boolean isOverCapacity() {
+        int limit = maxEntries;
+        long byteLimit = maxBytes;
+        return (limit > 0 && accessOrder.size() > limit) || (byteLimit > 0 && estimatedBytes > byteLimit);
+    }
+
+    /**
+     * Picks the entry to evict: the least recently used offline player without violation
+     * points if there is one, else the least recently used offline player, then player
+     * without points, then player. Stops at the first entry of the best kind.
+     */
+    private Map.Entry<UUID, Entry> pickVictim(UUID keep) {
+        Map.Entry<UUID, Entry> best = null;
+        int bestRank = Integer.MAX_VALUE;
+
+        for (Map.Entry<UUID, Entry> mapEntry : accessOrder.entrySet()) {
+            if (mapEntry.getKey().equals(keep)) {
+                continue;
+            }
+
+            boolean offline = !online.test(mapEntry.getKey());
+            boolean clean = mapEntry.getValue().data.getViolationLevel() == 0;
+            int rank = offline ? (clean ? 0 : 1) : (clean ? 2 : 3);
+            if (rank < bestRank) {
+                best = mapEntry;
+                bestRank = rank;
+                if (rank == 0) {
+                    break;
+                }
+            }
+        }
+        return best;
+    }
+
+    private void notifyEvicted(List<Map.Entry<UUID, Entry>> evicted) {
+        for (Map.Entry<UUID, Entry> mapEntry : evicted) {
+            notifyEvicted(mapEntry.getKey(), mapEntry.getValue().data);
+        }
+    }
+
+    private void notifyEvicted(UUID playerId, PlayerMovementData data) {
+        for (BiConsumer<UUID, PlayerMovementData> listener : evictionListeners) {
+            listener.accept(playerId, data);
+        }
+    }
+
+    /**
+     * Gets the number of tracked players
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Estimates the memory held by all tracked players, in bytes
+     */
+    public long estimateMemoryBytes() {
+        synchronized (accessOrder) {
+            return estimatedBytes;
+        }
+    }
+
+    /**
+     * Tracked player data along with its last use
+     */
+    private static class Entry {
+        // Map nodes in both maps, key and entry object
+        private static final long OVERHEAD_BYTES = 160;
+
+        private final PlayerMovementData data;
+        private volatile long lastAccess;
+        // Memory estimate as of the last refresh
+        private long bytes;
+
+        Entry(PlayerMovementData data) {
+            this.data = data;
+            this.lastAccess = System.currentTimeMillis();
+            this.bytes = estimateBytes();
+        }
+
+        long estimateBytes() {
+            return OVERHEAD_BYTES + data.estimateMemoryBytes();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.nobaritone.plugin;
+
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.messaging.PluginMessageListener;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.function.Consumer;
+
+/**
+ * Sends messages through the proxy with the BungeeCord plugin messaging channel, which
+ * BungeeCord and Velocity forward to every other server. Plugin messages travel over a
+ * player's connection, so messages published while nobody is online wait until someone
+ * joins.
+ */
+public class PluginMessageTransport implements ViolationSyncTransport, PluginMessageListener {
+    private static final String CHANNEL = "BungeeCord";
+    private static final String SUBCHANNEL = "NoBaritoneSync";
+    // Plugin messages are limited to 32 KiB including the forwarding header
+    private static final int MAX_MESSAGE_SIZE = 30 * 1024;
+    // Messages kept while nobody is online, the oldest are dropped first
+    private static final int MAX_BACKLOG = 64;
+
+    private final NoBaritone plugin;
+    private final Deque<byte[]> backlog = new ArrayDeque<>();
+    private volatile Consumer<byte[]> receiver;
+
+    public PluginMessageTransport(NoBaritone plugin) {
+        this.plugin = plugin;
+    }
+
+    @Override
+    public void start(Consumer<byte[]> receiver) {
+        this.receiver = receiver;
+        plugin.getServer().getMessenger().registerOutgoingPluginChannel(plugin, CHANNEL);
+        plugin.getServer().getMessenger().registerIncomingPluginChannel(plugin, CHANNEL, this);
+    }
+
+    @Override
+    public void publish(byte[] message) {
+        backlog.addLast(message);
+        while (backlog.size() > MAX_BACKLOG) {
+            backlog.removeFirst();
+        }
+
+        Iterator<? extends Player> players = plugin.getServer().getOnlinePlayers().iterator();
+        if (!players.hasNext()) {
+            return;
+        }
+
+        Player carrier = players.next();
+        while (!backlog.isEmpty()) {
+            carrier.sendPluginMessage(plugin, CHANNEL, forward(backlog.removeFirst()));
+        }
+    }
+
+    /**
+     * Wraps a message in a request to forward it to all other servers
+     */
+    private static byte[] forward(byte[] message) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(message.length + 32);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeUTF("Forward");
+            out.writeUTF("ALL");
+            out.writeUTF(SUBCHANNEL);
+            out.writeShort(message.length);
+            out.write(message);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Override
+    public void onPluginMessageReceived(String channel, Player player, byte[] message) {
+        Consumer<byte[]> currentReceiver = receiver;
+        if (!CHANNEL.equals(channel) || currentReceiver == null) {
+            return;
+        }
+
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(message))) {
+            if (!SUBCHANNEL.equals(in.readUTF())) {
+                return;
+            }
+            byte[] payload = new byte[in.readUnsignedShort()];
+            in.readFully(payload);
+            currentReceiver.accept(payload);
+        } catch (IOException e) {
+            // Not a forwarded message
+        }
+    }
+
+    @Override
+    public void stop() {
+        receiver = null;
+        plugin.getServer().getMessenger().unregisterOutgoingPluginChannel(plugin, CHANNEL);
+        plugin.getServer().getMessenger().unregisterIncomingPluginChannel(plugin, CHANNEL);
+        backlog.clear();
+    }
+
+    @Override
+    public int getMaxMessageSize() {
+        return MAX_MESSAGE_SIZE;
+    }
+
+    @Override
+    public String getName() {
+        return "plugin-messaging";
+    }
+}
@@ -0,0 +1,530 @@
+package com.nobaritone.plugin;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * Embedded store of {@link ViolationProfile}s. Profiles are appended as fixed-size,
+ * checksummed records to a log file, and the newest record of every player is found
+ * through an in-memory index. The index is checkpointed to a small index file, so opening
+ * the store only replays the records written since the last checkpoint; a record cut
+ * short by a crash is dropped. Once most records are outdated the log is compacted.
+ *
+ * Saved profiles are queued and written in batches by a background thread; loading
+ * sees queued profiles before they reach disk. Loading and saving are safe from any thread.
+ */
+public class ProfileStore {
+    private static final int LOG_MAGIC = 0x4E42504C; // NBPL
+    private static final int INDEX_MAGIC = 0x4E425049; // NBPI
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+    // Player id, violation level, last violation, last decay, flags, kicks, sessions, first and last seen, checksum
+    private static final int RECORD_SIZE = 16 + 4 + 8 + 8 + 4 + 4 + 4 + 8 + 8 + 4;
+    // Records read at once while replaying the log
+    private static final int SCAN_BATCH = 256;
+    // Records written after the last checkpoint before the index file is rewritten
+    private static final int CHECKPOINT_RECORDS = 4096;
+    // The log is compacted once it holds this many records and less than half of them are current
+    private static final int MIN_COMPACT_RECORDS = 16384;
+    // Preloaded profiles not picked up by a join within this time are dropped
+    private static final long PRELOAD_EXPIRY_MILLIS = 60_000;
+    private static final long SHUTDOWN_TIMEOUT_MS = 5000;
+
+    private final Logger logger;
+    private final File directory;
+    private final File logFile;
+    private final File indexFile;
+
+    // Guards the log channel, the index and the record count; only the writer thread writes
+    private final ReentrantReadWriteLock fileLock = new ReentrantReadWriteLock();
+    private final Map<UUID, Integer> index = new HashMap<>();
+    private FileChannel log;
+    private volatile int records;
+    private int checkpointRecords;
+
+    // Profiles saved but not written yet, the newest per player
+    private final Map<UUID, ViolationProfile> pending = new ConcurrentHashMap<>();
+    private final Map<UUID, Preload> preloaded = new ConcurrentHashMap<>();
+    private final AtomicLong writtenProfiles = new AtomicLong();
+
+    private final Thread writerThread;
+    private volatile boolean running = false;
+
+    public ProfileStore(Logger logger, File directory) {
+        this.logger = logger;
+        this.directory = directory;
+        this.logFile = new File(directory, "profiles.dat");
+        this.indexFile = new File(directory, "profiles.idx");
+        this.writerThread = new Thread(this::writeLoop, "NoBaritone-Profiles");
+        this.writerThread.setDaemon(true);
+    }
+
+    /**
+     * Opens the log, restoring the index from its checkpoint and the records after it,
+     * and starts the writer thread
+     *
+     * @throws IOException if the log cannot be opened or belongs to another format
+     */
+    public void open() throws IOException {
+        if (!directory.exists()) {
+            directory.mkdirs();
+        }
+
+        log = FileChannel.open(logFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (log.size() < HEADER_SIZE) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(LOG_MAGIC).putInt(VERSION);
+            header.flip();
+            writeFully(log, header, 0);
+            log.truncate(HEADER_SIZE);
+        } else {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            readFully(log, header, 0);
+            if (header.getInt(0) != LOG_MAGIC || header.getInt(4) != VERSION) {
+                log.close();
+                throw new IOException(logFile.getName() + " is not a version " + VERSION + " profile log");
+            }
+        }
+
+        int fileRecords = (int) ((log.size() - HEADER_SIZE) / RECORD_SIZE);
+        int covered = readIndex(fileRecords);
+        int valid = replay(covered, fileRecords);
+
+        long validSize = HEADER_SIZE + (long) valid * RECORD_SIZE;
+        if (log.size() != validSize) {
+            logger.warning("Dropping " + (log.size() - validSize) + " bytes of incomplete or corrupt profile records");
+            log.truncate(validSize);
+        }
+
+        records = valid;
+        checkpointRecords = covered;
+        running = true;
+        writerThread.start();
+    }
+
+    /**
+     * Stops the writer thread after it wrote every queued profile, checkpoints the index and closes the log
+     */
+    public void shutdown() {
+        running = false;
+        LockSupport.unpark(writerThread);
+
+        try {
+            writerThread.join(SHUTDOWN_TIMEOUT_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Loads a player's profile, which is empty if the player has never been seen
+     *
+     * @throws IOException if the profile cannot be read
+     */
+    public ViolationProfile load(UUID playerId) throws IOException {
+        ViolationProfile queued = pending.get(playerId);
+        if (queued != null) {
+            return queued;
+        }
+
+        fileLock.readLock().lock();
+        try {
+            Integer record = index.get(playerId);
+            if (record == null) {
+                return ViolationProfile.empty(playerId);
+            }
+
+            ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE);
+            readFully(log, buffer, position(record));
+            ViolationProfile profile = decode(buffer, 0);
+            if (profile == null || !profile.getPlayerId().equals(playerId)) {
+                throw new IOException("Corrupt profile record " + record);
+            }
+            return profile;
+        } finally {
+            fileLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Loads a player's profile ahead of their join. Meant for the login threads, which may block.
+     */
+    public void preload(UUID playerId) {
+        try {
+            preloaded.put(playerId, new Preload(load(playerId), System.currentTimeMillis()));
+        } catch (IOException e) {
+            logger.warning("Failed to load the profile of " + playerId + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Takes the profile preloaded for a player
+     *
+     * @return the profile, or null if it was not preloaded
+     */
+    public ViolationProfile takePreloaded(UUID playerId) {
+        Preload preload = preloaded.remove(playerId);
+        return preload != null ? preload.profile : null;
+    }
+
+    /**
+     * Drops preloaded profiles of logins that never turned into a join
+     */
+    public void expirePreloads() {
+        long cutoff = System.currentTimeMillis() - PRELOAD_EXPIRY_MILLIS;
+        Iterator<Preload> iterator = preloaded.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().loadedAt < cutoff) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Queues a profile to be written with the next batch, replacing any queued profile of the same player
+     */
+    public void save(ViolationProfile profile) {
+        pending.put(profile.getPlayerId(), profile);
+    }
+
+    /**
+     * Wakes the writer thread to write the queued profiles
+     */
+    public void flush() {
+        LockSupport.unpark(writerThread);
+    }
+
+    private void writeLoop() {
+        while (running) {
+            LockSupport.park(this);
+            writePending();
+        }
+
+        writePending();
+        try {
+            writeIndex();
+            log.close();
+        } catch (IOException e) {
+            logger.severe("Failed to close the profile store: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Appends the queued profiles to the log in one write, keeping them queued if it fails
+     */
+    private void writePending() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        List<ViolationProfile> batch = new ArrayList<>(pending.values());
+        ByteBuffer buffer = ByteBuffer.allocate(batch.size() * RECORD_SIZE);
+        for (ViolationProfile profile : batch) {
+            encode(profile, buffer);
+        }
+        buffer.flip();
+
+        try {
+            int first = records;
+            writeFully(log, buffer, position(first));
+            log.force(false);
+
+            fileLock.writeLock().lock();
+            try {
+                for (int i = 0; i < batch.size(); i++) {
+                    index.put(batch.get(i).getPlayerId(), first + i);
+                }
+                records = first + batch.size();
+            } finally {
+                fileLock.writeLock().unlock();
+            }
+        } catch (IOException e) {
+            logger.severe("Failed to write " + batch.size() + " profiles: " + e.getMessage());
+            return;
+        }
+
+        // A profile saved again meanwhile stays queued for the next batch
+        for (ViolationProfile profile : batch) {
+            pending.remove(profile.getPlayerId(), profile);
+        }
+        writtenProfiles.addAndGet(batch.size());
+
+        try {
+            if (records >= MIN_COMPACT_RECORDS && records > 2 * index.size()) {
+                compact();
+            } else if (records - checkpointRecords >= CHECKPOINT_RECORDS) {
+                writeIndex();
+            }
+        } catch (IOException e) {
+            logger.warning("Failed to maintain the profile index: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Rewrites the log with only the newest record of every player. Runs on the writer thread.
+     */
+    private void compact() throws IOException {
+        File compactFile = new File(directory, "profiles.dat.tmp");
+        Map<UUID, Integer> compacted = new HashMap<>();
+
+        try (FileChannel out = FileChannel.open(compactFile.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(LOG_MAGIC).putInt(VERSION);
+            header.flip();
+            writeFully(out, header, 0);
+
+            // Only this thread changes the index, so it can be read without the lock
+            ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE);
+            for (Map.Entry<UUID, Integer> entry : index.entrySet()) {
+                buffer.clear();
+                readFully(log, buffer, position(entry.getValue()));
+                buffer.flip();
+                writeFully(out, buffer, position(compacted.size()));
+                compacted.put(entry.getKey(), compacted.size());
+            }
+            out.force(false);
+        }
+
+        fileLock.writeLock().lock();
+        try {
+            log.close();
+            Files.move(compactFile.toPath(), logFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log = FileChannel.open(logFile.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+            index.clear();
+            index.putAll(compacted);
+            records = compacted.size();
+        } finally {
+            fileLock.writeLock().unlock();
+        }
+
+        writeIndex();
+    }
+
+    /**
+     * Checkpoints the index to the index file, replacing it atomically
+     */
+    private void writeIndex() throws IOException {
+        File tempFile = new File(directory, "profiles.idx.tmp");
+        int covered;
+
+        fileLock.readLock().lock();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+            covered = records;
+            out.writeInt(INDEX_MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(covered);
+            out.writeInt(index.size());
+            for (Map.Entry<UUID, Integer> entry : index.entrySet()) {
+                out.writeLong(entry.getKey().getMostSignificantBits());
+                out.writeLong(entry.getKey().getLeastSignificantBits());
+                out.writeInt(entry.getValue());
+            }
+        } finally {
+            fileLock.readLock().unlock();
+        }
+
+        Files.move(tempFile.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        checkpointRecords = covered;
+    }
+
+    /**
+     * Reads the index checkpoint, ignoring it if it does not match the log
+     *
+     * @return the number of log records the checkpoint covers
+     */
+    private int readIndex(int fileRecords) {
+        if (!indexFile.exists()) {
+            return 0;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+            if (in.readInt() != INDEX_MAGIC || in.readInt() != VERSION) {
+                throw new IOException("unknown format");
+            }
+            int covered = in.readInt();
+            int count = in.readInt();
+            if (covered > fileRecords) {
+                throw new IOException("it covers more records than the log holds");
+            }
+
+            for (int i = 0; i < count; i++) {
+                UUID playerId = new UUID(in.readLong(), in.readLong());
+                int record = in.readInt();
+                if (record < 0 || record >= covered) {
+                    throw new IOException("record " + record + " is out of range");
+                }
+                index.put(playerId, record);
+            }
+            return covered;
+        } catch (EOFException e) {
+            logger.warning("Ignoring the profile index, it is truncated");
+        } catch (IOException e) {
+            logger.warning("Ignoring the profile index, " + e.getMessage());
+        }
+
+        index.clear();
+        return 0;
+    }
+
+    /**
+     * Indexes the log records in the given range, stopping at the first corrupt one
+     *
+     * @return the number of valid records in the log
+     */
+    private int replay(int from, int to) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(SCAN_BATCH * RECORD_SIZE);
+
+        for (int first = from; first < to; first += SCAN_BATCH) {
+            int count = Math.min(SCAN_BATCH, to - first);
+            buffer.clear().limit(count * RECORD_SIZE);
+            readFully(log, buffer, position(first));
+
+            for (int i = 0; i < count; i++) {
+                ViolationProfile profile = decode(buffer, i * RECORD_SIZE);
+                if (profile == null) {
+                    return first + i;
+                }
+                index.put(profile.getPlayerId(), first + i);
+            }
+        }
+        return to;
+    }
+
+    private static long position(int record) {
+        return HEADER_SIZE + (long) record * RECORD_SIZE;
+    }
+
+    private static void encode(ViolationProfile profile, ByteBuffer buffer) {
+        int start = buffer.position();
+        buffer.putLong(profile.getPlayerId().getMostSignificantBits());
+        buffer.putLong(profile.getPlayerId().getLeastSignificantBits());
+        buffer.putInt(profile.getViolationLevel());
+        buffer.putLong(profile.getLastViolationTime());
+        buffer.putLong(profile.getLastDecayTime());
+        buffer.putInt(profile.getTotalFlags());
+        buffer.putInt(profile.getKicks());
+        buffer.putInt(profile.getSessions());
+        buffer.putLong(profile.getFirstSeen());
+        buffer.putLong(profile.getLastSeen());
+        buffer.putInt(checksum(buffer, start));
+    }
+
+    /**
+     * Decodes the record at the given offset of the buffer
+     *
+     * @return the profile, or null if the record does not match its checksum
+     */
+    private static ViolationProfile decode(ByteBuffer buffer, int offset) {
+        if (buffer.getInt(offset + RECORD_SIZE - 4) != checksum(buffer, offset)) {
+            return null;
+        }
+        return new ViolationProfile(
+                new UUID(buffer.getLong(offset), buffer.getLong(offset + 8)),
+                buffer.getInt(offset + 16),
+                buffer.getLong(offset + 20),
+                buffer.getLong(offset + 28),
+                buffer.getInt(offset + 36),
+                buffer.getInt(offset + 40),
+                buffer.getInt(offset + 44),
+                buffer.getLong(offset + 48),
+                buffer.getLong(offset + 56));
+    }
+
+    private static int checksum(ByteBuffer buffer, int offset) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), buffer.arrayOffset() + offset, RECORD_SIZE - 4);
+        return (int) crc.getValue();
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new EOFException("Profile log ends at " + position);
+            }
+            position += read;
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    /**
+     * Gets the directory the store keeps its files in
+     */
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Gets the number of stored profiles
+     */
+    public int size() {
+        fileLock.readLock().lock();
+        try {
+            return index.size();
+        } finally {
+            fileLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the number of profiles waiting to be written
+     */
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Gets the size of the log in bytes
+     */
+    public long getLogBytes() {
+        return position(records);
+    }
+
+    /**
+     * Gets the number of profiles written since the store was opened
+     */
+    public long getWrittenProfiles() {
+        return writtenProfiles.get();
+    }
+
+    /**
+     * A profile loaded ahead of a join
+     */
+    private static class Preload {
+        private final ViolationProfile profile;
+        private final long loadedAt;
+
+        Preload(ViolationProfile profile, long loadedAt) {
+            this.profile = profile;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
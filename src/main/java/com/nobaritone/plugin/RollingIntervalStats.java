@@ -0,0 +1,151 @@
+package com.nobaritone.plugin;
+
+/**
+ * Sliding window over event timestamps that keeps interval statistics up to date
+ * incrementally. Every event records whether the interval leading to it matches the
+ * previous interval within a tolerance, and the number of such "consistent" intervals
+ * is adjusted as events enter and leave the window, so all queries are constant-time.
+ */
+public class RollingIntervalStats {
+    private final int capacity;
+    private final long tolerance;
+
+    private final long[] times;
+    private final boolean[] consistent;
+
+    // Slot of the oldest event
+    private int tail = 0;
+    private int size = 0;
+
+    // Consistent flags of the events that have two predecessors inside the window
+    private int consistentCount = 0;
+
+    public RollingIntervalStats(int capacity, long tolerance) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Window capacity must be positive: " + capacity);
+        }
+
+        this.capacity = capacity;
+        this.tolerance = tolerance;
+        this.times = new long[capacity];
+        this.consistent = new boolean[capacity];
+    }
+
+    /**
+     * Adds an event, evicting the oldest one if the window is full
+     */
+    public void add(long time) {
+        if (size == capacity) {
+            evictOldest();
+        }
+
+        boolean matchesPrevious = false;
+        if (size >= 2) {
+            long last = times[slot(size - 1)];
+            long beforeLast = times[slot(size - 2)];
+            matchesPrevious = Math.abs((time - last) - (last - beforeLast)) < tolerance;
+        }
+
+        int slot = slot(size);
+        times[slot] = time;
+        consistent[slot] = matchesPrevious;
+        size++;
+
+        if (matchesPrevious) {
+            consistentCount++;
+        }
+    }
+
+    /**
+     * Removes the oldest event from the window
+     */
+    public void evictOldest() {
+        if (size == 0) {
+            return;
+        }
+
+        // The third event loses its second predecessor, so its flag stops counting
+        if (size >= 3 && consistent[slot(2)]) {
+            consistentCount--;
+        }
+
+        tail = (tail + 1 == capacity) ? 0 : tail + 1;
+        size--;
+    }
+
+    /**
+     * Removes all events that happened before the given time
+     */
+    public void evictBefore(long time) {
+        while (size > 0 && times[tail] < time) {
+            evictOldest();
+        }
+    }
+
+    /**
+     * Removes all events
+     */
+    public void clear() {
+        tail = 0;
+        size = 0;
+        consistentCount = 0;
+    }
+
+    /**
+     * Maps a position counted from the oldest event to its array slot
+     */
+    private int slot(int position) {
+        int slot = tail + position;
+        return slot >= capacity ? slot - capacity : slot;
+    }
+
+    /**
+     * Gets the number of events in the window
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Estimates the memory held by this window, in bytes
+     */
+    public long estimateMemoryBytes() {
+        return 40 + 2 * 16 + (long) capacity * (8 + 1);
+    }
+
+    /**
+     * Gets the number of intervals between the events in the window
+     */
+    public int getIntervalCount() {
+        return Math.max(0, size - 1);
+    }
+
+    /**
+     * Gets the number of intervals matching their predecessor within the tolerance
+     */
+    public int getConsistentCount() {
+        return consistentCount;
+    }
+
+    /**
+     * Gets the share of intervals matching their predecessor, 0 if there are none
+     */
+    public double getConsistentRatio() {
+        return size < 2 ? 0 : (double) consistentCount / (size - 1);
+    }
+
+    /**
+     * Gets the average interval between the events in the window, 0 if there are none
+     */
+    public double getMeanInterval() {
+        return size < 2 ? 0 : (double) (times[slot(size - 1)] - times[tail]) / (size - 1);
+    }
+
+    public long getOldestTime() {
+        return size == 0 ? 0 : times[tail];
+    }
+
+    public long getLatestTime() {
+        return size == 0 ? 0 : times[slot(size - 1)];
+    }
+}
\ No newline at end of file
@@ -0,0 +1,433 @@
+package com.nobaritone.plugin;
+
+/**
+ * Sliding window over a player's head rotations that keeps rotation statistics up to date
+ * incrementally, so every sample and every query costs constant time:
+ * <ul>
+ *     <li>mean and deviation of the yaw and pitch change per sample, from running sums</li>
+ *     <li>the share of turns that end on an exact multiple of 45 degrees yaw</li>
+ *     <li>the greatest common divisor of the pitch changes. Mouse input turns the head in
+ *     multiples of a sensitivity-dependent step, so human pitch changes share a divisor
+ *     of at least {@link #MIN_MOUSE_STEP}, while computed rotations share none. Changes
+ *     ending at the straight up or down limit are cut short and left out. The window
+ *     divisor is kept by a two-stack sliding window aggregation.</li>
+ *     <li>how much of the yaw change variance is concentrated in a single frequency, from a
+ *     sliding DFT over a fixed set of bins</li>
+ * </ul>
+ * Running sums and DFT bins are recomputed from the window once per window length to
+ * stop rounding errors from accumulating. Rotations that were not sampled at the regular
+ * rate are added through {@link #addAndRestart}, so they never start a change.
+ */
+public class RotationAnalyzer {
+    /**
+     * Smallest rotation step a mouse produces, at the lowest sensitivity
+     */
+    public static final double MIN_MOUSE_STEP = 0.0096;
+
+    // Pitch changes below this are treated as none, and the divisor search stops at it
+    private static final double GCD_EPSILON = 1e-3;
+    // The client clamps pitch to this, cutting the last change short
+    private static final float MAX_PITCH = 90;
+    // Yaw within this many degrees of a multiple of 45 counts as snapped
+    private static final double SNAP_TOLERANCE = 0.01;
+    // Yaw changes below this are not turns
+    private static final double MIN_TURN = 0.01;
+    private static final int MAX_GCD_STEPS = 64;
+
+    private final int capacity;
+    private final int[] bins;
+    private final double[] binCos;
+    private final double[] binSin;
+
+    // Window of changes between consecutive rotations
+    private final double[] yawDeltas;
+    private final double[] pitchDeltas;
+    // Pitch changes counted by the divisor, zero where clamped
+    private final double[] divisorDeltas;
+    private final boolean[] turns;
+    private final boolean[] snapped;
+
+    // Slot of the oldest change
+    private int tail = 0;
+    private int size = 0;
+    private int sinceResync = 0;
+
+    private boolean hasLast = false;
+    private float lastYaw;
+    private float lastPitch;
+
+    private double yawSum;
+    private double yawSquares;
+    private double pitchSum;
+    private double pitchSquares;
+    private int turnCount;
+    private int snappedCount;
+
+    // Sliding DFT of the yaw changes, one complex value per bin
+    private final double[] binReal;
+    private final double[] binImaginary;
+
+    // Two-stack aggregation of the pitch divisor: suffix divisors of the older changes, newest first,
+    // and the running divisor of the changes added since they were built
+    private final double[] frontGcds;
+    private int frontSize = 0;
+    private double backGcd = 0;
+
+    public RotationAnalyzer(int capacity) {
+        if (capacity < 4) {
+            throw new IllegalArgumentException("Window capacity must be at least 4: " + capacity);
+        }
+
+        this.capacity = capacity;
+        this.yawDeltas = new double[capacity];
+        this.pitchDeltas = new double[capacity];
+        this.divisorDeltas = new double[capacity];
+        this.turns = new boolean[capacity];
+        this.snapped = new boolean[capacity];
+        this.frontGcds = new double[capacity];
+
+        // Periods from the whole window down to two samples, roughly doubling in frequency
+        int count = 0;
+        int[] candidates = new int[capacity / 2];
+        for (int k = 1; k <= capacity / 2; k = Math.max(k + 1, k * 3 / 2)) {
+            candidates[count++] = k;
+        }
+        if (candidates[count - 1] != capacity / 2) {
+            candidates[count++] = capacity / 2;
+        }
+        this.bins = new int[count];
+        System.arraycopy(candidates, 0, bins, 0, count);
+
+        this.binCos = new double[count];
+        this.binSin = new double[count];
+        this.binReal = new double[count];
+        this.binImaginary = new double[count];
+        for (int i = 0; i < count; i++) {
+            double angle = 2 * Math.PI * bins[i] / capacity;
+            binCos[i] = Math.cos(angle);
+            binSin[i] = Math.sin(angle);
+        }
+    }
+
+    /**
+     * Adds the player's current rotation
+     */
+    public void add(float yaw, float pitch) {
+        if (!hasLast) {
+            hasLast = true;
+            lastYaw = yaw;
+            lastPitch = pitch;
+            return;
+        }
+
+        double yawDelta = wrap((double) yaw - lastYaw);
+        double pitchDelta = (double) pitch - lastPitch;
+        lastYaw = yaw;
+        lastPitch = pitch;
+
+        double evictedYaw = 0;
+        if (size == capacity) {
+            evictedYaw = yawDeltas[tail];
+            evictOldest();
+        }
+
+        int slot = slot(size);
+        boolean turn = Math.abs(yawDelta) >= MIN_TURN;
+        double offset = Math.abs(yaw % 45);
+        boolean snap = turn && Math.min(offset, 45 - offset) < SNAP_TOLERANCE;
+
+        yawDeltas[slot] = yawDelta;
+        pitchDeltas[slot] = pitchDelta;
+        divisorDeltas[slot] = Math.abs(pitch) >= MAX_PITCH ? 0 : pitchDelta;
+        turns[slot] = turn;
+        snapped[slot] = snap;
+        size++;
+
+        yawSum += yawDelta;
+        yawSquares += yawDelta * yawDelta;
+        pitchSum += pitchDelta;
+        pitchSquares += pitchDelta * pitchDelta;
+        if (turn) {
+            turnCount++;
+        }
+        if (snap) {
+            snappedCount++;
+        }
+        backGcd = gcd(backGcd, divisorDeltas[slot]);
+
+        // X_k <- (X_k - x_old + x_new) * e^(2 pi i k / N), zeros fill the window until it is full
+        double change = yawDelta - evictedYaw;
+        for (int i = 0; i < bins.length; i++) {
+            double real = binReal[i] + change;
+            double imaginary = binImaginary[i];
+            binReal[i] = real * binCos[i] - imaginary * binSin[i];
+            binImaginary[i] = real * binSin[i] + imaginary * binCos[i];
+        }
+
+        if (++sinceResync >= capacity) {
+            resync();
+        }
+    }
+
+    /**
+     * Adds a rotation that ends the change since the previous one, but does not start
+     * the next change. Used when the rotation after it is not sampled at the regular rate,
+     * or is not turned by the player at all.
+     */
+    public void addAndRestart(float yaw, float pitch) {
+        add(yaw, pitch);
+        hasLast = false;
+    }
+
+    /**
+     * Removes the oldest change from the window
+     */
+    private void evictOldest() {
+        int slot = tail;
+        double yawDelta = yawDeltas[slot];
+        double pitchDelta = pitchDeltas[slot];
+
+        yawSum -= yawDelta;
+        yawSquares -= yawDelta * yawDelta;
+        pitchSum -= pitchDelta;
+        pitchSquares -= pitchDelta * pitchDelta;
+        if (turns[slot]) {
+            turnCount--;
+        }
+        if (snapped[slot]) {
+            snappedCount--;
+        }
+
+        // Move the changes added since the last flip over to the front stack
+        if (frontSize == 0) {
+            double gcd = 0;
+            for (int position = size - 1; position >= 0; position--) {
+                gcd = gcd(gcd, divisorDeltas[slot(position)]);
+                frontGcds[frontSize++] = gcd;
+            }
+            backGcd = 0;
+        }
+        frontSize--;
+
+        tail = (tail + 1 == capacity) ? 0 : tail + 1;
+        size--;
+    }
+
+    /**
+     * Recomputes the running sums and DFT bins from the window
+     */
+    private void resync() {
+        sinceResync = 0;
+        yawSum = 0;
+        yawSquares = 0;
+        pitchSum = 0;
+        pitchSquares = 0;
+        for (int i = 0; i < bins.length; i++) {
+            binReal[i] = 0;
+            binImaginary[i] = 0;
+        }
+
+        // Every update turns the bins by one step, so a change is turned once more than its age in samples
+        for (int position = 0; position < size; position++) {
+            int slot = slot(position);
+            double yawDelta = yawDeltas[slot];
+            double pitchDelta = pitchDeltas[slot];
+            yawSum += yawDelta;
+            yawSquares += yawDelta * yawDelta;
+            pitchSum += pitchDelta;
+            pitchSquares += pitchDelta * pitchDelta;
+
+            for (int i = 0; i < bins.length; i++) {
+                double angle = 2 * Math.PI * bins[i] * (size - position) / capacity;
+                binReal[i] += yawDelta * Math.cos(angle);
+                binImaginary[i] += yawDelta * Math.sin(angle);
+            }
+        }
+    }
+
+    /**
+     * Removes all rotations
+     */
+    public void clear() {
+        tail = 0;
+        size = 0;
+        sinceResync = 0;
+        hasLast = false;
+        yawSum = 0;
+        yawSquares = 0;
+        pitchSum = 0;
+        pitchSquares = 0;
+        turnCount = 0;
+        snappedCount = 0;
+        frontSize = 0;
+        backGcd = 0;
+        for (int i = 0; i < bins.length; i++) {
+            binReal[i] = 0;
+            binImaginary[i] = 0;
+        }
+    }
+
+    /**
+     * Maps a position counted from the oldest change to its array slot
+     */
+    private int slot(int position) {
+        int slot = tail + position;
+        return slot >= capacity ? slot - capacity : slot;
+    }
+
+    /**
+     * Wraps a yaw change into [-180, 180) degrees
+     */
+    private static double wrap(double degrees) {
+        double wrapped = degrees % 360;
+        if (wrapped >= 180) {
+            wrapped -= 360;
+        } else if (wrapped < -180) {
+            wrapped += 360;
+        }
+        return wrapped;
+    }
+
+    /**
+     * Greatest common divisor of two angles, ignoring remainders below {@link #GCD_EPSILON}.
+     * Zero and near-zero angles leave the other one unchanged.
+     */
+    static double gcd(double a, double b) {
+        a = Math.abs(a);
+        b = Math.abs(b);
+        if (a < b) {
+            double swap = a;
+            a = b;
+            b = swap;
+        }
+
+        for (int step = 0; step < MAX_GCD_STEPS && b >= GCD_EPSILON; step++) {
+            double remainder = a % b;
+            a = b;
+            b = remainder;
+        }
+        return a < GCD_EPSILON ? 0 : a;
+    }
+
+    /**
+     * Gets the number of rotation changes in the window
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks whether the window holds as many changes as it can
+     */
+    public boolean isFull() {
+        return size == capacity;
+    }
+
+    /**
+     * Estimates the memory held by this window, in bytes
+     */
+    public long estimateMemoryBytes() {
+        return 96 + 11 * 16 + (long) capacity * (4 * 8 + 2) + (long) bins.length * (4 + 4 * 8);
+    }
+
+    /**
+     * Gets the mean yaw change per sample, signed, 0 if there are none
+     */
+    public double getMeanYawDelta() {
+        return size == 0 ? 0 : yawSum / size;
+    }
+
+    /**
+     * Gets the standard deviation of the yaw change per sample, 0 if there are none
+     */
+    public double getYawDeltaDeviation() {
+        return deviation(yawSum, yawSquares);
+    }
+
+    /**
+     * Gets the mean pitch change per sample, signed, 0 if there are none
+     */
+    public double getMeanPitchDelta() {
+        return size == 0 ? 0 : pitchSum / size;
+    }
+
+    /**
+     * Gets the standard deviation of the pitch change per sample, 0 if there are none
+     */
+    public double getPitchDeltaDeviation() {
+        return deviation(pitchSum, pitchSquares);
+    }
+
+    private double deviation(double sum, double squares) {
+        if (size == 0) {
+            return 0;
+        }
+        double mean = sum / size;
+        return Math.sqrt(Math.max(0, squares / size - mean * mean));
+    }
+
+    /**
+     * Gets the number of changes that turned the player's yaw
+     */
+    public int getTurnCount() {
+        return turnCount;
+    }
+
+    /**
+     * Gets the share of turns ending on an exact multiple of 45 degrees yaw, 0 if there are none
+     */
+    public double getSnappedRatio() {
+        return turnCount == 0 ? 0 : (double) snappedCount / turnCount;
+    }
+
+    /**
+     * Gets the greatest common divisor of the pitch changes in the window, 0 if the
+     * pitch did not change
+     */
+    public double getPitchGcd() {
+        return gcd(frontSize > 0 ? frontGcds[frontSize - 1] : 0, backGcd);
+    }
+
+    /**
+     * Gets the share of the yaw change variance found in the strongest tracked frequency,
+     * from about 2 / window size for noise up to 1 for a pure oscillation. 0 until the
+     * window is full or while the yaw changes are constant.
+     */
+    public double getPeriodicity() {
+        int strongest = strongestBin();
+        return strongest < 0 ? 0 : binShare(strongest);
+    }
+
+    /**
+     * Gets the period in samples of the strongest tracked frequency, 0 until the window is full
+     */
+    public double getDominantPeriod() {
+        int strongest = strongestBin();
+        return strongest < 0 ? 0 : (double) capacity / bins[strongest];
+    }
+
+    private int strongestBin() {
+        if (size < capacity || varianceSum() < 1e-9) {
+            return -1;
+        }
+
+        int strongest = 0;
+        for (int i = 1; i < bins.length; i++) {
+            if (binShare(i) > binShare(strongest)) {
+                strongest = i;
+            }
+        }
+        return strongest;
+    }
+
+    private double binShare(int i) {
+        // A real signal's energy at k is mirrored at N - k, except at the Nyquist frequency
+        double power = binReal[i] * binReal[i] + binImaginary[i] * binImaginary[i];
+        double mirrored = bins[i] * 2 == capacity ? 1 : 2;
+        return Math.min(1, mirrored * power / (capacity * varianceSum()));
+    }
+
+    private double varianceSum() {
+        return yawSquares - yawSum * yawSum / capacity;
+    }
+}
@@ -0,0 +1,219 @@
+package com.nobaritone.plugin;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Properties;
+
+/**
+ * Logistic model turning a player's moves into a probability that they are automated.
+ * Every move contributes evidence {@code bias + sum(weight * feature)} to a log-odds
+ * estimate that decays by a constant factor per move, see {@link LogOddsScorer}. The
+ * estimate is therefore the same linear model applied to exponentially decayed feature
+ * sums, which is what {@link ModelFitter} fits from labelled traces.
+ *
+ * Models are stored as plain properties files so the offline tools can read them
+ * without a server. Instances are immutable.
+ */
+public final class ScoringModel {
+    /**
+     * Names of the features, in the order of their weights
+     */
+    public static final String[] FEATURES = {
+        "straight-line", "exact-angle", "perfect-jump",
+        "timing-consistency", "direction-consistency", "detector-score"
+    };
+
+    // Detector scores are scaled to 0..1 against this score
+    private static final double MAX_DETECTOR_SCORE = 20;
+
+    private final double bias;
+    private final double decay;
+    private final double[] weights;
+    private final double flagLogOdds;
+    private final double rearmLogOdds;
+    private final int reflagMoves;
+
+    public ScoringModel(double bias, double decay, double[] weights) {
+        this(bias, decay, weights, 0.85, 0.7, 200);
+    }
+
+    private ScoringModel(double bias, double decay, double[] weights,
+                         double flagProbability, double rearmProbability, int reflagMoves) {
+        if (weights.length != FEATURES.length) {
+            throw new IllegalArgumentException("Expected " + FEATURES.length + " weights, got " + weights.length);
+        }
+        if (!(decay >= 0 && decay < 1)) {
+            throw new IllegalArgumentException("Decay must be in [0, 1): " + decay);
+        }
+
+        this.bias = bias;
+        this.decay = decay;
+        this.weights = weights.clone();
+        this.flagLogOdds = logit(flagProbability);
+        this.rearmLogOdds = Math.min(flagLogOdds, logit(rearmProbability));
+        this.reflagMoves = Math.max(1, reflagMoves);
+    }
+
+    /**
+     * Gets a copy of this model deciding at the given probabilities
+     *
+     * @param flagProbability probability at which a player is flagged
+     * @param rearmProbability probability a flagged player must drop below before being flagged again right away
+     * @param reflagMoves moves after which a player that stays above the flag probability is flagged again
+     */
+    public ScoringModel withThresholds(double flagProbability, double rearmProbability, int reflagMoves) {
+        return new ScoringModel(bias, decay, weights, flagProbability, rearmProbability, reflagMoves);
+    }
+
+    /**
+     * Loads a model from a properties file
+     */
+    public static ScoringModel load(File file) throws IOException {
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            return load(in);
+        }
+    }
+
+    /**
+     * Loads a model from properties
+     */
+    public static ScoringModel load(InputStream in) throws IOException {
+        Properties properties = new Properties();
+        properties.load(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)));
+
+        double[] weights = new double[FEATURES.length];
+        for (int i = 0; i < FEATURES.length; i++) {
+            weights[i] = parse(properties, "weight." + FEATURES[i], 0);
+        }
+        try {
+            return new ScoringModel(parse(properties, "bias", 0), parse(properties, "decay", 0.95), weights);
+        } catch (IllegalArgumentException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    private static double parse(Properties properties, String key, double defaultValue) throws IOException {
+        String value = properties.getProperty(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IOException("Invalid number for " + key + ": " + value, e);
+        }
+    }
+
+    /**
+     * Writes the model as a properties file
+     */
+    public void write(File file, String comment) throws IOException {
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(file.toPath()), StandardCharsets.UTF_8))) {
+            out.write("# " + comment + "\n");
+            out.write("bias=" + format(bias) + "\n");
+            out.write("decay=" + format(decay) + "\n");
+            for (int i = 0; i < FEATURES.length; i++) {
+                out.write("weight." + FEATURES[i] + "=" + format(weights[i]) + "\n");
+            }
+        }
+    }
+
+    /**
+     * Extracts the features of the newest move into the given array
+     */
+    public static void extract(PlayerMovementData data, int detectorScore, double[] into) {
+        MovementFeatures features = data.getLatestFeatures();
+        RollingIntervalStats moveTimings = data.getMoveTimings();
+        RollingIntervalStats directionChanges = data.getExactAngleChanges();
+
+        into[0] = features.isStraightLine() ? 1 : 0;
+        into[1] = features.isExactAngle() ? 1 : 0;
+        into[2] = features.isPerfectJump() ? 1 : 0;
+        into[3] = moveTimings.size() >= BuiltinDetector.MIN_TIMING_SAMPLES ? moveTimings.getConsistentRatio() : 0;
+        into[4] = directionChanges.getConsistentRatio();
+        into[5] = Math.min(detectorScore, MAX_DETECTOR_SCORE) / MAX_DETECTOR_SCORE;
+    }
+
+    /**
+     * Computes the evidence of the newest move, without allocating
+     */
+    double evidence(PlayerMovementData data, int detectorScore) {
+        MovementFeatures features = data.getLatestFeatures();
+        RollingIntervalStats moveTimings = data.getMoveTimings();
+
+        double evidence = bias;
+        if (features.isStraightLine()) {
+            evidence += weights[0];
+        }
+        if (features.isExactAngle()) {
+            evidence += weights[1];
+        }
+        if (features.isPerfectJump()) {
+            evidence += weights[2];
+        }
+        if (moveTimings.size() >= BuiltinDetector.MIN_TIMING_SAMPLES) {
+            evidence += weights[3] * moveTimings.getConsistentRatio();
+        }
+        evidence += weights[4] * data.getExactAngleChanges().getConsistentRatio();
+        evidence += weights[5] * Math.min(detectorScore, MAX_DETECTOR_SCORE) / MAX_DETECTOR_SCORE;
+        return evidence;
+    }
+
+    public double getBias() {
+        return bias;
+    }
+
+    public double getDecay() {
+        return decay;
+    }
+
+    public double[] getWeights() {
+        return weights.clone();
+    }
+
+    double getFlagLogOdds() {
+        return flagLogOdds;
+    }
+
+    double getRearmLogOdds() {
+        return rearmLogOdds;
+    }
+
+    int getReflagMoves() {
+        return reflagMoves;
+    }
+
+    /**
+     * Converts a probability to log-odds
+     */
+    static double logit(double probability) {
+        double p = Math.max(1e-9, Math.min(probability, 1 - 1e-9));
+        return Math.log(p / (1 - p));
+    }
+
+    /**
+     * Converts log-odds to a probability
+     */
+    static double sigmoid(double logOdds) {
+        return 1 / (1 + Math.exp(-logOdds));
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%.6f", value);
+    }
+
+    @Override
+    public String toString() {
+        return "ScoringModel{bias=" + format(bias) + ", decay=" + format(decay) + ", weights=" + Arrays.toString(weights) + "}";
+    }
+}
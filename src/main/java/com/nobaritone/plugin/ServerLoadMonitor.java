@@ -0,0 +1,41 @@
+package com.nobaritone.plugin;
+
+/**
+ * Measures server tick timing with a task that runs every tick. Keeps the
+ * duration of the last tick, to spot lag spikes, and a smoothed TPS estimate.
+ */
+public class ServerLoadMonitor implements Runnable {
+    private static final double TARGET_TPS = 20.0;
+    private static final long TARGET_TICK_NANOS = 50_000_000L;
+    // Weight of the newest tick in the smoothed tick time, roughly a two second average
+    private static final double SMOOTHING = 0.025;
+
+    private long lastTickNanos = 0;
+    private volatile long lastTickDurationNanos = TARGET_TICK_NANOS;
+    private volatile double averageTickNanos = TARGET_TICK_NANOS;
+
+    @Override
+    public void run() {
+        long now = System.nanoTime();
+        if (lastTickNanos != 0) {
+            long duration = now - lastTickNanos;
+            lastTickDurationNanos = duration;
+            averageTickNanos += (duration - averageTickNanos) * SMOOTHING;
+        }
+        lastTickNanos = now;
+    }
+
+    /**
+     * Gets the smoothed ticks per second, at most 20
+     */
+    public double getTps() {
+        return Math.min(TARGET_TPS, 1e9 / averageTickNanos);
+    }
+
+    /**
+     * Gets how long the last completed tick took, in milliseconds
+     */
+    public long getLastTickMillis() {
+        return lastTickDurationNanos / 1_000_000L;
+    }
+}
\ No newline at end of file
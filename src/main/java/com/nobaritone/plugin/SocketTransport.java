@@ -0,0 +1,98 @@
+package com.nobaritone.plugin;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.net.SocketException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+/**
+ * Sends every message as a UDP datagram to a fixed list of peer servers and receives
+ * theirs on a background thread. Messages are kept small enough to avoid IP fragmentation.
+ */
+public class SocketTransport implements ViolationSyncTransport {
+    // Fits a typical 1500 byte MTU with IP and UDP headers
+    private static final int MAX_MESSAGE_SIZE = 1400;
+
+    private final Logger logger;
+    private final int port;
+    private final List<String> peerAddresses;
+    private final List<InetSocketAddress> peers = new ArrayList<>();
+    private DatagramSocket socket;
+
+    /**
+     * @param port UDP port to receive on
+     * @param peerAddresses the other servers, as host:port
+     */
+    public SocketTransport(Logger logger, int port, List<String> peerAddresses) {
+        this.logger = logger;
+        this.port = port;
+        this.peerAddresses = peerAddresses;
+    }
+
+    @Override
+    public void start(Consumer<byte[]> receiver) throws IOException {
+        for (String address : peerAddresses) {
+            int separator = address.lastIndexOf(':');
+            try {
+                peers.add(new InetSocketAddress(address.substring(0, separator), Integer.parseInt(address.substring(separator + 1))));
+            } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+                throw new IOException("Invalid sync peer " + address + ", expected host:port");
+            }
+        }
+
+        socket = new DatagramSocket(port);
+        DatagramSocket receiveSocket = socket;
+        Thread receiverThread = new Thread(() -> receiveLoop(receiveSocket, receiver), "NoBaritone-Sync");
+        receiverThread.setDaemon(true);
+        receiverThread.start();
+    }
+
+    private void receiveLoop(DatagramSocket receiveSocket, Consumer<byte[]> receiver) {
+        DatagramPacket packet = new DatagramPacket(new byte[MAX_MESSAGE_SIZE], MAX_MESSAGE_SIZE);
+        while (!receiveSocket.isClosed()) {
+            try {
+                packet.setLength(MAX_MESSAGE_SIZE);
+                receiveSocket.receive(packet);
+                receiver.accept(Arrays.copyOfRange(packet.getData(), packet.getOffset(), packet.getOffset() + packet.getLength()));
+            } catch (SocketException e) {
+                // Closed by stop
+            } catch (IOException e) {
+                logger.warning("Failed to receive a sync message: " + e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void publish(byte[] message) {
+        for (InetSocketAddress peer : peers) {
+            try {
+                socket.send(new DatagramPacket(message, message.length, peer));
+            } catch (IOException e) {
+                logger.warning("Failed to send a sync message to " + peer + ": " + e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void stop() {
+        if (socket != null) {
+            socket.close();
+        }
+    }
+
+    @Override
+    public int getMaxMessageSize() {
+        return MAX_MESSAGE_SIZE;
+    }
+
+    @Override
+    public String getName() {
+        return "socket";
+    }
+}
@@ -0,0 +1,132 @@
+package com.nobaritone.plugin;
+
+/**
+ * Sliding window over packet arrival times measuring how closely the intervals between
+ * them follow the client's tick. Clients send movement packets from their 50ms tick, so
+ * every interval is close to a whole number of ticks for humans and bots alike; what
+ * differs is the jitter the network and the client's frame timing add on top. Each
+ * interval records its distance from the nearest whole number of ticks, and whether it is
+ * steady, that is within a tolerance of it. Sums are adjusted as intervals enter and
+ * leave the window, so all queries are constant-time.
+ */
+public class TickJitterStats {
+    // Longer gaps mean the client stopped sending (it only sends idle updates once a second)
+    private static final long MAX_TICKS_PER_INTERVAL = 20;
+
+    private final int capacity;
+    private final long tickMicros;
+    private final long steadyMicros;
+
+    private final long[] jitters;
+    private final boolean[] steady;
+
+    // Slot of the oldest interval
+    private int tail = 0;
+    private int size = 0;
+
+    private long lastArrival = -1;
+    private long jitterSum = 0;
+    private int steadyCount = 0;
+
+    /**
+     * @param tickMicros length of the client tick, in microseconds
+     * @param steadyMicros jitter below which an interval counts as steady, in microseconds
+     */
+    public TickJitterStats(int capacity, long tickMicros, long steadyMicros) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Window capacity must be positive: " + capacity);
+        }
+
+        this.capacity = capacity;
+        this.tickMicros = tickMicros;
+        this.steadyMicros = steadyMicros;
+        this.jitters = new long[capacity];
+        this.steady = new boolean[capacity];
+    }
+
+    /**
+     * Adds a packet arrival, in microseconds
+     */
+    public void add(long arrivalMicros) {
+        long previous = lastArrival;
+        lastArrival = arrivalMicros;
+        if (previous < 0) {
+            return;
+        }
+
+        long interval = arrivalMicros - previous;
+        long ticks = Math.max(1, (interval + tickMicros / 2) / tickMicros);
+        if (interval <= 0 || ticks > MAX_TICKS_PER_INTERVAL) {
+            return;
+        }
+
+        if (size == capacity) {
+            evictOldest();
+        }
+
+        long jitter = Math.abs(interval - ticks * tickMicros);
+        int slot = slot(size);
+        jitters[slot] = jitter;
+        steady[slot] = jitter < steadyMicros;
+        size++;
+
+        jitterSum += jitter;
+        if (steady[slot]) {
+            steadyCount++;
+        }
+    }
+
+    private void evictOldest() {
+        jitterSum -= jitters[tail];
+        if (steady[tail]) {
+            steadyCount--;
+        }
+
+        tail = (tail + 1 == capacity) ? 0 : tail + 1;
+        size--;
+    }
+
+    /**
+     * Removes all intervals
+     */
+    public void clear() {
+        tail = 0;
+        size = 0;
+        lastArrival = -1;
+        jitterSum = 0;
+        steadyCount = 0;
+    }
+
+    private int slot(int position) {
+        int slot = tail + position;
+        return slot >= capacity ? slot - capacity : slot;
+    }
+
+    /**
+     * Gets the number of intervals in the window
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the share of intervals within the steady tolerance of the tick, 0 if there are none
+     */
+    public double getSteadyRatio() {
+        return size == 0 ? 0 : (double) steadyCount / size;
+    }
+
+    /**
+     * Gets the mean distance of the intervals from the nearest whole number of ticks, in microseconds
+     */
+    public double getMeanJitterMicros() {
+        return size == 0 ? 0 : (double) jitterSum / size;
+    }
+
+    /**
+     * Estimates the memory held by this window, in bytes
+     */
+    public long estimateMemoryBytes() {
+        return 56 + 2 * 16 + (long) capacity * (8 + 1);
+    }
+}
@@ -0,0 +1,184 @@
+package com.nobaritone.plugin;
+
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel. Timeouts are kept in intrusive linked lists hanging off
+ * four levels of 64 slots, each level 64 times coarser than the one below, so a wheel
+ * spans 2^24 ticks. Scheduling and cancelling are O(1); advancing costs O(1) per tick
+ * plus the timeouts that expire or cascade down a level. Not thread-safe.
+ */
+public class TimingWheel<T> {
+    private static final int LEVELS = 4;
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final long MAX_DELAY = (1L << (SLOT_BITS * LEVELS)) - 1;
+
+    // Sentinel heads of the slot lists, per level
+    private final Timeout<?>[][] wheels = new Timeout<?>[LEVELS][SLOTS];
+    private final Consumer<Timeout<T>> expiryHandler;
+
+    // Next tick to process
+    private long currentTick;
+    private int size = 0;
+
+    public TimingWheel(long startTick, Consumer<Timeout<T>> expiryHandler) {
+        this.currentTick = startTick;
+        this.expiryHandler = expiryHandler;
+
+        for (Timeout<?>[] wheel : wheels) {
+            for (int slot = 0; slot < SLOTS; slot++) {
+                Timeout<?> head = new Timeout<>(null);
+                head.previous = head;
+                head.next = head;
+                wheel[slot] = head;
+            }
+        }
+    }
+
+    /**
+     * Schedules the timeout to expire at the given tick, moving it if it was already scheduled.
+     * Deadlines in the past expire on the next advance.
+     */
+    public void schedule(Timeout<T> timeout, long deadline) {
+        if (timeout.isScheduled()) {
+            unlink(timeout);
+        }
+
+        timeout.deadline = deadline;
+        insert(timeout);
+        size++;
+    }
+
+    /**
+     * Cancels the timeout if it is scheduled
+     */
+    public void cancel(Timeout<T> timeout) {
+        if (timeout.isScheduled()) {
+            unlink(timeout);
+        }
+    }
+
+    /**
+     * Processes every tick up to and including the given one, expiring due timeouts
+     */
+    @SuppressWarnings("unchecked")
+    public void advanceTo(long tick) {
+        while (currentTick <= tick) {
+            int index = (int) (currentTick & SLOT_MASK);
+
+            // Entering a new lap of a level pulls the next slot of the level above down
+            if (index == 0) {
+                for (int level = 1; level < LEVELS; level++) {
+                    int levelIndex = (int) ((currentTick >>> (SLOT_BITS * level)) & SLOT_MASK);
+                    cascade(wheels[level][levelIndex]);
+                    if (levelIndex != 0) {
+                        break;
+                    }
+                }
+            }
+
+            Timeout<?> head = wheels[0][index];
+            while (head.next != head) {
+                Timeout<T> timeout = (Timeout<T>) head.next;
+                unlink(timeout);
+                expiryHandler.accept(timeout);
+            }
+
+            currentTick++;
+        }
+    }
+
+    /**
+     * Places a timeout in the slot matching its distance from the current tick
+     */
+    private void insert(Timeout<?> timeout) {
+        long deadline = timeout.deadline;
+        long delay = deadline - currentTick;
+
+        Timeout<?> head;
+        if (delay < 0) {
+            head = wheels[0][(int) (currentTick & SLOT_MASK)];
+        } else {
+            if (delay > MAX_DELAY) {
+                deadline = currentTick + MAX_DELAY;
+                delay = MAX_DELAY;
+            }
+
+            int level = 0;
+            while (level < LEVELS - 1 && delay >= 1L << (SLOT_BITS * (level + 1))) {
+                level++;
+            }
+            head = wheels[level][(int) ((deadline >>> (SLOT_BITS * level)) & SLOT_MASK)];
+        }
+
+        timeout.previous = head.previous;
+        timeout.next = head;
+        head.previous.next = timeout;
+        head.previous = timeout;
+    }
+
+    /**
+     * Re-inserts all timeouts of a slot, which places them on lower levels
+     */
+    private void cascade(Timeout<?> head) {
+        Timeout<?> timeout = head.next;
+        head.next = head;
+        head.previous = head;
+
+        while (timeout != head) {
+            Timeout<?> next = timeout.next;
+            insert(timeout);
+            timeout = next;
+        }
+    }
+
+    private void unlink(Timeout<?> timeout) {
+        timeout.previous.next = timeout.next;
+        timeout.next.previous = timeout.previous;
+        timeout.previous = null;
+        timeout.next = null;
+        size--;
+    }
+
+    /**
+     * Gets the next tick that will be processed
+     */
+    public long getCurrentTick() {
+        return currentTick;
+    }
+
+    /**
+     * Gets the number of scheduled timeouts
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * A schedulable timeout carrying a payload. Reusable after it expired or was cancelled.
+     */
+    public static class Timeout<T> {
+        private final T payload;
+        private long deadline;
+        private Timeout<?> previous;
+        private Timeout<?> next;
+
+        public Timeout(T payload) {
+            this.payload = payload;
+        }
+
+        public T getPayload() {
+            return payload;
+        }
+
+        public long getDeadline() {
+            return deadline;
+        }
+
+        public boolean isScheduled() {
+            return next != null;
+        }
+    }
+}
\ No newline at end of file
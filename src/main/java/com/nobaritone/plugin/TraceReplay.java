@@ -0,0 +1,312 @@
+package com.nobaritone.plugin;
+
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Headless tool feeding recorded movement traces through {@link PlayerMovementData}
+ * at full speed, printing the verdicts the plugin would have reached and the
+ * analysis throughput. Moves pass the same {@link MovePreFilter} decisions, detector
+ * settings, suspicion tiers and scoring model as on the server, all taken from a
+ * config.yml (the bundled one unless --config is given). Runs without a server, but
+ * needs the Bukkit API to read the configuration:
+ *
+ * <pre>
+ * java -cp NoBaritone.jar:spigot-api.jar com.nobaritone.plugin.TraceReplay [options] &lt;trace files or directories&gt;
+ * </pre>
+ */
+public class TraceReplay {
+    private static final String BUNDLED_CONFIG = "/config.yml";
+    private static final String BUNDLED_SCORING_MODEL = "/scoring-model.properties";
+
+    private BaritoneDetectionConfig config;
+    private int historySize;
+    private int notifyThreshold;
+    private int kickThreshold;
+    private int maxViolationPoints;
+    // Server load the moves are assumed to arrive at, which decides adaptive sampling
+    private double tps = 20.0;
+    private int repeat = 1;
+    private boolean verbose = false;
+    private DetectorPipeline detectors;
+
+    private final PrintStream out;
+
+    private TraceReplay(PrintStream out) {
+        this.out = out;
+    }
+
+    public static void main(String[] args) {
+        TraceReplay replay = new TraceReplay(System.out);
+        List<File> traces = new ArrayList<>();
+        File configFile = null;
+        File modelFile = null;
+        Integer historySize = null;
+        Integer notifyThreshold = null;
+        Integer kickThreshold = null;
+        Integer maxViolationPoints = null;
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--config":
+                        configFile = new File(args[++i]);
+                        break;
+                    case "--history":
+                        historySize = Integer.parseInt(args[++i]);
+                        break;
+                    case "--notify":
+                        notifyThreshold = Integer.parseInt(args[++i]);
+                        break;
+                    case "--kick":
+                        kickThreshold = Integer.parseInt(args[++i]);
+                        break;
+                    case "--max":
+                        maxViolationPoints = Integer.parseInt(args[++i]);
+                        break;
+                    case "--tps":
+                        replay.tps = Double.parseDouble(args[++i]);
+                        break;
+                    case "--repeat":
+                        replay.repeat = Math.max(1, Integer.parseInt(args[++i]));
+                        break;
+                    case "--verbose":
+                        replay.verbose = true;
+                        break;
+                    case "--model":
+                        modelFile = new File(args[++i]);
+                        break;
+                    default:
+                        collectTraces(new File(args[i]), traces);
+                        break;
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+            traces.clear();
+        }
+
+        if (traces.isEmpty()) {
+            System.err.println("Usage: TraceReplay [--config config.yml] [--history n] [--notify n] [--kick n] [--max n] "
+                    + "[--tps n] [--repeat n] [--verbose] [--model file] <trace files or directories>");
+            System.exit(1);
+        }
+
+        try {
+            replay.configure(configFile, modelFile);
+        } catch (IOException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
+        if (historySize != null) {
+            replay.historySize = historySize;
+        }
+        if (notifyThreshold != null) {
+            replay.notifyThreshold = notifyThreshold;
+        }
+        if (kickThreshold != null) {
+            replay.kickThreshold = kickThreshold;
+        }
+        if (maxViolationPoints != null) {
+            replay.maxViolationPoints = maxViolationPoints;
+        }
+
+        long totalMoves = 0;
+        long totalNanos = 0;
+        for (File trace : traces) {
+            try {
+                Result result = replay.replay(trace);
+                totalMoves += result.moves;
+                totalNanos += result.nanos;
+            } catch (IOException e) {
+                System.err.println(trace.getName() + ": " + e.getMessage());
+            }
+        }
+
+        if (traces.size() > 1) {
+            replay.out.printf("Total: %d moves in %.1f ms (%.0f moves/s)%n",
+                    totalMoves, totalNanos / 1e6, movesPerSecond(totalMoves, totalNanos));
+        }
+    }
+
+    /**
+     * Takes the thresholds, detector settings and scoring model from a config.yml, or
+     * from the bundled one if none is given
+     *
+     * @param modelFile scoring model to use instead of the configured one, or null
+     */
+    private void configure(File configFile, File modelFile) throws IOException {
+        YamlConfiguration yaml = new YamlConfiguration();
+        try (Reader defaults = new InputStreamReader(openBundled(BUNDLED_CONFIG), StandardCharsets.UTF_8)) {
+            yaml.setDefaults(YamlConfiguration.loadConfiguration(defaults));
+            if (configFile != null) {
+                yaml.load(configFile);
+            }
+        } catch (InvalidConfigurationException e) {
+            throw new IOException("Could not read " + configFile + ": " + e.getMessage(), e);
+        }
+
+        config = new BaritoneDetectionConfig(yaml);
+        for (String warning : config.getWarnings()) {
+            System.err.println("config.yml: " + warning);
+        }
+        historySize = config.getPatternDetectionSampleSize();
+        notifyThreshold = config.getNotifyThreshold();
+        kickThreshold = config.getKickThreshold();
+        maxViolationPoints = config.getMaxViolationPoints();
+
+        // The configured model lives next to config.yml, as in the plugin folder
+        ScoringModel model = null;
+        if (modelFile != null) {
+            model = ScoringModel.load(modelFile);
+        } else if (config.isScoringEnabled()) {
+            File configured = new File(configFile != null ? configFile.getAbsoluteFile().getParentFile() : new File("."),
+                    config.getScoringModelFile());
+            if (configured.exists()) {
+                model = ScoringModel.load(configured);
+            } else {
+                try (InputStream in = openBundled(BUNDLED_SCORING_MODEL)) {
+                    model = ScoringModel.load(in);
+                }
+            }
+        }
+        if (model != null) {
+            model = model.withThresholds(config.getMovementSimilarityThreshold(),
+                    config.getAlgorithmicPathDetectionWeight(), config.getScoringReflagMoves());
+        }
+
+        detectors = new DetectorPipeline(null);
+        detectors.configure(config, model);
+    }
+
+    private static InputStream openBundled(String name) throws IOException {
+        InputStream in = TraceReplay.class.getResourceAsStream(name);
+        if (in == null) {
+            throw new IOException("Missing bundled " + name.substring(1));
+        }
+        return in;
+    }
+
+    private static void collectTraces(File file, List<File> traces) {
+        if (file.isDirectory()) {
+            File[] children = file.listFiles((dir, name) -> name.endsWith(MovementTraceRecorder.FILE_EXTENSION));
+            if (children != null) {
+                for (File child : children) {
+                    traces.add(child);
+                }
+            }
+        } else {
+            traces.add(file);
+        }
+    }
+
+    /**
+     * Replays a single trace, applying the same thresholds as the plugin
+     */
+    private Result replay(File file) throws IOException {
+        Result result = new Result();
+
+        for (int run = 0; run < repeat; run++) {
+            PlayerMovementData data = new PlayerMovementData(historySize, DetectionMetrics.DISABLED, detectors);
+            boolean report = run == 0;
+            String world = null;
+            long firstTimestamp = -1;
+
+            try (MovementTraceReader reader = new MovementTraceReader(file)) {
+                if (report) {
+                    out.println("== " + file.getName() + " (" + reader.getPlayerName() + ", " + reader.getPlayerId() + ")");
+                }
+
+                long start = System.nanoTime();
+                while (reader.next()) {
+                    if (firstTimestamp < 0) {
+                        firstTimestamp = reader.getTimestamp();
+                    }
+
+                    // Moves across worlds are never recorded, analysis simply continues in the new world
+                    if (report && verbose && !reader.getWorld().equals(world)) {
+                        world = reader.getWorld();
+                        out.println("  +" + (reader.getTimestamp() - firstTimestamp) + "ms entered world " + world);
+                    }
+
+                    result.moves++;
+
+                    // Traces hold every move event, filter them as the server would have
+                    MovePreFilter.Decision decision = MovePreFilter.classify(config, data,
+                            reader.getToX() - reader.getFromX(), reader.getToY() - reader.getFromY(),
+                            reader.getToZ() - reader.getFromZ(), 0, tps);
+                    if (decision == MovePreFilter.Decision.SKIP) {
+                        continue;
+                    }
+                    if (decision == MovePreFilter.Decision.ROTATION_ONLY) {
+                        data.addRotation(reader.getYaw(), reader.getPitch());
+                        continue;
+                    }
+
+                    data.addMovement(reader.getTimestamp(),
+                            reader.getFromX(), reader.getFromY(), reader.getFromZ(),
+                            reader.getToX(), reader.getToY(), reader.getToZ(),
+                            reader.getYaw(), reader.getPitch());
+
+                    if (decision == MovePreFilter.Decision.ANALYZE && data.checkForBaritonePatterns()) {
+                        data.incrementViolationLevel(maxViolationPoints);
+                        if (report) {
+                            result.flaggedMoves++;
+                            reportViolation(data, reader.getTimestamp() - firstTimestamp, result);
+                        }
+                    }
+                }
+                result.nanos += System.nanoTime() - start;
+            }
+        }
+
+        out.printf("  %d moves, %d flagged, %d notifications, %d kicks%n",
+                result.moves / repeat, result.flaggedMoves, result.notifications, result.kicks);
+        out.printf("  analysed in %.1f ms (%.0f moves/s, %.0f ns/move)%n",
+                result.nanos / 1e6, movesPerSecond(result.moves, result.nanos),
+                result.moves == 0 ? 0 : (double) result.nanos / result.moves);
+        return result;
+    }
+
+    /**
+     * Applies the plugin's action thresholds to a violation
+     */
+    private void reportViolation(PlayerMovementData data, long offset, Result result) {
+        int violationLevel = data.getViolationLevel();
+
+        if (violationLevel >= kickThreshold) {
+            result.kicks++;
+            out.println("  +" + offset + "ms KICK at violation level " + violationLevel);
+            data.resetViolationLevel();
+        } else if (violationLevel >= notifyThreshold) {
+            result.notifications++;
+            if (verbose || violationLevel == notifyThreshold) {
+                out.println("  +" + offset + "ms notify at violation level " + violationLevel);
+            }
+        }
+    }
+
+    private static double movesPerSecond(long moves, long nanos) {
+        return nanos == 0 ? 0 : moves * 1e9 / nanos;
+    }
+
+    /**
+     * Counters collected while replaying a trace
+     */
+    private static class Result {
+        private long moves;
+        private long nanos;
+        private int flaggedMoves;
+        private int notifications;
+        private int kicks;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,102 @@
+package com.nobaritone.plugin;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decays violation levels over time. Every player holding violation points has one
+ * timeout in a shared {@link TimingWheel}; a point is removed once the player has gone
+ * violation-decay-minutes without a new violation, and again every period after that
+ * until the level reaches zero. A single repeating task drives the wheel, so each run
+ * only costs the timeouts that actually expire.
+ */
+public class ViolationDecayScheduler implements Runnable {
+    // The wheel ticks once per second
+    private static final long TICK_MILLIS = 1000;
+
+    private final NoBaritone plugin;
+    private final TimingWheel<PlayerMovementData> wheel;
+
+    public ViolationDecayScheduler(NoBaritone plugin) {
+        this.plugin = plugin;
+        this.wheel = new TimingWheel<>(currentTick(), this::decay);
+    }
+
+    /**
+     * Advances the wheel to the current time. Must run on the server thread.
+     */
+    @Override
+    public void run() {
+        wheel.advanceTo(currentTick());
+    }
+
+    /**
+     * (Re)starts the decay countdown after the player received a violation
+     */
+    public void onViolation(PlayerMovementData data) {
+        long period = getDecayPeriodTicks();
+        if (period <= 0) {
+            return;
+        }
+
+        wheel.schedule(getTimeout(data), currentTick() + period);
+    }
+
+    /**
+     * Continues the decay of restored violations, removing the next point at the given time
+     */
+    public void resume(PlayerMovementData data, long nextDecayMillis) {
+        long period = getDecayPeriodTicks();
+        if (period <= 0 || data.getViolationLevel() == 0) {
+            return;
+        }
+
+        wheel.schedule(getTimeout(data), Math.max(currentTick() + 1, nextDecayMillis / TICK_MILLIS));
+    }
+
+    /**
+     * Stops decaying a player that is no longer tracked
+     */
+    public void cancel(PlayerMovementData data) {
+        TimingWheel.Timeout<PlayerMovementData> timeout = data.getDecayTimeout();
+        if (timeout != null) {
+            wheel.cancel(timeout);
+        }
+    }
+
+    /**
+     * Removes a point from an expired player and schedules the next decay step
+     */
+    private void decay(TimingWheel.Timeout<PlayerMovementData> timeout) {
+        PlayerMovementData data = timeout.getPayload();
+        int remaining = data.decayViolationLevel(1, plugin.getBaritoneConfig().getMaxViolationPoints());
+
+        long period = getDecayPeriodTicks();
+        if (remaining > 0 && period > 0) {
+            wheel.schedule(timeout, timeout.getDeadline() + period);
+        }
+    }
+
+    private TimingWheel.Timeout<PlayerMovementData> getTimeout(PlayerMovementData data) {
+        TimingWheel.Timeout<PlayerMovementData> timeout = data.getDecayTimeout();
+        if (timeout == null) {
+            timeout = new TimingWheel.Timeout<>(data);
+            data.setDecayTimeout(timeout);
+        }
+        return timeout;
+    }
+
+    private long getDecayPeriodTicks() {
+        return TimeUnit.MINUTES.toMillis(plugin.getBaritoneConfig().getViolationDecayMinutes()) / TICK_MILLIS;
+    }
+
+    private static long currentTick() {
+        return System.currentTimeMillis() / TICK_MILLIS;
+    }
+
+    /**
+     * Gets the number of players with a pending decay
+     */
+    public int size() {
+        return wheel.size();
+    }
+}
\ No newline at end of file
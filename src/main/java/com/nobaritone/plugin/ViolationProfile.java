@@ -0,0 +1,90 @@
+package com.nobaritone.plugin;
+
+import java.util.UUID;
+
+/**
+ * What is remembered about a player across sessions: their violation level with the
+ * times its decay is measured from, and a few lifetime statistics. Instances are
+ * immutable and safe to hand between threads.
+ */
+public final class ViolationProfile {
+    private final UUID playerId;
+    private final int violationLevel;
+    private final long lastViolationTime;
+    private final long lastDecayTime;
+    private final int totalFlags;
+    private final int kicks;
+    private final int sessions;
+    private final long firstSeen;
+    private final long lastSeen;
+
+    public ViolationProfile(UUID playerId, int violationLevel, long lastViolationTime, long lastDecayTime,
+                            int totalFlags, int kicks, int sessions, long firstSeen, long lastSeen) {
+        this.playerId = playerId;
+        this.violationLevel = violationLevel;
+        this.lastViolationTime = lastViolationTime;
+        this.lastDecayTime = lastDecayTime;
+        this.totalFlags = totalFlags;
+        this.kicks = kicks;
+        this.sessions = sessions;
+        this.firstSeen = firstSeen;
+        this.lastSeen = lastSeen;
+    }
+
+    /**
+     * Creates the profile of a player that has never been seen
+     */
+    public static ViolationProfile empty(UUID playerId) {
+        return new ViolationProfile(playerId, 0, 0, 0, 0, 0, 0, 0, 0);
+    }
+
+    /**
+     * Gets the profile with a new session starting at the given time
+     */
+    public ViolationProfile startSession(long now) {
+        return new ViolationProfile(playerId, violationLevel, lastViolationTime, lastDecayTime,
+                totalFlags, kicks, sessions + 1, firstSeen == 0 ? now : firstSeen, now);
+    }
+
+    public UUID getPlayerId() {
+        return playerId;
+    }
+
+    public int getViolationLevel() {
+        return violationLevel;
+    }
+
+    public long getLastViolationTime() {
+        return lastViolationTime;
+    }
+
+    /**
+     * Gets the time a point last decayed, 0 if none has since the profile was created
+     */
+    public long getLastDecayTime() {
+        return lastDecayTime;
+    }
+
+    /**
+     * Gets the number of times the player was flagged over all sessions
+     */
+    public int getTotalFlags() {
+        return totalFlags;
+    }
+
+    public int getKicks() {
+        return kicks;
+    }
+
+    public int getSessions() {
+        return sessions;
+    }
+
+    public long getFirstSeen() {
+        return firstSeen;
+    }
+
+    public long getLastSeen() {
+        return lastSeen;
+    }
+}
@@ -0,0 +1,345 @@
+package com.nobaritone.plugin;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+/**
+ * Shares violation levels between the servers of a network, so a player cannot shed
+ * points by moving to another server. Every server keeps the newest known violations of
+ * each player as a versioned {@link State}. A server that sees a player's violations
+ * change gives them a version above every version it knows for the player, and the
+ * changes are published in batches through a {@link ViolationSyncTransport}. A received
+ * state only replaces the known one if its version is higher, ties going to the higher
+ * node id. So servers end up agreeing whatever order messages arrive in, and duplicates
+ * and stale messages are ignored.
+ *
+ * Versions are millisecond timestamps bumped past the last known version, so a server
+ * that forgot a player still publishes versions newer than the ones it forgot. Received
+ * versions further ahead of this server's clock than {@link #MAX_CLOCK_SKEW_MILLIS} are
+ * rejected, as they would shadow every later change. Every message is authenticated with
+ * a secret shared by all servers.
+ *
+ * Messages may be received on any thread; everything else must run on the server thread.
+ */
+public class ViolationSync {
+    private static final short MAGIC = 0x4E53; // NS
+    private static final byte FORMAT = 1;
+    // Magic, format, origin node, record count
+    private static final int HEADER_SIZE = 2 + 1 + 8 + 2;
+    // Player id, version, violation level, last violation, last decay, last change
+    private static final int RECORD_SIZE = 16 + 8 + 4 + 8 + 8 + 8;
+    // Truncated HMAC-SHA256 of the message
+    private static final int MAC_SIZE = 16;
+    // Received messages waiting to be merged; further messages are dropped
+    private static final int MAX_INBOUND = 1024;
+
+    /**
+     * How far a received version may be ahead of this server's clock
+     */
+    public static final long MAX_CLOCK_SKEW_MILLIS = 60_000;
+
+    private final ViolationSyncTransport transport;
+    private final SecretKeySpec key;
+    private final long stateExpiryMillis;
+    private final long nodeId = new SecureRandom().nextLong();
+
+    private final Map<UUID, State> states = new HashMap<>();
+    private final Map<UUID, State> outbound = new LinkedHashMap<>();
+    private final Queue<byte[]> inbound = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger inboundSize = new AtomicInteger();
+
+    private long publishedUpdates = 0;
+    private long mergedUpdates = 0;
+    private long staleUpdates = 0;
+    private long rejectedUpdates = 0;
+    private final AtomicLong droppedMessages = new AtomicLong();
+
+    /**
+     * @param secret shared secret authenticating messages
+     * @param stateExpiryMillis how long the violations of a player are kept after their last change
+     */
+    public ViolationSync(ViolationSyncTransport transport, String secret, long stateExpiryMillis) {
+        if (secret.isEmpty()) {
+            throw new IllegalArgumentException("The violation sync needs a secret");
+        }
+
+        this.transport = transport;
+        this.key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
+        this.stateExpiryMillis = stateExpiryMillis;
+    }
+
+    /**
+     * Starts receiving and sending messages
+     *
+     * @throws IOException if the transport cannot be started
+     */
+    public void start() throws IOException {
+        transport.start(this::receive);
+    }
+
+    /**
+     * Publishes the changes not sent yet and stops the transport
+     */
+    public void stop() {
+        publish();
+        transport.stop();
+    }
+
+    /**
+     * Queues a received message for merging. Safe to call from any thread.
+     */
+    public void receive(byte[] message) {
+        if (inboundSize.incrementAndGet() > MAX_INBOUND) {
+            inboundSize.decrementAndGet();
+            droppedMessages.incrementAndGet();
+            return;
+        }
+        inbound.add(message);
+    }
+
+    /**
+     * Records the current violations of a player on this server, publishing them with the
+     * next batch if they changed. Players without violations that are not known to the
+     * network are left out.
+     */
+    public void update(UUID playerId, int level, long lastViolationTime, long lastDecayTime, long now) {
+        State current = states.get(playerId);
+        if (current == null ? level == 0 : current.matches(level, lastViolationTime, lastDecayTime)) {
+            return;
+        }
+
+        long version = current == null ? now : Math.max(now, current.version + 1);
+        State state = new State(version, nodeId, level, lastViolationTime, lastDecayTime, now);
+        states.put(playerId, state);
+        outbound.put(playerId, state);
+    }
+
+    /**
+     * Merges the received messages, publishes the local changes and forgets expired states
+     *
+     * @param onRemoteUpdate gets every state received from another server that replaced the known one
+     */
+    public void run(long now, BiConsumer<UUID, State> onRemoteUpdate) {
+        byte[] message;
+        while ((message = inbound.poll()) != null) {
+            inboundSize.decrementAndGet();
+            merge(message, now, onRemoteUpdate);
+        }
+
+        publish();
+
+        Iterator<State> iterator = states.values().iterator();
+        while (iterator.hasNext()) {
+            if (now - iterator.next().changedAt > stateExpiryMillis) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Gets the newest known violations of a player, or null if none are known
+     */
+    public State getState(UUID playerId) {
+        return states.get(playerId);
+    }
+
+    private void merge(byte[] message, long now, BiConsumer<UUID, State> onRemoteUpdate) {
+        ByteBuffer buffer = ByteBuffer.wrap(message);
+        if (message.length < HEADER_SIZE + MAC_SIZE || buffer.getShort(0) != MAGIC || buffer.get(2) != FORMAT) {
+            droppedMessages.incrementAndGet();
+            return;
+        }
+
+        int count = buffer.getShort(11) & 0xFFFF;
+        int length = HEADER_SIZE + count * RECORD_SIZE;
+        if (message.length != length + MAC_SIZE
+                || !MessageDigest.isEqual(mac(message, length), Arrays.copyOfRange(message, length, message.length))) {
+            droppedMessages.incrementAndGet();
+            return;
+        }
+
+        long origin = buffer.getLong(3);
+        if (origin == nodeId) {
+            return;
+        }
+
+        for (int i = 0; i < count; i++) {
+            int offset = HEADER_SIZE + i * RECORD_SIZE;
+            UUID playerId = new UUID(buffer.getLong(offset), buffer.getLong(offset + 8));
+            State incoming = new State(buffer.getLong(offset + 16), origin, Math.max(0, buffer.getInt(offset + 24)),
+                    buffer.getLong(offset + 28), buffer.getLong(offset + 36), buffer.getLong(offset + 44));
+
+            if (incoming.version - now > MAX_CLOCK_SKEW_MILLIS) {
+                rejectedUpdates++;
+                continue;
+            }
+
+            State current = states.get(playerId);
+            if (current != null && !incoming.isNewerThan(current)) {
+                staleUpdates++;
+                continue;
+            }
+
+            states.put(playerId, incoming);
+            mergedUpdates++;
+            onRemoteUpdate.accept(playerId, incoming);
+        }
+    }
+
+    /**
+     * Sends the changed states in as few messages as the transport allows
+     */
+    private void publish() {
+        if (outbound.isEmpty()) {
+            return;
+        }
+
+        int perMessage = Math.max(1, Math.min(0xFFFF, (transport.getMaxMessageSize() - HEADER_SIZE - MAC_SIZE) / RECORD_SIZE));
+        List<Map.Entry<UUID, State>> changes = new ArrayList<>(outbound.entrySet());
+        outbound.clear();
+
+        for (int first = 0; first < changes.size(); first += perMessage) {
+            int count = Math.min(perMessage, changes.size() - first);
+            int length = HEADER_SIZE + count * RECORD_SIZE;
+            ByteBuffer buffer = ByteBuffer.allocate(length + MAC_SIZE);
+            buffer.putShort(MAGIC).put(FORMAT).putLong(nodeId).putShort((short) count);
+
+            for (int i = first; i < first + count; i++) {
+                UUID playerId = changes.get(i).getKey();
+                State state = changes.get(i).getValue();
+                buffer.putLong(playerId.getMostSignificantBits()).putLong(playerId.getLeastSignificantBits());
+                buffer.putLong(state.version).putInt(state.level);
+                buffer.putLong(state.lastViolationTime).putLong(state.lastDecayTime).putLong(state.changedAt);
+            }
+            buffer.put(mac(buffer.array(), length));
+
+            transport.publish(buffer.array());
+        }
+        publishedUpdates += changes.size();
+    }
+
+    private byte[] mac(byte[] message, int length) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(key);
+            mac.update(message, 0, length);
+            byte[] full = mac.doFinal();
+            byte[] truncated = new byte[MAC_SIZE];
+            System.arraycopy(full, 0, truncated, 0, MAC_SIZE);
+            return truncated;
+        } catch (GeneralSecurityException e) {
+            // HmacSHA256 is available on every Java platform
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Gets the name of the transport in use
+     */
+    public String getTransportName() {
+        return transport.getName();
+    }
+
+    /**
+     * Gets the number of players whose violations are known
+     */
+    public int size() {
+        return states.size();
+    }
+
+    public long getPublishedUpdates() {
+        return publishedUpdates;
+    }
+
+    public long getMergedUpdates() {
+        return mergedUpdates;
+    }
+
+    /**
+     * Gets the number of received updates ignored because a newer state was known
+     */
+    public long getStaleUpdates() {
+        return staleUpdates;
+    }
+
+    /**
+     * Gets the number of received updates ignored because their version was too far ahead of this server's clock
+     */
+    public long getRejectedUpdates() {
+        return rejectedUpdates;
+    }
+
+    /**
+     * Gets the number of messages dropped as malformed, unauthenticated or over the queue limit
+     */
+    public long getDroppedMessages() {
+        return droppedMessages.get();
+    }
+
+    /**
+     * Violations of a player as last changed on some server
+     */
+    public static final class State {
+        private final long version;
+        private final long origin;
+        private final int level;
+        private final long lastViolationTime;
+        private final long lastDecayTime;
+        private final long changedAt;
+
+        State(long version, long origin, int level, long lastViolationTime, long lastDecayTime, long changedAt) {
+            this.version = version;
+            this.origin = origin;
+            this.level = level;
+            this.lastViolationTime = lastViolationTime;
+            this.lastDecayTime = lastDecayTime;
+            this.changedAt = changedAt;
+        }
+
+        boolean isNewerThan(State other) {
+            return version > other.version || (version == other.version && origin > other.origin);
+        }
+
+        boolean matches(int level, long lastViolationTime, long lastDecayTime) {
+            return this.level == level && this.lastViolationTime == lastViolationTime && this.lastDecayTime == lastDecayTime;
+        }
+
+        public int getLevel() {
+            return level;
+        }
+
+        public long getLastViolationTime() {
+            return lastViolationTime;
+        }
+
+        public long getLastDecayTime() {
+            return lastDecayTime;
+        }
+
+        /**
+         * Gets the time the violations changed on the server they changed on
+         */
+        public long getChangedAt() {
+            return changedAt;
+        }
+    }
+}
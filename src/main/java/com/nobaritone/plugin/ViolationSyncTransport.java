@@ -0,0 +1,38 @@
+package com.nobaritone.plugin;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+
+/**
+ * Carries {@link ViolationSync} messages between the servers of a network. Delivery is
+ * best effort: a lost message is made up for by the next change of the same player.
+ */
+public interface ViolationSyncTransport {
+    /**
+     * Starts the transport
+     *
+     * @param receiver gets every message received from another server, on any thread
+     * @throws IOException if the transport cannot be set up
+     */
+    void start(Consumer<byte[]> receiver) throws IOException;
+
+    /**
+     * Sends a message to every other server. Called on the server thread.
+     */
+    void publish(byte[] message);
+
+    /**
+     * Stops sending and receiving messages
+     */
+    void stop();
+
+    /**
+     * Gets the size of the largest message the transport carries, in bytes
+     */
+    int getMaxMessageSize();
+
+    /**
+     * Gets the name of the transport as used in config.yml
+     */
+    String getName();
+}
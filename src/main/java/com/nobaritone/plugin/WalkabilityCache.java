@@ -0,0 +1,324 @@
+package com.nobaritone.plugin;
+
+import org.bukkit.Chunk;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockFace;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.block.BlockBurnEvent;
+import org.bukkit.event.block.BlockExplodeEvent;
+import org.bukkit.event.block.BlockFadeEvent;
+import org.bukkit.event.block.BlockFormEvent;
+import org.bukkit.event.block.BlockFromToEvent;
+import org.bukkit.event.block.BlockPistonExtendEvent;
+import org.bukkit.event.block.BlockPistonRetractEvent;
+import org.bukkit.event.block.BlockPlaceEvent;
+import org.bukkit.event.entity.EntityExplodeEvent;
+import org.bukkit.event.world.ChunkUnloadEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Cached view of which blocks a player can stand in. Terrain is read from the world one
+ * 16x16x16 section at a time and kept as two bitsets per section (solid to stand on,
+ * passable to stand in), so route searches test a block with a shift and a mask instead
+ * of going through the Bukkit block API. Sections are dropped when a block in them
+ * changes or their chunk unloads, and the least recently used ones are evicted beyond
+ * the configured cap. Never loads chunks. Must be used from the server thread.
+ */
+public class WalkabilityCache implements Listener {
+    private static final int SECTION_WORDS = 16 * 16 * 16 / 64;
+    private static final int RECENT_SLOTS = 4;
+
+    private final Map<UUID, Map<Long, Section>> worlds = new HashMap<>();
+    private final int maxSectionsPerWorld;
+
+    // Sections of recent lookups, one slot per section height modulo 4, since a
+    // walkability test spans neighbouring heights and searches mostly stay near them
+    private final long[] recentKeys = new long[RECENT_SLOTS];
+    private final Section[] recentSections = new Section[RECENT_SLOTS];
+    private World recentWorld;
+
+    private long sectionLoads = 0;
+
+    public WalkabilityCache(int maxSectionsPerWorld) {
+        this.maxSectionsPerWorld = Math.max(128, maxSectionsPerWorld);
+    }
+
+    /**
+     * Checks whether a player could stand with their feet in the given block: solid
+     * ground below and room for their body. Blocks in sections that are not cached yet
+     * count as not walkable.
+     */
+    public boolean isWalkable(World world, int x, int y, int z) {
+        return isSolid(world, x, y - 1, z) && isPassable(world, x, y, z) && isPassable(world, x, y + 1, z);
+    }
+
+    /**
+     * Checks whether a player can stand on the given block
+     */
+    public boolean isSolid(World world, int x, int y, int z) {
+        Section section = getCached(world, x, y, z);
+        return section != null && section.test(section.solid, x, y, z);
+    }
+
+    /**
+     * Checks whether a player's body fits into the given block. Liquids do not count, so
+     * searched routes never swim.
+     */
+    public boolean isPassable(World world, int x, int y, int z) {
+        Section section = getCached(world, x, y, z);
+        return section != null && section.test(section.passable, x, y, z);
+    }
+
+    /**
+     * Reads every section of the box into the cache, stopping once the deadline passes
+     *
+     * @return true if the whole box is cached
+     */
+    public boolean prefetch(World world, int minX, int minY, int minZ, int maxX, int maxY, int maxZ, long deadlineNanos) {
+        minY = Math.max(0, minY);
+        maxY = Math.min(world.getMaxHeight() - 1, maxY);
+
+        Map<Long, Section> sections = getSections(world);
+        for (int chunkX = minX >> 4; chunkX <= maxX >> 4; chunkX++) {
+            for (int chunkZ = minZ >> 4; chunkZ <= maxZ >> 4; chunkZ++) {
+                if (!world.isChunkLoaded(chunkX, chunkZ)) {
+                    continue;
+                }
+
+                for (int sectionY = minY >> 4; sectionY <= maxY >> 4; sectionY++) {
+                    long key = key(chunkX, sectionY, chunkZ);
+                    if (sections.containsKey(key)) {
+                        continue;
+                    }
+                    if (System.nanoTime() - deadlineNanos > 0) {
+                        return false;
+                    }
+                    sections.put(key, load(world, chunkX, sectionY, chunkZ));
+                }
+            }
+        }
+        return true;
+    }
+
+    private Section getCached(World world, int x, int y, int z) {
+        if (y < 0) {
+            return null;
+        }
+
+        long key = key(x >> 4, y >> 4, z >> 4);
+        int slot = (y >> 4) & (RECENT_SLOTS - 1);
+        if (world != recentWorld) {
+            forgetRecent();
+            recentWorld = world;
+        } else if (recentKeys[slot] == key && recentSections[slot] != null) {
+            return recentSections[slot];
+        }
+
+        Map<Long, Section> sections = worlds.get(world.getUID());
+        Section section = sections == null ? null : sections.get(key);
+        recentKeys[slot] = key;
+        recentSections[slot] = section;
+        return section;
+    }
+
+    private void forgetRecent() {
+        Arrays.fill(recentSections, null);
+    }
+
+    private Section load(World world, int chunkX, int sectionY, int chunkZ) {
+        Section section = new Section();
+        int baseX = chunkX << 4;
+        int baseY = sectionY << 4;
+        int baseZ = chunkZ << 4;
+
+        for (int y = 0; y < 16; y++) {
+            for (int z = 0; z < 16; z++) {
+                for (int x = 0; x < 16; x++) {
+                    Block block = world.getBlockAt(baseX + x, baseY + y, baseZ + z);
+                    int bit = (y << 8) | (z << 4) | x;
+                    if (block.getType().isSolid()) {
+                        section.solid[bit >> 6] |= 1L << bit;
+                    }
+                    if (block.isPassable() && !block.isLiquid()) {
+                        section.passable[bit >> 6] |= 1L << bit;
+                    }
+                }
+            }
+        }
+
+        sectionLoads++;
+        return section;
+    }
+
+    private Map<Long, Section> getSections(World world) {
+        return worlds.computeIfAbsent(world.getUID(), id -> new LinkedHashMap<Long, Section>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Section> eldest) {
+                if (size() <= maxSectionsPerWorld) {
+                    return false;
+                }
+                // The evicted section may still sit in a recent slot
+                forgetRecent();
+                return true;
+            }
+        });
+    }
+
+    /**
+     * Drops the cached section holding a block
+     */
+    public void invalidate(World world, int x, int y, int z) {
+        Map<Long, Section> sections = worlds.get(world.getUID());
+        if (sections != null && sections.remove(key(x >> 4, y >> 4, z >> 4)) != null) {
+            forgetRecent();
+        }
+    }
+
+    private void invalidate(Block block) {
+        invalidate(block.getWorld(), block.getX(), block.getY(), block.getZ());
+    }
+
+    private void invalidateMoved(List<Block> blocks, BlockFace direction) {
+        for (Block block : blocks) {
+            invalidate(block);
+            invalidate(block.getWorld(), block.getX() + direction.getModX(),
+                    block.getY() + direction.getModY(), block.getZ() + direction.getModZ());
+        }
+    }
+
+    /**
+     * Clears the whole cache
+     */
+    public void clear() {
+        worlds.clear();
+        forgetRecent();
+    }
+
+    /**
+     * Gets the number of cached sections across all worlds
+     */
+    public int size() {
+        int size = 0;
+        for (Map<Long, Section> sections : worlds.values()) {
+            size += sections.size();
+        }
+        return size;
+    }
+
+    /**
+     * Gets the number of sections read from the world so far
+     */
+    public long getSectionLoads() {
+        return sectionLoads;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockBreak(BlockBreakEvent event) {
+        invalidate(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockPlace(BlockPlaceEvent event) {
+        invalidate(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockBurn(BlockBurnEvent event) {
+        invalidate(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockFade(BlockFadeEvent event) {
+        invalidate(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockForm(BlockFormEvent event) {
+        invalidate(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockFromTo(BlockFromToEvent event) {
+        invalidate(event.getToBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockExplode(BlockExplodeEvent event) {
+        invalidate(event.getBlock());
+        for (Block block : event.blockList()) {
+            invalidate(block);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEntityExplode(EntityExplodeEvent event) {
+        for (Block block : event.blockList()) {
+            invalidate(block);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPistonExtend(BlockPistonExtendEvent event) {
+        invalidate(event.getBlock());
+        invalidateMoved(event.getBlocks(), event.getDirection());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPistonRetract(BlockPistonRetractEvent event) {
+        invalidate(event.getBlock());
+        invalidateMoved(event.getBlocks(), event.getDirection());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkUnload(ChunkUnloadEvent event) {
+        Chunk chunk = event.getChunk();
+        Map<Long, Section> sections = worlds.get(chunk.getWorld().getUID());
+        if (sections == null) {
+            return;
+        }
+
+        int sectionCount = (chunk.getWorld().getMaxHeight() + 15) >> 4;
+        for (int sectionY = 0; sectionY < sectionCount; sectionY++) {
+            sections.remove(key(chunk.getX(), sectionY, chunk.getZ()));
+        }
+        forgetRecent();
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onWorldUnload(WorldUnloadEvent event) {
+        worlds.remove(event.getWorld().getUID());
+        forgetRecent();
+        recentWorld = null;
+    }
+
+    /**
+     * Packs section coordinates into a key: 22 bits for each chunk coordinate, 8 for the section
+     */
+    private static long key(int chunkX, int sectionY, int chunkZ) {
+        return ((chunkX & 0x3FFFFFL) << 30) | ((chunkZ & 0x3FFFFFL) << 8) | (sectionY & 0xFFL);
+    }
+
+    /**
+     * Bitsets of one 16x16x16 section, indexed by y, z and x
+     */
+    private static class Section {
+        private final long[] solid = new long[SECTION_WORDS];
+        private final long[] passable = new long[SECTION_WORDS];
+
+        boolean test(long[] bits, int x, int y, int z) {
+            int bit = ((y & 15) << 8) | ((z & 15) << 4) | (x & 15);
+            return (bits[bit >> 6] & (1L << bit)) != 0;
+        }
+    }
+}
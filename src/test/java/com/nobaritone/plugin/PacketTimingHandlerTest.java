@@ -0,0 +1,182 @@
+package com.nobaritone.plugin;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.MessageToMessageDecoder;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class PacketTimingHandlerTest {
+    private static final byte POSITION = 1;
+    private static final byte ROTATION = 2;
+    private static final byte CHAT = 3;
+
+    private final UUID playerId = UUID.randomUUID();
+    private PacketTimingInjector injector;
+    private EmbeddedChannel channel;
+    private List<Object> handled;
+
+    @Before
+    public void setUp() {
+        injector = new PacketTimingInjector(Logger.getLogger("PacketTimingHandlerTest"));
+        handled = new ArrayList<>();
+
+        // Mimics the server pipeline: bytes are decoded into packets handed to the packet handler
+        channel = new EmbeddedChannel();
+        channel.pipeline().addLast("decoder", new FakeDecoder());
+        channel.pipeline().addLast(PacketTimingInjector.PACKET_HANDLER, new ChannelInboundHandlerAdapter() {
+            @Override
+            public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                handled.add(msg);
+            }
+        });
+    }
+
+    @Test
+    public void handlerSitsBetweenDecoderAndPacketHandler() {
+        injector.inject(playerId, channel);
+        channel.runPendingTasks();
+
+        List<String> names = channel.pipeline().names();
+        int decoder = names.indexOf("decoder");
+        int timing = names.indexOf(PacketTimingHandler.NAME);
+        int packetHandler = names.indexOf(PacketTimingInjector.PACKET_HANDLER);
+        assertTrue("timing handler missing", timing >= 0);
+        assertTrue("timing handler must see decoded packets", decoder < timing);
+        assertTrue("timing handler must run before the packet handler", timing < packetHandler);
+    }
+
+    @Test
+    public void recordsDecodedMovementPacketsAndPassesEverythingOnInOrder() {
+        injector.inject(playerId, channel);
+        channel.runPendingTasks();
+
+        channel.writeInbound(Unpooled.wrappedBuffer(new byte[] {POSITION, CHAT, ROTATION, POSITION}));
+
+        assertEquals(4, handled.size());
+        assertTrue(handled.get(0) instanceof PacketPlayInPosition);
+        assertTrue(handled.get(1) instanceof PacketPlayInChat);
+        assertTrue(handled.get(2) instanceof PacketPlayInLook);
+        assertTrue(handled.get(3) instanceof PacketPlayInPosition);
+        assertEquals(3, injector.getArrivals(playerId).getRecordedArrivals());
+    }
+
+    @Test
+    public void recognisesMojangPacketNames() {
+        assertTrue(PacketTimingHandler.isMovementPacket(ServerboundMovePlayerPacket.Pos.class));
+        assertTrue(PacketTimingHandler.isMovementPacket(ServerboundMovePlayerPacket.PosRot.class));
+        assertTrue(PacketTimingHandler.isMovementPacket(ServerboundMovePlayerPacket.Rot.class));
+        assertFalse(PacketTimingHandler.isMovementPacket(ServerboundMovePlayerPacket.StatusOnly.class));
+        assertFalse(PacketTimingHandler.isMovementPacket(PacketPlayInChat.class));
+    }
+
+    @Test
+    public void overflowKeepsNewestArrivalsAndCountsLostOnes() {
+        injector.inject(playerId, channel);
+        channel.runPendingTasks();
+        PacketArrivalBuffer arrivals = injector.getArrivals(playerId);
+        int capacity = arrivals.capacity();
+
+        int sent = capacity * 2 + 5;
+        byte[] packets = new byte[sent];
+        Arrays.fill(packets, POSITION);
+        channel.writeInbound(Unpooled.wrappedBuffer(packets));
+        assertEquals(sent, handled.size());
+
+        RollingIntervalStats stats = new RollingIntervalStats(sent, 10);
+        int drained = arrivals.drainTo(stats, new TickJitterStats(sent, 50_000, 500));
+        assertEquals(capacity, drained);
+        assertEquals(sent - capacity, arrivals.getLostArrivals());
+        assertEquals(0, arrivals.drainTo(stats, new TickJitterStats(sent, 50_000, 500)));
+    }
+
+    @Test
+    public void uninjectRemovesHandlerAndStopsRecording() {
+        injector.inject(playerId, channel);
+        channel.runPendingTasks();
+        PacketArrivalBuffer arrivals = injector.getArrivals(playerId);
+        assertNotNull(arrivals);
+
+        injector.uninject(playerId);
+        channel.runPendingTasks();
+
+        assertNull(channel.pipeline().get(PacketTimingHandler.NAME));
+        assertNull(injector.getArrivals(playerId));
+        assertEquals(0, injector.size());
+
+        channel.writeInbound(Unpooled.wrappedBuffer(new byte[] {POSITION, ROTATION}));
+        assertEquals(2, handled.size());
+        assertEquals(0, arrivals.getRecordedArrivals());
+    }
+
+    @Test
+    public void reinjectingReplacesHandler() {
+        injector.inject(playerId, channel);
+        channel.runPendingTasks();
+        PacketArrivalBuffer first = injector.getArrivals(playerId);
+
+        injector.inject(playerId, channel);
+        channel.runPendingTasks();
+        PacketArrivalBuffer second = injector.getArrivals(playerId);
+
+        channel.writeInbound(Unpooled.wrappedBuffer(new byte[] {POSITION}));
+        assertEquals(1, channel.pipeline().names().stream().filter(PacketTimingHandler.NAME::equals).count());
+        assertEquals(0, first.getRecordedArrivals());
+        assertEquals(1, second.getRecordedArrivals());
+        assertSame(second, injector.getArrivals(playerId));
+    }
+
+    /**
+     * Turns every byte into a packet of the type it stands for
+     */
+    private static class FakeDecoder extends MessageToMessageDecoder<ByteBuf> {
+        @Override
+        protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) {
+            while (in.isReadable()) {
+                byte type = in.readByte();
+                out.add(type == POSITION ? new PacketPlayInPosition()
+                        : type == ROTATION ? new PacketPlayInLook() : new PacketPlayInChat());
+            }
+        }
+    }
+
+    // Packet classes named like the server's, which the handler recognises by name
+    private static class PacketPlayInPosition {
+    }
+
+    private static class PacketPlayInLook {
+    }
+
+    private static class PacketPlayInChat {
+    }
+
+    private static class ServerboundMovePlayerPacket {
+        private static class Pos {
+        }
+
+        private static class PosRot {
+        }
+
+        private static class Rot {
+        }
+
+        private static class StatusOnly {
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.nobaritone.plugin;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ProfileStoreTest {
+    private static final Logger LOGGER = Logger.getLogger(ProfileStoreTest.class.getName());
+    private static final long NOW = 1_600_000_000_000L;
+    private static final int HEADER_SIZE = 8;
+    private static final int RECORD_SIZE = 68;
+    // Enough players that three saves each outgrow the compaction threshold
+    private static final int COMPACT_PLAYERS = 6000;
+    private static final long WRITE_TIMEOUT_MS = 10_000;
+
+    private final List<ProfileStore> stores = new ArrayList<>();
+    private File directory;
+    private File logFile;
+    private File indexFile;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("profiles").toFile();
+        logFile = new File(directory, "profiles.dat");
+        indexFile = new File(directory, "profiles.idx");
+    }
+
+    @After
+    public void tearDown() {
+        for (ProfileStore store : stores) {
+            store.shutdown();
+        }
+        delete(directory);
+    }
+
+    private ProfileStore open() throws IOException {
+        ProfileStore store = new ProfileStore(LOGGER, directory);
+        store.open();
+        stores.add(store);
+        return store;
+    }
+
+    private static ViolationProfile profile(UUID playerId, int level) {
+        return new ViolationProfile(playerId, level, NOW, NOW, level, 0, 1, NOW, NOW);
+    }
+
+    /**
+     * Wakes the writer until it has written the given number of profiles since the store was opened
+     */
+    private static void awaitWritten(ProfileStore store, long written) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + WRITE_TIMEOUT_MS;
+        while (store.getWrittenProfiles() < written) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("wrote " + store.getWrittenProfiles() + " of " + written + " profiles");
+            }
+            store.flush();
+            Thread.sleep(1);
+        }
+    }
+
+    @Test
+    public void tornTailRecordIsTruncated() throws Exception {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        ProfileStore store = open();
+        store.save(profile(first, 3));
+        store.save(profile(second, 5));
+        store.shutdown();
+
+        // A crash in the middle of appending a record
+        try (RandomAccessFile file = new RandomAccessFile(logFile, "rw")) {
+            file.seek(file.length());
+            file.write(new byte[RECORD_SIZE / 2]);
+        }
+
+        store = open();
+        assertEquals(HEADER_SIZE + 2L * RECORD_SIZE, logFile.length());
+        assertEquals(3, store.load(first).getViolationLevel());
+        assertEquals(5, store.load(second).getViolationLevel());
+
+        // Records appended after the truncation line up again
+        UUID third = UUID.randomUUID();
+        store.save(profile(third, 7));
+        store.shutdown();
+        store = open();
+        assertEquals(3, store.size());
+        assertEquals(7, store.load(third).getViolationLevel());
+    }
+
+    @Test
+    public void corruptTailRecordIsDropped() throws Exception {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        ProfileStore store = open();
+        store.save(profile(first, 3));
+        awaitWritten(store, 1);
+        store.save(profile(second, 5));
+        store.shutdown();
+
+        // Flip a byte of the last record and replay the whole log
+        try (RandomAccessFile file = new RandomAccessFile(logFile, "rw")) {
+            long position = HEADER_SIZE + RECORD_SIZE + 17;
+            file.seek(position);
+            int value = file.read();
+            file.seek(position);
+            file.write(value ^ 0x40);
+        }
+        assertTrue(indexFile.delete());
+
+        store = open();
+        assertEquals(HEADER_SIZE + (long) RECORD_SIZE, logFile.length());
+        assertEquals(1, store.size());
+        assertEquals(3, store.load(first).getViolationLevel());
+        assertEquals(0, store.load(second).getViolationLevel());
+    }
+
+    @Test
+    public void staleIndexIsCaughtUpByReplay() throws Exception {
+        UUID player = UUID.randomUUID();
+        ProfileStore store = open();
+        store.save(profile(player, 3));
+        store.shutdown();
+        File staleIndex = new File(directory, "stale.idx");
+        Files.copy(indexFile.toPath(), staleIndex.toPath());
+
+        store = open();
+        store.save(profile(player, 6));
+        store.shutdown();
+        Files.move(staleIndex.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+        store = open();
+        assertEquals(1, store.size());
+        assertEquals(6, store.load(player).getViolationLevel());
+    }
+
+    @Test
+    public void indexCoveringMoreThanTheLogIsIgnored() throws Exception {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        ProfileStore store = open();
+        store.save(profile(first, 3));
+        awaitWritten(store, 1);
+        store.save(profile(second, 5));
+        store.shutdown();
+
+        // The log lost its last record, the checkpoint still points at it
+        try (RandomAccessFile file = new RandomAccessFile(logFile, "rw")) {
+            file.setLength(HEADER_SIZE + RECORD_SIZE);
+        }
+
+        store = open();
+        assertEquals(1, store.size());
+        assertEquals(3, store.load(first).getViolationLevel());
+        assertEquals(0, store.load(second).getViolationLevel());
+    }
+
+    @Test
+    public void compactionKeepsTheNewestRecordOfEveryPlayer() throws Exception {
+        List<UUID> players = new ArrayList<>();
+        for (int i = 0; i < COMPACT_PLAYERS; i++) {
+            players.add(UUID.randomUUID());
+        }
+
+        ProfileStore store = open();
+        for (int round = 1; round <= 3; round++) {
+            for (int i = 0; i < players.size(); i++) {
+                store.save(profile(players.get(i), round * 100 + i % 100));
+            }
+            awaitWritten(store, (long) round * players.size());
+        }
+        store.shutdown();
+
+        // Without compaction the log would hold three records per player
+        long logRecords = (logFile.length() - HEADER_SIZE) / RECORD_SIZE;
+        assertTrue("log holds " + logRecords + " records", logRecords < 2L * players.size());
+
+        store = open();
+        assertEquals(players.size(), store.size());
+        for (int i = 0; i < players.size(); i++) {
+            assertEquals(300 + i % 100, store.load(players.get(i)).getViolationLevel());
+        }
+    }
+
+    @Test
+    public void pendingProfilesAreLoadedBeforeTheyAreWritten() throws Exception {
+        UUID written = UUID.randomUUID();
+        UUID unwritten = UUID.randomUUID();
+        ProfileStore store = open();
+        store.save(profile(written, 3));
+        awaitWritten(store, 1);
+
+        store.save(profile(written, 4));
+        store.save(profile(unwritten, 2));
+        assertEquals(4, store.load(written).getViolationLevel());
+        assertEquals(2, store.load(unwritten).getViolationLevel());
+
+        store.shutdown();
+        store = open();
+        assertEquals(4, store.load(written).getViolationLevel());
+        assertEquals(2, store.load(unwritten).getViolationLevel());
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
@@ -0,0 +1,176 @@
+package com.nobaritone.plugin;
+
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RotationAnalyzerTest {
+    private static final int CAPACITY = 32;
+    // Exactly representable, and 90 degrees is not a multiple of it
+    private static final double PITCH_STEP = 0.4375;
+
+    @Test
+    public void matchesBruteForceOnRandomRotations() {
+        Random random = new Random(7);
+        check(random, (i, previous) -> (float) (previous + random.nextGaussian() * 15));
+    }
+
+    @Test
+    public void matchesBruteForceOnOscillatingRotations() {
+        Random random = new Random(11);
+        check(random, (i, previous) -> (float) (previous + 20 * Math.sin(2 * Math.PI * i / 8) + random.nextGaussian()));
+    }
+
+    @Test
+    public void matchesBruteForceOnConstantTurns() {
+        Random random = new Random(13);
+        check(random, (i, previous) -> previous + 12.5f);
+    }
+
+    private interface YawSource {
+        float next(int i, float previous);
+    }
+
+    /**
+     * Feeds rotations across many evictions and resyncs, checking every statistic against a
+     * recomputation over a mirror of the window after each one
+     */
+    private void check(Random random, YawSource yaws) {
+        RotationAnalyzer analyzer = new RotationAnalyzer(CAPACITY);
+        ArrayDeque<double[]> window = new ArrayDeque<>();
+        boolean hasLast = false;
+        float lastYaw = 0;
+        float lastPitch = 0;
+        float yaw = 0;
+        // Start close enough to the pitch limit to hit it now and then
+        float pitch = 85;
+
+        for (int i = 0; i < 20 * CAPACITY; i++) {
+            yaw = yaws.next(i, yaw);
+            // Mouse input moves the pitch in whole steps, the client clamps it at the limits.
+            // Odd steps are rare, so the window divisor changes as they enter and leave it.
+            int steps = random.nextInt(30) == 0 ? 1 : (random.nextInt(5) - 2) * 2;
+            pitch = (float) Math.max(-90, Math.min(90, pitch + steps * PITCH_STEP));
+            boolean restart = random.nextInt(40) == 0;
+
+            if (restart) {
+                analyzer.addAndRestart(yaw, pitch);
+            } else {
+                analyzer.add(yaw, pitch);
+            }
+
+            if (hasLast) {
+                double yawDelta = wrap((double) yaw - lastYaw);
+                double pitchDelta = (double) pitch - lastPitch;
+                // Changes ending at the pitch limit do not count towards the divisor
+                double divisorDelta = Math.abs(pitch) >= 90 ? 0 : pitchDelta;
+                if (window.size() == CAPACITY) {
+                    window.removeFirst();
+                }
+                window.addLast(new double[] {yawDelta, pitchDelta, divisorDelta});
+            }
+            hasLast = !restart;
+            lastYaw = yaw;
+            lastPitch = pitch;
+
+            assertWindow(analyzer, window, i);
+        }
+    }
+
+    private void assertWindow(RotationAnalyzer analyzer, ArrayDeque<double[]> window, int i) {
+        String at = "after rotation " + i;
+        assertEquals(at, window.size(), analyzer.size());
+
+        double yawSum = 0;
+        double yawSquares = 0;
+        double pitchSum = 0;
+        double pitchSquares = 0;
+        double gcd = 0;
+        for (double[] change : window) {
+            yawSum += change[0];
+            yawSquares += change[0] * change[0];
+            pitchSum += change[1];
+            pitchSquares += change[1] * change[1];
+            gcd = RotationAnalyzer.gcd(gcd, change[2]);
+        }
+
+        int n = window.size();
+        double yawMean = n == 0 ? 0 : yawSum / n;
+        double pitchMean = n == 0 ? 0 : pitchSum / n;
+        assertEquals(at, yawMean, analyzer.getMeanYawDelta(), 1e-6);
+        assertEquals(at, pitchMean, analyzer.getMeanPitchDelta(), 1e-6);
+        assertEquals(at, n == 0 ? 0 : Math.sqrt(Math.max(0, yawSquares / n - yawMean * yawMean)),
+                analyzer.getYawDeltaDeviation(), 1e-6);
+        assertEquals(at, n == 0 ? 0 : Math.sqrt(Math.max(0, pitchSquares / n - pitchMean * pitchMean)),
+                analyzer.getPitchDeltaDeviation(), 1e-6);
+        assertEquals(at, gcd, analyzer.getPitchGcd(), 1e-9);
+        assertEquals(at, 0, Math.IEEEremainder(analyzer.getPitchGcd(), PITCH_STEP), 1e-9);
+
+        double[] periodicity = periodicity(window, yawSquares - yawSum * yawSum / CAPACITY);
+        assertEquals(at, periodicity[0], analyzer.getPeriodicity(), 1e-6);
+        if (periodicity[0] > 0) {
+            assertEquals(at, periodicity[1], analyzer.getDominantPeriod(), 0);
+        }
+    }
+
+    /**
+     * Share of the variance in the strongest tracked frequency and its period, by a plain DFT
+     */
+    private double[] periodicity(ArrayDeque<double[]> window, double varianceSum) {
+        if (window.size() < CAPACITY || varianceSum < 1e-9) {
+            return new double[] {0, 0};
+        }
+
+        List<Double> yawDeltas = new ArrayList<>();
+        for (double[] change : window) {
+            yawDeltas.add(change[0]);
+        }
+
+        double best = -1;
+        int bestBin = 0;
+        for (int k : bins()) {
+            double real = 0;
+            double imaginary = 0;
+            for (int t = 0; t < CAPACITY; t++) {
+                double angle = 2 * Math.PI * k * t / CAPACITY;
+                real += yawDeltas.get(t) * Math.cos(angle);
+                imaginary -= yawDeltas.get(t) * Math.sin(angle);
+            }
+            double mirrored = k * 2 == CAPACITY ? 1 : 2;
+            double share = Math.min(1, mirrored * (real * real + imaginary * imaginary) / (CAPACITY * varianceSum));
+            if (share > best + 1e-9) {
+                best = share;
+                bestBin = k;
+            }
+        }
+        assertTrue(best >= 0);
+        return new double[] {best, (double) CAPACITY / bestBin};
+    }
+
+    private static List<Integer> bins() {
+        List<Integer> bins = new ArrayList<>();
+        for (int k = 1; k <= CAPACITY / 2; k = Math.max(k + 1, k * 3 / 2)) {
+            bins.add(k);
+        }
+        if (bins.get(bins.size() - 1) != CAPACITY / 2) {
+            bins.add(CAPACITY / 2);
+        }
+        return bins;
+    }
+
+    private static double wrap(double degrees) {
+        double wrapped = degrees % 360;
+        if (wrapped >= 180) {
+            wrapped -= 360;
+        } else if (wrapped < -180) {
+            wrapped += 360;
+        }
+        return wrapped;
+    }
+}
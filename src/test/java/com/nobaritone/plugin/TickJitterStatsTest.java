@@ -0,0 +1,59 @@
+package com.nobaritone.plugin;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TickJitterStatsTest {
+    private static final long TICK = 50_000;
+    private static final long STEADY = 500;
+
+    @Test
+    public void packetsOnTheTickAreSteady() {
+        TickJitterStats stats = new TickJitterStats(32, TICK, STEADY);
+        long time = 1_000_000;
+        for (int i = 0; i < 40; i++) {
+            stats.add(time);
+            // Skipped ticks still line up with the tick
+            time += (i % 5 == 0 ? 2 : 1) * TICK + 100;
+        }
+
+        assertEquals(32, stats.size());
+        assertEquals(1.0, stats.getSteadyRatio(), 0);
+        assertEquals(100, stats.getMeanJitterMicros(), 0.001);
+    }
+
+    @Test
+    public void networkJitterIsNotSteady() {
+        TickJitterStats stats = new TickJitterStats(64, TICK, STEADY);
+        Random random = new Random(1);
+        long tick = 0;
+        for (int i = 0; i < 64; i++) {
+            // Packets leave on the client tick and take 20 to 30ms to arrive
+            stats.add(tick + 20_000 + random.nextInt(10_000));
+            tick += TICK;
+        }
+
+        assertTrue("steady ratio " + stats.getSteadyRatio(), stats.getSteadyRatio() < 0.3);
+        assertTrue(stats.getMeanJitterMicros() > 1_000);
+    }
+
+    @Test
+    public void idleGapsAreIgnored() {
+        TickJitterStats stats = new TickJitterStats(8, TICK, STEADY);
+        stats.add(0);
+        stats.add(TICK);
+        stats.add(TICK + 30 * TICK + 20_000);
+        stats.add(TICK + 31 * TICK + 20_000);
+
+        assertEquals(2, stats.size());
+        assertEquals(1.0, stats.getSteadyRatio(), 0);
+
+        stats.clear();
+        assertEquals(0, stats.size());
+        assertEquals(0, stats.getSteadyRatio(), 0);
+    }
+}
@@ -0,0 +1,157 @@
+package com.nobaritone.plugin;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+public class ViolationSyncTest {
+    private static final String SECRET = "shared-secret";
+    private static final long EXPIRY = TimeUnit.MINUTES.toMillis(10);
+    private static final long NOW = 1_600_000_000_000L;
+    private static final UUID PLAYER = UUID.randomUUID();
+    private static final BiConsumer<UUID, ViolationSync.State> IGNORE = (playerId, state) -> { };
+
+    private final List<ViolationSync> nodes = new ArrayList<>();
+    private final List<byte[]> captured = new ArrayList<>();
+    private String channel;
+    private LoopbackTransport tap;
+
+    @Before
+    public void setUp() {
+        channel = "test-" + UUID.randomUUID();
+        tap = new LoopbackTransport(channel);
+        tap.start(captured::add);
+    }
+
+    @After
+    public void tearDown() {
+        for (ViolationSync node : nodes) {
+            node.stop();
+        }
+        tap.stop();
+    }
+
+    private ViolationSync node(String channel, String secret) throws Exception {
+        ViolationSync node = new ViolationSync(new LoopbackTransport(channel), secret, EXPIRY);
+        node.start();
+        nodes.add(node);
+        return node;
+    }
+
+    @Test
+    public void newestChangeWinsOnEveryNode() throws Exception {
+        ViolationSync first = node(channel, SECRET);
+        ViolationSync second = node(channel, SECRET);
+        first.update(PLAYER, 3, NOW, NOW, NOW);
+        second.update(PLAYER, 5, NOW + 1000, NOW + 1000, NOW + 1000);
+
+        first.run(NOW + 1000, IGNORE);
+        second.run(NOW + 1000, IGNORE);
+        first.run(NOW + 1000, IGNORE);
+
+        assertEquals(5, first.getState(PLAYER).getLevel());
+        assertEquals(5, second.getState(PLAYER).getLevel());
+        assertEquals(1, first.getMergedUpdates());
+        assertEquals(1, second.getStaleUpdates());
+    }
+
+    @Test
+    public void duplicateMessagesAreMergedOnce() throws Exception {
+        ViolationSync sender = node(channel, SECRET);
+        ViolationSync receiver = node("other-" + channel, SECRET);
+        sender.update(PLAYER, 3, NOW, NOW, NOW);
+        sender.run(NOW, IGNORE);
+        assertEquals(1, captured.size());
+
+        AtomicInteger updates = new AtomicInteger();
+        receiver.receive(captured.get(0));
+        receiver.receive(captured.get(0));
+        receiver.run(NOW, (playerId, state) -> updates.incrementAndGet());
+
+        assertEquals(1, updates.get());
+        assertEquals(1, receiver.getMergedUpdates());
+        assertEquals(1, receiver.getStaleUpdates());
+        assertEquals(3, receiver.getState(PLAYER).getLevel());
+    }
+
+    @Test
+    public void staleMessagesDoNotReplaceNewerOnes() throws Exception {
+        ViolationSync sender = node(channel, SECRET);
+        ViolationSync receiver = node("other-" + channel, SECRET);
+        sender.update(PLAYER, 2, NOW, NOW, NOW);
+        sender.run(NOW, IGNORE);
+        sender.update(PLAYER, 4, NOW + 1000, NOW + 1000, NOW + 1000);
+        sender.run(NOW + 1000, IGNORE);
+        assertEquals(2, captured.size());
+
+        // Delivered out of order
+        receiver.receive(captured.get(1));
+        receiver.receive(captured.get(0));
+        receiver.run(NOW + 1000, IGNORE);
+
+        assertEquals(4, receiver.getState(PLAYER).getLevel());
+        assertEquals(1, receiver.getStaleUpdates());
+    }
+
+    @Test
+    public void unauthenticatedMessagesAreDropped() throws Exception {
+        ViolationSync sender = node(channel, SECRET);
+        ViolationSync receiver = node("other-" + channel, "another-secret");
+        ViolationSync tamperedReceiver = node("tampered-" + channel, SECRET);
+        sender.update(PLAYER, 3, NOW, NOW, NOW);
+        sender.run(NOW, IGNORE);
+
+        receiver.receive(captured.get(0));
+        receiver.run(NOW, IGNORE);
+        assertNull(receiver.getState(PLAYER));
+        assertEquals(1, receiver.getDroppedMessages());
+
+        // Raise the violation level of the first record without updating the MAC
+        byte[] tampered = captured.get(0).clone();
+        tampered[13 + 16 + 8 + 3]++;
+        tamperedReceiver.receive(tampered);
+        tamperedReceiver.run(NOW, IGNORE);
+        assertNull(tamperedReceiver.getState(PLAYER));
+        assertEquals(1, tamperedReceiver.getDroppedMessages());
+    }
+
+    @Test
+    public void versionsFarAheadOfTheClockAreRejected() throws Exception {
+        ViolationSync sender = node(channel, SECRET);
+        ViolationSync receiver = node("other-" + channel, SECRET);
+        UUID slightlyAhead = UUID.randomUUID();
+        long future = NOW + TimeUnit.MINUTES.toMillis(10);
+        sender.update(PLAYER, 3, future, future, future);
+        sender.update(slightlyAhead, 2, NOW + 1000, NOW + 1000, NOW + 1000);
+        sender.run(future, IGNORE);
+
+        receiver.receive(captured.get(0));
+        receiver.run(NOW, IGNORE);
+
+        assertNull(receiver.getState(PLAYER));
+        assertNotNull(receiver.getState(slightlyAhead));
+        assertEquals(1, receiver.getRejectedUpdates());
+    }
+
+    @Test
+    public void secretIsRequired() {
+        try {
+            new ViolationSync(new LoopbackTransport(channel), "", EXPIRY);
+            fail("created a sync without a secret");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+    }
+}